@@ -56,6 +56,7 @@ public class DefaultRun {
         vanDeBunt,
         vanDeBuntAndDiscrete,
         covid,
+        covidWarmStart,
         covidAndDiscrete,
         computeMetrics,
         gui,
@@ -142,6 +143,10 @@ public class DefaultRun {
                 experiment = new Experiment.Covid();
                 experiment.runContinuous(0);
                 break;
+            case covidWarmStart:
+                experiment = new Experiment.Covid(Experiment.Covid.defaultPositionCacheFile);
+                experiment.runContinuous(0);
+                break;
             case covidAndDiscrete:
                 experiment = new Experiment.Covid();
                 experiment.runContinuous(5);
@@ -223,6 +228,7 @@ public class DefaultRun {
                 .build();
 
         discreteAlgorithm.iterate(100);
+        discreteAlgorithm.close();
 
         DyQuickView discreteView = new DyQuickView(discreteGraph, dataset.suggestedInterval.leftBound());
         discreteView.setAnimation(new Animation(dataset.suggestedInterval, Duration.ofSeconds(10)));
@@ -240,6 +246,7 @@ public class DefaultRun {
                 .build();
 
         algorithm.iterate(100);
+        algorithm.close();
 
         DyQuickView view = new DyQuickView(dataset.dygraph, dataset.suggestedInterval.leftBound());
         view.setAnimation(new Animation(dataset.suggestedInterval, Duration.ofSeconds(10)));
@@ -12,6 +12,7 @@ import java.util.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import ocotillo.customrun.CustomRun;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
 import ocotillo.dygraph.Evolution;
@@ -22,6 +23,7 @@ import ocotillo.dygraph.Interpolation;
 import ocotillo.dygraph.extra.DyClustering;
 import ocotillo.dygraph.extra.DyGraphDiscretiser;
 import ocotillo.dygraph.extra.DyGraphMetric;
+import ocotillo.dygraph.extra.DyPositionCache;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
 import ocotillo.dygraph.extra.StcGraphMetric;
 import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
@@ -39,6 +41,8 @@ import ocotillo.graph.layout.fdl.modular.ModularConstraint;
 import ocotillo.graph.layout.fdl.modular.ModularMetric;
 import ocotillo.graph.layout.fdl.modular.ModularPostProcessing;
 import ocotillo.graph.layout.fdl.modular.ModularStatistics;
+import ocotillo.graph.layout.fdl.modular.ModularThermostat;
+import ocotillo.graph.layout.fdl.multilevel.MultilevelFdl;
 import ocotillo.gui.quickview.DyQuickView;
 import ocotillo.samples.parsers.*;
 import ocotillo.serialization.ParserTools;
@@ -57,6 +61,7 @@ public abstract class Experiment {
     protected final String directory;
     protected final Commons.DyDataSet dataset;
     protected final double delta;
+    protected boolean multilevelPlacement = false;
 
     /**
      * Builds the experiment.
@@ -73,6 +78,17 @@ public abstract class Experiment {
         this.delta = delta;
     }
 
+    /**
+     * Indicates whether the continuous layout places the nodes with a
+     * multilevel layout before the first iteration. By default, the layout
+     * starts from the dataset positions.
+     *
+     * @param multilevelPlacement whether to place the nodes first.
+     */
+    public void setMultilevelPlacement(boolean multilevelPlacement) {
+        this.multilevelPlacement = multilevelPlacement;
+    }
+
     /**
      * Runs the layout algorithm treating the graph in continuous time.
      *
@@ -83,6 +99,17 @@ public abstract class Experiment {
 
         algorithm.showMirrorGraph();
         ModularStatistics stats = algorithm.iterate(100);
+        algorithm.close();
+        showContinuousResult(stats, k);
+    }
+
+    /**
+     * Saves the statistics of a continuous layout and shows its animation.
+     *
+     * @param stats the statistics of the layout.
+     * @param k the number of clusters. Negative for no clustering.
+     */
+    protected void showContinuousResult(ModularStatistics stats, int k) {
         stats.saveCsv(new File("build/" + name + "_Continuous.csv"));
         System.out.println("Total running time: " + stats.getTotalRunnningTime().getSeconds());
 
@@ -109,6 +136,7 @@ public abstract class Experiment {
 
         algorithm.showMirrorGraph();
         ModularStatistics stats = algorithm.iterate(100);
+        algorithm.close();
         stats.saveCsv(new File("build/" + name + "_Discrete.csv"));
         System.out.println("Total running time: " + stats.getTotalRunnningTime().getSeconds());
 
@@ -125,14 +153,45 @@ public abstract class Experiment {
     }
 
     /**
-     * Builds the layout algorithm for the given dynamic graph.
+     * Builds the layout algorithm for the given dynamic graph. If required,
+     * the nodes are placed with a multilevel layout before the first
+     * iteration.
      *
      * @param dyGraph the dynamic graph.
      * @param postProcessing eventual post processing.
      * @return the graph drawing algorithm.
      */
     public DyModularFdl getContinuousLayoutAlgorithm(DyGraph dyGraph, ModularPostProcessing postProcessing) {
+        DyModularFdl.DyModularFdlBuilder builder = getContinuousLayoutBuilder(dyGraph, postProcessing, new ModularThermostat.LinearCoolDown());
+        if (multilevelPlacement) {
+            builder.withMultilevelPlacement(new MultilevelFdl.MultilevelFdlBuilder().withEdgeLength(delta).build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the layout algorithm for the given dynamic graph.
+     *
+     * @param dyGraph the dynamic graph.
+     * @param postProcessing eventual post processing.
+     * @param thermostat the thermostat of the algorithm.
+     * @return the graph drawing algorithm.
+     */
+    public DyModularFdl getContinuousLayoutAlgorithm(DyGraph dyGraph, ModularPostProcessing postProcessing, ModularThermostat thermostat) {
+        return getContinuousLayoutBuilder(dyGraph, postProcessing, thermostat).build();
+    }
+
+    /**
+     * Builds the layout algorithm builder for the given dynamic graph.
+     *
+     * @param dyGraph the dynamic graph.
+     * @param postProcessing eventual post processing.
+     * @param thermostat the thermostat of the algorithm.
+     * @return the builder of the graph drawing algorithm.
+     */
+    private DyModularFdl.DyModularFdlBuilder getContinuousLayoutBuilder(DyGraph dyGraph, ModularPostProcessing postProcessing, ModularThermostat thermostat) {
         DyModularFdl.DyModularFdlBuilder builder = new DyModularFdl.DyModularFdlBuilder(dyGraph, dataset.suggestedTimeFactor)
+                .withThermostat(thermostat)
                 .withForce(new DyModularForce.TimeStraightning(delta))
                 .withForce(new DyModularForce.Gravity())
                 .withForce(new DyModularForce.ConnectionAttraction(delta))
@@ -145,7 +204,7 @@ public abstract class Experiment {
             builder.withPostProcessing(postProcessing);
         }
 
-        return builder.build();
+        return builder;
     }
 
     /**
@@ -222,6 +281,7 @@ public abstract class Experiment {
 //        discAlgorithm.showMirrorGraph();
         SpaceTimeCubeSynchroniser discSyncro = discAlgorithm.getSyncro();
         ModularStatistics discStats = discAlgorithm.iterate(100);
+        discAlgorithm.close();
         double discTime = computeRunningTime(discStats);
 
         DyGraph contGraph = dataset.dygraph;
@@ -229,6 +289,7 @@ public abstract class Experiment {
 //        contAlgorithm.showMirrorGraph();
         SpaceTimeCubeSynchroniser contSyncro = contAlgorithm.getSyncro();
         ModularStatistics contStats = contAlgorithm.iterate(100);
+        contAlgorithm.close();
         double contTime = computeRunningTime(contStats);
 
         List<Double> snapTimes = readSnapTimes(discGraph);
@@ -718,16 +779,96 @@ public abstract class Experiment {
      */
     public static class Covid extends Experiment {
 
+        public static final File defaultPositionCacheFile = new File("build/Covid_positions.csv");
+
         public Set<String> locationHighlightOptions;
+        public final File positionCacheFile;
 
         public Covid() {
+            this((File) null);
+        }
+
+        /**
+         * Builds the Covid experiment with a warm start. The continuous
+         * layout starts from the trajectories stored in the position cache,
+         * and the computed ones are stored back in it.
+         *
+         * @param positionCacheFile the position cache file, or null to always
+         * compute the full layout without using a cache.
+         */
+        public Covid(File positionCacheFile) {
             super("Covid", "data/Covid/", CovidTransmission.parse(Commons.Mode.keepAppearedEdges), 5);
             locationHighlightOptions = (CovidTransmission.parse(Commons.Mode.keepAppearedEdges).locationHighlightOptions);
+            this.positionCacheFile = positionCacheFile;
         }
 
         public Covid(String selectedLocation){
             super("Covid", "data/Covid/", CovidTransmission.parse(Commons.Mode.keepAppearedEdges, selectedLocation), 5);
             locationHighlightOptions = (CovidTransmission.parse(Commons.Mode.keepAppearedEdges).locationHighlightOptions);
+            this.positionCacheFile = null;
+        }
+
+        @Override
+        public void runContinuous(int k) {
+            if (positionCacheFile == null) {
+                super.runContinuous(k);
+                return;
+            }
+            CachedLayout layout = getCachedLayoutAlgorithm(dataset.dygraph, new ModularPostProcessing.DisplayCurrentIteration(), positionCacheFile);
+
+            layout.algorithm.showMirrorGraph();
+            ModularStatistics stats = layout.algorithm.iterate(layout.iterations);
+            layout.algorithm.close();
+            updatePositionCache(dataset.dygraph, positionCacheFile);
+            showContinuousResult(stats, k);
+        }
+
+        /**
+         * Builds the continuous layout algorithm for a Covid graph, starting
+         * from the trajectories stored in a position cache. When some of the
+         * nodes are found in the cache, the algorithm only performs a short
+         * low temperature refinement. Without a cache, the algorithm performs
+         * the full layout.
+         *
+         * @param dyGraph the dynamic graph.
+         * @param postProcessing eventual post processing.
+         * @param cacheFile the position cache file, or null for no cache.
+         * @return the graph drawing algorithm and its number of iterations.
+         */
+        public CachedLayout getCachedLayoutAlgorithm(DyGraph dyGraph, ModularPostProcessing postProcessing, File cacheFile) {
+            if (cacheFile == null || DyPositionCache.load(cacheFile).seed(dyGraph, delta).isEmpty()) {
+                return new CachedLayout(getContinuousLayoutAlgorithm(dyGraph, postProcessing), 100);
+            }
+            return new CachedLayout(getContinuousLayoutAlgorithm(dyGraph, postProcessing,
+                    new ModularThermostat.LinearCoolDown(CustomRun.defaultRefinementTemperature)),
+                    CustomRun.defaultRefinementIterations);
+        }
+
+        /**
+         * Stores the computed trajectories of a Covid graph in a position
+         * cache.
+         *
+         * @param dyGraph the dynamic graph.
+         * @param cacheFile the position cache file.
+         */
+        public void updatePositionCache(DyGraph dyGraph, File cacheFile) {
+            DyPositionCache cache = DyPositionCache.load(cacheFile);
+            cache.record(dyGraph);
+            cache.save(cacheFile);
+        }
+
+        /**
+         * A layout algorithm together with the number of iterations to run.
+         */
+        public static class CachedLayout {
+
+            public final DyModularFdl algorithm;
+            public final int iterations;
+
+            private CachedLayout(DyModularFdl algorithm, int iterations) {
+                this.algorithm = algorithm;
+                this.iterations = iterations;
+            }
         }
 
         @Override
@@ -22,8 +22,16 @@ import java.awt.Dimension;
 import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.event.*;
+import java.io.File;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import javax.swing.*;
 import javax.swing.event.*;
 
@@ -34,6 +42,7 @@ import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
 import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
 import ocotillo.dygraph.rendering.Animation;
 import ocotillo.graph.Graph;
+import ocotillo.graph.layout.fdl.modular.ModularRun;
 import ocotillo.graph.layout.fdl.modular.ModularStatistics;
 import ocotillo.gui.quickview.*;
 import ocotillo.various.ColorCollection;
@@ -45,6 +54,19 @@ public class Gui extends JFrame {
 
     private static final long serialVersionUID = 1L;
     private static final Color activeButton = new Color(220, 245, 220);
+
+    /**
+     * The pool that performs the layout runs of all the panels. It has at
+     * least two threads, so that the panels comparing two layouts can compute
+     * them concurrently.
+     */
+    private static final ExecutorService layoutPool = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "Gui layout");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final JTabbedPane tabbedPane = new JTabbedPane();
 
     public Gui() {
@@ -279,6 +301,8 @@ public class Gui extends JFrame {
         protected List<Graph> flattenedClusters;
 
         private SpaceTimeCubeSynchroniser synchro;
+        private SwingWorker<?, Void> activeComputation;
+        private final List<ModularRun> activeRuns = new ArrayList<>();
 
         private static final long serialVersionUID = 1L;
 
@@ -419,8 +443,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro = getSynchro();
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
                 onTimeButton.setBackground(activeButton);
@@ -429,6 +453,11 @@ public class Gui extends JFrame {
                 viewAnimationButton.setEnabled(true);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
 
@@ -457,12 +486,177 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
 
         protected abstract SpaceTimeCubeSynchroniser getSynchro();
 
+        /**
+         * Performs a computation in a background thread, so that the
+         * interface stays responsive. The callbacks are invoked on the event
+         * dispatch thread. If the computation is cancelled, the failure
+         * callback receives a CancellationException.
+         *
+         * @param <T> the type of result.
+         * @param task the computation.
+         * @param onSuccess the callback receiving the result.
+         * @param onFailure the callback receiving the failure cause.
+         */
+        protected <T> void computeInBackground(Callable<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+            cancelComputation();
+            updateComputationReport("Computation in progress...");
+            SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+                @Override
+                protected T doInBackground() throws Exception {
+                    return task.call();
+                }
+
+                @Override
+                protected void done() {
+                    if (activeComputation == this) {
+                        activeComputation = null;
+                    }
+                    try {
+                        onSuccess.accept(get());
+                    } catch (CancellationException ex) {
+                        onFailure.accept(ex);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        onFailure.accept(ex);
+                    } catch (ExecutionException ex) {
+                        onFailure.accept(ex.getCause());
+                    }
+                }
+            };
+            activeComputation = worker;
+            worker.execute();
+        }
+
+        /**
+         * Cancels the computation in progress, if any. The layout runs stop at
+         * the end of their current iteration.
+         */
+        protected void cancelComputation() {
+            synchronized (activeRuns) {
+                for (ModularRun run : activeRuns) {
+                    run.cancel();
+                }
+            }
+            if (activeComputation != null) {
+                activeComputation.cancel(true);
+                activeComputation = null;
+            }
+        }
+
+        /**
+         * Lays out a graph on the shared layout pool, reporting the progress
+         * of each iteration. Must be called by a background computation.
+         *
+         * @param algorithm the layout algorithm.
+         * @param iterations the number of iterations.
+         * @return the statistics of the run.
+         */
+        protected ModularStatistics iterate(DyModularFdl algorithm, int iterations) {
+            return iterate(Arrays.asList(algorithm), iterations).get(0);
+        }
+
+        /**
+         * Lays out several graphs concurrently on the shared layout pool,
+         * reporting the progress of each iteration. Must be called by a
+         * background computation. The algorithms are closed once their runs
+         * end.
+         *
+         * @param algorithms the layout algorithms.
+         * @param iterations the number of iterations.
+         * @return the statistics of the runs, in the same order as the
+         * algorithms.
+         */
+        protected List<ModularStatistics> iterate(List<DyModularFdl> algorithms, int iterations) {
+            AtomicReferenceArray<String> progress = new AtomicReferenceArray<>(algorithms.size());
+            List<ModularRun> runs = new ArrayList<>();
+            synchronized (activeRuns) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("The layout computation has been cancelled.");
+                }
+                for (int i = 0; i < algorithms.size(); i++) {
+                    int runIndex = i;
+                    runs.add(algorithms.get(i).runBuilder(iterations)
+                            .withExecutor(layoutPool)
+                            .withProgressListener((run, statistics) -> {
+                                progress.set(runIndex, statistics.getCompletedIterations() + "/" + run.maxIterations());
+                                String elapsed = formatTime(statistics.getIterationsRunningTime());
+                                updateComputationReport("Iteration " + progressText(progress) + " (" + elapsed + " s)");
+                            })
+                            .start());
+                }
+                activeRuns.addAll(runs);
+            }
+            try {
+                List<ModularStatistics> statistics = new ArrayList<>();
+                for (ModularRun run : runs) {
+                    statistics.add(run.await());
+                }
+                for (DyModularFdl algorithm : algorithms) {
+                    algorithm.close();
+                }
+                for (ModularRun run : runs) {
+                    if (run.isCancelled()) {
+                        throw new CancellationException("The layout computation has been cancelled.");
+                    }
+                }
+                return statistics;
+            } catch (InterruptedException ex) {
+                for (ModularRun run : runs) {
+                    run.cancel();
+                }
+                Thread.currentThread().interrupt();
+                throw new CancellationException("The layout computation has been cancelled.");
+            } finally {
+                synchronized (activeRuns) {
+                    activeRuns.removeAll(runs);
+                }
+            }
+        }
+
+        /**
+         * Joins the progress of the runs in a single text.
+         *
+         * @param progress the progress of each run.
+         * @return the progress text.
+         */
+        private static String progressText(AtomicReferenceArray<String> progress) {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (int i = 0; i < progress.length(); i++) {
+                joiner.add(progress.get(i) != null ? progress.get(i) : "0");
+            }
+            return joiner.toString();
+        }
+
+        /**
+         * Formats a duration in seconds with two decimal digits.
+         *
+         * @param duration the duration.
+         * @return the formatted duration.
+         */
+        protected static String formatTime(Duration duration) {
+            return duration.getSeconds() + "." + String.format("%02d", duration.getNano() / 10000000);
+        }
+
+        /**
+         * Informs the user of a failed computation. Cancellations are not
+         * reported.
+         *
+         * @param failure the cause of the failure.
+         */
+        protected void reportFailure(Throwable failure) {
+            if (!(failure instanceof CancellationException) && !(failure instanceof InterruptedException)) {
+                showErrorDialog("The computation failed: " + failure.getMessage());
+            }
+        }
+
         protected void showErrorDialog(String errorMessage){
             JOptionPane.showMessageDialog(new JFrame(), errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -499,7 +693,7 @@ public class Gui extends JFrame {
             DyGraph graph = experiment.discretise();
             DyModularFdl algorithm = experiment.getDiscreteLayoutAlgorithm(graph, null);
             SpaceTimeCubeSynchroniser syncrho = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -520,7 +714,7 @@ public class Gui extends JFrame {
             DyGraph graph = experiment.getContinuousCopy();
             DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithm(graph, null);
             SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -550,6 +744,7 @@ public class Gui extends JFrame {
         private static final long serialVersionUID = 1L;
         private final JComboBox<String> locationOptionsComboBox;
         private String selectedLocation;
+        private final JCheckBox warmStartCheckBox;
 
         public CovidContinuousPanel(Experiment.Covid covidExperiment) {
             super("Continuous with Location Highlight", "Compute layout", covidExperiment);
@@ -571,6 +766,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBox, 365, 25);
             locationOptionsComboBox.setBackground(activeButton);
             locationOptionsComboBox.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 selectedLocation = (String) locationOptionsComboBox.getSelectedItem();
                 if(selectedLocation.equalsIgnoreCase("No Highlight")){
                     selectedLocation = null;
@@ -578,6 +774,11 @@ public class Gui extends JFrame {
             });
             locationOptionsComboBox.setToolTipText("Choose a location or setting to highlight in the animation");
 
+            warmStartCheckBox = new JCheckBox("Warm start from the position cache");
+            warmStartCheckBox.setAlignmentX(JCheckBox.LEFT_ALIGNMENT);
+            setSize(warmStartCheckBox, 365, 25);
+            warmStartCheckBox.setToolTipText("Refine the trajectories stored in "
+                    + Experiment.Covid.defaultPositionCacheFile.getPath() + " and store the new ones there");
 
             computeButton = new JButton("Compute layout");
             setSize(computeButton, 365, 25);
@@ -675,9 +876,13 @@ public class Gui extends JFrame {
         @Override
         protected SpaceTimeCubeSynchroniser getSynchro() {
             DyGraph graph = covidExperiment.getContinuousCopyWithLocations(selectedLocation);
-            DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithm(graph, null);
-            SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            File cacheFile = warmStartCheckBox.isSelected() ? Experiment.Covid.defaultPositionCacheFile : null;
+            Experiment.Covid.CachedLayout layout = covidExperiment.getCachedLayoutAlgorithm(graph, null, cacheFile);
+            SpaceTimeCubeSynchroniser synchro = layout.algorithm.getSyncro();
+            ModularStatistics stats = iterate(layout.algorithm, layout.iterations);
+            if (cacheFile != null) {
+                covidExperiment.updatePositionCache(graph, cacheFile);
+            }
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -696,6 +901,8 @@ public class Gui extends JFrame {
             add(Box.createRigidArea(new Dimension(5, 5)));
             this.add(locationOptionsComboBox);
             add(Box.createRigidArea(new Dimension(5, 5)));
+            this.add(warmStartCheckBox);
+            add(Box.createRigidArea(new Dimension(5, 5)));
             this.add(clusterRow);
             add(Box.createRigidArea(new Dimension(5, 5)));
             this.add(clusterViewRow);
@@ -727,8 +934,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro = getSynchro();
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
                 onTimeButton.setBackground(activeButton);
@@ -738,6 +945,11 @@ public class Gui extends JFrame {
                 locationOptionsComboBox.setEnabled(false);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
 
@@ -768,8 +980,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
     }
 
@@ -817,6 +1031,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBox, 365, 25);
             locationOptionsComboBox.setBackground(activeButton);
             locationOptionsComboBox.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 selectedLocation = (String) locationOptionsComboBox.getSelectedItem();
                 if(selectedLocation.equalsIgnoreCase("No Filter")){
                     selectedLocation = null;
@@ -831,6 +1046,7 @@ public class Gui extends JFrame {
             setSize(filterSlider, 365, 35);
             filterSlider.setFont(new Font(filterSlider.getFont().getName(), Font.PLAIN, 8));
             filterSlider.addChangeListener((ChangeEvent ce) -> {
+                cancelComputation();
                 selectedFilterFactor = (double) filterSlider.getValue() / 100;
                 System.out.println("filterFactor = " + selectedFilterFactor);
             });
@@ -875,7 +1091,7 @@ public class Gui extends JFrame {
             DyGraph graph = covidExperiment.getContinuousCopyWithLocationFilter(selectedLocation, selectedFilterFactor);
             DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithm(graph, null);
             SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -929,17 +1145,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                try {
-                    synchro = getSynchro();
-                } catch (NoSuchElementException e){
-                    System.out.println("AHA"); //TODO reset!
-                    showErrorDialog("Selected filter factor too large for this location.\nPlease try a smaller one.");
-//                    filterSlider.setEnabled(true);
-//                    locationOptionsComboBox.setEnabled(true);
-                    preComputationLayout();
-                    return;
-                }
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
                 onTimeButton.setBackground(activeButton);
@@ -950,6 +1157,15 @@ public class Gui extends JFrame {
                 filterSlider.setEnabled(false);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                if (failure instanceof NoSuchElementException) {
+                    showErrorDialog("Selected filter factor too large for this location.\nPlease try a smaller one.");
+                } else {
+                    reportFailure(failure);
+                }
             });
         }
         protected void viewCube() {
@@ -963,8 +1179,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
     }
 
@@ -1007,6 +1225,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBox, 365, 25);
             locationOptionsComboBox.setBackground(activeButton);
             locationOptionsComboBox.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 selectedLocation = (String) locationOptionsComboBox.getSelectedItem();
                 if(selectedLocation.equalsIgnoreCase("No Filter")){
                     selectedLocation = null;
@@ -1051,7 +1270,7 @@ public class Gui extends JFrame {
             DyGraph graph = covidExperiment.getContinuousCopyWithLocationAttraction(selectedLocation);
             DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithm(graph, null);
             SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -1101,8 +1320,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro = getSynchro();
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
                 onTimeButton.setBackground(activeButton);
@@ -1112,6 +1331,11 @@ public class Gui extends JFrame {
                 locationOptionsComboBox.setEnabled(false);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
         protected void viewCube() {
@@ -1126,8 +1350,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
     }
 
@@ -1165,6 +1391,7 @@ public class Gui extends JFrame {
             setSize(pinNodesButton, 365, 25);
             pinNodesButton.setBackground(activeButton);
             pinNodesButton.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 isPinned = true;
                 pinNodesButton.setEnabled(false);
             });
@@ -1185,6 +1412,7 @@ public class Gui extends JFrame {
             //setSize(locationOptionsList, 365, 70);
             locationOptionsList.setBackground(activeButton);
             locationOptionsList.addListSelectionListener((ListSelectionEvent listSelectionEvent) -> {
+                cancelComputation();
                 if(!locationOptionsList.getValueIsAdjusting()){
                     selectedLocationsList = locationOptionsList.getSelectedValuesList();
                     if(locationOptionsList.getSelectedValue().equalsIgnoreCase("No Pole")){
@@ -1239,7 +1467,7 @@ public class Gui extends JFrame {
             DyGraph graph = covidExperiment.getContinuousCopyWithMultipleLocationsAttraction(selectedLocationsList);
             DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithmCovid(graph, null, isPinned);
             SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -1293,8 +1521,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro = getSynchro();
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 pinNodesButton.setEnabled(false);
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
@@ -1305,6 +1533,11 @@ public class Gui extends JFrame {
                 locationOptionsList.setEnabled(false);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
         protected void viewCube() {
@@ -1318,8 +1551,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
 
     }
@@ -1369,6 +1604,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBoxFrom, 365, 25);
             locationOptionsComboBoxFrom.setBackground(activeButton);
             locationOptionsComboBoxFrom.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 selectedLocationFrom = (String) locationOptionsComboBoxFrom.getSelectedItem();
                 if(selectedLocationFrom.equalsIgnoreCase("No Highlight For Source Location")){
                     System.out.println(selectedLocationFrom);
@@ -1387,6 +1623,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBoxTo, 365, 25);
             locationOptionsComboBoxTo.setBackground(activeButton);
             locationOptionsComboBoxTo.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 selectedLocationTo = (String) locationOptionsComboBoxTo.getSelectedItem();
                 if(selectedLocationTo.equalsIgnoreCase("No Highlight For Target Location")){
                     System.out.println(selectedLocationTo);
@@ -1495,7 +1732,7 @@ public class Gui extends JFrame {
             DyGraph graph = covidExperiment.getContinuousCopyWithTransmission(selectedLocationFrom, selectedLocationTo);
             DyModularFdl algorithm = experiment.getContinuousLayoutAlgorithm(graph, null);
             SpaceTimeCubeSynchroniser synchro = algorithm.getSyncro();
-            ModularStatistics stats = algorithm.iterate(100);
+            ModularStatistics stats = iterate(algorithm, 100);
             String time = stats.getTotalRunnningTime().getSeconds() + "."
                     + String.format("%02d", stats.getTotalRunnningTime().getNano() / 10000000);
             updateComputationReport("Layout computed in " + time + " s");
@@ -1549,8 +1786,8 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro = getSynchro();
+            computeInBackground(this::getSynchro, result -> {
+                synchro = result;
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
                 onTimeButton.setBackground(activeButton);
@@ -1561,6 +1798,11 @@ public class Gui extends JFrame {
                 locationOptionsComboBoxTo.setEnabled(false);
                 onTimeButton.setEnabled(true);
                 onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
 
@@ -1589,8 +1831,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
     }
 
@@ -1642,6 +1886,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBox1, 365, 25);
             locationOptionsComboBox1.setBackground(activeButton);
             locationOptionsComboBox1.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 String selectedLocation1 = (String) locationOptionsComboBox1.getSelectedItem();
                 selectedLocations.add(selectedLocation1);
                 if(selectedLocation1.equalsIgnoreCase("No Highlight For Location 1")){
@@ -1661,6 +1906,7 @@ public class Gui extends JFrame {
             setSize(locationOptionsComboBox2, 365, 25);
             locationOptionsComboBox2.setBackground(activeButton);
             locationOptionsComboBox2.addActionListener((ActionEvent ae) -> {
+                cancelComputation();
                 String selectedLocation2 = (String) locationOptionsComboBox2.getSelectedItem();
                 selectedLocations.add(selectedLocation2);
                 if(selectedLocation2.equalsIgnoreCase("No Highlight For Location 2")){
@@ -1774,19 +2020,11 @@ public class Gui extends JFrame {
             DyModularFdl algorithm2 = experiment.getContinuousLayoutAlgorithm(graph2, null);
             SpaceTimeCubeSynchroniser synchro1 = algorithm1.getSyncro();
             SpaceTimeCubeSynchroniser synchro2 = algorithm2.getSyncro();
-            ModularStatistics stats1 = algorithm1.iterate(100);
-            ModularStatistics stats2 = algorithm2.iterate(100);
-            String time1 = stats1.getTotalRunnningTime().getSeconds() + "."
-                    + String.format("%02d", stats1.getTotalRunnningTime().getNano() / 10000000);
-//            String time2 = stats2.getTotalRunnningTime().getSeconds() + "."
-//                    + String.format("%02d", stats1.getTotalRunnningTime().getNano() / 10000000);
-//            int time1Int = Integer.parseInt(time1);
-//            int time2Int = Integer.parseInt(time2);
-//
-//            int time = Math.max(time1Int, time2Int);
-//            String timeString = Integer.toString(time);
+            List<ModularStatistics> stats = iterate(Arrays.asList(algorithm1, algorithm2), 100);
+            Duration time1 = stats.get(0).getTotalRunnningTime();
+            Duration time2 = stats.get(1).getTotalRunnningTime();
             updateComputationReport("Layout computed in "
-                    + time1 + " s");
+                    + formatTime(time1.compareTo(time2) > 0 ? time1 : time2) + " s");
 
             synchrosList.add(synchro1);
             synchrosList.add(synchro2);
@@ -1840,9 +2078,9 @@ public class Gui extends JFrame {
         private void compute() {
             postComputationLayout();
             revalidate();
-            EventQueue.invokeLater(() -> {
-                synchro1 = getSynchroList().get(0);
-                synchro2 = getSynchroList().get(1);
+            computeInBackground(this::getSynchroList, result -> {
+                synchro1 = result.get(0);
+                synchro2 = result.get(1);
                 viewCubeButton.setBackground(activeButton);
                 viewAnimationButton.setBackground(activeButton);
 //                onTimeButton.setBackground(activeButton);
@@ -1853,6 +2091,11 @@ public class Gui extends JFrame {
                 locationOptionsComboBox2.setEnabled(false);
 //                onTimeButton.setEnabled(true);
 //                onCubeButton.setEnabled(true);
+            }, failure -> {
+                preComputationLayout();
+                revalidate();
+                repaint();
+                reportFailure(failure);
             });
         }
 
@@ -1889,8 +2132,10 @@ public class Gui extends JFrame {
         }
 
         protected void updateComputationReport(String text) {
-            computationReport.setForeground(Color.GRAY);
-            computationReport.setText(text);
+            EventQueue.invokeLater(() -> {
+                computationReport.setForeground(Color.GRAY);
+                computationReport.setText(text);
+            });
         }
 
         @Override
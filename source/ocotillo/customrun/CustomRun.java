@@ -18,22 +18,23 @@ package ocotillo.customrun;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
 import ocotillo.dygraph.Evolution;
 import ocotillo.dygraph.Function;
 import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.extra.DyPositionCache;
 import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
-import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
-import ocotillo.dygraph.layout.fdl.modular.DyModularPostProcessing.FlexibleTimeTrajectories;
+import ocotillo.dygraph.layout.fdl.modular.DyTimeSlabFdl;
 import ocotillo.geometry.Coordinates;
-import ocotillo.geometry.Geom;
 import ocotillo.geometry.Interval;
 import ocotillo.graph.Edge;
 import ocotillo.graph.Node;
 import ocotillo.graph.StdAttribute;
-import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.fdl.modular.ModularThermostat;
+import ocotillo.graph.layout.fdl.multilevel.MultilevelFdl;
 import ocotillo.samples.parsers.Commons;
 import ocotillo.serialization.ParserTools;
 
@@ -46,6 +47,9 @@ public class CustomRun {
     public static final double defaultTau = 1.0;
     public static final int defaultNumberOfIterations = 100;
     public static final String defaultOutput = "output.txt";
+    public static final int defaultRefinementIterations = 20;
+    public static final double defaultRefinementTemperature = 0.2;
+    public static final int defaultNumberOfSlabs = 1;
 
     /**
      * Executes the custom run.
@@ -53,6 +57,26 @@ public class CustomRun {
      * @param argv the parameters.
      */
     public static void main(String[] argv) {
+        int numberOfSlabs = defaultNumberOfSlabs;
+        boolean multilevelPlacement = false;
+        List<String> parameters = new ArrayList<>();
+        for (String argument : argv) {
+            if (argument.startsWith("--slabs=")) {
+                try {
+                    int possibleSlabs = Integer.parseInt(argument.substring("--slabs=".length()));
+                    numberOfSlabs = possibleSlabs > 0 ? possibleSlabs : numberOfSlabs;
+                } catch (Exception e) {
+                    System.err.println("Cannot parse the number of slabs correctly. \n");
+                    showHelp();
+                }
+            } else if (argument.equals("--multilevel")) {
+                multilevelPlacement = true;
+            } else {
+                parameters.add(argument);
+            }
+        }
+        argv = parameters.toArray(new String[parameters.size()]);
+
         if (argv.length < 2) {
             showHelp();
         }
@@ -99,10 +123,19 @@ public class CustomRun {
             output = argv[4];
         }
 
+        File positionCache = null;
+        if (argv.length >= 6) {
+            positionCache = new File(argv[5]);
+        }
+
         CustomRun customRun = new CustomRun(nodeDataSetLines, edgeDataSetLines,
-                delta, tau, output);
+                delta, tau, output, numberOfSlabs, multilevelPlacement);
         DyGraph dyGraph = customRun.createDynamicGraph();
-        customRun.runDynnoSlice(dyGraph);
+        if (positionCache != null) {
+            customRun.runDynnoSliceWithCache(dyGraph, positionCache);
+        } else {
+            customRun.runDynnoSlice(dyGraph);
+        }
         customRun.saveOutput(dyGraph);
     }
 
@@ -116,6 +149,9 @@ public class CustomRun {
         System.out.println("delta (optional):      the desired node distance on the plane.");
         System.out.println("tau (optional):        the conversion factor of time into space.");
         System.out.println("ouputFile (optional):  the output file (csv file with node,xCoord,yCoord,time).");
+        System.out.println("cacheFile (optional):  the position cache, seeded from and updated with the layout (same format of the output).");
+        System.out.println("--slabs=N (optional):  lays out N time slabs in parallel, convenient for graphs spanning a long time range.");
+        System.out.println("--multilevel (optional): places the nodes with a multilevel layout before the full layout.");
         System.out.println("");
         System.out.println("Node dataset example:");
         System.out.println("Alice,1,5");
@@ -133,6 +169,8 @@ public class CustomRun {
     private final double delta;
     private final double tau;
     private final String output;
+    private final int numberOfSlabs;
+    private final boolean multilevelPlacement;
 
     /**
      * Custom run constructor.
@@ -142,14 +180,20 @@ public class CustomRun {
      * @param delta the delta parameter.
      * @param tau the tau parameter.
      * @param output the path of the output file.
+     * @param numberOfSlabs the number of time slabs laid out in parallel, or
+     * one to lay out the whole graph at once.
+     * @param multilevelPlacement whether the nodes are placed with a
+     * multilevel layout before the full layout.
      */
     public CustomRun(List<String> nodeDataSetLines, List<String> edgeDataSetLines,
-            double delta, double tau, String output) {
+            double delta, double tau, String output, int numberOfSlabs, boolean multilevelPlacement) {
         this.nodeDataSet = NodeAppearance.parseDataSet(nodeDataSetLines);
         this.edgeDataSet = EdgeAppearance.parseDataSet(edgeDataSetLines);
         this.delta = delta;
         this.tau = tau;
         this.output = output;
+        this.numberOfSlabs = numberOfSlabs;
+        this.multilevelPlacement = multilevelPlacement;
         checkNodeAppearanceCorrectness(nodeDataSet);
         checkEdgeAppearanceCorrectness(edgeDataSet);
     }
@@ -274,17 +318,69 @@ public class CustomRun {
      * @param graph the dynamic dyGraph.
      */
     public void runDynnoSlice(DyGraph graph) {
-        DyModularFdl algorithm = new DyModularFdl.DyModularFdlBuilder(graph, tau)
-                .withForce(new DyModularForce.TimeStraightning(delta))
-                .withForce(new DyModularForce.Gravity())
-                .withForce(new DyModularForce.ConnectionAttraction(delta))
-                .withForce(new DyModularForce.EdgeRepulsion(delta))
-                .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
-                .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e3D))
-                .withPostProcessing(new FlexibleTimeTrajectories(delta * 1.5, delta * 2.0, Geom.e3D))
-                .build();
+        runDynnoSlice(graph, 1, defaultNumberOfIterations, multilevelPlacement);
+    }
+
+    /**
+     * Runs the layout algorithm starting from the positions stored in a
+     * position cache. When some of the nodes are found in the cache, only a
+     * short low temperature refinement is performed. The cache is then updated
+     * with the computed trajectories.
+     *
+     * @param graph the dynamic dyGraph.
+     * @param cacheFile the position cache file.
+     */
+    public void runDynnoSliceWithCache(DyGraph graph, File cacheFile) {
+        DyPositionCache cache = DyPositionCache.load(cacheFile);
+        Set<Node> cachedNodes = cache.seed(graph, delta);
+        if (cachedNodes.isEmpty()) {
+            runDynnoSlice(graph);
+        } else {
+            runDynnoSlice(graph, defaultRefinementTemperature, defaultRefinementIterations, false);
+        }
+        cache.record(graph);
+        cache.save(cacheFile);
+    }
+
+    /**
+     * Runs the layout algorithm with a linear cool down from the given
+     * temperature. When more than one slab is requested, the time slabs are
+     * laid out in parallel, after placing the nodes of the whole graph if
+     * required.
+     *
+     * @param graph the dynamic dyGraph.
+     * @param initialTemperature the initial temperature.
+     * @param numberOfIterations the number of iterations.
+     * @param placement whether the nodes are placed with a multilevel layout
+     * before the first iteration.
+     */
+    private void runDynnoSlice(DyGraph graph, double initialTemperature, int numberOfIterations, boolean placement) {
+        if (numberOfSlabs > 1) {
+            if (placement) {
+                new DyModularFdl.DyModularFdlBuilder(graph, tau)
+                        .withMultilevelPlacement(new MultilevelFdl.MultilevelFdlBuilder().withEdgeLength(delta).build())
+                        .build()
+                        .close();
+            }
+            DyTimeSlabFdl algorithm = new DyTimeSlabFdl.DyTimeSlabFdlBuilder(graph, tau,
+                    builder -> builder.withDynnoSliceModules(delta))
+                    .withSlabs(numberOfSlabs)
+                    .withInitialTemperature(initialTemperature)
+                    .build();
 
-        algorithm.iterate(defaultNumberOfIterations);
+            algorithm.iterate(numberOfIterations);
+        } else {
+            DyModularFdl.DyModularFdlBuilder builder = new DyModularFdl.DyModularFdlBuilder(graph, tau)
+                    .withDynnoSliceModules(delta)
+                    .withThermostat(new ModularThermostat.LinearCoolDown(initialTemperature));
+            if (placement) {
+                builder.withMultilevelPlacement(new MultilevelFdl.MultilevelFdlBuilder().withEdgeLength(delta).build());
+            }
+            DyModularFdl algorithm = builder.build();
+
+            algorithm.iterate(numberOfIterations);
+            algorithm.close();
+        }
     }
 
     /**
@@ -84,6 +84,17 @@ public class Evolution<T> implements Iterable<Function<T>> {
         }
     }
 
+    /**
+     * Gets the function that defines the evolution at a given point.
+     *
+     * @param x the point.
+     * @return the function defined at that point, or null if the evolution
+     * is not defined there.
+     */
+    public Function<T> functionAt(double x) {
+        return intervalTree.getAnyContaining(x);
+    }
+
     /**
      * Inserts a function in the evolution.
      *
@@ -158,12 +158,12 @@ public interface DyClustering {
          */
         protected List<Coordinates> sampleConnection(MirrorLine line, Interval mirrorInterval, double edgeSampling) {
             int numberOfPoints = (int) Math.floor(mirrorInterval.width() / edgeSampling);
-            double gap = mirrorInterval.width() / numberOfPoints;
-            List<Coordinates> edgePoints = new ArrayList<>();
-            for (double time = mirrorInterval.leftBound(); time <= mirrorInterval.rightBound(); time = time + gap) {
-                edgePoints.add(line.positionAtMirrorTime(time));
+            double gap = numberOfPoints > 0 ? mirrorInterval.width() / numberOfPoints : 0;
+            double[] mirrorTimes = new double[numberOfPoints + 1];
+            for (int i = 0; i < mirrorTimes.length; i++) {
+                mirrorTimes[i] = mirrorInterval.leftBound() + i * gap;
             }
-            return edgePoints;
+            return line.positionsAtMirrorTimes(mirrorTimes);
         }
 
         /**
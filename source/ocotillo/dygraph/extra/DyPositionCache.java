@@ -0,0 +1,288 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.serialization.ParserTools;
+
+/**
+ * Cache of the node trajectories computed by a previous layout, used to warm
+ * start the layout of an updated dynamic graph. Trajectories are indexed by
+ * the stable identifier of the nodes, which is their origin id when present
+ * and their id otherwise. The cache is stored as lines in the form
+ * node,xCoord,yCoord,time, the same format used by the custom run output.
+ */
+public class DyPositionCache {
+
+    private final Map<String, List<Coordinates>> trajectories = new HashMap<>();
+
+    /**
+     * Loads a position cache from file. An empty cache is returned if the file
+     * does not exist.
+     *
+     * @param file the cache file.
+     * @return the position cache.
+     */
+    public static DyPositionCache load(File file) {
+        DyPositionCache cache = new DyPositionCache();
+        if (!file.exists()) {
+            return cache;
+        }
+        for (String line : ParserTools.readFileLines(file)) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int timeComma = line.lastIndexOf(',');
+            int yComma = line.lastIndexOf(',', timeComma - 1);
+            int xComma = line.lastIndexOf(',', yComma - 1);
+            if (xComma <= 0) {
+                throw new IllegalArgumentException("The position cache line \"" + line + "\" is not valid.");
+            }
+            String key = line.substring(0, xComma);
+            Coordinates point = new Coordinates(
+                    Double.parseDouble(line.substring(xComma + 1, yComma)),
+                    Double.parseDouble(line.substring(yComma + 1, timeComma)),
+                    Double.parseDouble(line.substring(timeComma + 1)));
+            cache.trajectories.computeIfAbsent(key, k -> new ArrayList<>()).add(point);
+        }
+        for (List<Coordinates> trajectory : cache.trajectories.values()) {
+            trajectory.sort(Comparator.comparingDouble(Coordinates::z));
+        }
+        return cache;
+    }
+
+    /**
+     * Saves the position cache to file.
+     *
+     * @param file the cache file.
+     */
+    public void save(File file) {
+        List<String> keys = new ArrayList<>(trajectories.keySet());
+        Collections.sort(keys);
+        List<String> lines = new ArrayList<>();
+        for (String key : keys) {
+            for (Coordinates point : trajectories.get(key)) {
+                lines.add(key + "," + point.x() + "," + point.y() + "," + point.z());
+            }
+        }
+        ParserTools.writeFileLines(lines, file);
+    }
+
+    /**
+     * Returns the stable identifier of a node.
+     *
+     * @param node the node.
+     * @return the origin id of the node if present, its id otherwise.
+     */
+    public static String key(Node node) {
+        return node.originId() != null ? node.originId() : node.id();
+    }
+
+    /**
+     * Checks if the cache contains the trajectory of a node.
+     *
+     * @param node the node.
+     * @return true if the trajectory of the node is cached.
+     */
+    public boolean contains(Node node) {
+        return trajectories.containsKey(key(node));
+    }
+
+    /**
+     * Returns the number of cached trajectories.
+     *
+     * @return the number of trajectories.
+     */
+    public int size() {
+        return trajectories.size();
+    }
+
+    /**
+     * Stores the current trajectories of the graph nodes, replacing the
+     * cached ones of the same nodes.
+     *
+     * @param graph the dynamic graph.
+     */
+    public void record(DyGraph graph) {
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        for (Node node : graph.nodes()) {
+            List<Coordinates> trajectory = new ArrayList<>();
+            double previousTime = Double.NEGATIVE_INFINITY;
+            for (Function<Coordinates> function : positions.get(node)) {
+                Interval interval = function.interval();
+                if (interval.leftBound() != previousTime) {
+                    Coordinates start = function.leftValue();
+                    trajectory.add(new Coordinates(start.x(), start.y(), interval.leftBound()));
+                }
+                Coordinates end = function.rightValue();
+                trajectory.add(new Coordinates(end.x(), end.y(), interval.rightBound()));
+                previousTime = interval.rightBound();
+            }
+            if (trajectory.isEmpty()) {
+                Coordinates position = positions.get(node).getDefaultValue();
+                trajectory.add(new Coordinates(position.x(), position.y(), 0));
+            }
+            trajectories.put(key(node), trajectory);
+        }
+    }
+
+    /**
+     * Seeds the node positions of a graph with the cached trajectories. The
+     * nodes without a cached trajectory are placed, in order of appearance,
+     * at the given distance from the first node connected to them that
+     * already has a position, giving precedence to the sources of their
+     * incoming edges, such as the infector of a person. Nodes without such a
+     * neighbour keep their current position.
+     *
+     * @param graph the dynamic graph.
+     * @param distance the distance of the new nodes from their neighbour.
+     * @return the nodes whose trajectory was found in the cache.
+     */
+    public Set<Node> seed(DyGraph graph, double distance) {
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+
+        Set<Node> placedNodes = new HashSet<>();
+        List<Node> newNodes = new ArrayList<>();
+        for (Node node : graph.nodes()) {
+            List<Coordinates> trajectory = trajectories.get(key(node));
+            if (trajectory != null) {
+                positions.set(node, buildEvolution(trajectory));
+                placedNodes.add(node);
+            } else {
+                newNodes.add(node);
+            }
+        }
+        Set<Node> cachedNodes = new HashSet<>(placedNodes);
+
+        Map<Node, Double> appearances = new HashMap<>();
+        for (Node node : newNodes) {
+            appearances.put(node, firstTime(presences.get(node)));
+        }
+        newNodes.sort(Comparator.comparingDouble((Node node) -> appearances.get(node)).thenComparing(node -> node));
+
+        for (Node node : newNodes) {
+            Node neighbour = placedNeighbour(graph, node, graph.inEdges(node), placedNodes, edgePresences);
+            if (neighbour == null) {
+                neighbour = placedNeighbour(graph, node, graph.outEdges(node), placedNodes, edgePresences);
+            }
+            if (neighbour == null) {
+                continue;
+            }
+            double time = appearances.get(node);
+            Coordinates neighbourPosition = Double.isInfinite(time)
+                    ? positions.get(neighbour).getDefaultValue() : positions.get(neighbour).valueAt(time);
+            double angle = new Random(key(node).hashCode()).nextDouble() * 2 * Math.PI;
+            positions.set(node, new Evolution<>(new Coordinates(
+                    neighbourPosition.x() + distance * Math.cos(angle),
+                    neighbourPosition.y() + distance * Math.sin(angle))));
+            placedNodes.add(node);
+        }
+        return cachedNodes;
+    }
+
+    /**
+     * Finds, among the other extremities of the given edges, the placed node
+     * whose edge appears first.
+     *
+     * @param graph the dynamic graph.
+     * @param node the node.
+     * @param edges the candidate edges.
+     * @param placedNodes the nodes that already have a position.
+     * @param edgePresences the edge presence attribute.
+     * @return the placed neighbour, or null if there is none.
+     */
+    private static Node placedNeighbour(DyGraph graph, Node node, Iterable<Edge> edges,
+            Set<Node> placedNodes, DyEdgeAttribute<Boolean> edgePresences) {
+        Node neighbour = null;
+        double neighbourTime = Double.POSITIVE_INFINITY;
+        for (Edge edge : edges) {
+            Node other = edge.otherEnd(node);
+            if (!placedNodes.contains(other)) {
+                continue;
+            }
+            double time = firstTime(edgePresences.get(edge));
+            if (neighbour == null || time < neighbourTime
+                    || (time == neighbourTime && other.compareTo(neighbour) < 0)) {
+                neighbour = other;
+                neighbourTime = time;
+            }
+        }
+        return neighbour;
+    }
+
+    /**
+     * Returns the first time in which a presence evolution is true.
+     *
+     * @param presence the presence evolution.
+     * @return the first time of presence, or positive infinity if never
+     * present.
+     */
+    private static double firstTime(Evolution<Boolean> presence) {
+        if (Boolean.TRUE.equals(presence.getDefaultValue())) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        List<Interval> intervals = EvolutionAnalyser.getIntervalsWithValue(presence, true);
+        return intervals.isEmpty() ? Double.POSITIVE_INFINITY : intervals.get(0).leftBound();
+    }
+
+    /**
+     * Builds a position evolution that linearly interpolates the points of a
+     * trajectory. Outside the trajectory, the position is the last point.
+     *
+     * @param trajectory the trajectory, with time as third coordinate.
+     * @return the position evolution.
+     */
+    private static Evolution<Coordinates> buildEvolution(List<Coordinates> trajectory) {
+        Coordinates last = trajectory.get(trajectory.size() - 1);
+        Evolution<Coordinates> evolution = new Evolution<>(new Coordinates(last.x(), last.y()));
+        boolean leftClosed = true;
+        for (int i = 1; i < trajectory.size(); i++) {
+            Coordinates start = trajectory.get(i - 1);
+            Coordinates end = trajectory.get(i);
+            if (end.z() > start.z()) {
+                evolution.insert(new FunctionRect.Coordinates(
+                        Interval.newCustom(start.z(), end.z(), leftClosed, true),
+                        new Coordinates(start.x(), start.y()), new Coordinates(end.x(), end.y()),
+                        Interpolation.Std.linear));
+                leftClosed = false;
+            }
+        }
+        return evolution;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Sliding window over a dynamic graph whose past has already been laid out.
+ * The window graph contains only the nodes and edges present after the
+ * window start, with their presence restricted to the window, so that it can
+ * be laid out with a cost proportional to the new data. The trajectories that
+ * continue from the past start at the position they have at the window start,
+ * and should be kept there during the layout. Once laid out, the window is
+ * committed back to the full graph, leaving the past untouched.
+ */
+public class DySlidingWindow {
+
+    private final DyGraph graph;
+    private final double windowStart;
+    private final DyGraph window;
+    private final Set<Node> continuingNodes = new HashSet<>();
+
+    /**
+     * Constructs a sliding window.
+     *
+     * @param graph the full dynamic graph.
+     * @param windowStart the time at which the window starts.
+     */
+    public DySlidingWindow(DyGraph graph, double windowStart) {
+        this.graph = graph;
+        this.windowStart = windowStart;
+        this.window = new DyGraph();
+        buildWindow();
+    }
+
+    /**
+     * Builds the window graph.
+     */
+    private void buildWindow() {
+        Interval windowInterval = Interval.newLeftClosed(windowStart, Double.POSITIVE_INFINITY);
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Boolean> windowPresences = window.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> windowEdgePresences = window.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> windowPositions = window.nodeAttribute(StdAttribute.nodePosition);
+
+        for (Node node : graph.nodes()) {
+            List<Interval> appearances = EvolutionAnalyser.getIntervalsWithValue(presences.get(node), true);
+            List<Interval> windowAppearances = EvolutionAnalyser.restrictIntervals(appearances, windowInterval);
+            if (windowAppearances.isEmpty()) {
+                continue;
+            }
+            Node windowNode = window.newNode(node.id(), node.originId());
+            windowPresences.set(windowNode, EvolutionAnalyser.presenceEvolution(windowAppearances));
+            Coordinates start = positions.get(node).valueAt(windowAppearances.get(0).leftBound());
+            windowPositions.set(windowNode, new Evolution<>(new Coordinates(start.x(), start.y())));
+            if (isPresentAtWindowStart(appearances)) {
+                continuingNodes.add(windowNode);
+            }
+        }
+
+        for (Edge edge : graph.edges()) {
+            if (!window.hasNode(edge.source().id()) || !window.hasNode(edge.target().id())) {
+                continue;
+            }
+            List<Interval> windowAppearances = EvolutionAnalyser.restrictIntervals(
+                    EvolutionAnalyser.getIntervalsWithValue(edgePresences.get(edge), true), windowInterval);
+            if (windowAppearances.isEmpty()) {
+                continue;
+            }
+            Edge windowEdge = window.newEdge(edge.id(),
+                    window.getNode(edge.source().id()), window.getNode(edge.target().id()));
+            windowEdgePresences.set(windowEdge, EvolutionAnalyser.presenceEvolution(windowAppearances));
+        }
+    }
+
+    /**
+     * Checks if a node that appeared before the window start is still present
+     * at it, that is, if one of its appearances contains the window start or
+     * ends exactly at it.
+     *
+     * @param appearances the appearances of the node.
+     * @return true if the trajectory of the node continues into the window.
+     */
+    private boolean isPresentAtWindowStart(List<Interval> appearances) {
+        for (Interval appearance : appearances) {
+            if (appearance.leftBound() < windowStart && appearance.rightBound() >= windowStart) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the window graph.
+     *
+     * @return the window graph.
+     */
+    public DyGraph window() {
+        return window;
+    }
+
+    /**
+     * Returns the time at which the window starts.
+     *
+     * @return the window start.
+     */
+    public double windowStart() {
+        return windowStart;
+    }
+
+    /**
+     * Returns the nodes of the window graph whose trajectory continues from
+     * the past. Their trajectories must not move at the window start.
+     *
+     * @return the continuing nodes of the window graph.
+     */
+    public Collection<Node> continuingNodes() {
+        return Collections.unmodifiableSet(continuingNodes);
+    }
+
+    /**
+     * Copies the trajectories computed for the window graph into the full
+     * graph. The trajectories of each window node are kept as they are before
+     * the window start, and replaced by the window ones after it.
+     */
+    public void commit() {
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Coordinates> windowPositions = window.nodeAttribute(StdAttribute.nodePosition);
+        Interval past = Interval.newOpen(Double.NEGATIVE_INFINITY, windowStart);
+        graph.startBulkNotification();
+        for (Node windowNode : window.nodes()) {
+            Node node = graph.getNode(windowNode.id());
+            Evolution<Coordinates> windowEvolution = windowPositions.get(windowNode);
+            Evolution<Coordinates> evolution = new Evolution<>(windowEvolution.getDefaultValue());
+            for (Function<Coordinates> function : positions.get(node)) {
+                Function<Coordinates> pastFunction = EvolutionAnalyser.restrictPositionFunction(function, past);
+                if (pastFunction != null) {
+                    evolution.insert(pastFunction);
+                }
+            }
+            for (Function<Coordinates> function : windowEvolution) {
+                evolution.insert(function);
+            }
+            positions.set(node, evolution);
+        }
+        graph.stopBulkNotification();
+    }
+}
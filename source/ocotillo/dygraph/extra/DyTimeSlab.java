@@ -0,0 +1,274 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Time slab of a dynamic graph. The slab graph contains the nodes and edges
+ * present in the slab core, extended on both sides by a ghost zone, with
+ * their presence and trajectories restricted to such extent. The ghost zones
+ * overlap the cores of the neighbouring slabs, so that the slab can be laid
+ * out independently of the rest of the graph while still feeling the
+ * trajectories at its boundaries. Once laid out, the slab core is committed
+ * back to the full graph.
+ */
+public class DyTimeSlab {
+
+    private final DyGraph graph;
+    private final Interval core;
+    private final Interval extent;
+    private final DyGraph slab;
+
+    /**
+     * Constructs a time slab.
+     *
+     * @param graph the full dynamic graph.
+     * @param core the time interval owned by the slab.
+     * @param ghostWidth the width of the ghost zone on each side of the core.
+     */
+    public DyTimeSlab(DyGraph graph, Interval core, double ghostWidth) {
+        this.graph = graph;
+        this.core = core;
+        this.extent = Interval.newClosed(core.leftBound() - ghostWidth, core.rightBound() + ghostWidth);
+        this.slab = new DyGraph();
+        buildSlab();
+    }
+
+    /**
+     * Slices a graph into time slabs of equal width, covering the time range
+     * in which nodes are present. The first and last slab cores extend
+     * indefinitely, so that each time belongs to exactly one core.
+     *
+     * @param graph the dynamic graph.
+     * @param numberOfSlabs the number of slabs.
+     * @param ghostWidth the width of the ghost zones, or NaN to use a quarter
+     * of the slab width.
+     * @return the time slabs.
+     */
+    public static List<DyTimeSlab> split(DyGraph graph, int numberOfSlabs, double ghostWidth) {
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        double start = Double.POSITIVE_INFINITY;
+        double end = Double.NEGATIVE_INFINITY;
+        for (Node node : graph.nodes()) {
+            for (Interval appearance : EvolutionAnalyser.getIntervalsWithValue(presences.get(node), true)) {
+                start = Math.min(start, appearance.leftBound());
+                end = Math.max(end, appearance.rightBound());
+            }
+        }
+
+        List<DyTimeSlab> slabs = new ArrayList<>();
+        if (numberOfSlabs == 1 || !(start < end) || Double.isInfinite(start) || Double.isInfinite(end)) {
+            slabs.add(new DyTimeSlab(graph, Interval.global, 0));
+            return slabs;
+        }
+        double slabWidth = (end - start) / numberOfSlabs;
+        double slabGhostWidth = Double.isNaN(ghostWidth) ? slabWidth / 4 : ghostWidth;
+        for (int i = 0; i < numberOfSlabs; i++) {
+            double coreStart = i == 0 ? Double.NEGATIVE_INFINITY : start + i * slabWidth;
+            double coreEnd = i == numberOfSlabs - 1 ? Double.POSITIVE_INFINITY : start + (i + 1) * slabWidth;
+            slabs.add(new DyTimeSlab(graph, Interval.newLeftClosed(coreStart, coreEnd), slabGhostWidth));
+        }
+        return slabs;
+    }
+
+    /**
+     * Builds the slab graph.
+     */
+    private void buildSlab() {
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Boolean> slabPresences = slab.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> slabEdgePresences = slab.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> slabPositions = slab.nodeAttribute(StdAttribute.nodePosition);
+        List<Interval> parts = new ArrayList<>();
+        parts.add(core);
+        // The parts before and after an unbounded core are empty, and newCustom returns null for them
+        Interval before = Interval.newCustom(Double.NEGATIVE_INFINITY, core.leftBound(), false, !core.isLeftClosed());
+        if (before != null) {
+            parts.add(0, before);
+        }
+        Interval after = Interval.newCustom(core.rightBound(), Double.POSITIVE_INFINITY, !core.isRightClosed(), false);
+        if (after != null) {
+            parts.add(after);
+        }
+
+        for (Node node : graph.nodes()) {
+            List<Interval> slabAppearances = EvolutionAnalyser.restrictIntervals(
+                    EvolutionAnalyser.getIntervalsWithValue(presences.get(node), true), extent);
+            if (slabAppearances.isEmpty()) {
+                continue;
+            }
+            Node slabNode = slab.newNode(node.id(), node.originId());
+            slabPresences.set(slabNode, EvolutionAnalyser.presenceEvolution(slabAppearances));
+            Evolution<Coordinates> evolution = positions.get(node);
+            Evolution<Coordinates> slabEvolution = new Evolution<>(evolution.getDefaultValue());
+            for (Interval appearance : slabAppearances) {
+                for (Interval part : parts) {
+                    Interval piece = appearance.intersection(part);
+                    if (piece != null && piece.width() > 0) {
+                        insertLinearised(slabEvolution, evolution, piece);
+                    }
+                }
+            }
+            slabPositions.set(slabNode, slabEvolution);
+        }
+
+        for (Edge edge : graph.edges()) {
+            if (!slab.hasNode(edge.source().id()) || !slab.hasNode(edge.target().id())) {
+                continue;
+            }
+            List<Interval> slabAppearances = EvolutionAnalyser.restrictIntervals(
+                    EvolutionAnalyser.getIntervalsWithValue(edgePresences.get(edge), true), extent);
+            if (slabAppearances.isEmpty()) {
+                continue;
+            }
+            Edge slabEdge = slab.newEdge(edge.id(),
+                    slab.getNode(edge.source().id()), slab.getNode(edge.target().id()));
+            slabEdgePresences.set(slabEdge, EvolutionAnalyser.presenceEvolution(slabAppearances));
+        }
+    }
+
+    /**
+     * Inserts in the slab evolution a piecewise linear copy of the original
+     * evolution in the given time piece. The copy breaks at the piece
+     * extremities, so that the trajectories of the slab graph have a point at
+     * each core boundary.
+     *
+     * @param slabEvolution the slab evolution.
+     * @param evolution the original evolution.
+     * @param piece the time piece.
+     */
+    private static void insertLinearised(Evolution<Coordinates> slabEvolution, Evolution<Coordinates> evolution, Interval piece) {
+        TreeSet<Double> times = new TreeSet<>();
+        times.add(piece.leftBound());
+        times.add(piece.rightBound());
+        for (Function<Coordinates> function : evolution) {
+            for (double bound : new double[]{function.interval().leftBound(), function.interval().rightBound()}) {
+                if (piece.leftBound() < bound && bound < piece.rightBound()) {
+                    times.add(bound);
+                }
+            }
+        }
+        double previousTime = times.pollFirst();
+        boolean leftClosed = piece.isLeftClosed();
+        for (double time : times) {
+            boolean rightClosed = time < piece.rightBound() || piece.isRightClosed();
+            slabEvolution.insert(new FunctionRect.Coordinates(
+                    Interval.newCustom(previousTime, time, leftClosed, rightClosed),
+                    evolution.valueAt(previousTime), evolution.valueAt(time), Interpolation.Std.linear));
+            previousTime = time;
+            leftClosed = false;
+        }
+    }
+
+    /**
+     * Returns the slab graph.
+     *
+     * @return the slab graph.
+     */
+    public DyGraph slab() {
+        return slab;
+    }
+
+    /**
+     * Returns the time interval owned by the slab.
+     *
+     * @return the slab core.
+     */
+    public Interval core() {
+        return core;
+    }
+
+    /**
+     * Returns the time interval covered by the slab graph, which is the core
+     * extended by the ghost zones.
+     *
+     * @return the slab extent.
+     */
+    public Interval extent() {
+        return extent;
+    }
+
+    /**
+     * Copies the trajectories computed for the slab core into the full graph.
+     * The trajectories of each slab node are kept as they are outside the
+     * core, and replaced by the slab ones inside it. The trajectories are
+     * joined at the end of the core to the ones in the full graph, so that
+     * the slabs should be committed from the latest to the earliest.
+     */
+    public void commit() {
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Coordinates> slabPositions = slab.nodeAttribute(StdAttribute.nodePosition);
+        Interval before = Interval.newCustom(Double.NEGATIVE_INFINITY, core.leftBound(), false, !core.isLeftClosed());
+        Interval after = Interval.newCustom(core.rightBound(), Double.POSITIVE_INFINITY, !core.isRightClosed(), false);
+        graph.startBulkNotification();
+        for (Node slabNode : slab.nodes()) {
+            Node node = graph.getNode(slabNode.id());
+            Evolution<Coordinates> evolution = new Evolution<>(positions.get(node).getDefaultValue());
+            Coordinates joint = null;
+            for (Function<Coordinates> function : positions.get(node)) {
+                insertRestricted(evolution, function, before);
+                insertRestricted(evolution, function, after);
+                if (after != null && function.interval().contains(core.rightBound())) {
+                    joint = function.valueAt(core.rightBound());
+                }
+            }
+            for (Function<Coordinates> function : slabPositions.get(slabNode)) {
+                Function<Coordinates> restricted = EvolutionAnalyser.restrictPositionFunction(function, core);
+                if (restricted != null && joint != null && restricted.interval().rightBound() == core.rightBound()) {
+                    restricted = new FunctionRect.Coordinates(restricted.interval(),
+                            restricted.valueAt(restricted.interval().leftBound()), joint, Interpolation.Std.linear);
+                }
+                if (restricted != null) {
+                    evolution.insert(restricted);
+                }
+            }
+            positions.set(node, evolution);
+        }
+        graph.stopBulkNotification();
+    }
+
+    /**
+     * Inserts in the evolution the part of a function that lies in the given
+     * interval, if any.
+     *
+     * @param evolution the evolution.
+     * @param function the function.
+     * @param interval the interval.
+     */
+    private static void insertRestricted(Evolution<Coordinates> evolution, Function<Coordinates> function, Interval interval) {
+        Function<Coordinates> restricted = EvolutionAnalyser.restrictPositionFunction(function, interval);
+        if (restricted != null) {
+            evolution.insert(restricted);
+        }
+    }
+}
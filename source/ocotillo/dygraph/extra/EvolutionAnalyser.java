@@ -23,6 +23,7 @@ import ocotillo.dygraph.Function;
 import ocotillo.dygraph.FunctionConst;
 import ocotillo.dygraph.FunctionRect;
 import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.Interval;
 
@@ -190,4 +191,64 @@ public class EvolutionAnalyser {
         }
         return result;
     }
+
+    /**
+     * Restricts a list of intervals to the given one, discarding the ones that
+     * do not last any time in it.
+     *
+     * @param intervals the intervals.
+     * @param restriction the interval to restrict to.
+     * @return the restricted intervals.
+     */
+    public static List<Interval> restrictIntervals(List<Interval> intervals, Interval restriction) {
+        List<Interval> result = new ArrayList<>();
+        for (Interval interval : intervals) {
+            Interval restricted = interval.intersection(restriction);
+            if (restricted != null && restricted.width() > 0) {
+                result.add(restricted);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a presence evolution that is true in the given intervals and
+     * false elsewhere.
+     *
+     * @param intervals the intervals of presence.
+     * @return the presence evolution.
+     */
+    public static Evolution<Boolean> presenceEvolution(List<Interval> intervals) {
+        Evolution<Boolean> presence = new Evolution<>(false);
+        for (Interval interval : intervals) {
+            presence.insert(new FunctionConst<>(interval, true));
+        }
+        return presence;
+    }
+
+    /**
+     * Restricts a position function to the given interval. The function is
+     * returned as it is when it is entirely contained in the interval, and
+     * replaced by a linear function with the same values at the new
+     * extremities otherwise.
+     *
+     * @param function the position function.
+     * @param restriction the interval to restrict to.
+     * @return the restricted function, or null if the function and the
+     * interval do not intersect.
+     */
+    public static Function<Coordinates> restrictPositionFunction(Function<Coordinates> function, Interval restriction) {
+        if (restriction == null) {
+            return null;
+        }
+        Interval restricted = function.interval().intersection(restriction);
+        if (restricted == null) {
+            return null;
+        }
+        if (restricted.equals(function.interval())) {
+            return function;
+        }
+        return new FunctionRect.Coordinates(restricted, function.valueAt(restricted.leftBound()),
+                function.valueAt(restricted.rightBound()), Interpolation.Std.linear);
+    }
 }
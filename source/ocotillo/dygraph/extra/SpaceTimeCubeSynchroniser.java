@@ -16,6 +16,7 @@
 package ocotillo.dygraph.extra;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ import ocotillo.graph.Element;
 import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.Observer;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.structures.IntervalTree;
@@ -63,6 +65,7 @@ public class SpaceTimeCubeSynchroniser {
 
     private final List<MirrorLine> mirrorLineList = new ArrayList<>();
     private final List<MirrorConnection> mirrorConnectionList = new ArrayList<>();
+    private final List<Observer> observers = new ArrayList<>();
 
     /**
      * Builder for space-time-cube synchronisers.
@@ -113,6 +116,7 @@ public class SpaceTimeCubeSynchroniser {
         this.mirrorPositions = mirrorGraph.nodeAttribute(StdAttribute.nodePosition);
         this.mirrorBends = mirrorGraph.edgeAttribute(StdAttribute.edgePoints);
         buildMirror();
+        observeMirror();
     }
 
     /**
@@ -146,6 +150,77 @@ public class SpaceTimeCubeSynchroniser {
         }
     }
 
+    /**
+     * Observes the mirror positions and bends to invalidate the cached points
+     * of the mirror lines they affect. Bends are inserted or removed in the
+     * mirror graph by replacing the edge control points, so observing the
+     * attribute covers any bend addition or removal.
+     */
+    private void observeMirror() {
+        observers.add(new Observer.ElementAttributeChanges<Node>(mirrorPositions) {
+
+            @Override
+            public void update(Collection<Node> changedElements) {
+                for (Node node : changedElements) {
+                    invalidateMirrorLine(node);
+                }
+            }
+
+            @Override
+            public void updateAll() {
+                invalidateAllMirrorLines();
+            }
+        });
+        observers.add(new Observer.ElementAttributeChanges<Edge>(mirrorBends) {
+
+            @Override
+            public void update(Collection<Edge> changedElements) {
+                for (Edge edge : changedElements) {
+                    invalidateMirrorLine(edge);
+                }
+            }
+
+            @Override
+            public void updateAll() {
+                invalidateAllMirrorLines();
+            }
+        });
+    }
+
+    /**
+     * Invalidates the cached points of the mirror line that contains the given
+     * mirror element.
+     *
+     * @param mirrorElement the mirror node or edge.
+     */
+    private void invalidateMirrorLine(Element mirrorElement) {
+        MirrorLine line = reverseMap.get(mirrorElement);
+        if (line != null) {
+            line.invalidatePoints();
+        }
+    }
+
+    /**
+     * Invalidates the cached points of all mirror lines.
+     */
+    private void invalidateAllMirrorLines() {
+        for (MirrorLine line : mirrorLineList) {
+            line.invalidatePoints();
+        }
+    }
+
+    /**
+     * Stops observing the mirror graph. The cached points of the mirror lines
+     * are discarded and recomputed at every request afterwards.
+     */
+    public void close() {
+        for (Observer observer : observers) {
+            observer.unregister();
+        }
+        observers.clear();
+        invalidateAllMirrorLines();
+    }
+
     /**
      * Returns the original graph.
      *
@@ -253,6 +328,10 @@ public class SpaceTimeCubeSynchroniser {
         private final Node mirrorSource;
         private final Node mirrorTarget;
 
+        private double[] pointsX;
+        private double[] pointsY;
+        private double[] pointsZ;
+
         /**
          * Builds a mirror line.
          *
@@ -374,19 +453,116 @@ public class SpaceTimeCubeSynchroniser {
         public Coordinates positionAtMirrorTime(double mirrorTime) {
             assert (mirrorTime >= mirrorInterval.leftBound() && mirrorTime <= mirrorInterval.rightBound()) :
                     "The value of mirror time requested is not in the mirror interval of the line.";
-            List<Coordinates> points = bendsAndExtremities();
-            for (int i = 0; i < points.size(); i++) {
-                if (points.get(i).z() == mirrorTime) {
-                    return new Coordinates(points.get(i));
-                } else if (points.get(i).z() > mirrorTime) {
-                    Coordinates a = points.get(i - 1);
-                    Coordinates b = points.get(i);
-                    double factor = (mirrorTime - a.z()) / (b.z() - a.z());
-                    Coordinates offset = b.minus(a).times(factor);
-                    return a.plus(offset);
+            double[] z = cachedPointsZ();
+            return positionInSegment(mirrorTime, firstPointNotBefore(z, mirrorTime));
+        }
+
+        /**
+         * Gets the positions of the line for several converted time values.
+         * The points of the line are traversed only once when the time values
+         * are given in ascending order.
+         *
+         * @param mirrorTimes the time values converted to space unit.
+         * @return the positions of the line at these times.
+         */
+        public List<Coordinates> positionsAtMirrorTimes(double... mirrorTimes) {
+            double[] z = cachedPointsZ();
+            List<Coordinates> result = new ArrayList<>(mirrorTimes.length);
+            int index = 0;
+            double previousTime = Double.NEGATIVE_INFINITY;
+            for (double mirrorTime : mirrorTimes) {
+                assert (mirrorTime >= mirrorInterval.leftBound() && mirrorTime <= mirrorInterval.rightBound()) :
+                        "The value of mirror time requested is not in the mirror interval of the line.";
+                if (mirrorTime < previousTime) {
+                    index = firstPointNotBefore(z, mirrorTime);
+                } else {
+                    while (index < z.length && z[index] < mirrorTime) {
+                        index++;
+                    }
+                }
+                result.add(positionInSegment(mirrorTime, index));
+                previousTime = mirrorTime;
+            }
+            return result;
+        }
+
+        /**
+         * Finds the index of the first line point whose converted time is not
+         * smaller than the given one.
+         *
+         * @param z the converted times of the line points.
+         * @param mirrorTime the time value converted to space unit.
+         * @return the index of the first point not before the given time.
+         */
+        private int firstPointNotBefore(double[] z, double mirrorTime) {
+            int low = 0;
+            int high = z.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (z[middle] < mirrorTime) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Interpolates the line position in the segment that ends at the given
+         * point index.
+         *
+         * @param mirrorTime the time value converted to space unit.
+         * @param index the index of the first point not before the given time.
+         * @return the position of the line at this time.
+         */
+        private Coordinates positionInSegment(double mirrorTime, int index) {
+            if (index >= pointsZ.length) {
+                throw new IllegalStateException("The computation should not arrive here.");
+            }
+            if (pointsZ[index] == mirrorTime) {
+                return new Coordinates(pointsX[index], pointsY[index], pointsZ[index]);
+            }
+            int previous = index - 1;
+            double factor = (mirrorTime - pointsZ[previous]) / (pointsZ[index] - pointsZ[previous]);
+            return new Coordinates(
+                    pointsX[previous] + (pointsX[index] - pointsX[previous]) * factor,
+                    pointsY[previous] + (pointsY[index] - pointsY[previous]) * factor,
+                    pointsZ[previous] + (pointsZ[index] - pointsZ[previous]) * factor);
+        }
+
+        /**
+         * Returns the converted times of the source, bends and target of this
+         * line, rebuilding the cached points if they have been invalidated.
+         *
+         * @return the z coordinates of the line points.
+         */
+        private double[] cachedPointsZ() {
+            if (pointsZ == null || observers.isEmpty()) {
+                List<Coordinates> points = bendsAndExtremities();
+                double[] x = new double[points.size()];
+                double[] y = new double[points.size()];
+                double[] z = new double[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    Coordinates point = points.get(i);
+                    x[i] = point.x();
+                    y[i] = point.y();
+                    z[i] = point.z();
                 }
+                pointsX = x;
+                pointsY = y;
+                pointsZ = z;
             }
-            throw new IllegalStateException("The computation should not arrive here.");
+            return pointsZ;
+        }
+
+        /**
+         * Discards the cached points of this line.
+         */
+        private void invalidatePoints() {
+            pointsX = null;
+            pointsY = null;
+            pointsZ = null;
         }
 
         /**
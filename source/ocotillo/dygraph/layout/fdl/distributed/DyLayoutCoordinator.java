@@ -0,0 +1,485 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.extra.DyTimeSlab;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Coordinator of a layout distributed over several worker processes. The
+ * graph is sliced into one time slab per worker, and each worker lays out its
+ * slab with the DynnoSlice forces. After each round of iterations, the
+ * workers send the trajectories in their slab cores to the coordinator, which
+ * forwards them to the workers whose ghost zones they overlap. At the end of
+ * the computation, the slab cores are committed back to the graph. The
+ * workers can be started in advance with DyLayoutWorker, possibly on other
+ * machines, or launched by the coordinator as local processes.
+ */
+public class DyLayoutCoordinator {
+
+    private final DyGraph graph;
+    private final double timeFactor;
+    private final double delta;
+    private final List<InetSocketAddress> workerAddresses;
+    private final int localWorkers;
+    private final List<String> jvmOptions;
+    private final double ghostWidth;
+    private final int exchangeInterval;
+    private final double initialTemperature;
+    private final Duration connectionTimeout;
+    private final Duration replyTimeout;
+
+    /**
+     * Builder for DyLayoutCoordinator.
+     */
+    public static class DyLayoutCoordinatorBuilder {
+
+        private final DyGraph graph;
+        private final double timeFactor;
+        private final double delta;
+        private List<InetSocketAddress> workerAddresses = Collections.emptyList();
+        private int localWorkers = 0;
+        private List<String> jvmOptions = Collections.emptyList();
+        private double ghostWidth = Double.NaN;
+        private int exchangeInterval = 10;
+        private double initialTemperature = 1;
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+        private Duration replyTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Constructs a DyLayoutCoordinator builder.
+         *
+         * @param graph the dynamic graph.
+         * @param timeFactor the conversion factor of time. This indicates how
+         * many space units correspond to a time unit.
+         * @param delta the desired node distance on the plane.
+         */
+        public DyLayoutCoordinatorBuilder(DyGraph graph, double timeFactor, double delta) {
+            this.graph = graph;
+            this.timeFactor = timeFactor;
+            this.delta = delta;
+        }
+
+        /**
+         * Indicates the addresses of running workers. One slab is assigned to
+         * each worker.
+         *
+         * @param workerAddresses the worker addresses.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withWorkers(List<InetSocketAddress> workerAddresses) {
+            this.workerAddresses = new ArrayList<>(workerAddresses);
+            return this;
+        }
+
+        /**
+         * Indicates the number of worker processes to launch on the local
+         * machine, in addition to the running workers. The workers use the
+         * class path of the current process.
+         *
+         * @param localWorkers the number of local workers.
+         * @param jvmOptions the options of the worker virtual machines, such
+         * as their maximum heap size.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withLocalWorkers(int localWorkers, String... jvmOptions) {
+            assert (localWorkers >= 0) : "The number of local workers must be non negative.";
+            this.localWorkers = localWorkers;
+            this.jvmOptions = Arrays.asList(jvmOptions);
+            return this;
+        }
+
+        /**
+         * Indicates the time width of the ghost zone on each side of a slab.
+         * By default, a quarter of the slab width.
+         *
+         * @param ghostWidth the ghost zone width.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withGhostWidth(double ghostWidth) {
+            assert (ghostWidth >= 0) : "The ghost zone width must be non negative.";
+            this.ghostWidth = ghostWidth;
+            return this;
+        }
+
+        /**
+         * Indicates the number of iterations between two exchanges of the
+         * ghost zone positions.
+         *
+         * @param exchangeInterval the number of iterations between exchanges.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withExchangeInterval(int exchangeInterval) {
+            assert (exchangeInterval > 0) : "The exchange interval must be positive.";
+            this.exchangeInterval = exchangeInterval;
+            return this;
+        }
+
+        /**
+         * Indicates the initial temperature of the linear cool down applied
+         * across all the iterations.
+         *
+         * @param initialTemperature the initial temperature.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withInitialTemperature(double initialTemperature) {
+            assert (0 <= initialTemperature && initialTemperature <= 1) : "The temperature must be in the range [0,1]";
+            this.initialTemperature = initialTemperature;
+            return this;
+        }
+
+        /**
+         * Indicates how long to wait for a local worker to start listening
+         * and for a connection to a worker to be established.
+         *
+         * @param connectionTimeout the connection timeout.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withConnectionTimeout(Duration connectionTimeout) {
+            assert (!connectionTimeout.isNegative() && !connectionTimeout.isZero()) : "The connection timeout must be positive.";
+            this.connectionTimeout = connectionTimeout;
+            return this;
+        }
+
+        /**
+         * Indicates how long to wait for a worker to answer a request. The
+         * timeout must be longer than the time required by a worker to
+         * perform a round of iterations.
+         *
+         * @param replyTimeout the reply timeout.
+         * @return the builder.
+         */
+        public DyLayoutCoordinatorBuilder withReplyTimeout(Duration replyTimeout) {
+            assert (!replyTimeout.isNegative() && !replyTimeout.isZero()) : "The reply timeout must be positive.";
+            this.replyTimeout = replyTimeout;
+            return this;
+        }
+
+        /**
+         * Builds the DyLayoutCoordinator instance.
+         *
+         * @return the DyLayoutCoordinator instance.
+         */
+        public DyLayoutCoordinator build() {
+            assert (localWorkers + workerAddresses.size() > 0) : "At least a worker is required.";
+            return new DyLayoutCoordinator(this);
+        }
+    }
+
+    /**
+     * Constructs a DyLayoutCoordinator instance.
+     *
+     * @param builder the builder.
+     */
+    private DyLayoutCoordinator(DyLayoutCoordinatorBuilder builder) {
+        this.graph = builder.graph;
+        this.timeFactor = builder.timeFactor;
+        this.delta = builder.delta;
+        this.workerAddresses = builder.workerAddresses;
+        this.localWorkers = builder.localWorkers;
+        this.jvmOptions = builder.jvmOptions;
+        this.ghostWidth = builder.ghostWidth;
+        this.exchangeInterval = builder.exchangeInterval;
+        this.initialTemperature = builder.initialTemperature;
+        this.connectionTimeout = builder.connectionTimeout;
+        this.replyTimeout = builder.replyTimeout;
+    }
+
+    /**
+     * Lays out the graph for the given number of iterations. The slabs that
+     * contain no node are not assigned to a worker. When there are fewer
+     * slabs to lay out than workers, the exceeding workers are left unused
+     * and the exceeding local workers are not launched.
+     *
+     * @param numberOfIterations the number of iterations.
+     */
+    public void iterate(int numberOfIterations) {
+        List<Process> processes = new ArrayList<>();
+        List<WorkerConnection> workers = new ArrayList<>();
+        try {
+            List<DyTimeSlab> slabs = new ArrayList<>();
+            for (DyTimeSlab slab : DyTimeSlab.split(graph, workerAddresses.size() + localWorkers, ghostWidth)) {
+                if (slab.slab().nodeCount() > 0) {
+                    slabs.add(slab);
+                }
+            }
+            List<InetSocketAddress> addresses = new ArrayList<>(workerAddresses);
+            while (addresses.size() < slabs.size()) {
+                Process process = launchLocalWorker();
+                processes.add(process);
+                addresses.add(new InetSocketAddress("localhost", readPort(process)));
+            }
+            for (int i = 0; i < slabs.size(); i++) {
+                workers.add(new WorkerConnection(addresses.get(i), slabs.get(i)));
+            }
+
+            for (WorkerConnection worker : workers) {
+                worker.sendSlab(numberOfIterations);
+            }
+            for (int done = 0; done < numberOfIterations; done += exchangeInterval) {
+                int roundIterations = Math.min(exchangeInterval, numberOfIterations - done);
+                for (WorkerConnection worker : workers) {
+                    worker.out.writeByte(DySlabProtocol.iterateMessage);
+                    worker.out.writeInt(roundIterations);
+                    worker.out.flush();
+                }
+                for (WorkerConnection worker : workers) {
+                    worker.receiveCore();
+                }
+                for (WorkerConnection worker : workers) {
+                    worker.sendGhosts(workers);
+                }
+            }
+            for (WorkerConnection worker : workers) {
+                worker.out.writeByte(DySlabProtocol.finishMessage);
+                worker.out.flush();
+            }
+            for (WorkerConnection worker : workers) {
+                worker.receiveCore();
+            }
+            for (int i = workers.size() - 1; i >= 0; i--) {
+                workers.get(i).commit();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot communicate with the layout workers.", ex);
+        } finally {
+            for (WorkerConnection worker : workers) {
+                worker.close();
+            }
+            for (Process process : processes) {
+                stopLocalWorker(process);
+            }
+        }
+    }
+
+    /**
+     * Launches a worker process on the local machine.
+     *
+     * @return the worker process.
+     * @throws IOException if the process cannot be launched.
+     */
+    private Process launchLocalWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DyLayoutWorker.class.getName());
+        command.add("0");
+        command.add("1");
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Reads the port on which a local worker is listening, waiting at most
+     * for the connection timeout.
+     *
+     * @param process the worker process.
+     * @return the port.
+     * @throws IOException if the port cannot be read in time.
+     */
+    private int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        FutureTask<String> handshake = new FutureTask<>(reader::readLine);
+        Thread thread = new Thread(handshake, "Layout worker handshake");
+        thread.setDaemon(true);
+        thread.start();
+        String line;
+        try {
+            line = handshake.get(connectionTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the local worker to listen.", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Cannot read the port of the local worker.", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IOException("The local worker did not start listening in time.", ex);
+        }
+        if (line == null) {
+            throw new IOException("The local worker terminated before listening.");
+        }
+        return Integer.parseInt(line.trim());
+    }
+
+    /**
+     * Waits for a local worker to terminate, and kills it if it does not.
+     *
+     * @param process the worker process.
+     */
+    private static void stopLocalWorker(Process process) {
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * The connection to a worker and the slab assigned to it.
+     */
+    private class WorkerConnection implements Closeable {
+
+        private final DyTimeSlab slab;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private Map<String, Evolution<Coordinates>> core = Collections.emptyMap();
+
+        /**
+         * Connects to a worker. The connection fails if a reply of the
+         * worker takes longer than the reply timeout.
+         *
+         * @param address the worker address.
+         * @param slab the slab assigned to the worker.
+         * @throws IOException if the connection fails.
+         */
+        private WorkerConnection(InetSocketAddress address, DyTimeSlab slab) throws IOException {
+            this.slab = slab;
+            this.socket = new Socket();
+            try {
+                socket.connect(address, (int) connectionTimeout.toMillis());
+                socket.setSoTimeout((int) replyTimeout.toMillis());
+                socket.setTcpNoDelay(true);
+            } catch (IOException ex) {
+                socket.close();
+                throw ex;
+            }
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Sends the slab and the layout parameters to the worker.
+         *
+         * @param numberOfIterations the total number of iterations.
+         * @throws IOException if the slab cannot be sent.
+         */
+        private void sendSlab(int numberOfIterations) throws IOException {
+            out.writeInt(DySlabProtocol.magic);
+            out.writeByte(DySlabProtocol.slabMessage);
+            out.writeDouble(timeFactor);
+            out.writeDouble(delta);
+            out.writeDouble(initialTemperature);
+            out.writeInt(numberOfIterations);
+            DySlabProtocol.writeInterval(out, slab.core());
+            DySlabProtocol.writeGraph(out, slab.slab());
+            out.flush();
+        }
+
+        /**
+         * Receives the trajectories in the slab core from the worker.
+         *
+         * @throws IOException if the trajectories cannot be received.
+         */
+        private void receiveCore() throws IOException {
+            core = DySlabProtocol.readTrajectories(in);
+        }
+
+        /**
+         * Sends to the worker the trajectories computed by the other workers
+         * in its ghost zones.
+         *
+         * @param workers all the workers.
+         * @throws IOException if the trajectories cannot be sent.
+         */
+        private void sendGhosts(List<WorkerConnection> workers) throws IOException {
+            List<String> nodeIds = new ArrayList<>();
+            List<Evolution<Coordinates>> ghosts = new ArrayList<>();
+            for (Node node : slab.slab().nodes()) {
+                Evolution<Coordinates> ghost = new Evolution<>(null);
+                for (WorkerConnection other : workers) {
+                    Evolution<Coordinates> trajectory = other.core.get(node.id());
+                    if (other != this && trajectory != null && other.slab.core().overlapsWith(slab.extent())) {
+                        for (Function<Coordinates> function : trajectory) {
+                            ghost.insert(function);
+                        }
+                    }
+                }
+                nodeIds.add(node.id());
+                ghosts.add(ghost);
+            }
+            out.writeByte(DySlabProtocol.ghostsMessage);
+            out.writeInt(nodeIds.size());
+            for (int i = 0; i < nodeIds.size(); i++) {
+                out.writeUTF(nodeIds.get(i));
+                DySlabProtocol.writeFunctions(out, ghosts.get(i), slab.extent());
+            }
+            out.flush();
+        }
+
+        /**
+         * Copies the last trajectories received from the worker into the slab
+         * graph, and commits the slab core to the full graph.
+         */
+        private void commit() {
+            DyGraph slabGraph = slab.slab();
+            DyNodeAttribute<Coordinates> positions = slabGraph.nodeAttribute(StdAttribute.nodePosition);
+            for (Node node : slabGraph.nodes()) {
+                Evolution<Coordinates> evolution = new Evolution<>(positions.get(node).getDefaultValue());
+                Evolution<Coordinates> trajectory = core.get(node.id());
+                if (trajectory != null) {
+                    for (Function<Coordinates> function : trajectory) {
+                        evolution.insert(function);
+                    }
+                }
+                positions.set(node, evolution);
+            }
+            slab.commit();
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                System.err.println("Cannot close the connection to a layout worker: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.layout.fdl.modular.DySlabLayout;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+
+/**
+ * Worker process of the distributed layout. The worker listens on a port,
+ * receives a time slab from the coordinator and lays it out with the
+ * DynnoSlice forces, exchanging the ghost zone positions with the
+ * coordinator after each round of iterations.
+ */
+public class DyLayoutWorker {
+
+    /**
+     * Starts a worker. The first parameter is the port to listen on, where 0
+     * selects any free port. The second optional parameter is the number of
+     * layouts to serve before terminating, which is unlimited by default. The
+     * port in use is printed as the first line of the standard output.
+     *
+     * @param argv the parameters.
+     * @throws IOException if the worker cannot communicate with the
+     * coordinator.
+     */
+    public static void main(String[] argv) throws IOException {
+        int port = argv.length >= 1 ? Integer.parseInt(argv[0]) : 0;
+        int jobs = argv.length >= 2 ? Integer.parseInt(argv[1]) : Integer.MAX_VALUE;
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println(serverSocket.getLocalPort());
+            System.out.flush();
+            System.setOut(System.err);
+            for (int i = 0; i < jobs; i++) {
+                try (Socket socket = serverSocket.accept()) {
+                    socket.setTcpNoDelay(true);
+                    serve(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves a layout request of the coordinator.
+     *
+     * @param in the stream from the coordinator.
+     * @param out the stream to the coordinator.
+     * @throws IOException if the worker cannot communicate with the
+     * coordinator.
+     */
+    static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        if (in.readInt() != DySlabProtocol.magic || in.readByte() != DySlabProtocol.slabMessage) {
+            throw new IOException("Unexpected message from the coordinator.");
+        }
+        double timeFactor = in.readDouble();
+        double delta = in.readDouble();
+        double initialTemperature = in.readDouble();
+        int totalIterations = in.readInt();
+        Interval core = DySlabProtocol.readInterval(in);
+        DyGraph graph = DySlabProtocol.readGraph(in);
+        DySlabLayout layout = new DySlabLayout(graph, core, timeFactor,
+                builder -> builder.withDynnoSliceModules(delta), initialTemperature, totalIterations);
+
+        while (true) {
+            byte message = in.readByte();
+            switch (message) {
+                case DySlabProtocol.iterateMessage:
+                    layout.iterate(in.readInt());
+                    DySlabProtocol.writeTrajectories(out, graph, core);
+                    out.flush();
+                    break;
+                case DySlabProtocol.ghostsMessage:
+                    Map<String, Evolution<Coordinates>> ghosts = DySlabProtocol.readTrajectories(in);
+                    layout.applyGhostPositions((nodeId, time) -> ghosts.containsKey(nodeId)
+                            ? ghosts.get(nodeId).valueAt(time) : null);
+                    break;
+                case DySlabProtocol.finishMessage:
+                    layout.updateGraph();
+                    layout.close();
+                    DySlabProtocol.writeTrajectories(out, graph, core);
+                    out.flush();
+                    return;
+                default:
+                    throw new IOException("Unexpected message from the coordinator.");
+            }
+        }
+    }
+}
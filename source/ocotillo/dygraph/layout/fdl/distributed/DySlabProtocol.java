@@ -0,0 +1,264 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.extra.EvolutionAnalyser;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Binary protocol between the layout coordinator and its workers. The
+ * coordinator sends a slab to each worker, and then alternates iteration
+ * requests, answered with the trajectories in the slab core, and ghost zone
+ * updates, carrying the trajectories computed by the other workers. A final
+ * request makes the worker apply the last update and send back its core.
+ * Trajectories are transferred as sequences of linear functions.
+ */
+class DySlabProtocol {
+
+    static final int magic = 0x4F534C42;
+
+    static final byte slabMessage = 1;
+    static final byte iterateMessage = 2;
+    static final byte ghostsMessage = 3;
+    static final byte finishMessage = 4;
+
+    /**
+     * Writes an interval.
+     *
+     * @param out the output stream.
+     * @param interval the interval.
+     * @throws IOException if the interval cannot be written.
+     */
+    static void writeInterval(DataOutputStream out, Interval interval) throws IOException {
+        out.writeDouble(interval.leftBound());
+        out.writeDouble(interval.rightBound());
+        out.writeByte((interval.isLeftClosed() ? 1 : 0) | (interval.isRightClosed() ? 2 : 0));
+    }
+
+    /**
+     * Reads an interval.
+     *
+     * @param in the input stream.
+     * @return the interval.
+     * @throws IOException if the interval cannot be read.
+     */
+    static Interval readInterval(DataInputStream in) throws IOException {
+        double leftBound = in.readDouble();
+        double rightBound = in.readDouble();
+        byte closure = in.readByte();
+        return Interval.newCustom(leftBound, rightBound, (closure & 1) != 0, (closure & 2) != 0);
+    }
+
+    /**
+     * Writes a list of intervals.
+     *
+     * @param out the output stream.
+     * @param intervals the intervals.
+     * @throws IOException if the intervals cannot be written.
+     */
+    static void writeIntervals(DataOutputStream out, List<Interval> intervals) throws IOException {
+        out.writeInt(intervals.size());
+        for (Interval interval : intervals) {
+            writeInterval(out, interval);
+        }
+    }
+
+    /**
+     * Reads a list of intervals.
+     *
+     * @param in the input stream.
+     * @return the intervals.
+     * @throws IOException if the intervals cannot be read.
+     */
+    static List<Interval> readIntervals(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Interval> intervals = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            intervals.add(readInterval(in));
+        }
+        return intervals;
+    }
+
+    /**
+     * Writes the functions of a position evolution restricted to the given
+     * interval.
+     *
+     * @param out the output stream.
+     * @param evolution the position evolution.
+     * @param restriction the interval to restrict to.
+     * @throws IOException if the functions cannot be written.
+     */
+    static void writeFunctions(DataOutputStream out, Evolution<Coordinates> evolution, Interval restriction) throws IOException {
+        List<Function<Coordinates>> functions = new ArrayList<>();
+        for (Function<Coordinates> function : evolution) {
+            Function<Coordinates> restricted = EvolutionAnalyser.restrictPositionFunction(function, restriction);
+            if (restricted != null) {
+                functions.add(restricted);
+            }
+        }
+        out.writeInt(functions.size());
+        for (Function<Coordinates> function : functions) {
+            writeInterval(out, function.interval());
+            Coordinates leftValue = function.leftValue();
+            Coordinates rightValue = function.rightValue();
+            out.writeDouble(leftValue.x());
+            out.writeDouble(leftValue.y());
+            out.writeDouble(rightValue.x());
+            out.writeDouble(rightValue.y());
+        }
+    }
+
+    /**
+     * Reads a list of functions and inserts them in a position evolution.
+     *
+     * @param in the input stream.
+     * @param evolution the position evolution.
+     * @throws IOException if the functions cannot be read.
+     */
+    static void readFunctions(DataInputStream in, Evolution<Coordinates> evolution) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            Interval interval = readInterval(in);
+            Coordinates leftValue = new Coordinates(in.readDouble(), in.readDouble());
+            Coordinates rightValue = new Coordinates(in.readDouble(), in.readDouble());
+            evolution.insert(new FunctionRect.Coordinates(interval, leftValue, rightValue, Interpolation.Std.linear));
+        }
+    }
+
+    /**
+     * Writes the node trajectories of a graph restricted to the given
+     * interval.
+     *
+     * @param out the output stream.
+     * @param graph the dynamic graph.
+     * @param restriction the interval to restrict to.
+     * @throws IOException if the trajectories cannot be written.
+     */
+    static void writeTrajectories(DataOutputStream out, DyGraph graph, Interval restriction) throws IOException {
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        out.writeInt(graph.nodeCount());
+        for (Node node : graph.nodes()) {
+            out.writeUTF(node.id());
+            writeFunctions(out, positions.get(node), restriction);
+        }
+    }
+
+    /**
+     * Reads node trajectories, indexed by node id. The evolutions have a null
+     * default value, so that the times in which a trajectory is not known
+     * can be recognised.
+     *
+     * @param in the input stream.
+     * @return the trajectories.
+     * @throws IOException if the trajectories cannot be read.
+     */
+    static Map<String, Evolution<Coordinates>> readTrajectories(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Evolution<Coordinates>> trajectories = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String nodeId = in.readUTF();
+            Evolution<Coordinates> evolution = new Evolution<>(null);
+            readFunctions(in, evolution);
+            trajectories.put(nodeId, evolution);
+        }
+        return trajectories;
+    }
+
+    /**
+     * Writes a dynamic graph, including its node and edge presences and its
+     * node trajectories.
+     *
+     * @param out the output stream.
+     * @param graph the dynamic graph.
+     * @throws IOException if the graph cannot be written.
+     */
+    static void writeGraph(DataOutputStream out, DyGraph graph) throws IOException {
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        out.writeInt(graph.nodeCount());
+        for (Node node : graph.nodes()) {
+            out.writeUTF(node.id());
+            out.writeBoolean(node.originId() != null);
+            if (node.originId() != null) {
+                out.writeUTF(node.originId());
+            }
+            writeIntervals(out, EvolutionAnalyser.getIntervalsWithValue(presences.get(node), true));
+            Coordinates defaultPosition = positions.get(node).getDefaultValue();
+            out.writeDouble(defaultPosition.x());
+            out.writeDouble(defaultPosition.y());
+            writeFunctions(out, positions.get(node), Interval.global);
+        }
+        out.writeInt(graph.edgeCount());
+        for (Edge edge : graph.edges()) {
+            out.writeUTF(edge.id());
+            out.writeUTF(edge.source().id());
+            out.writeUTF(edge.target().id());
+            writeIntervals(out, EvolutionAnalyser.getIntervalsWithValue(edgePresences.get(edge), true));
+        }
+    }
+
+    /**
+     * Reads a dynamic graph.
+     *
+     * @param in the input stream.
+     * @return the dynamic graph.
+     * @throws IOException if the graph cannot be read.
+     */
+    static DyGraph readGraph(DataInputStream in) throws IOException {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        int nodeCount = in.readInt();
+        for (int i = 0; i < nodeCount; i++) {
+            String id = in.readUTF();
+            String originId = in.readBoolean() ? in.readUTF() : null;
+            Node node = graph.newNode(id, originId);
+            presences.set(node, EvolutionAnalyser.presenceEvolution(readIntervals(in)));
+            Evolution<Coordinates> evolution = new Evolution<>(new Coordinates(in.readDouble(), in.readDouble()));
+            readFunctions(in, evolution);
+            positions.set(node, evolution);
+        }
+        int edgeCount = in.readInt();
+        for (int i = 0; i < edgeCount; i++) {
+            String id = in.readUTF();
+            Node source = graph.getNode(in.readUTF());
+            Node target = graph.getNode(in.readUTF());
+            Edge edge = graph.newEdge(id, source, target);
+            edgePresences.set(edge, EvolutionAnalyser.presenceEvolution(readIntervals(in)));
+        }
+        return graph;
+    }
+}
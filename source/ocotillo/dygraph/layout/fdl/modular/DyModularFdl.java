@@ -17,19 +17,27 @@ package ocotillo.dygraph.layout.fdl.modular;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import ocotillo.dygraph.DyEdgeAttribute;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.DyNodeAttribute;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.MirrorConnection;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.MirrorLine;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.StcsBuilder;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomE;
+import ocotillo.graph.EdgeAttribute;
 import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
+import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.graph.layout.fdl.modular.*;
 import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
+import ocotillo.graph.layout.fdl.multilevel.MultilevelFdl;
 import ocotillo.gui.quickview.QuickView;
 
 /**
@@ -66,6 +74,7 @@ public class DyModularFdl {
         private final Collection<ModularPreMovement> preMovements = new ArrayList<>();
         private final Collection<ModularPostProcessing> postProcessings = new ArrayList<>();
         private final Collection<ModularMetric> metrics = new ArrayList<>();
+        private MultilevelFdl initialPlacement = null;
 
         /**
          * Constructs an ModularFdl builder.
@@ -157,6 +166,39 @@ public class DyModularFdl {
             return this;
         }
 
+        /**
+         * Places the nodes with a multilevel layout before the first
+         * iteration. The trajectories of each node are collapsed into a single
+         * node, connected to the nodes it interacts with at any time, and the
+         * resulting graph is laid out with the given algorithm. The computed
+         * positions are then assigned to the whole trajectories in the
+         * space-time cube.
+         *
+         * @param initialPlacement the multilevel layout algorithm.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withMultilevelPlacement(MultilevelFdl initialPlacement) {
+            this.initialPlacement = initialPlacement;
+            return this;
+        }
+
+        /**
+         * Inserts the forces, constraints and post-processing of the
+         * DynnoSlice approach for the given desired node distance.
+         *
+         * @param delta the desired node distance.
+         * @return the builder.
+         */
+        public DyModularFdlBuilder withDynnoSliceModules(double delta) {
+            return withForce(new DyModularForce.TimeStraightning(delta))
+                    .withForce(new DyModularForce.Gravity())
+                    .withForce(new DyModularForce.ConnectionAttraction(delta))
+                    .withForce(new DyModularForce.EdgeRepulsion(delta))
+                    .withConstraint(new ModularConstraint.DecreasingMaxMovement(2 * delta))
+                    .withConstraint(new ModularConstraint.MovementAcceleration(2 * delta, Geom.e3D))
+                    .withPostProcessing(new DyModularPostProcessing.FlexibleTimeTrajectories(delta * 1.5, delta * 2.0, Geom.e3D));
+        }
+
         /**
          * Builds the ModularFdl instance.
          *
@@ -168,6 +210,9 @@ public class DyModularFdl {
             DyModularFdl dyModularFdl = new DyModularFdl(originalGraph, timeFactor,
                     forces, constraints, preMovements, postProcessings, metrics,
                     thermostat, geometry);
+            if (initialPlacement != null) {
+                dyModularFdl.placeNodes(initialPlacement);
+            }
 
             for (ModularForce force : forces) {
                 if (force instanceof DyModularForce) {
@@ -237,6 +282,43 @@ public class DyModularFdl {
                 .build();
     }
 
+    /**
+     * Assigns to each node trajectory the position computed by a multilevel
+     * layout of the graph obtained by collapsing the trajectories. The bends
+     * of the trajectories are discarded.
+     *
+     * @param initialPlacement the multilevel layout algorithm.
+     */
+    private void placeNodes(MultilevelFdl initialPlacement) {
+        Graph collapsedGraph = new Graph();
+        Map<Node, Node> collapsedNodes = new HashMap<>();
+        for (Node node : originalGraph.nodes()) {
+            collapsedNodes.put(node, collapsedGraph.newNode(node.id()));
+        }
+        for (MirrorConnection connection : synchronizer.mirrorConnections()) {
+            Node source = collapsedNodes.get(connection.original().source());
+            Node target = collapsedNodes.get(connection.original().target());
+            if (!source.equals(target) && collapsedGraph.betweenEdge(source, target) == null) {
+                collapsedGraph.newEdge(source, target);
+            }
+        }
+        initialPlacement.execute(collapsedGraph);
+
+        NodeAttribute<Coordinates> collapsedPositions = collapsedGraph.nodeAttribute(StdAttribute.nodePosition);
+        EdgeAttribute<ControlPoints> mirrorBends = mirrorGraph.edgeAttribute(StdAttribute.edgePoints);
+        mirrorPositions.startBulkNotification();
+        for (MirrorLine line : synchronizer.mirrorLines()) {
+            Coordinates position = collapsedPositions.get(collapsedNodes.get(line.original()));
+            Coordinates sourcePosition = mirrorPositions.get(line.mirrorSource());
+            Coordinates targetPosition = mirrorPositions.get(line.mirrorTarget());
+            mirrorPositions.set(line.mirrorSource(), new Coordinates(position.x(), position.y(), sourcePosition.z()));
+            mirrorPositions.set(line.mirrorTarget(), new Coordinates(position.x(), position.y(), targetPosition.z()));
+            mirrorBends.set(line.mirrorEdge(), new ControlPoints());
+        }
+        mirrorPositions.stopBulkNotification();
+        synchronizer.updateOriginal();
+    }
+
     /**
      * Execute the main cycle for the given number of iterations.
      *
@@ -249,6 +331,29 @@ public class DyModularFdl {
         return stats;
     }
 
+    /**
+     * Prepares an asynchronous execution of the main cycle. The snapshots
+     * produced during the run describe the space-time cube, while the dynamic
+     * graph is updated once at the end of the run.
+     *
+     * @param maxIterations the maximum number of iterations.
+     * @return the builder for the run.
+     */
+    public ModularRun.RunBuilder runBuilder(int maxIterations) {
+        return new ModularRun.RunBuilder(modularFdl, maxIterations)
+                .withCompletionStep(synchronizer::updateOriginal);
+    }
+
+    /**
+     * Releases the observers that the synchroniser keeps on the mirror graph.
+     * This should be called when the layout is finished. The synchroniser can
+     * still be used afterwards, but it recomputes the mirror line points at
+     * every request.
+     */
+    public void close() {
+        synchronizer.close();
+    }
+
     /**
      * Shows the mirror graph.
      */
@@ -15,13 +15,14 @@
  */
 package ocotillo.dygraph.layout.fdl.modular;
 
-import java.util.ArrayList;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.GeomE;
 import ocotillo.graph.Edge;
-import ocotillo.graph.Node;
-import ocotillo.graph.extra.BendExplicitGraphSynchroniser.MirrorEdge;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendChanges;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendPlanner;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.ChainPoint;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.PlannedBends;
 import ocotillo.graph.layout.fdl.modular.*;
 
 /**
@@ -56,7 +57,7 @@ public abstract class DyModularPostProcessing extends ModularPostProcessing {
     /**
      * Expands or contracts the dynamic time edges in the dynamic graph.
      */
-    public static class FlexibleTimeTrajectories extends DyModularPostProcessing {
+    public static class FlexibleTimeTrajectories extends DyModularPostProcessing implements BendPlanner {
 
         protected final double contractDistance;
         protected final double expandDistance;
@@ -99,8 +100,8 @@ public abstract class DyModularPostProcessing extends ModularPostProcessing {
                 geometry = dyModularFdl.geometry;
             }
             if (refreshCounter % refreshInterval == 0 && temperature() > shutDownTemperature) {
-                expandFlexibleEdges();
-                contractFlexibleEdges();
+                BendChanges changes = synchronizer().planBendChanges(stcSynchronizer().mirrorGraph().edges(), this);
+                synchronizer().applyBendChanges(changes);
                 refreshCounter++;
             }
         }
@@ -108,44 +109,37 @@ public abstract class DyModularPostProcessing extends ModularPostProcessing {
         /**
          * Expands the flexible segments whose length exceed the expand
          * distance.
+         *
+         * @param segment the segment.
+         * @return true if the segment should be expanded.
          */
-        private void expandFlexibleEdges() {
-            for (Edge flexibleEdge : stcSynchronizer().mirrorGraph().edges()) {
-                MirrorEdge mirrorEdge = synchronizer().getMirrorEdge(flexibleEdge);
-                for (Edge segment : new ArrayList<>(mirrorEdge.segments())) {
-                    Coordinates sourcePos = mirrorPositions().get(segment.source());
-                    Coordinates targetPos = mirrorPositions().get(segment.target());
-                    if (geometry.magnitude(targetPos.minus(sourcePos)) > expandDistance
-                            && Math.abs(targetPos.z() - sourcePos.z()) > expandDistance / 2) {
-                        synchronizer().addMirrorBend(mirrorEdge, segment);
-                    }
-                }
-            }
+        @Override
+        public boolean shouldAddBend(Edge segment) {
+            Coordinates sourcePos = mirrorPositions().get(segment.source());
+            Coordinates targetPos = mirrorPositions().get(segment.target());
+            return geometry.magnitude(targetPos.minus(sourcePos)) > expandDistance
+                    && Math.abs(targetPos.z() - sourcePos.z()) > expandDistance / 2;
         }
 
         /**
          * Contracts the flexible chains n1,e1,n2,e2,n3 where n1 and n3 are
-         * closer than the contract distance.
+         * closer than the contract distance, or where n2 is too close to
+         * either of them.
+         *
+         * @param previous the preceding point n1.
+         * @param bend the bend n2.
+         * @param next the following point n3.
+         * @param plannedBends the bends planned to be added in the pass.
+         * @return true if the bend should be contracted.
          */
-        private void contractFlexibleEdges() {
-            for (Edge flexibleEdge : stcSynchronizer().mirrorGraph().edges()) {
-                MirrorEdge mirrorEdge = synchronizer().getMirrorEdge(flexibleEdge);
-                for (Node bend : new ArrayList<>(mirrorEdge.bends())) {
-                    Node n1 = mirrorGraph().inEdges(bend).iterator().next().source();
-                    Node n3 = mirrorGraph().outEdges(bend).iterator().next().target();
-                    Coordinates n1Pos = mirrorPositions().get(n1);
-                    Coordinates n2Pos = mirrorPositions().get(bend);
-                    Coordinates n3Pos = mirrorPositions().get(n3);
-                    double distance12 = geometry.magnitude(n1Pos.minus(n2Pos));
-                    double distance23 = geometry.magnitude(n2Pos.minus(n3Pos));
-                    double distance13 = geometry.magnitude(n1Pos.minus(n3Pos));
-                    if (distance13 < contractDistance
-                            || distance12 < contractDistance / 5
-                            || distance23 < contractDistance / 5) {
-                        synchronizer().removeMirrorBend(mirrorEdge, bend);
-                    }
-                }
-            }
+        @Override
+        public boolean shouldRemoveBend(ChainPoint previous, ChainPoint bend, ChainPoint next, PlannedBends plannedBends) {
+            Coordinates n1Pos = previous.position();
+            Coordinates n2Pos = bend.position();
+            Coordinates n3Pos = next.position();
+            return geometry.magnitude(n1Pos.minus(n3Pos)) < contractDistance
+                    || geometry.magnitude(n1Pos.minus(n2Pos)) < contractDistance / 5
+                    || geometry.magnitude(n2Pos.minus(n3Pos)) < contractDistance / 5;
         }
     }
 }
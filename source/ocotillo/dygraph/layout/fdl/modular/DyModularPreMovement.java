@@ -16,10 +16,12 @@
 package ocotillo.dygraph.layout.fdl.modular;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
 import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.MirrorLine;
 import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
 import ocotillo.graph.Node;
 import ocotillo.graph.extra.BendExplicitGraphSynchroniser.MirrorEdge;
 import ocotillo.graph.layout.fdl.modular.*;
@@ -53,6 +55,16 @@ public abstract class DyModularPreMovement extends ModularPreMovement {
         return dyModularFdl.synchronizer;
     }
 
+    /**
+     * Returns the conversion factor of time into space of the mirror graph.
+     *
+     * @return the time factor.
+     */
+    protected double timeFactor() {
+        assert (dyModularFdl != null) : "The ModularFdl element has not been attached yet.";
+        return dyModularFdl.timeFactor;
+    }
+
     /**
      * Pre-movement phase that ensures that the time positions are valid. In
      * particular, this module prevents mirror segment extremities to change
@@ -148,6 +160,82 @@ public abstract class DyModularPreMovement extends ModularPreMovement {
         }
     }
 
+    /**
+     * Pre-movement module that keeps still the first point of the trajectories
+     * of the given nodes. This module can be used to lay out a sliding window
+     * of a dynamic graph, keeping the trajectories that continue from the
+     * already laid out past attached to it.
+     */
+    public static class PinnedTrajectoryStarts extends DyModularPreMovement {
+
+        private final Collection<Node> originalNodes;
+
+        /**
+         * Constructs a pre-movement module that pins the trajectory starts of
+         * the given nodes.
+         *
+         * @param originalNodes the nodes of the original dynamic graph.
+         */
+        public PinnedTrajectoryStarts(Collection<Node> originalNodes) {
+            this.originalNodes = originalNodes;
+        }
+
+        @Override
+        protected void execute() {
+            for (Node node : originalNodes) {
+                MirrorLine firstLine = null;
+                for (MirrorLine line : stcSynchronizer().mirrorLines(node)) {
+                    if (firstLine == null || line.interval().leftBound() < firstLine.interval().leftBound()) {
+                        firstLine = line;
+                    }
+                }
+                if (firstLine != null) {
+                    MirrorEdge edge = synchronizer().getMirrorEdge(firstLine.mirrorEdge());
+                    movements().set(edge.source(), new Coordinates(0, 0, 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Pre-movement module that keeps still all the points of the space-time
+     * cube that lie outside the given time interval. The points on the
+     * interval extremities can only move in space, so that the trajectories
+     * keep a point on each boundary. This module can be used to lay out a time
+     * slab of a dynamic graph, using the trajectories in its ghost zones as a
+     * fixed boundary.
+     */
+    public static class PinnedOutsideInterval extends DyModularPreMovement {
+
+        private final Interval interval;
+
+        /**
+         * Constructs a pre-movement module that pins the points outside the
+         * given time interval.
+         *
+         * @param interval the time interval in which the points can move.
+         */
+        public PinnedOutsideInterval(Interval interval) {
+            this.interval = interval;
+        }
+
+        @Override
+        protected void execute() {
+            double start = interval.leftBound() * timeFactor();
+            double end = interval.rightBound() * timeFactor();
+            for (Node node : mirrorGraph().nodes()) {
+                double z = mirrorPositions().get(node).z();
+                if (z < start || z > end
+                        || (z == start && !interval.isLeftClosed())
+                        || (z == end && !interval.isRightClosed())) {
+                    movements().set(node, new Coordinates(0, 0, 0));
+                } else if (z == start || z == end) {
+                    movements().get(node).setZ(0);
+                }
+            }
+        }
+    }
+
     /**
      * Pre-movement module that deletes a time component from any node movement.
      * This module can be used for simulating a time-sliced based dynamic graph
@@ -0,0 +1,191 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.modular;
+
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser.MirrorLine;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl.DyModularFdlBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.StdAttribute.ControlPoints;
+import ocotillo.graph.layout.fdl.modular.ModularThermostat;
+
+/**
+ * Layout of a single time slab of a dynamic graph. The points of the
+ * space-time cube outside the slab core are kept still, and are moved only
+ * when the positions computed by the slabs that own them are applied. The
+ * iterations of the slab can be executed in several rounds, while the
+ * temperature cools down linearly across all of them.
+ */
+public class DySlabLayout {
+
+    private final DyGraph graph;
+    private final Interval core;
+    private final double timeFactor;
+    private final SlabCoolDown thermostat;
+    private final DyModularFdl fdl;
+
+    /**
+     * Builds the layout of a slab. The configuration receives the builder of
+     * the slab layout, and must add new instances of the desired modules.
+     *
+     * @param graph the slab graph.
+     * @param core the time interval owned by the slab.
+     * @param timeFactor the conversion factor of time. This indicates how many
+     * space units correspond to a time unit.
+     * @param configuration the configuration of the slab layout.
+     * @param initialTemperature the initial temperature.
+     * @param totalIterations the total number of iterations.
+     */
+    public DySlabLayout(DyGraph graph, Interval core, double timeFactor, UnaryOperator<DyModularFdlBuilder> configuration,
+            double initialTemperature, int totalIterations) {
+        this.graph = graph;
+        this.core = core;
+        this.timeFactor = timeFactor;
+        this.thermostat = new SlabCoolDown(initialTemperature, totalIterations);
+        this.fdl = configuration.apply(new DyModularFdlBuilder(graph, timeFactor))
+                .withThermostat(thermostat)
+                .withPreMovmement(new DyModularPreMovement.PinnedOutsideInterval(core))
+                .build();
+    }
+
+    /**
+     * Returns the slab graph.
+     *
+     * @return the slab graph.
+     */
+    public DyGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the time interval owned by the slab.
+     *
+     * @return the slab core.
+     */
+    public Interval core() {
+        return core;
+    }
+
+    /**
+     * Executes the given number of iterations. The slab graph is updated at
+     * the end of the execution.
+     *
+     * @param numberOfIterations the number of iterations.
+     */
+    public void iterate(int numberOfIterations) {
+        fdl.iterate(numberOfIterations);
+        thermostat.completedIterations += numberOfIterations;
+    }
+
+    /**
+     * Moves the points outside the slab core to the positions computed by the
+     * slabs that own them. The slab graph is not updated until the next
+     * iteration or call to updateGraph.
+     *
+     * @param ownerPositions the function that gives the position of a node,
+     * identified by its id, at a given time, or null if it is not known.
+     */
+    public void applyGhostPositions(BiFunction<String, Double, Coordinates> ownerPositions) {
+        SpaceTimeCubeSynchroniser synchronizer = fdl.getSyncro();
+        NodeAttribute<Coordinates> mirrorPositions = synchronizer.mirrorGraph().nodeAttribute(StdAttribute.nodePosition);
+        EdgeAttribute<ControlPoints> mirrorBends = synchronizer.mirrorGraph().edgeAttribute(StdAttribute.edgePoints);
+        mirrorPositions.startBulkNotification();
+        for (MirrorLine line : synchronizer.mirrorLines()) {
+            String nodeId = line.original().id();
+            mirrorPositions.set(line.mirrorSource(),
+                    ghostPosition(nodeId, mirrorPositions.get(line.mirrorSource()), ownerPositions));
+            mirrorPositions.set(line.mirrorTarget(),
+                    ghostPosition(nodeId, mirrorPositions.get(line.mirrorTarget()), ownerPositions));
+            ControlPoints bends = new ControlPoints();
+            for (Coordinates bend : mirrorBends.get(line.mirrorEdge())) {
+                bends.add(ghostPosition(nodeId, bend, ownerPositions));
+            }
+            mirrorBends.set(line.mirrorEdge(), bends);
+        }
+        mirrorPositions.stopBulkNotification();
+    }
+
+    /**
+     * Returns the position of a space-time cube point according to the slab
+     * that owns its time.
+     *
+     * @param nodeId the id of the node the point belongs to.
+     * @param point the point.
+     * @param ownerPositions the positions computed by the owner slabs.
+     * @return the point position according to its owner slab.
+     */
+    private Coordinates ghostPosition(String nodeId, Coordinates point, BiFunction<String, Double, Coordinates> ownerPositions) {
+        double time = point.z() / timeFactor;
+        if (core.contains(time)) {
+            return point;
+        }
+        Coordinates position = ownerPositions.apply(nodeId, time);
+        if (position == null) {
+            return point;
+        }
+        return new Coordinates(position.x(), position.y(), point.z());
+    }
+
+    /**
+     * Updates the slab graph with the current state of the space-time cube.
+     */
+    public void updateGraph() {
+        fdl.getSyncro().updateOriginal();
+    }
+
+    /**
+     * Releases the observers of the slab layout. This should be called when
+     * the layout is finished.
+     */
+    public void close() {
+        fdl.close();
+    }
+
+    /**
+     * Linear cool down that spans all the iterations of the computation,
+     * although they are executed in separate rounds.
+     */
+    private static class SlabCoolDown extends ModularThermostat {
+
+        private final double initialTemperature;
+        private final int totalIterations;
+        private int completedIterations = 0;
+
+        /**
+         * Constructs the thermostat.
+         *
+         * @param initialTemperature the initial temperature.
+         * @param totalIterations the total number of iterations.
+         */
+        private SlabCoolDown(double initialTemperature, int totalIterations) {
+            this.initialTemperature = initialTemperature;
+            this.totalIterations = totalIterations;
+            this.temperature = initialTemperature;
+        }
+
+        @Override
+        protected void updateTemperature(int currentIteration, int numberOfIterations) {
+            temperature = initialTemperature * ((double) totalIterations - completedIterations - currentIteration) / totalIterations;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.modular;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.extra.DyTimeSlab;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl.DyModularFdlBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Domain decomposition of the DyModularFdl algorithm along time. The
+ * space-time cube is sliced into time slabs, each extended by a ghost zone
+ * that overlaps the neighbouring slabs. The slabs are laid out in parallel,
+ * keeping their ghost zones still, and exchange the positions of the ghost
+ * zones every few iterations. Since the trajectories only interact with the
+ * segments that are close in time, the slabs converge to a layout of the
+ * whole graph, while each of them only handles a portion of its space-time
+ * cube.
+ */
+public class DyTimeSlabFdl {
+
+    private final DyGraph graph;
+    private final double timeFactor;
+    private final UnaryOperator<DyModularFdlBuilder> configuration;
+    private final int numberOfSlabs;
+    private final double ghostWidth;
+    private final int exchangeInterval;
+    private final int threads;
+    private final double initialTemperature;
+
+    /**
+     * Builder for DyTimeSlabFdl.
+     */
+    public static class DyTimeSlabFdlBuilder {
+
+        private final DyGraph graph;
+        private final double timeFactor;
+        private final UnaryOperator<DyModularFdlBuilder> configuration;
+        private int numberOfSlabs = Runtime.getRuntime().availableProcessors();
+        private double ghostWidth = Double.NaN;
+        private int exchangeInterval = 10;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private double initialTemperature = 1;
+
+        /**
+         * Constructs a DyTimeSlabFdl builder. The configuration receives the
+         * builder of the layout of each slab, and must add new instances of
+         * the desired modules on every call. The thermostat is set by the
+         * DyTimeSlabFdl instance.
+         *
+         * @param graph the dynamic graph.
+         * @param timeFactor the conversion factor of time. This indicates how
+         * many space units correspond to a time unit.
+         * @param configuration the configuration of the slab layouts.
+         */
+        public DyTimeSlabFdlBuilder(DyGraph graph, double timeFactor, UnaryOperator<DyModularFdlBuilder> configuration) {
+            this.graph = graph;
+            this.timeFactor = timeFactor;
+            this.configuration = configuration;
+        }
+
+        /**
+         * Indicates the number of time slabs. By default, one slab per
+         * available processor.
+         *
+         * @param numberOfSlabs the number of slabs.
+         * @return the builder.
+         */
+        public DyTimeSlabFdlBuilder withSlabs(int numberOfSlabs) {
+            assert (numberOfSlabs > 0) : "The number of slabs must be positive.";
+            this.numberOfSlabs = numberOfSlabs;
+            return this;
+        }
+
+        /**
+         * Indicates the time width of the ghost zone on each side of a slab.
+         * It should cover the time range in which the trajectories interact.
+         * By default, a quarter of the slab width.
+         *
+         * @param ghostWidth the ghost zone width.
+         * @return the builder.
+         */
+        public DyTimeSlabFdlBuilder withGhostWidth(double ghostWidth) {
+            assert (ghostWidth >= 0) : "The ghost zone width must be non negative.";
+            this.ghostWidth = ghostWidth;
+            return this;
+        }
+
+        /**
+         * Indicates the number of iterations between two exchanges of the
+         * ghost zone positions.
+         *
+         * @param exchangeInterval the number of iterations between exchanges.
+         * @return the builder.
+         */
+        public DyTimeSlabFdlBuilder withExchangeInterval(int exchangeInterval) {
+            assert (exchangeInterval > 0) : "The exchange interval must be positive.";
+            this.exchangeInterval = exchangeInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads that lay out the slabs. By default, one
+         * thread per available processor.
+         *
+         * @param threads the number of threads.
+         * @return the builder.
+         */
+        public DyTimeSlabFdlBuilder withThreads(int threads) {
+            assert (threads > 0) : "The number of threads must be positive.";
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Indicates the initial temperature of the linear cool down applied
+         * across all the iterations.
+         *
+         * @param initialTemperature the initial temperature.
+         * @return the builder.
+         */
+        public DyTimeSlabFdlBuilder withInitialTemperature(double initialTemperature) {
+            assert (0 <= initialTemperature && initialTemperature <= 1) : "The temperature must be in the range [0,1]";
+            this.initialTemperature = initialTemperature;
+            return this;
+        }
+
+        /**
+         * Builds the DyTimeSlabFdl instance.
+         *
+         * @return the DyTimeSlabFdl instance.
+         */
+        public DyTimeSlabFdl build() {
+            return new DyTimeSlabFdl(graph, timeFactor, configuration, numberOfSlabs,
+                    ghostWidth, exchangeInterval, threads, initialTemperature);
+        }
+    }
+
+    /**
+     * Constructs a DyTimeSlabFdl instance.
+     *
+     * @param graph the dynamic graph.
+     * @param timeFactor the conversion factor of time.
+     * @param configuration the configuration of the slab layouts.
+     * @param numberOfSlabs the number of slabs.
+     * @param ghostWidth the ghost zone width, or NaN for the default one.
+     * @param exchangeInterval the number of iterations between exchanges.
+     * @param threads the number of threads.
+     * @param initialTemperature the initial temperature.
+     */
+    private DyTimeSlabFdl(DyGraph graph, double timeFactor, UnaryOperator<DyModularFdlBuilder> configuration,
+            int numberOfSlabs, double ghostWidth, int exchangeInterval, int threads, double initialTemperature) {
+        this.graph = graph;
+        this.timeFactor = timeFactor;
+        this.configuration = configuration;
+        this.numberOfSlabs = numberOfSlabs;
+        this.ghostWidth = ghostWidth;
+        this.exchangeInterval = exchangeInterval;
+        this.threads = threads;
+        this.initialTemperature = initialTemperature;
+    }
+
+    /**
+     * Lays out the graph for the given number of iterations. The slabs are
+     * built from the current trajectories, and their cores are committed back
+     * to the graph at the end of the computation, after a last exchange that
+     * makes the trajectories continuous at the slab boundaries.
+     *
+     * @param numberOfIterations the number of iterations.
+     */
+    public void iterate(int numberOfIterations) {
+        List<DyTimeSlab> slabs = DyTimeSlab.split(graph, numberOfSlabs, ghostWidth);
+        List<DySlabLayout> layouts = new ArrayList<>();
+        for (DyTimeSlab slab : slabs) {
+            layouts.add(new DySlabLayout(slab.slab(), slab.core(), timeFactor, configuration,
+                    initialTemperature, numberOfIterations));
+        }
+
+        ExecutorService executor = threads > 1 && layouts.size() > 1
+                ? Executors.newFixedThreadPool(Math.min(threads, layouts.size())) : null;
+        try {
+            for (int done = 0; done < numberOfIterations; done += exchangeInterval) {
+                int roundIterations = Math.min(exchangeInterval, numberOfIterations - done);
+                runRound(layouts, roundIterations, executor);
+                for (DySlabLayout layout : layouts) {
+                    layout.applyGhostPositions((nodeId, time) -> ownerPosition(nodeId, time, layouts));
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        for (DySlabLayout layout : layouts) {
+            layout.updateGraph();
+            layout.close();
+        }
+        for (int i = slabs.size() - 1; i >= 0; i--) {
+            slabs.get(i).commit();
+        }
+    }
+
+    /**
+     * Executes the given number of iterations on all slabs.
+     *
+     * @param layouts the slab layouts.
+     * @param roundIterations the number of iterations.
+     * @param executor the executor, or null to lay out the slabs on the
+     * calling thread.
+     */
+    private static void runRound(List<DySlabLayout> layouts, int roundIterations, ExecutorService executor) {
+        if (executor == null) {
+            for (DySlabLayout layout : layouts) {
+                layout.iterate(roundIterations);
+            }
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (DySlabLayout layout : layouts) {
+            futures.add(executor.submit(() -> layout.iterate(roundIterations)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while laying out the time slabs.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot lay out the time slabs.", ex.getCause());
+        }
+    }
+
+    /**
+     * Returns the position of a node at the given time according to the slab
+     * that owns that time.
+     *
+     * @param nodeId the node id.
+     * @param time the time.
+     * @param layouts all the slab layouts.
+     * @return the node position, or null if the owner slab does not contain
+     * the node.
+     */
+    private static Coordinates ownerPosition(String nodeId, double time, List<DySlabLayout> layouts) {
+        for (DySlabLayout layout : layouts) {
+            DyGraph ownerGraph = layout.graph();
+            if (layout.core().contains(time) && ownerGraph.hasNode(nodeId)) {
+                DyNodeAttribute<Coordinates> ownerPositions = ownerGraph.nodeAttribute(StdAttribute.nodePosition);
+                return ownerPositions.get(ownerGraph.getNode(nodeId)).valueAt(time);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.imageio.ImageIO;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.geometry.Box;
+import ocotillo.graph.Graph;
+import ocotillo.graph.rendering.GraphRenderer;
+import ocotillo.graph.rendering.GraphRenderer2D;
+import ocotillo.graph.rendering.image.ImageExporter;
+
+/**
+ * Exports the frames of an animation of a dynamic graph without displaying
+ * them. Frames are rendered in parallel into a pool of reusable images, and
+ * can be either saved as a numbered sequence of PNG files or piped as raw ARGB
+ * frames into an encoder process.
+ */
+public class AnimationExporter {
+
+    private final DyGraph dyGraph;
+    private final Animation animation;
+    private final int width;
+    private final int height;
+    private final Function<Graph, GraphRenderer> rendererFactory;
+    private final int threads;
+    private Box viewBox;
+
+    /**
+     * Writes a rendered frame.
+     */
+    private static interface FrameWriter {
+
+        /**
+         * Writes a frame.
+         *
+         * @param frameIndex the index of the frame in the animation.
+         * @param image the rendered frame.
+         * @throws IOException if the frame cannot be written.
+         */
+        public void write(int frameIndex, BufferedImage image) throws IOException;
+    }
+
+    /**
+     * A builder for animation exporters.
+     */
+    public static class AeBuilder {
+
+        private final DyGraph dyGraph;
+        private final Animation animation;
+        private final int width;
+        private final int height;
+        private Function<Graph, GraphRenderer> rendererFactory = GraphRenderer2D::new;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Box viewBox = null;
+
+        /**
+         * Constructs a builder for an animation exporter.
+         *
+         * @param dyGraph the dynamic graph.
+         * @param animation the animation to export.
+         * @param width the frame width in pixels.
+         * @param height the frame height in pixels.
+         */
+        public AeBuilder(DyGraph dyGraph, Animation animation, int width, int height) {
+            this.dyGraph = dyGraph;
+            this.animation = animation;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Sets the renderer used for each frame. By default, a 2D renderer is
+         * used.
+         *
+         * @param rendererFactory the function that creates the renderer for a
+         * frame snapshot.
+         * @return the builder.
+         */
+        public AeBuilder withRenderer(Function<Graph, GraphRenderer> rendererFactory) {
+            this.rendererFactory = rendererFactory;
+            return this;
+        }
+
+        /**
+         * Sets the number of rendering threads. By default, one thread per
+         * available processor is used.
+         *
+         * @param threads the number of threads.
+         * @return the builder.
+         */
+        public AeBuilder withThreads(int threads) {
+            assert (threads > 0) : "The number of threads must be positive.";
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the portion of the drawing shown in every frame. By default,
+         * the box containing all the frames is computed before the export.
+         *
+         * @param viewBox the view box, in rendering units.
+         * @return the builder.
+         */
+        public AeBuilder withViewBox(Box viewBox) {
+            this.viewBox = viewBox;
+            return this;
+        }
+
+        /**
+         * Builds the animation exporter.
+         *
+         * @return the animation exporter.
+         */
+        public AnimationExporter build() {
+            return new AnimationExporter(dyGraph, animation, width, height, rendererFactory, threads, viewBox);
+        }
+    }
+
+    /**
+     * Constructs an animation exporter.
+     *
+     * @param dyGraph the dynamic graph.
+     * @param animation the animation to export.
+     * @param width the frame width in pixels.
+     * @param height the frame height in pixels.
+     * @param rendererFactory the function that creates the frame renderers.
+     * @param threads the number of rendering threads.
+     * @param viewBox the view box, or null to compute it.
+     */
+    private AnimationExporter(DyGraph dyGraph, Animation animation, int width, int height,
+            Function<Graph, GraphRenderer> rendererFactory, int threads, Box viewBox) {
+        this.dyGraph = dyGraph;
+        this.animation = animation;
+        this.width = width;
+        this.height = height;
+        this.rendererFactory = rendererFactory;
+        this.threads = threads;
+        this.viewBox = viewBox;
+    }
+
+    /**
+     * Returns the file used for a frame of a PNG sequence.
+     *
+     * @param directory the destination directory.
+     * @param prefix the file name prefix.
+     * @param frameIndex the frame index.
+     * @return the frame file.
+     */
+    public static File frameFile(File directory, String prefix, int frameIndex) {
+        return new File(directory, String.format("%s%05d.png", prefix, frameIndex));
+    }
+
+    /**
+     * Returns the file where the view box of a PNG sequence is stored.
+     *
+     * @param directory the destination directory.
+     * @param prefix the file name prefix.
+     * @return the view box file.
+     */
+    public static File viewBoxFile(File directory, String prefix) {
+        return new File(directory, prefix + "viewbox.txt");
+    }
+
+    /**
+     * Saves the animation as a numbered sequence of PNG files. Frames whose
+     * file already exists are skipped, so that an interrupted export can be
+     * resumed. Each file is first written under a temporary name, so that
+     * only complete frames are found when resuming. The view box is stored
+     * next to the frames, so that a resumed export does not compute it again
+     * and frames rendered in different runs share the same view.
+     *
+     * @param directory the destination directory.
+     * @param prefix the file name prefix.
+     * @return the number of frames rendered.
+     */
+    public int savePngSequence(File directory, String prefix) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create destination directory " + directory.getAbsolutePath());
+        }
+        List<Integer> missingFrames = new ArrayList<>();
+        for (int i = 0; i < animation.frames().size(); i++) {
+            if (!frameFile(directory, prefix, i).exists()) {
+                missingFrames.add(i);
+            }
+        }
+        if (missingFrames.isEmpty()) {
+            return 0;
+        }
+        File boxFile = viewBoxFile(directory, prefix);
+        if (viewBox == null && boxFile.exists()) {
+            viewBox = readViewBox(boxFile);
+        }
+        if (!boxFile.exists()) {
+            writeViewBox(boxFile, viewBox());
+        }
+        renderFrames(missingFrames, false, (frameIndex, image) -> {
+            File destination = frameFile(directory, prefix, frameIndex);
+            File partialFile = new File(directory, destination.getName() + ".part");
+            ImageIO.write(image, "png", partialFile);
+            Files.move(partialFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        });
+        return missingFrames.size();
+    }
+
+    /**
+     * Pipes the animation frames, in order, to the standard input of an
+     * encoder process. Each frame is written as raw ARGB pixels, four bytes
+     * per pixel, row by row. For instance, ffmpeg accepts these frames with
+     * the options "-f rawvideo -pix_fmt argb -s WIDTHxHEIGHT -r FPS -i -".
+     *
+     * @param encoderCommand the command that starts the encoder.
+     */
+    public void pipeRawFrames(List<String> encoderCommand) {
+        Process encoder;
+        try {
+            encoder = new ProcessBuilder(encoderCommand)
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot start the encoder " + encoderCommand, ex);
+        }
+
+        List<Integer> allFrames = new ArrayList<>();
+        for (int i = 0; i < animation.frames().size(); i++) {
+            allFrames.add(i);
+        }
+        ByteBuffer frameBytes = ByteBuffer.allocate(width * height * 4);
+        try (OutputStream encoderInput = new BufferedOutputStream(encoder.getOutputStream())) {
+            renderFrames(allFrames, true, (frameIndex, image) -> {
+                int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                frameBytes.clear();
+                frameBytes.asIntBuffer().put(pixels);
+                encoderInput.write(frameBytes.array());
+            });
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot write frames to the encoder.", ex);
+        }
+
+        try {
+            int exitCode = encoder.waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException("The encoder terminated with exit code " + exitCode);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the encoder.", ex);
+        }
+    }
+
+    /**
+     * Returns the view box used for the frames, computing it if necessary as
+     * the box containing all the frames.
+     *
+     * @return the view box.
+     */
+    public Box viewBox() {
+        if (viewBox == null) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Box>> frameBoxes = new ArrayList<>();
+            for (Double frameTime : animation.frames()) {
+                frameBoxes.add(executor.submit(() -> {
+                    Graph snapshot = dyGraph.snapshotAt(frameTime);
+                    return snapshot.nodeCount() > 0 ? rendererFactory.apply(snapshot).computeBox() : null;
+                }));
+            }
+            List<Box> nonEmptyBoxes = new ArrayList<>();
+            try {
+                for (Future<Box> frameBox : frameBoxes) {
+                    Box box = frameBox.get();
+                    if (box != null) {
+                        nonEmptyBoxes.add(box);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while computing the view box.", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Cannot compute the view box.", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+            if (nonEmptyBoxes.isEmpty()) {
+                throw new IllegalStateException("Cannot compute the view box of an animation without nodes.");
+            }
+            viewBox = Box.combine(nonEmptyBoxes);
+        }
+        return viewBox;
+    }
+
+    /**
+     * Reads a view box stored by a previous export.
+     *
+     * @param boxFile the view box file.
+     * @return the view box.
+     */
+    private static Box readViewBox(File boxFile) {
+        try {
+            String[] bounds = new String(Files.readAllBytes(boxFile.toPath()), StandardCharsets.UTF_8).trim().split("\\s+");
+            double[] leftBounds = new double[bounds.length / 2];
+            double[] rightBounds = new double[bounds.length / 2];
+            for (int i = 0; i < leftBounds.length; i++) {
+                leftBounds[i] = Double.parseDouble(bounds[2 * i]);
+                rightBounds[i] = Double.parseDouble(bounds[2 * i + 1]);
+            }
+            return new Box(leftBounds, rightBounds);
+        } catch (IOException | NumberFormatException ex) {
+            throw new IllegalStateException("Cannot read the view box file " + boxFile.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Stores a view box for the following exports. The file is first written
+     * under a temporary name, so that only a complete box is found.
+     *
+     * @param boxFile the view box file.
+     * @param box the view box.
+     */
+    private static void writeViewBox(File boxFile, Box box) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < box.dimensions(); i++) {
+            builder.append(box.leftBound(i)).append(' ').append(box.rightBound(i)).append('\n');
+        }
+        File partialFile = new File(boxFile.getParentFile(), boxFile.getName() + ".part");
+        try {
+            Files.write(partialFile.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(partialFile.toPath(), boxFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot write the view box file " + boxFile.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Renders the given frames in parallel and passes them to the writer.
+     *
+     * @param frameIndices the indices of the frames to render.
+     * @param inOrder whether the frames are written in order by the calling
+     * thread, or as soon as they are rendered by the rendering threads.
+     * @param writer the frame writer.
+     */
+    private void renderFrames(List<Integer> frameIndices, boolean inOrder, FrameWriter writer) {
+        if (frameIndices.isEmpty()) {
+            return;
+        }
+        Box frameBox = viewBox();
+        int poolSize = 2 * threads;
+        BlockingQueue<BufferedImage> images = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            images.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<BufferedImage>> pending = new ArrayDeque<>();
+        Deque<Integer> pendingIndices = new ArrayDeque<>();
+        try {
+            for (int frameIndex : frameIndices) {
+                if (pending.size() == poolSize) {
+                    completeFrame(pending.removeFirst(), pendingIndices.removeFirst(), images, inOrder ? writer : null);
+                }
+                BufferedImage image = images.take();
+                double frameTime = animation.frames().get(frameIndex);
+                pending.addLast(executor.submit(() -> {
+                    Graph snapshot = dyGraph.snapshotAt(frameTime);
+                    ImageExporter.drawOnImage(rendererFactory.apply(snapshot), snapshot, image, frameBox);
+                    if (!inOrder) {
+                        writer.write(frameIndex, image);
+                    }
+                    return image;
+                }));
+                pendingIndices.addLast(frameIndex);
+            }
+            while (!pending.isEmpty()) {
+                completeFrame(pending.removeFirst(), pendingIndices.removeFirst(), images, inOrder ? writer : null);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting the animation.", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for a frame to be rendered, writes it if required, and returns its
+     * image to the pool.
+     *
+     * @param frame the pending frame.
+     * @param frameIndex the index of the pending frame.
+     * @param images the image pool.
+     * @param writer the writer to use, or null if the frame is already
+     * written.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void completeFrame(Future<BufferedImage> frame, int frameIndex, BlockingQueue<BufferedImage> images,
+            FrameWriter writer) throws InterruptedException {
+        try {
+            BufferedImage image = frame.get();
+            if (writer != null) {
+                writer.write(frameIndex, image);
+            }
+            images.put(image);
+        } catch (ExecutionException | IOException ex) {
+            throw new IllegalStateException("Cannot export the animation frame.", ex);
+        }
+    }
+}
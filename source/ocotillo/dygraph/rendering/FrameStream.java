@@ -0,0 +1,615 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import ocotillo.dygraph.DyClusterAttribute;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.graph.Cluster;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Element;
+import ocotillo.graph.ElementAttribute;
+import ocotillo.graph.Graph;
+import ocotillo.graph.GraphAttribute;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+
+/**
+ * Prepares the frames of an animation on a background thread, keeping only a
+ * limited number of frames ready in advance. The frames are consumed in order,
+ * and can be transferred onto a single display graph that is updated
+ * incrementally. Only the first frame is a full snapshot of the dynamic graph.
+ * The following ones are computed from the previous frame, evaluating again
+ * only the evolutions that can have changed, and carry only the differences
+ * from it.
+ */
+public class FrameStream {
+
+    private final DyGraph dyGraph;
+    private final List<Double> frames;
+    private final BlockingQueue<Frame> buffer;
+    private final Thread producer;
+    private int consumedFrames = 0;
+
+    /**
+     * Constructs a frame stream. The frame preparation starts immediately.
+     *
+     * @param dyGraph the dynamic graph.
+     * @param frames the frame times.
+     * @param lookAhead the maximum number of frames prepared in advance.
+     */
+    public FrameStream(DyGraph dyGraph, List<Double> frames, int lookAhead) {
+        assert (lookAhead > 0) : "The look-ahead must be positive.";
+        this.dyGraph = dyGraph;
+        this.frames = new ArrayList<>(frames);
+        this.buffer = new ArrayBlockingQueue<>(lookAhead);
+        this.producer = new Thread(this::prepareFrames, "Frame preparation");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Computes the frames in order, waiting when the buffer is full.
+     */
+    private void prepareFrames() {
+        try {
+            SnapshotTracker tracker = new SnapshotTracker(dyGraph);
+            for (int i = 0; i < frames.size(); i++) {
+                double frameTime = frames.get(i);
+                Frame changes = tracker.advance(frameTime);
+                if (i == 0) {
+                    buffer.put(new Frame(frameTime, tracker.currentGraph()));
+                } else {
+                    buffer.put(changes);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the next frame if it is ready.
+     *
+     * @return the next frame, or null if it is not ready yet or if all frames
+     * have been consumed.
+     */
+    public Frame poll() {
+        Frame frame = buffer.poll();
+        if (frame != null) {
+            consumedFrames++;
+        }
+        return frame;
+    }
+
+    /**
+     * Checks whether all the frames have been consumed.
+     *
+     * @return true if all frames have been consumed, false otherwise.
+     */
+    public boolean isFinished() {
+        return consumedFrames == frames.size();
+    }
+
+    /**
+     * Stops the frame preparation and releases the prepared frames.
+     */
+    public void close() {
+        producer.interrupt();
+        buffer.clear();
+    }
+
+    /**
+     * A frame of the stream. The first frame contains the full snapshot of the
+     * dynamic graph, while the following ones contain the elements that
+     * appeared or disappeared and the attribute values that changed since the
+     * previous frame. Frames must therefore be shown in order on the same
+     * display graph.
+     */
+    public static class Frame {
+
+        private final double time;
+        private final Graph snapshot;
+        private final List<Node> removedNodes = new ArrayList<>();
+        private final List<Edge> removedEdges = new ArrayList<>();
+        private final List<Cluster> removedClusters = new ArrayList<>();
+        private final List<Node> addedNodes = new ArrayList<>();
+        private final List<Edge> addedEdges = new ArrayList<>();
+        private final List<Cluster> addedClusters = new ArrayList<>();
+        private final Map<String, Object> graphValues = new LinkedHashMap<>();
+        private final Map<String, Map<Element, Object>> nodeValues = new LinkedHashMap<>();
+        private final Map<String, Map<Element, Object>> edgeValues = new LinkedHashMap<>();
+        private final Map<String, Map<Element, Object>> clusterValues = new LinkedHashMap<>();
+
+        /**
+         * Constructs a frame.
+         *
+         * @param time the frame time.
+         * @param snapshot the full snapshot, or null for a frame that
+         * contains only the changes from the previous one.
+         */
+        private Frame(double time, Graph snapshot) {
+            this.time = time;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the time of the frame.
+         *
+         * @return the frame time.
+         */
+        public double time() {
+            return time;
+        }
+
+        /**
+         * Transfers the frame onto a display graph that shows the previous
+         * frame of the stream. The display graph and its attributes notify
+         * their observers once.
+         *
+         * @param display the display graph.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public void showOn(Graph display) {
+            if (snapshot != null) {
+                showFrame(snapshot, display);
+                return;
+            }
+            display.startBulkNotification();
+            for (Edge edge : removedEdges) {
+                if (display.has(edge)) {
+                    display.forcedRemove(edge);
+                }
+            }
+            for (Cluster cluster : removedClusters) {
+                if (display.has(cluster)) {
+                    display.forcedRemove(cluster);
+                }
+            }
+            for (Node node : removedNodes) {
+                if (display.has(node)) {
+                    display.forcedRemove(node);
+                }
+            }
+            for (Node node : addedNodes) {
+                if (!display.has(node)) {
+                    display.add(node);
+                }
+            }
+            for (Edge edge : addedEdges) {
+                if (!display.has(edge)) {
+                    display.add(edge);
+                }
+            }
+            for (Cluster cluster : addedClusters) {
+                if (!display.has(cluster)) {
+                    display.add(cluster);
+                }
+            }
+            display.stopBulkNotification();
+
+            for (Map.Entry<String, Object> entry : graphValues.entrySet()) {
+                if (display.hasGraphAttribute(entry.getKey())) {
+                    ((GraphAttribute) display.graphAttribute(entry.getKey())).set(entry.getValue());
+                }
+            }
+            setElementValues(nodeValues, display.nodeAttributes());
+            setElementValues(edgeValues, display.edgeAttributes());
+            setElementValues(clusterValues, display.clusterAttributes());
+        }
+
+        /**
+         * Sets the changed values onto the attributes with the same id of the
+         * display graph.
+         *
+         * @param values the changed values, by attribute id.
+         * @param displayAttributes the display attributes.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static void setElementValues(Map<String, Map<Element, Object>> values,
+                Map<String, ? extends ElementAttribute<?, ?>> displayAttributes) {
+            for (Map.Entry<String, Map<Element, Object>> entry : values.entrySet()) {
+                ElementAttribute displayAttribute = displayAttributes.get(entry.getKey());
+                if (displayAttribute == null) {
+                    continue;
+                }
+                displayAttribute.startBulkNotification();
+                for (Map.Entry<Element, Object> value : entry.getValue().entrySet()) {
+                    displayAttribute.set(value.getKey(), value.getValue());
+                }
+                displayAttribute.stopBulkNotification();
+            }
+        }
+    }
+
+    /**
+     * Follows the dynamic graph through the frame times, remembering for each
+     * evolution the function used in the previous frame. When the next frame
+     * time falls in the same function, the evolution is not searched again,
+     * and constant functions are not evaluated at all.
+     */
+    private static class SnapshotTracker {
+
+        private final DyGraph dyGraph;
+        private final TrackedValues nodePresence = new TrackedValues();
+        private final TrackedValues edgePresence = new TrackedValues();
+        private final TrackedValues clusterPresence = new TrackedValues();
+        private final TrackedValues graphValues = new TrackedValues();
+        private final Map<String, TrackedValues> nodeValues = new HashMap<>();
+        private final Map<String, TrackedValues> edgeValues = new HashMap<>();
+        private final Map<String, TrackedValues> clusterValues = new HashMap<>();
+        private Set<Node> presentNodes = new HashSet<>();
+        private Set<Edge> presentEdges = new HashSet<>();
+        private Set<Cluster> presentClusters = new HashSet<>();
+        private boolean started = false;
+
+        /**
+         * Constructs a tracker for a dynamic graph.
+         *
+         * @param dyGraph the dynamic graph.
+         */
+        private SnapshotTracker(DyGraph dyGraph) {
+            this.dyGraph = dyGraph;
+        }
+
+        /**
+         * Moves the tracker to the given time.
+         *
+         * @param time the new time.
+         * @return the changes from the previous time.
+         */
+        @SuppressWarnings("unchecked")
+        private Frame advance(double time) {
+            Frame frame = new Frame(time, null);
+
+            Set<Node> nodes = new HashSet<>();
+            DyNodeAttribute<Object> nodePresenceAttribute = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+            for (Node node : dyGraph.nodes()) {
+                nodePresence.update(node, nodePresenceAttribute.get(node), time, started);
+                if (Boolean.TRUE.equals(nodePresence.value(node))) {
+                    nodes.add(node);
+                }
+            }
+            Set<Edge> edges = new HashSet<>();
+            DyEdgeAttribute<Object> edgePresenceAttribute = dyGraph.edgeAttribute(StdAttribute.dyPresence);
+            for (Edge edge : dyGraph.edges()) {
+                edgePresence.update(edge, edgePresenceAttribute.get(edge), time, started);
+                if (nodes.contains(edge.source()) && nodes.contains(edge.target())
+                        && Boolean.TRUE.equals(edgePresence.value(edge))) {
+                    edges.add(edge);
+                }
+            }
+            Set<Cluster> clusters = new HashSet<>();
+            DyClusterAttribute<Object> clusterPresenceAttribute = dyGraph.clusterAttribute(StdAttribute.dyPresence);
+            for (Cluster cluster : dyGraph.clusters()) {
+                clusterPresence.update(cluster, clusterPresenceAttribute.get(cluster), time, started);
+                if (Boolean.TRUE.equals(clusterPresence.value(cluster))) {
+                    clusters.add(cluster);
+                }
+            }
+
+            collectPresenceChanges(dyGraph.nodes(), presentNodes, nodes, frame.removedNodes, frame.addedNodes);
+            collectPresenceChanges(dyGraph.edges(), presentEdges, edges, frame.removedEdges, frame.addedEdges);
+            collectPresenceChanges(dyGraph.clusters(), presentClusters, clusters, frame.removedClusters, frame.addedClusters);
+
+            for (Map.Entry<String, GraphAttribute<?>> entry : dyGraph.graphAttributes().entrySet()) {
+                String attrId = entry.getKey();
+                if (!StdAttribute.isReservedForDynamic(attrId)
+                        && graphValues.update(attrId, (Evolution<Object>) entry.getValue().get(), time, started)) {
+                    frame.graphValues.put(attrId, graphValues.value(attrId));
+                }
+            }
+            collectValueChanges(dyGraph.nodeAttributes(), nodeValues, presentNodes, nodes, time, frame.nodeValues);
+            collectValueChanges(dyGraph.edgeAttributes(), edgeValues, presentEdges, edges, time, frame.edgeValues);
+            collectValueChanges(dyGraph.clusterAttributes(), clusterValues, presentClusters, clusters, time, frame.clusterValues);
+
+            presentNodes = nodes;
+            presentEdges = edges;
+            presentClusters = clusters;
+            started = true;
+            return frame;
+        }
+
+        /**
+         * Builds a graph with the elements present at the current time and
+         * the attribute values they have at that time.
+         *
+         * @return the current graph.
+         */
+        @SuppressWarnings("unchecked")
+        private Graph currentGraph() {
+            Graph graph = new Graph();
+            for (Node node : dyGraph.nodes()) {
+                if (presentNodes.contains(node)) {
+                    graph.add(node);
+                }
+            }
+            for (Edge edge : dyGraph.edges()) {
+                if (presentEdges.contains(edge)) {
+                    graph.add(edge);
+                }
+            }
+            for (Cluster cluster : dyGraph.clusters()) {
+                if (presentClusters.contains(cluster)) {
+                    graph.add(cluster);
+                }
+            }
+
+            for (String attrId : dyGraph.graphAttributes().keySet()) {
+                if (!StdAttribute.isReservedForDynamic(attrId)) {
+                    graph.newGraphAttribute(attrId, graphValues.value(attrId));
+                }
+            }
+            for (Map.Entry<String, ? extends ElementAttribute<?, ?>> entry : dyGraph.nodeAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    copyCurrentValues(entry.getValue(), nodeValues.get(entry.getKey()), presentNodes,
+                            graph.newNodeAttribute(entry.getKey(), defaultValue(entry.getValue())));
+                }
+            }
+            for (Map.Entry<String, ? extends ElementAttribute<?, ?>> entry : dyGraph.edgeAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    copyCurrentValues(entry.getValue(), edgeValues.get(entry.getKey()), presentEdges,
+                            graph.newEdgeAttribute(entry.getKey(), defaultValue(entry.getValue())));
+                }
+            }
+            for (Map.Entry<String, ? extends ElementAttribute<?, ?>> entry : dyGraph.clusterAttributes().entrySet()) {
+                if (!StdAttribute.isReservedForDynamic(entry.getKey())) {
+                    copyCurrentValues(entry.getValue(), clusterValues.get(entry.getKey()), presentClusters,
+                            graph.newClusterAttribute(entry.getKey(), defaultValue(entry.getValue())));
+                }
+            }
+            return graph;
+        }
+
+        /**
+         * Returns the value taken by the elements without an evolution in a
+         * dynamic attribute.
+         *
+         * @param dyAttribute the dynamic attribute.
+         * @return the default value.
+         */
+        private static Object defaultValue(ElementAttribute<?, ?> dyAttribute) {
+            return ((Evolution<?>) dyAttribute.getDefault()).getDefaultValue();
+        }
+
+        /**
+         * Copies the tracked values of the present elements onto an attribute
+         * of the current graph.
+         *
+         * @param dyAttribute the dynamic attribute.
+         * @param tracked the tracked values of the attribute, or null if none
+         * were computed.
+         * @param present the present elements.
+         * @param attribute the attribute of the current graph.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static void copyCurrentValues(ElementAttribute<?, ?> dyAttribute, TrackedValues tracked,
+                Set<? extends Element> present, ElementAttribute attribute) {
+            if (tracked == null) {
+                return;
+            }
+            for (Object object : dyAttribute) {
+                Element element = ((Map.Entry<Element, ?>) object).getKey();
+                if (present.contains(element)) {
+                    attribute.set(element, tracked.value(element));
+                }
+            }
+        }
+
+        /**
+         * Collects the elements that appeared or disappeared.
+         *
+         * @param <T> the type of element.
+         * @param elements all the elements, in the order to report them.
+         * @param previous the elements present at the previous time.
+         * @param current the elements present at the current time.
+         * @param removed the list to fill with the disappeared elements.
+         * @param added the list to fill with the appeared elements.
+         */
+        private static <T extends Element> void collectPresenceChanges(Iterable<T> elements,
+                Set<T> previous, Set<T> current, List<T> removed, List<T> added) {
+            for (T element : elements) {
+                boolean wasPresent = previous.contains(element);
+                boolean isPresent = current.contains(element);
+                if (wasPresent && !isPresent) {
+                    removed.add(element);
+                } else if (!wasPresent && isPresent) {
+                    added.add(element);
+                }
+            }
+        }
+
+        /**
+         * Collects the attribute values that changed for the present elements.
+         * The values of the elements that just appeared are always collected,
+         * while the ones of absent elements are not computed.
+         *
+         * @param dyAttributes the dynamic attributes, by id.
+         * @param trackedAttributes the tracked values, by attribute id.
+         * @param previous the elements present at the previous time.
+         * @param current the elements present at the current time.
+         * @param time the current time.
+         * @param changes the map to fill with the changed values.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static void collectValueChanges(Map<String, ? extends ElementAttribute<?, ?>> dyAttributes,
+                Map<String, TrackedValues> trackedAttributes, Set<? extends Element> previous,
+                Set<? extends Element> current, double time, Map<String, Map<Element, Object>> changes) {
+            for (Map.Entry<String, ? extends ElementAttribute<?, ?>> entry : dyAttributes.entrySet()) {
+                String attrId = entry.getKey();
+                if (StdAttribute.isReservedForDynamic(attrId)) {
+                    continue;
+                }
+                TrackedValues tracked = trackedAttributes.computeIfAbsent(attrId, id -> new TrackedValues());
+                ElementAttribute attribute = entry.getValue();
+                Map<Element, Object> attributeChanges = new LinkedHashMap<>();
+                for (Object object : attribute) {
+                    Map.Entry<Element, Evolution<Object>> value = (Map.Entry<Element, Evolution<Object>>) object;
+                    Element element = value.getKey();
+                    if (current.contains(element)
+                            && tracked.update(element, value.getValue(), time, previous.contains(element))) {
+                        attributeChanges.put(element, tracked.value(element));
+                    }
+                }
+                if (!attributeChanges.isEmpty()) {
+                    changes.put(attrId, attributeChanges);
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of a set of evolutions at the last time they were computed,
+     * together with the functions that defined them.
+     */
+    private static class TrackedValues {
+
+        private final Map<Object, Function<Object>> functions = new HashMap<>();
+        private final Map<Object, Object> values = new HashMap<>();
+
+        /**
+         * Updates the value of an evolution to the given time.
+         *
+         * @param key the key of the evolution.
+         * @param evolution the evolution.
+         * @param time the time.
+         * @param continuing whether the stored value refers to the previous
+         * frame, and can therefore be compared with the new one.
+         * @return true if the value changed, or if it cannot be compared.
+         */
+        private boolean update(Object key, Evolution<Object> evolution, double time, boolean continuing) {
+            Function<Object> function = continuing ? functions.get(key) : null;
+            Object value;
+            if (function != null && function.interval().contains(time)) {
+                if (function instanceof FunctionConst) {
+                    return false;
+                }
+                value = function.valueAt(time);
+            } else {
+                function = evolution.functionAt(time);
+                value = function != null ? function.valueAt(time) : evolution.getDefaultValue();
+                functions.put(key, function);
+            }
+            if (continuing && Objects.equals(value, values.get(key))) {
+                return false;
+            }
+            values.put(key, value);
+            return true;
+        }
+
+        /**
+         * Returns the last computed value of an evolution.
+         *
+         * @param key the key of the evolution.
+         * @return the value.
+         */
+        private Object value(Object key) {
+            return values.get(key);
+        }
+    }
+
+    /**
+     * Transfers a frame onto a display graph. Elements are added or removed
+     * only when their presence differs, and the values of the attributes
+     * shared by the two graphs are copied for the elements of the frame. The
+     * display graph and its attributes notify their observers once.
+     *
+     * @param frame the frame.
+     * @param display the display graph.
+     */
+    public static void showFrame(Graph frame, Graph display) {
+        display.startBulkNotification();
+        for (Edge edge : new ArrayList<>(display.edges())) {
+            if (!frame.has(edge)) {
+                display.forcedRemove(edge);
+            }
+        }
+        for (Cluster cluster : new ArrayList<>(display.clusters())) {
+            if (!frame.has(cluster)) {
+                display.forcedRemove(cluster);
+            }
+        }
+        for (Node node : new ArrayList<>(display.nodes())) {
+            if (!frame.has(node)) {
+                display.forcedRemove(node);
+            }
+        }
+        for (Node node : frame.nodes()) {
+            if (!display.has(node)) {
+                display.add(node);
+            }
+        }
+        for (Edge edge : frame.edges()) {
+            if (!display.has(edge)) {
+                display.add(edge);
+            }
+        }
+        for (Cluster cluster : frame.clusters()) {
+            if (!display.has(cluster)) {
+                display.add(cluster);
+            }
+        }
+        display.stopBulkNotification();
+
+        for (Map.Entry<String, GraphAttribute<?>> entry : frame.graphAttributes().entrySet()) {
+            if (display.hasGraphAttribute(entry.getKey())) {
+                display.graphAttribute(entry.getKey()).set(entry.getValue().get());
+            }
+        }
+        copyElementValues(frame.nodeAttributes(), display.nodeAttributes(), frame.nodes());
+        copyElementValues(frame.edgeAttributes(), display.edgeAttributes(), frame.edges());
+        copyElementValues(frame.clusterAttributes(), display.clusterAttributes(), frame.clusters());
+    }
+
+    /**
+     * Copies the values of the attributes of a frame onto the attributes with
+     * the same id of the display graph.
+     *
+     * @param frameAttributes the frame attributes.
+     * @param displayAttributes the display attributes.
+     * @param elements the elements whose values are copied.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void copyElementValues(Map<String, ? extends ElementAttribute<?, ?>> frameAttributes,
+            Map<String, ? extends ElementAttribute<?, ?>> displayAttributes, Iterable<? extends Element> elements) {
+        for (Map.Entry<String, ? extends ElementAttribute<?, ?>> entry : frameAttributes.entrySet()) {
+            ElementAttribute frameAttribute = entry.getValue();
+            ElementAttribute displayAttribute = displayAttributes.get(entry.getKey());
+            if (displayAttribute == null) {
+                continue;
+            }
+            displayAttribute.startBulkNotification();
+            for (Element element : elements) {
+                displayAttribute.set(element, frameAttribute.get(element));
+            }
+            displayAttribute.stopBulkNotification();
+        }
+    }
+}
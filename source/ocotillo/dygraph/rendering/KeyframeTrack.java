@@ -0,0 +1,286 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Interval;
+
+/**
+ * A sequence of keyframes describing an evolution over a time interval.
+ * Values between consecutive keyframes are either linearly interpolated or
+ * kept constant until the next keyframe, depending on how the track is used.
+ * Two keyframes with the same time describe an instantaneous jump.
+ *
+ * @param <T> the type of value.
+ */
+class KeyframeTrack<T> {
+
+    private static final int samplesPerPiece = 16;
+
+    private final List<Double> times = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Converts an evolution into a keyframe track covering the given interval.
+     * Constant and linear pieces are converted exactly, constant and step
+     * interpolations become jumps, while other interpolations are sampled.
+     * Undefined parts of the interval take the evolution default value.
+     *
+     * @param <T> the type of value.
+     * @param evolution the evolution.
+     * @param interval the interval to cover.
+     * @return the keyframe track.
+     */
+    static <T> KeyframeTrack<T> of(Evolution<T> evolution, Interval interval) {
+        double start = interval.leftBound();
+        double end = interval.rightBound();
+        List<ocotillo.dygraph.Function<T>> pieces = new ArrayList<>();
+        for (ocotillo.dygraph.Function<T> piece : evolution) {
+            if (piece.interval().rightBound() >= start && piece.interval().leftBound() <= end) {
+                pieces.add(piece);
+            }
+        }
+        Collections.sort(pieces, Comparator.comparingDouble(piece -> piece.interval().leftBound()));
+
+        KeyframeTrack<T> track = new KeyframeTrack<>();
+        double cursor = start;
+        for (ocotillo.dygraph.Function<T> piece : pieces) {
+            double left = Math.max(cursor, piece.interval().leftBound());
+            double right = Math.min(end, piece.interval().rightBound());
+            if (left > right) {
+                continue;
+            }
+            if (left > cursor) {
+                track.add(cursor, evolution.getDefaultValue());
+                track.add(left, evolution.getDefaultValue());
+            }
+            track.addPiece(piece, left, right);
+            cursor = right;
+        }
+        if (cursor < end || track.size() == 0) {
+            track.add(cursor, evolution.getDefaultValue());
+            track.add(end, evolution.getDefaultValue());
+        }
+        return track;
+    }
+
+    /**
+     * Appends the keyframes of a function piece restricted to the given
+     * bounds.
+     *
+     * @param piece the function piece.
+     * @param left the first time to cover.
+     * @param right the last time to cover.
+     */
+    private void addPiece(ocotillo.dygraph.Function<T> piece, double left, double right) {
+        Interpolation interpolation = piece instanceof FunctionRect ? ((FunctionRect<T>) piece).interpolation() : null;
+        if (piece instanceof FunctionConst || interpolation == Interpolation.Std.linear.get()) {
+            add(left, piece.valueAt(left));
+            add(right, piece.valueAt(right));
+        } else if (interpolation == Interpolation.Std.constant.get()) {
+            add(left, piece.leftValue());
+            add(right, piece.leftValue());
+            if (right == piece.interval().rightBound()) {
+                add(right, piece.rightValue());
+            }
+        } else if (interpolation == Interpolation.Std.step.get()) {
+            double middle = piece.interval().leftBound() + piece.interval().width() / 2;
+            if (left <= middle) {
+                add(left, piece.leftValue());
+                add(Math.min(right, middle), piece.leftValue());
+            }
+            if (right > middle) {
+                add(Math.max(left, middle), piece.rightValue());
+                add(right, piece.rightValue());
+            }
+        } else {
+            for (int i = 0; i <= samplesPerPiece; i++) {
+                double time = i == samplesPerPiece ? right : left + (right - left) * i / samplesPerPiece;
+                add(time, piece.valueAt(time));
+            }
+        }
+    }
+
+    /**
+     * Appends a keyframe. Keyframes must be appended in time order.
+     *
+     * @param time the keyframe time.
+     * @param value the keyframe value.
+     */
+    void add(double time, T value) {
+        assert (times.isEmpty() || time >= times.get(times.size() - 1)) : "Keyframes must be added in time order.";
+        times.add(time);
+        values.add(value);
+    }
+
+    /**
+     * Returns the number of keyframes.
+     *
+     * @return the number of keyframes.
+     */
+    int size() {
+        return times.size();
+    }
+
+    /**
+     * Returns the time of a keyframe.
+     *
+     * @param index the keyframe index.
+     * @return the keyframe time.
+     */
+    double time(int index) {
+        return times.get(index);
+    }
+
+    /**
+     * Returns the value of a keyframe.
+     *
+     * @param index the keyframe index.
+     * @return the keyframe value.
+     */
+    T value(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Returns all the keyframe values.
+     *
+     * @return the keyframe values.
+     */
+    List<T> values() {
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Checks whether all keyframes have the same value.
+     *
+     * @return true if the track does not change over time.
+     */
+    boolean isConstant() {
+        for (T value : values) {
+            if (!Objects.equals(value, values.get(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value held at a given time, assuming that each keyframe
+     * value is kept until the next keyframe.
+     *
+     * @param time the time.
+     * @return the value held at that time.
+     */
+    T heldValueAt(double time) {
+        int index = 0;
+        while (index + 1 < times.size() && times.get(index + 1) <= time) {
+            index++;
+        }
+        return values.get(index);
+    }
+
+    /**
+     * Returns a track with the same keyframe times and transformed values.
+     *
+     * @param <R> the type of transformed value.
+     * @param function the value transformation.
+     * @return the transformed track.
+     */
+    <R> KeyframeTrack<R> map(java.util.function.Function<? super T, R> function) {
+        KeyframeTrack<R> track = new KeyframeTrack<>();
+        for (int i = 0; i < times.size(); i++) {
+            track.add(times.get(i), function.apply(values.get(i)));
+        }
+        return track;
+    }
+
+    /**
+     * Combines two tracks whose values are kept until the next keyframe.
+     *
+     * @param <A> the type of value of the first track.
+     * @param <B> the type of value of the second track.
+     * @param <R> the type of combined value.
+     * @param first the first track.
+     * @param second the second track.
+     * @param combination the value combination.
+     * @return the combined track.
+     */
+    static <A, B, R> KeyframeTrack<R> combineHeld(KeyframeTrack<A> first, KeyframeTrack<B> second, BiFunction<A, B, R> combination) {
+        TreeSet<Double> allTimes = new TreeSet<>(first.times);
+        allTimes.addAll(second.times);
+        KeyframeTrack<R> track = new KeyframeTrack<>();
+        for (double time : allTimes) {
+            track.add(time, combination.apply(first.heldValueAt(time), second.heldValueAt(time)));
+        }
+        return track.compactHeld();
+    }
+
+    /**
+     * Removes the keyframes that do not change a linearly interpolated
+     * track.
+     *
+     * @return the compacted track.
+     */
+    KeyframeTrack<T> compactLinear() {
+        KeyframeTrack<T> track = new KeyframeTrack<>();
+        int last = times.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            if (i > 0 && i < last) {
+                boolean sameValues = Objects.equals(values.get(i - 1), values.get(i))
+                        && Objects.equals(values.get(i), values.get(i + 1));
+                boolean sameTimes = times.get(i - 1).equals(times.get(i)) && times.get(i).equals(times.get(i + 1));
+                if (sameValues || sameTimes) {
+                    continue;
+                }
+            }
+            track.add(times.get(i), values.get(i));
+        }
+        return track;
+    }
+
+    /**
+     * Removes the keyframes that do not change a track whose values are kept
+     * until the next keyframe.
+     *
+     * @return the compacted track.
+     */
+    KeyframeTrack<T> compactHeld() {
+        KeyframeTrack<T> track = new KeyframeTrack<>();
+        for (int i = 0; i < times.size(); i++) {
+            boolean hidden = i + 1 < times.size() && times.get(i + 1).equals(times.get(i));
+            boolean unchanged = track.size() > 0 && Objects.equals(track.values.get(track.size() - 1), values.get(i));
+            if (i == 0 || (!hidden && !unchanged)) {
+                if (i > 0 && track.size() == 1 && track.times.get(0).equals(times.get(i))) {
+                    track.values.set(0, values.get(i));
+                } else {
+                    track.add(times.get(i), values.get(i));
+                }
+            }
+        }
+        return track;
+    }
+}
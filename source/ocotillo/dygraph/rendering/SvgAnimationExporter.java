@@ -0,0 +1,682 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.geometry.Box;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.rendering.svg.SvgElement;
+
+/**
+ * Exports the evolution of a dynamic graph as an animated SVG. The piecewise
+ * functions of positions, sizes, colours and presence are converted into SMIL
+ * animations, one SVG element per node and edge. The size of the file
+ * therefore depends on the number of function pieces, and not on the number
+ * of frames. Edges are drawn as lines, or as polylines through their control
+ * points when they have bends.
+ */
+public class SvgAnimationExporter {
+
+    private final DyGraph dyGraph;
+    private final Interval interval;
+    private final double durationSeconds;
+    private final int decimalDigits;
+    private final boolean gzip;
+
+    private final Map<Node, KeyframeTrack<Coordinates>> positionTracks = new HashMap<>();
+    private final Map<Node, KeyframeTrack<Boolean>> presenceTracks = new HashMap<>();
+    private final Map<Edge, KeyframeTrack<StdAttribute.ControlPoints>> bendTracks = new HashMap<>();
+    private Box canvasBox;
+
+    /**
+     * Saves an animated SVG file with the graph evolution. The file is
+     * compressed if its name ends with ".svgz".
+     *
+     * @param dyGraph the dynamic graph.
+     * @param animation the animation to export.
+     * @param destinationFile the destination file.
+     */
+    public static void saveSvg(DyGraph dyGraph, Animation animation, File destinationFile) {
+        new SaeBuilder(dyGraph, animation).build().save(destinationFile);
+    }
+
+    /**
+     * A builder for animated SVG exporters.
+     */
+    public static class SaeBuilder {
+
+        private final DyGraph dyGraph;
+        private final Animation animation;
+        private int decimalDigits = -1;
+        private boolean gzip = false;
+
+        /**
+         * Constructs a builder for an animated SVG exporter.
+         *
+         * @param dyGraph the dynamic graph.
+         * @param animation the animation to export, that defines the played
+         * interval and its duration.
+         */
+        public SaeBuilder(DyGraph dyGraph, Animation animation) {
+            this.dyGraph = dyGraph;
+            this.animation = animation;
+        }
+
+        /**
+         * Rounds coordinates, sizes and colour components to the given number
+         * of decimal digits. Key times are never rounded to less than six
+         * digits. By default, numbers are written at full precision.
+         *
+         * @param decimalDigits the number of decimal digits.
+         * @return the builder.
+         */
+        public SaeBuilder withDecimalDigits(int decimalDigits) {
+            assert (decimalDigits >= 0 && decimalDigits <= 9) : "The decimal digits must be between 0 and 9.";
+            this.decimalDigits = decimalDigits;
+            return this;
+        }
+
+        /**
+         * Compresses the output with gzip, as in .svgz files. By default,
+         * files are compressed only if their name ends with ".svgz".
+         *
+         * @return the builder.
+         */
+        public SaeBuilder withGzip() {
+            this.gzip = true;
+            return this;
+        }
+
+        /**
+         * Builds the animated SVG exporter.
+         *
+         * @return the exporter.
+         */
+        public SvgAnimationExporter build() {
+            return new SvgAnimationExporter(this);
+        }
+    }
+
+    /**
+     * Constructs an animated SVG exporter.
+     *
+     * @param builder the builder.
+     */
+    private SvgAnimationExporter(SaeBuilder builder) {
+        assert (builder.animation.playedInterval().width() > 0) : "The played interval must not be empty.";
+        this.dyGraph = builder.dyGraph;
+        this.interval = builder.animation.playedInterval();
+        this.durationSeconds = builder.animation.duration().toMillis() / 1000.0;
+        this.decimalDigits = builder.decimalDigits;
+        this.gzip = builder.gzip;
+    }
+
+    /**
+     * Saves the animated SVG to a file. The file is compressed if the
+     * exporter has been built with gzip or if its name ends with ".svgz".
+     *
+     * @param destinationFile the destination file.
+     */
+    public void save(File destinationFile) {
+        boolean compress = gzip || destinationFile.getName().endsWith(".svgz");
+        try (OutputStream fileStream = new FileOutputStream(destinationFile);
+                OutputStream stream = compress ? new GZIPOutputStream(fileStream, 1 << 16) : fileStream) {
+            writeSvg(stream);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write on the destination file " + destinationFile.getName(), ex);
+        }
+    }
+
+    /**
+     * Writes the animated SVG to an output stream. The stream is compressed if
+     * the exporter has been built with gzip. The output stream is flushed but
+     * not closed.
+     *
+     * @param outputStream the output stream.
+     */
+    public void write(OutputStream outputStream) {
+        try {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 1 << 16);
+                writeSvg(gzipStream);
+                gzipStream.finish();
+            } else {
+                writeSvg(outputStream);
+            }
+            outputStream.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write the animated SVG.", ex);
+        }
+    }
+
+    /**
+     * Writes the animated SVG on an uncompressed output stream.
+     *
+     * @param outputStream the output stream.
+     * @throws IOException if the document cannot be written.
+     */
+    private void writeSvg(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        computeNodeTracks();
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n\n");
+        builder.append("<svg width=\"");
+        appendNumber(builder, canvasBox.width());
+        builder.append("\" height=\"");
+        appendNumber(builder, canvasBox.height());
+        builder.append("\" font-family=\"Sans\" text-anchor=\"middle\" xmlns=\"http://www.w3.org/2000/svg\">\n");
+        writer.write(builder.toString());
+
+        for (Edge edge : new ArrayList<>(dyGraph.edges())) {
+            builder.setLength(0);
+            buildEdge(builder, edge);
+            writer.write(builder.toString());
+        }
+        for (Node node : new ArrayList<>(dyGraph.nodes())) {
+            builder.setLength(0);
+            buildNode(builder, node);
+            writer.write(builder.toString());
+        }
+        writer.write("</svg>");
+        writer.flush();
+    }
+
+    /**
+     * Computes the position and presence tracks of all nodes, which are
+     * shared with the incident edges, the bend tracks of the edges with
+     * control points, and the box of the drawing.
+     */
+    private void computeNodeTracks() {
+        DyNodeAttribute<Coordinates> positions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        DyNodeAttribute<Coordinates> sizes = dyGraph.nodeAttribute(StdAttribute.nodeSize);
+        DyNodeAttribute<Boolean> presences = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        positionTracks.clear();
+        presenceTracks.clear();
+        List<Coordinates> allPositions = new ArrayList<>();
+        double maxSize = 0;
+        for (Node node : dyGraph.nodes()) {
+            KeyframeTrack<Boolean> presence = KeyframeTrack.of(presences.get(node), interval).compactHeld();
+            if (!presence.values().contains(true)) {
+                continue;
+            }
+            KeyframeTrack<Coordinates> position = KeyframeTrack.of(positions.get(node), interval).compactLinear();
+            presenceTracks.put(node, presence);
+            positionTracks.put(node, position);
+            allPositions.addAll(position.values());
+            for (Coordinates size : KeyframeTrack.of(sizes.get(node), interval).values()) {
+                maxSize = Math.max(maxSize, Math.max(size.x(), size.y()));
+            }
+        }
+        DyEdgeAttribute<StdAttribute.ControlPoints> edgePoints = dyGraph.edgeAttribute(StdAttribute.edgePoints);
+        bendTracks.clear();
+        for (Edge edge : dyGraph.edges()) {
+            KeyframeTrack<StdAttribute.ControlPoints> bends = KeyframeTrack.of(edgePoints.get(edge), interval).compactHeld();
+            boolean bent = false;
+            for (StdAttribute.ControlPoints points : bends.values()) {
+                bent |= !points.isEmpty();
+                allPositions.addAll(points);
+            }
+            if (bent) {
+                bendTracks.put(edge, bends);
+            }
+        }
+        if (allPositions.isEmpty()) {
+            allPositions.add(new Coordinates(0, 0));
+        }
+        canvasBox = Box.boundingBox(allPositions, maxSize);
+    }
+
+    /**
+     * Builds the SVG line or polyline of an edge with its animations.
+     *
+     * @param builder the string builder.
+     * @param edge the edge.
+     */
+    private void buildEdge(StringBuilder builder, Edge edge) {
+        KeyframeTrack<Boolean> sourcePresence = presenceTracks.get(edge.source());
+        KeyframeTrack<Boolean> targetPresence = presenceTracks.get(edge.target());
+        if (sourcePresence == null || targetPresence == null) {
+            return;
+        }
+        KeyframeTrack<Boolean> edgePresence = KeyframeTrack.of(dyGraph.<Boolean>edgeAttribute(StdAttribute.dyPresence).get(edge), interval);
+        KeyframeTrack<Boolean> presence = KeyframeTrack.combineHeld(
+                KeyframeTrack.combineHeld(edgePresence, sourcePresence, Boolean::logicalAnd), targetPresence, Boolean::logicalAnd);
+        if (!presence.values().contains(true)) {
+            return;
+        }
+        KeyframeTrack<Coordinates> source = positionTracks.get(edge.source());
+        KeyframeTrack<Coordinates> target = positionTracks.get(edge.target());
+        KeyframeTrack<Color> color = linearTrack(dyGraph.<Color>edgeAttribute(StdAttribute.color).get(edge));
+        KeyframeTrack<Double> width = linearTrack(dyGraph.<Double>edgeAttribute(StdAttribute.edgeWidth).get(edge));
+
+        KeyframeTrack<StdAttribute.ControlPoints> bends = bendTracks.get(edge);
+        String tag = bends != null ? "polyline" : "line";
+
+        List<String> animations = new ArrayList<>();
+        builder.append("  <").append(tag).append(" id=\"").append(edge.id()).append("\"");
+        if (bends != null) {
+            builder.append(" fill=\"none\"");
+            appendAttribute(builder, animations, "points", polylineTrack(source, bends, target), this::appendPoints);
+        } else {
+            appendAttribute(builder, animations, "x1", source.map(this::canvasX), this::appendNumber);
+            appendAttribute(builder, animations, "y1", source.map(this::canvasY), this::appendNumber);
+            appendAttribute(builder, animations, "x2", target.map(this::canvasX), this::appendNumber);
+            appendAttribute(builder, animations, "y2", target.map(this::canvasY), this::appendNumber);
+        }
+        appendAttribute(builder, animations, "stroke", color, this::appendColor);
+        appendAttribute(builder, animations, "stroke-opacity", color.map(this::opacity), this::appendNumber);
+        appendAttribute(builder, animations, "stroke-width", width, this::appendNumber);
+        appendVisibility(builder, animations, presence);
+        closeElement(builder, tag, animations, "  ");
+    }
+
+    /**
+     * Combines the tracks of the edge extremities and of its bends into the
+     * track of the points of the edge polyline. The extremities are
+     * interpolated at the keyframes of the other tracks, while the bends are
+     * kept until their next keyframe.
+     *
+     * @param source the position track of the source.
+     * @param bends the bend track of the edge.
+     * @param target the position track of the target.
+     * @return the polyline track.
+     */
+    private KeyframeTrack<List<Coordinates>> polylineTrack(KeyframeTrack<Coordinates> source,
+            KeyframeTrack<StdAttribute.ControlPoints> bends, KeyframeTrack<Coordinates> target) {
+        TreeSet<Double> allTimes = new TreeSet<>();
+        for (KeyframeTrack<?> track : Arrays.asList(source, bends, target)) {
+            for (int i = 0; i < track.size(); i++) {
+                allTimes.add(track.time(i));
+            }
+        }
+        KeyframeTrack<List<Coordinates>> track = new KeyframeTrack<>();
+        for (double time : allTimes) {
+            List<Coordinates> points = new ArrayList<>();
+            points.add(linearValueAt(source, time));
+            points.addAll(bends.heldValueAt(time));
+            points.add(linearValueAt(target, time));
+            track.add(time, points);
+        }
+        return track.compactLinear();
+    }
+
+    /**
+     * Returns the position of a linearly interpolated track at a given time.
+     * At jumps, the value after the jump is returned.
+     *
+     * @param track the position track.
+     * @param time the time.
+     * @return the position at that time.
+     */
+    private static Coordinates linearValueAt(KeyframeTrack<Coordinates> track, double time) {
+        int index = 0;
+        while (index + 1 < track.size() && track.time(index + 1) <= time) {
+            index++;
+        }
+        if (index + 1 == track.size() || track.time(index) == time) {
+            return track.value(index);
+        }
+        double ratio = (time - track.time(index)) / (track.time(index + 1) - track.time(index));
+        return track.value(index).times(1 - ratio).plus(track.value(index + 1).times(ratio));
+    }
+
+    /**
+     * Builds the SVG group of a node with its animations. The group contains
+     * the node glyph and, if any, its label.
+     *
+     * @param builder the string builder.
+     * @param node the node.
+     */
+    private void buildNode(StringBuilder builder, Node node) {
+        KeyframeTrack<Boolean> presence = presenceTracks.get(node);
+        if (presence == null) {
+            return;
+        }
+        KeyframeTrack<Coordinates> position = positionTracks.get(node);
+        KeyframeTrack<Coordinates> size = linearTrack(dyGraph.<Coordinates>nodeAttribute(StdAttribute.nodeSize).get(node));
+        KeyframeTrack<Color> color = linearTrack(dyGraph.<Color>nodeAttribute(StdAttribute.color).get(node));
+        StdAttribute.NodeShape shape = dyGraph.<StdAttribute.NodeShape>nodeAttribute(StdAttribute.nodeShape).get(node).valueAt(interval.leftBound());
+
+        List<String> animations = new ArrayList<>();
+        builder.append("  <g id=\"").append(node.id()).append("\"");
+        builder.append(" transform=\"");
+        appendTranslation(builder, position.value(0));
+        builder.append("\"");
+        if (!position.isConstant()) {
+            animations.add(animation("transform", position, this::appendTranslationValue, false));
+        }
+        appendVisibility(builder, animations, presence);
+        closeElement(builder, "g", animations, "  ", false);
+
+        List<String> glyphAnimations = new ArrayList<>();
+        switch (shape) {
+            case spheroid:
+                builder.append("    <ellipse");
+                appendAttribute(builder, glyphAnimations, "rx", size.map(value -> value.x() / 2), this::appendNumber);
+                appendAttribute(builder, glyphAnimations, "ry", size.map(value -> value.y() / 2), this::appendNumber);
+                break;
+            case cuboid:
+                builder.append("    <rect");
+                appendAttribute(builder, glyphAnimations, "x", size.map(value -> -value.x() / 2), this::appendNumber);
+                appendAttribute(builder, glyphAnimations, "y", size.map(value -> -value.y() / 2), this::appendNumber);
+                appendAttribute(builder, glyphAnimations, "width", size.map(Coordinates::x), this::appendNumber);
+                appendAttribute(builder, glyphAnimations, "height", size.map(Coordinates::y), this::appendNumber);
+                break;
+            default:
+                throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
+        }
+        appendAttribute(builder, glyphAnimations, "fill", color, this::appendColor);
+        appendAttribute(builder, glyphAnimations, "fill-opacity", color.map(this::opacity), this::appendNumber);
+        closeElement(builder, shape == StdAttribute.NodeShape.spheroid ? "ellipse" : "rect", glyphAnimations, "    ");
+
+        buildNodeLabel(builder, node);
+        builder.append("  </g>\n");
+    }
+
+    /**
+     * Builds the label of a node. Label text, colour, size and offset are
+     * taken at the beginning of the played interval.
+     *
+     * @param builder the string builder.
+     * @param node the node.
+     */
+    private void buildNodeLabel(StringBuilder builder, Node node) {
+        double start = interval.leftBound();
+        String label = dyGraph.<String>nodeAttribute(StdAttribute.label).get(node).valueAt(start);
+        Color color = dyGraph.<Color>nodeAttribute(StdAttribute.labelColor).get(node).valueAt(start);
+        if (label.isEmpty() || color.getAlpha() == 0) {
+            return;
+        }
+        double fontSize = dyGraph.<Double>nodeAttribute(StdAttribute.labelScaling).get(node).valueAt(start);
+        Coordinates offset = dyGraph.<Coordinates>nodeAttribute(StdAttribute.labelOffset).get(node).valueAt(start);
+        builder.append("    <text x=\"");
+        appendNumber(builder, offset.x());
+        builder.append("\" y=\"");
+        appendNumber(builder, -offset.y() + fontSize * 0.3);
+        builder.append("\" font-size=\"");
+        appendNumber(builder, fontSize);
+        builder.append("\" fill=\"");
+        appendColor(builder, color);
+        builder.append("\" fill-opacity=\"");
+        appendNumber(builder, opacity(color));
+        builder.append("\">");
+        for (char character : label.toCharArray()) {
+            switch (character) {
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                default:
+                    builder.append(character);
+            }
+        }
+        builder.append("</text>\n");
+    }
+
+    /**
+     * Converts an evolution into a compacted, linearly interpolated track.
+     *
+     * @param <T> the type of value.
+     * @param evolution the evolution.
+     * @return the keyframe track.
+     */
+    private <T> KeyframeTrack<T> linearTrack(Evolution<T> evolution) {
+        return KeyframeTrack.of(evolution, interval).compactLinear();
+    }
+
+    /**
+     * Appends an attribute with the initial value of a track and, if the
+     * track changes over time, records the linear animation of the
+     * attribute.
+     *
+     * @param <T> the type of value.
+     * @param builder the string builder.
+     * @param animations the animations of the current element.
+     * @param attribute the attribute name.
+     * @param track the track.
+     * @param valueWriter the function that writes a track value.
+     */
+    private <T> void appendAttribute(StringBuilder builder, List<String> animations, String attribute,
+            KeyframeTrack<T> track, BiConsumer<StringBuilder, T> valueWriter) {
+        builder.append(" ").append(attribute).append("=\"");
+        valueWriter.accept(builder, track.value(0));
+        builder.append("\"");
+        if (!track.isConstant()) {
+            animations.add(animation(attribute, track, valueWriter, false));
+        }
+    }
+
+    /**
+     * Appends the visibility attribute and, if the presence changes over
+     * time, records its discrete animation.
+     *
+     * @param builder the string builder.
+     * @param animations the animations of the current element.
+     * @param presence the presence track.
+     */
+    private void appendVisibility(StringBuilder builder, List<String> animations, KeyframeTrack<Boolean> presence) {
+        builder.append(" visibility=\"").append(presence.value(0) ? "visible" : "hidden").append("\"");
+        if (!presence.isConstant()) {
+            animations.add(animation("visibility", presence,
+                    (valueBuilder, value) -> valueBuilder.append(value ? "visible" : "hidden"), true));
+        }
+    }
+
+    /**
+     * Builds the SMIL animation of an attribute.
+     *
+     * @param <T> the type of value.
+     * @param attribute the attribute name.
+     * @param track the track.
+     * @param valueWriter the function that writes a track value.
+     * @param discrete whether values are kept until the next keyframe rather
+     * than interpolated.
+     * @return the animation element.
+     */
+    private <T> String animation(String attribute, KeyframeTrack<T> track, BiConsumer<StringBuilder, T> valueWriter, boolean discrete) {
+        StringBuilder builder = new StringBuilder();
+        if (attribute.equals("transform")) {
+            builder.append("<animateTransform attributeName=\"transform\" type=\"translate\"");
+        } else {
+            builder.append("<animate attributeName=\"").append(attribute).append("\"");
+        }
+        if (discrete) {
+            builder.append(" calcMode=\"discrete\"");
+        }
+        builder.append(" dur=\"");
+        SvgElement.appendNumber(builder, durationSeconds, -1);
+        builder.append("s\" repeatCount=\"indefinite\" keyTimes=\"");
+        int keyTimeDigits = decimalDigits < 0 ? -1 : Math.max(6, decimalDigits);
+        for (int i = 0; i < track.size(); i++) {
+            if (i > 0) {
+                builder.append(";");
+            }
+            double keyTime = (track.time(i) - interval.leftBound()) / interval.width();
+            SvgElement.appendNumber(builder, Math.max(0, Math.min(1, keyTime)), keyTimeDigits);
+        }
+        builder.append("\" values=\"");
+        for (int i = 0; i < track.size(); i++) {
+            if (i > 0) {
+                builder.append(";");
+            }
+            valueWriter.accept(builder, track.value(i));
+        }
+        builder.append("\"/>");
+        return builder.toString();
+    }
+
+    /**
+     * Closes the opening tag of an element, writing its animations as
+     * children.
+     *
+     * @param builder the string builder.
+     * @param tag the element tag.
+     * @param animations the element animations.
+     * @param indentation the element indentation.
+     */
+    private void closeElement(StringBuilder builder, String tag, List<String> animations, String indentation) {
+        closeElement(builder, tag, animations, indentation, true);
+    }
+
+    /**
+     * Closes the opening tag of an element, writing its animations as
+     * children.
+     *
+     * @param builder the string builder.
+     * @param tag the element tag.
+     * @param animations the element animations.
+     * @param indentation the element indentation.
+     * @param closeTag whether the element is closed, or other children are
+     * going to be added.
+     */
+    private void closeElement(StringBuilder builder, String tag, List<String> animations, String indentation, boolean closeTag) {
+        if (animations.isEmpty() && closeTag) {
+            builder.append("/>\n");
+            return;
+        }
+        builder.append(">\n");
+        for (String animation : animations) {
+            builder.append(indentation).append("  ").append(animation).append("\n");
+        }
+        if (closeTag) {
+            builder.append(indentation).append("</").append(tag).append(">\n");
+        }
+    }
+
+    /**
+     * Appends a translation transform.
+     *
+     * @param builder the string builder.
+     * @param position the graph position.
+     */
+    private void appendTranslation(StringBuilder builder, Coordinates position) {
+        builder.append("translate(");
+        appendTranslationValue(builder, position);
+        builder.append(")");
+    }
+
+    /**
+     * Appends the value of a translation animation.
+     *
+     * @param builder the string builder.
+     * @param position the graph position.
+     */
+    private void appendTranslationValue(StringBuilder builder, Coordinates position) {
+        appendNumber(builder, canvasX(position));
+        builder.append(",");
+        appendNumber(builder, canvasY(position));
+    }
+
+    /**
+     * Appends the points of a polyline in canvas space.
+     *
+     * @param builder the string builder.
+     * @param points the graph positions of the points.
+     */
+    private void appendPoints(StringBuilder builder, List<Coordinates> points) {
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) {
+                builder.append(" ");
+            }
+            appendTranslationValue(builder, points.get(i));
+        }
+    }
+
+    /**
+     * Appends a number with the configured precision.
+     *
+     * @param builder the string builder.
+     * @param value the number.
+     */
+    private void appendNumber(StringBuilder builder, double value) {
+        SvgElement.appendNumber(builder, value, decimalDigits);
+    }
+
+    /**
+     * Appends a colour in the #rrggbb format.
+     *
+     * @param builder the string builder.
+     * @param color the colour.
+     */
+    private void appendColor(StringBuilder builder, Color color) {
+        String hex = Integer.toHexString(color.getRGB() & 0xffffff);
+        builder.append('#');
+        for (int i = hex.length(); i < 6; i++) {
+            builder.append('0');
+        }
+        builder.append(hex);
+    }
+
+    /**
+     * Returns the opacity of a colour.
+     *
+     * @param color the colour.
+     * @return the opacity in [0,1].
+     */
+    private double opacity(Color color) {
+        return color.getAlpha() / 255.0;
+    }
+
+    /**
+     * Converts the x coordinate of a graph position to the canvas space.
+     *
+     * @param position the graph position.
+     * @return the canvas x coordinate.
+     */
+    private double canvasX(Coordinates position) {
+        return position.x() - canvasBox.left();
+    }
+
+    /**
+     * Converts the y coordinate of a graph position to the canvas space.
+     *
+     * @param position the graph position.
+     * @return the canvas y coordinate.
+     */
+    private double canvasY(Coordinates position) {
+        return canvasBox.top() - position.y();
+    }
+}
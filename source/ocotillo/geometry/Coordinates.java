@@ -527,20 +527,50 @@ public class Coordinates {
 
     /**
      * Parses a string representation of Coordinates into a Coordinates object.
+     * The string is scanned once, without regular expressions, as this
+     * method is called for every position read from a file.
      *
      * @param string the string description.
      * @return the coordinates object.
      */
     public static Coordinates parse(String string) {
-        String clearedString = string.replaceAll("[\\(\\) ]", "");
-        String[] tokens = clearedString.split(",");
-        Coordinates output = new Coordinates(tokens.length);
-        for (int i = 0; i < tokens.length; i++) {
-            output.setAt(i, Double.parseDouble(tokens[i]));
+        int start = 0;
+        int end = string.length();
+        while (start < end && isParseDecoration(string.charAt(start))) {
+            start++;
+        }
+        while (end > start && isParseDecoration(string.charAt(end - 1))) {
+            end--;
+        }
+
+        int dimensions = 1;
+        for (int i = start; i < end; i++) {
+            if (string.charAt(i) == ',') {
+                dimensions++;
+            }
+        }
+
+        Coordinates output = new Coordinates(dimensions);
+        int tokenStart = start;
+        for (int i = 0; i < dimensions; i++) {
+            int tokenEnd = i == dimensions - 1 ? end : string.indexOf(',', tokenStart);
+            output.setAt(i, Double.parseDouble(string.substring(tokenStart, tokenEnd)));
+            tokenStart = tokenEnd + 1;
         }
         return output;
     }
 
+    /**
+     * Checks if a character is a bracket or space surrounding the values of a
+     * coordinates string.
+     *
+     * @param character the character.
+     * @return true if the character is not part of the values.
+     */
+    private static boolean isParseDecoration(char character) {
+        return character == '(' || character == ')' || character == ' ';
+    }
+
     /**
      * Orders Coordinates from left to right.
      */
@@ -291,28 +291,40 @@ public class Interval {
      * @return the parsed interval.
      */
     public static Interval parse(String stringDescription) {
-        String cleanedDescription = stringDescription.replaceAll(" ", "");
+        int start = 0;
+        int end = stringDescription.length();
+        while (start < end && stringDescription.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && stringDescription.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int comma = stringDescription.indexOf(',', start);
+        if (end - start < 3 || comma == -1 || comma >= end) {
+            throw new IllegalArgumentException("The string cannot be parsed as an interval: " + stringDescription);
+        }
 
         boolean leftClosed, righClosed;
-        if (cleanedDescription.startsWith("[")) {
+        char leftBracket = stringDescription.charAt(start);
+        if (leftBracket == '[') {
             leftClosed = true;
-        } else if (cleanedDescription.startsWith("(")) {
+        } else if (leftBracket == '(') {
             leftClosed = false;
         } else {
             throw new IllegalArgumentException("The string cannot be parsed as an interval: " + stringDescription);
         }
 
-        if (cleanedDescription.endsWith("]")) {
+        char rightBracket = stringDescription.charAt(end - 1);
+        if (rightBracket == ']') {
             righClosed = true;
-        } else if (cleanedDescription.endsWith(")")) {
+        } else if (rightBracket == ')') {
             righClosed = false;
         } else {
             throw new IllegalArgumentException("The string cannot be parsed as an interval: " + stringDescription);
         }
 
-        String[] values = cleanedDescription.substring(1, cleanedDescription.length() - 1).split(",");
-        double leftBound = Double.parseDouble(values[0]);
-        double rightBound = Double.parseDouble(values[1]);
+        double leftBound = Double.parseDouble(stringDescription.substring(start + 1, comma));
+        double rightBound = Double.parseDouble(stringDescription.substring(comma + 1, end - 1));
         return Interval.newCustom(leftBound, rightBound, leftClosed, righClosed);
     }
 
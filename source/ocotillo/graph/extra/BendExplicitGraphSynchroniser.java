@@ -17,14 +17,20 @@ package ocotillo.graph.extra;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
+import ocotillo.geometry.IntervalBox;
 import ocotillo.graph.Edge;
 import ocotillo.graph.EdgeAttribute;
 import ocotillo.graph.Element;
@@ -34,6 +40,7 @@ import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
+import ocotillo.structures.MultidimIntervalTree;
 
 /**
  * A class that builds and synchronises a bend explicit graph that mirrors a
@@ -323,13 +330,12 @@ public class BendExplicitGraphSynchroniser {
      */
     private void updateMirrorEdgeBends(Edge edge, MirrorEdge mirrorEdge) {
         while (mirrorEdge.bends.size() < originalBends.get(edge).size()) {
-            Node bendNode = mirrorGraph.newNode(edge.source().id(), edge.source().originId());
-            System.out.println("edgeSource in updateMirrorEdgeBends = " + edge.source());
+            Node bendNode = mirrorGraph.newNode(null, edge.source().id());
             mirrorEdge.bends.add(bendNode);
             reverseEdgeMap.put(bendNode, edge);
         }
         while (mirrorEdge.bends.size() > originalBends.get(edge).size()) {
-            Node bendNode = mirrorEdge.bends.removeLast();
+            Node bendNode = mirrorEdge.bends.remove(mirrorEdge.bends.size() - 1);
             mirrorGraph.forcedRemove(bendNode);
             reverseEdgeMap.remove(bendNode);
         }
@@ -380,7 +386,7 @@ public class BendExplicitGraphSynchroniser {
      * @param mirrorEdge the mirror edge.
      */
     private void removeTrailingSegment(MirrorEdge mirrorEdge) {
-        Edge trailingSegment = mirrorEdge.segments.removeLast();
+        Edge trailingSegment = mirrorEdge.segments.remove(mirrorEdge.segments.size() - 1);
         mirrorGraph.forcedRemove(trailingSegment);
         reverseEdgeMap.remove(trailingSegment);
     }
@@ -469,7 +475,7 @@ public class BendExplicitGraphSynchroniser {
             EdgeAttribute<Object> originalAttribute = originalGraph.edgeAttribute(attrId);
             EdgeAttribute<Object> mirrorAttribute = mirrorGraph.edgeAttribute(attrId);
             boolean sameForAllSegments = true;
-            Edge firstSegment = mirrorEdge.segments.getFirst();
+            Edge firstSegment = mirrorEdge.segments.get(0);
             Object mirrorValue = mirrorAttribute.get(firstSegment);
             for (Edge segment : mirrorEdge.segments) {
                 sameForAllSegments &= mirrorValue.equals(mirrorAttribute.get(segment));
@@ -601,6 +607,198 @@ public class BendExplicitGraphSynchroniser {
         }
     }
 
+    /**
+     * Applies a set of bend insertions and removals. Each mirror edge affected
+     * is rebuilt in a single pass over its chain, and the graph observers are
+     * notified only once for all the changes. Segments whose extremities are
+     * not affected by the changes are preserved.
+     *
+     * @param changes the bend changes to apply.
+     */
+    public void applyBendChanges(BendChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        mirrorGraph.startBulkNotification();
+        for (Map.Entry<MirrorEdge, BendChanges.EdgeChanges> entry : changes.changes.entrySet()) {
+            applyBendChanges(entry.getKey(), entry.getValue());
+        }
+        mirrorGraph.stopBulkNotification();
+    }
+
+    /**
+     * Applies the bend insertions and removals of a single mirror edge.
+     *
+     * @param mirrorEdge the mirror edge.
+     * @param edgeChanges the changes for this mirror edge.
+     */
+    private void applyBendChanges(MirrorEdge mirrorEdge, BendChanges.EdgeChanges edgeChanges) {
+        ArrayList<Node> newBends = new ArrayList<>(mirrorEdge.bends.size() + edgeChanges.insertions.size());
+        ArrayList<Edge> newSegments = new ArrayList<>(mirrorEdge.segments.size() + edgeChanges.insertions.size());
+        List<Edge> oldSegments = mirrorEdge.segments;
+
+        Node lastPoint = mirrorEdge.source;
+        boolean chainUnchanged = true;
+        for (int i = 0; i < oldSegments.size(); i++) {
+            Edge segment = oldSegments.get(i);
+            Node nextPoint = i < mirrorEdge.bends.size() ? mirrorEdge.bends.get(i) : mirrorEdge.target;
+
+            Coordinates insertionPosition = edgeChanges.insertions.get(segment);
+            if (insertionPosition != null) {
+                Node newBend = mirrorGraph.newNode(null, mirrorEdge.source.id());
+                Edge newSegment = mirrorGraph.newEdge(lastPoint, newBend);
+                setNewBendAttributes(mirrorEdge, newBend, insertionPosition, newSegment);
+                newBends.add(newBend);
+                newSegments.add(newSegment);
+                reverseEdgeMap.put(newBend, mirrorEdge.original);
+                reverseEdgeMap.put(newSegment, mirrorEdge.original);
+                lastPoint = newBend;
+                chainUnchanged = false;
+            }
+
+            if (edgeChanges.removals.contains(nextPoint)) {
+                chainUnchanged = false;
+                continue;
+            }
+
+            if (chainUnchanged) {
+                newSegments.add(segment);
+            } else {
+                Edge newSegment = mirrorGraph.newEdge(lastPoint, nextPoint);
+                setNewSegmentAttributes(mirrorEdge, newSegment);
+                newSegments.add(newSegment);
+                reverseEdgeMap.put(newSegment, mirrorEdge.original);
+            }
+            if (nextPoint != mirrorEdge.target) {
+                newBends.add(nextPoint);
+            }
+            lastPoint = nextPoint;
+            chainUnchanged = true;
+        }
+
+        Set<Edge> keptSegments = new HashSet<>(newSegments);
+        for (Edge segment : oldSegments) {
+            if (!keptSegments.contains(segment)) {
+                reverseEdgeMap.remove(segment);
+                mirrorGraph.remove(segment);
+            }
+        }
+        for (Node bend : edgeChanges.removals) {
+            reverseEdgeMap.remove(bend);
+            mirrorGraph.forcedRemove(bend);
+        }
+
+        mirrorEdge.bends = newBends;
+        mirrorEdge.segments = newSegments;
+    }
+
+    /**
+     * Plans the bend changes of the given original edges without modifying
+     * the mirror graph. The chains of the mirror edges are first split where
+     * the planner requires, and then their bends, new and existing, are
+     * considered for removal in chain order. Each removal is decided knowing
+     * all the bends planned to be added in the pass, so that it can account
+     * for the insertions of other edges. The planning of different edges is
+     * carried out in parallel, so the planner must only read the mirror graph
+     * and its attributes.
+     *
+     * @param originalEdges the original edges to consider.
+     * @param planner the planner deciding where to add and remove bends.
+     * @return the planned bend changes, to be applied with
+     * {@link #applyBendChanges(BendChanges)}.
+     */
+    public BendChanges planBendChanges(Collection<Edge> originalEdges, BendPlanner planner) {
+        List<MirrorEdge> mirrorEdges = originalEdges.stream()
+                .map(edge -> directEdgeMap.get(edge))
+                .collect(Collectors.toList());
+        List<List<ChainPoint>> chains = mirrorEdges.parallelStream()
+                .map(mirrorEdge -> planChain(mirrorEdge, planner))
+                .collect(Collectors.toList());
+        PlannedBends plannedBends = new PlannedBends(chains);
+        List<BendChanges> edgePlans = IntStream.range(0, mirrorEdges.size()).parallel()
+                .mapToObj(i -> planBendChanges(mirrorEdges.get(i), chains.get(i), planner, plannedBends))
+                .collect(Collectors.toList());
+        BendChanges changes = new BendChanges();
+        for (BendChanges edgePlan : edgePlans) {
+            changes.addAll(edgePlan);
+        }
+        return changes;
+    }
+
+    /**
+     * Builds the chain of a mirror edge, including the bends that the planner
+     * requires to add.
+     *
+     * @param mirrorEdge the mirror edge.
+     * @param planner the planner deciding where to add bends.
+     * @return the chain points, from source to target.
+     */
+    private List<ChainPoint> planChain(MirrorEdge mirrorEdge, BendPlanner planner) {
+        List<ChainPoint> chain = new ArrayList<>(2 * mirrorEdge.segments.size() + 1);
+        chain.add(new ChainPoint(mirrorEdge.source, mirrorPositions.get(mirrorEdge.source), null));
+        for (int i = 0; i < mirrorEdge.segments.size(); i++) {
+            Edge segment = mirrorEdge.segments.get(i);
+            Node nextPoint = i < mirrorEdge.bends.size() ? mirrorEdge.bends.get(i) : mirrorEdge.target;
+            Coordinates nextPosition = mirrorPositions.get(nextPoint);
+            if (planner.shouldAddBend(segment)) {
+                Coordinates bendPosition = Geom.eXD.midPoint(mirrorPositions.get(segment.source()), nextPosition);
+                chain.add(new ChainPoint(null, bendPosition, segment));
+            }
+            chain.add(new ChainPoint(nextPoint, nextPosition, null));
+        }
+        return chain;
+    }
+
+    /**
+     * Plans the bend changes of a single mirror edge.
+     *
+     * @param mirrorEdge the mirror edge.
+     * @param chain the chain of the mirror edge, including planned bends.
+     * @param planner the planner deciding where to remove bends.
+     * @param plannedBends the bends planned to be added in the pass.
+     * @return the planned bend changes for the mirror edge.
+     */
+    private BendChanges planBendChanges(MirrorEdge mirrorEdge, List<ChainPoint> chain, BendPlanner planner, PlannedBends plannedBends) {
+        BendChanges changes = new BendChanges();
+        ChainPoint previous = chain.get(0);
+        for (int i = 1; i < chain.size() - 1; i++) {
+            ChainPoint bend = chain.get(i);
+            if (planner.shouldRemoveBend(previous, bend, chain.get(i + 1), plannedBends)) {
+                if (bend.node != null) {
+                    changes.removeBend(mirrorEdge, bend.node);
+                }
+            } else {
+                if (bend.node == null) {
+                    changes.addBend(mirrorEdge, bend.segment, bend.position);
+                }
+                previous = bend;
+            }
+        }
+        return changes;
+    }
+
+
+    /**
+     * Sets the attribute to preserve to the mirror edge elements created while
+     * inserting a bend in a batch of bend changes.
+     *
+     * @param mirrorEdge the mirror edge.
+     * @param newBend the new bend.
+     * @param bendPosition the position of the bend.
+     * @param newSegment the incoming segment into the bend.
+     */
+    private void setNewBendAttributes(MirrorEdge mirrorEdge, Node newBend, Coordinates bendPosition, Edge newSegment) {
+        mirrorPositions.set(newBend, bendPosition);
+        for (NodeAttributeToPreserve attribute : nodeAttributesToPreserve) {
+            if (attribute.applySourceToBends) {
+                NodeAttribute<Object> originalAttribute = originalGraph.nodeAttribute(attribute.id);
+                NodeAttribute<Object> mirrorAttribute = mirrorGraph.nodeAttribute(attribute.id);
+                copyAttributeValue(originalAttribute, mirrorEdge.source, mirrorAttribute, newBend);
+            }
+        }
+        setNewSegmentAttributes(mirrorEdge, newSegment);
+    }
+
     /**
      * Copies an attribute value from original to mirror, or vice-versa,
      * whenever necessary. The method will not overwrite the destination value
@@ -689,8 +887,8 @@ public class BendExplicitGraphSynchroniser {
         private Edge original;
         private Node source;
         private Node target;
-        private LinkedList<Node> bends = new LinkedList<>();
-        private LinkedList<Edge> segments = new LinkedList<>();
+        private ArrayList<Node> bends = new ArrayList<>();
+        private ArrayList<Edge> segments = new ArrayList<>();
 
         /**
          * Returns the original edge corresponding to the mirror one.
@@ -738,6 +936,294 @@ public class BendExplicitGraphSynchroniser {
         }
     }
 
+    /**
+     * A set of bend insertions and removals to be applied at once to the
+     * mirror graph. Insertions split a segment by placing a new bend in it,
+     * while removals substitute a bend and its two segments with a single
+     * segment. When a segment is split and one of its extremities removed,
+     * the new bend is connected to the closest remaining point of the chain.
+     */
+    public static class BendChanges {
+
+        private final Map<MirrorEdge, EdgeChanges> changes = new LinkedHashMap<>();
+
+        /**
+         * Schedules the insertion of a bend on the midpoint of a segment.
+         *
+         * @param mirrorEdge the mirror edge.
+         * @param segment the segment where to add a bend.
+         * @param positions the positions of the mirror graph.
+         * @return the bend changes.
+         */
+        public BendChanges addBend(MirrorEdge mirrorEdge, Edge segment, NodeAttribute<Coordinates> positions) {
+            Coordinates bendPosition = Geom.eXD.midPoint(positions.get(segment.source()), positions.get(segment.target()));
+            return addBend(mirrorEdge, segment, bendPosition);
+        }
+
+        /**
+         * Schedules the insertion of a bend at the given position of a
+         * segment.
+         *
+         * @param mirrorEdge the mirror edge.
+         * @param segment the segment where to add a bend.
+         * @param bendPosition the bend position.
+         * @return the bend changes.
+         */
+        public BendChanges addBend(MirrorEdge mirrorEdge, Edge segment, Coordinates bendPosition) {
+            assert (mirrorEdge.segments.contains(segment)) : "The segment passed as parameter must belong to the mirror edge.";
+            edgeChanges(mirrorEdge).insertions.put(segment, bendPosition);
+            return this;
+        }
+
+        /**
+         * Schedules the removal of a bend.
+         *
+         * @param mirrorEdge the mirror edge.
+         * @param bend the bend to be removed.
+         * @return the bend changes.
+         */
+        public BendChanges removeBend(MirrorEdge mirrorEdge, Node bend) {
+            assert (mirrorEdge.bends.contains(bend)) : "The bend passed as parameter must belong to the mirror edge.";
+            edgeChanges(mirrorEdge).removals.add(bend);
+            return this;
+        }
+
+        /**
+         * Merges other bend changes into these ones.
+         *
+         * @param other the other bend changes.
+         * @return the bend changes.
+         */
+        public BendChanges addAll(BendChanges other) {
+            for (Map.Entry<MirrorEdge, EdgeChanges> entry : other.changes.entrySet()) {
+                EdgeChanges edgeChanges = edgeChanges(entry.getKey());
+                edgeChanges.insertions.putAll(entry.getValue().insertions);
+                edgeChanges.removals.addAll(entry.getValue().removals);
+            }
+            return this;
+        }
+
+        /**
+         * Checks whether there are no changes scheduled.
+         *
+         * @return true if there are no changes, false otherwise.
+         */
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        /**
+         * Returns the number of bend insertions scheduled.
+         *
+         * @return the number of insertions.
+         */
+        public int insertionCount() {
+            int count = 0;
+            for (EdgeChanges edgeChanges : changes.values()) {
+                count += edgeChanges.insertions.size();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the number of bend removals scheduled.
+         *
+         * @return the number of removals.
+         */
+        public int removalCount() {
+            int count = 0;
+            for (EdgeChanges edgeChanges : changes.values()) {
+                count += edgeChanges.removals.size();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the changes for a given mirror edge, creating them if
+         * necessary.
+         *
+         * @param mirrorEdge the mirror edge.
+         * @return the changes of the mirror edge.
+         */
+        private EdgeChanges edgeChanges(MirrorEdge mirrorEdge) {
+            EdgeChanges edgeChanges = changes.get(mirrorEdge);
+            if (edgeChanges == null) {
+                edgeChanges = new EdgeChanges();
+                changes.put(mirrorEdge, edgeChanges);
+            }
+            return edgeChanges;
+        }
+
+        /**
+         * The changes scheduled for a single mirror edge.
+         */
+        private static class EdgeChanges {
+
+            private final Map<Edge, Coordinates> insertions = new HashMap<>();
+            private final Set<Node> removals = new HashSet<>();
+        }
+    }
+
+    /**
+     * Decides where bends should be added to or removed from the mirror edge
+     * chains while planning bend changes. Implementations are queried
+     * concurrently and must not modify the mirror graph.
+     */
+    public static interface BendPlanner {
+
+        /**
+         * Decides whether a segment should be split by a new bend in its
+         * midpoint.
+         *
+         * @param segment the segment.
+         * @return true if the segment should be split, false otherwise.
+         */
+        public boolean shouldAddBend(Edge segment);
+
+        /**
+         * Decides whether a bend should be removed from the chain, given the
+         * closest preceding point that has been kept and the following one.
+         * The bends planned to be added in the current pass, on this or other
+         * chains, are not yet in the mirror graph and are provided apart.
+         *
+         * @param previous the preceding point in the chain.
+         * @param bend the bend to consider.
+         * @param next the following point in the chain.
+         * @param plannedBends the bends planned to be added in the pass.
+         * @return true if the bend should be removed, false otherwise.
+         */
+        public boolean shouldRemoveBend(ChainPoint previous, ChainPoint bend, ChainPoint next, PlannedBends plannedBends);
+    }
+
+    /**
+     * The bends planned to be added to the mirror edge chains during a
+     * planning pass. All the bends the planner asked to add are included,
+     * even those that might be removed later in the same pass, so that checks
+     * against them are conservative. The collection is only queried once
+     * built, and can therefore be accessed concurrently.
+     */
+    public static class PlannedBends {
+
+        private final MultidimIntervalTree<PlannedBend> bendTree = new MultidimIntervalTree<>(2);
+
+        /**
+         * Collects the planned bends of the given chains.
+         *
+         * @param chains the chains of the mirror edges.
+         */
+        private PlannedBends(Collection<List<ChainPoint>> chains) {
+            for (List<ChainPoint> chain : chains) {
+                for (ChainPoint point : chain) {
+                    if (point.isPlanned()) {
+                        bendTree.insert(new PlannedBend(point));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets any one planned bend contained in the given box that
+         * satisfies the given condition. Only the first two dimensions of the
+         * box are considered.
+         *
+         * @param box the box.
+         * @param condition the condition the bend must satisfy.
+         * @return a planned bend that satisfies the condition, or null if
+         * there is none.
+         */
+        public ChainPoint getAnyInBox(Box box, Predicate<ChainPoint> condition) {
+            PlannedBend plannedBend = bendTree.getAnyOverlapping(IntervalBox.newInstance(box),
+                    (PlannedBend candidate) -> condition.test(candidate.point));
+            return plannedBend != null ? plannedBend.point : null;
+        }
+
+        /**
+         * Checks whether no bend has been planned.
+         *
+         * @return true if there are no planned bends, false otherwise.
+         */
+        public boolean isEmpty() {
+            return bendTree.isEmpty();
+        }
+
+        /**
+         * Wraps a planned bend for its insertion in the interval tree.
+         */
+        private static class PlannedBend implements MultidimIntervalTree.Data {
+
+            private final ChainPoint point;
+            private final IntervalBox box;
+
+            /**
+             * Builds the wrapper.
+             *
+             * @param point the planned bend.
+             */
+            private PlannedBend(ChainPoint point) {
+                this.point = point;
+                this.box = IntervalBox.newInstance(Box.boundingBox(point.position));
+            }
+
+            @Override
+            public IntervalBox intervalBox() {
+                return box;
+            }
+        }
+    }
+
+    /**
+     * A point of a mirror edge chain during the planning of bend changes. The
+     * point is either an existing node of the chain or a bend planned to be
+     * added.
+     */
+    public static class ChainPoint {
+
+        private final Node node;
+        private final Coordinates position;
+        private final Edge segment;
+
+        /**
+         * Constructs a chain point.
+         *
+         * @param node the existing node, or null for a planned bend.
+         * @param position the position of the point.
+         * @param segment the segment split by a planned bend, or null for an
+         * existing node.
+         */
+        private ChainPoint(Node node, Coordinates position, Edge segment) {
+            this.node = node;
+            this.position = position;
+            this.segment = segment;
+        }
+
+        /**
+         * Returns the existing node of this point.
+         *
+         * @return the node, or null if the point is a planned bend.
+         */
+        public Node node() {
+            return node;
+        }
+
+        /**
+         * Returns the position of this point.
+         *
+         * @return the position.
+         */
+        public Coordinates position() {
+            return position;
+        }
+
+        /**
+         * Checks whether this point is a bend planned to be added.
+         *
+         * @return true for a planned bend, false for an existing node.
+         */
+        public boolean isPlanned() {
+            return node == null;
+        }
+    }
+
     /**
      * Collects the information of a node attribute to preserve.
      */
@@ -56,6 +56,8 @@ public class ModularFdl {
     private final Collection<ModularPostProcessing> postProcessingSteps;
     private final Collection<ModularMetric> metrics;
 
+    private double maxMovement;
+
     public static final double safetyMovementFactor = 0.9;
 
     /**
@@ -290,6 +292,20 @@ public class ModularFdl {
      * @return the statistics for this execution.
      */
     public ModularStatistics iterate(int numberOfIterations) {
+        return iterate(numberOfIterations, null);
+    }
+
+    /**
+     * Execute the main cycle for at most the given number of iterations. At
+     * the end of each iteration, when the original graph is consistent with
+     * the mirror, the run is notified and can stop the computation.
+     *
+     * @param numberOfIterations the maximum number of iterations.
+     * @param run the run controlling the execution, or null to always perform
+     * all the iterations.
+     * @return the statistics for this execution.
+     */
+    ModularStatistics iterate(int numberOfIterations, ModularRun run) {
         ModularStatistics stats = new ModularStatistics(metrics);
         long totalStartTime = System.nanoTime();
 
@@ -305,6 +321,7 @@ public class ModularFdl {
             thermostat.updateTemperature(i, numberOfIterations);
 
             computeForces();
+            double energy = thermostat.requiresEnergy() ? computeEnergy() : Double.NaN;
             computeConstraints();
             computeMovements();
 
@@ -321,7 +338,16 @@ public class ModularFdl {
             mirrorPositions.stopBulkNotification();
             synchronizer.updateOriginal();
 
-            stats.runAtIterationEnd(Duration.ofNanos(System.nanoTime() - iterationStartTime));
+            thermostat.registerIteration(energy, maxMovement);
+            stats.runAtIterationEnd(Duration.ofNanos(System.nanoTime() - iterationStartTime), thermostat.temperature);
+
+            boolean converged = thermostat.hasConverged();
+            if (converged) {
+                stats.runAtConvergence();
+            }
+            if ((run != null && !run.iterationCompleted(i, maxMovement, stats)) || converged) {
+                break;
+            }
         }
 
         stats.runAtComputationEnd(Duration.ofNanos(System.nanoTime() - totalStartTime));
@@ -340,6 +366,21 @@ public class ModularFdl {
         }
     }
 
+    /**
+     * Computes the energy of the system, as the sum of the squared magnitudes
+     * of the node forces.
+     *
+     * @return the energy.
+     */
+    private double computeEnergy() {
+        double energy = 0;
+        for (Node node : mirrorGraph.nodes()) {
+            double magnitude = geometry.magnitude(forces.get(node));
+            energy += magnitude * magnitude;
+        }
+        return energy;
+    }
+
     /**
      * Computes the final constraints for each graph node.
      */
@@ -375,11 +416,14 @@ public class ModularFdl {
     }
 
     /**
-     * Moves the graph nodes.
+     * Moves the graph nodes, recording the largest movement.
      */
     private void moveNodes() {
+        maxMovement = 0;
         for (Node node : mirrorGraph.nodes()) {
-            mirrorPositions.set(node, movements.get(node).plus(mirrorPositions.get(node)));
+            Coordinates movement = movements.get(node);
+            mirrorPositions.set(node, movement.plus(mirrorPositions.get(node)));
+            maxMovement = Math.max(maxMovement, geometry.magnitude(movement));
         }
     }
 
@@ -16,11 +16,13 @@
 package ocotillo.graph.layout.fdl.modular;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomNumeric;
@@ -776,6 +778,338 @@ public abstract class ModularForce extends ModularElement {
         }
     }
 
+    /**
+     * Force that repels every pair of nodes, as in the Fruchterman-Reingold
+     * model. The repulsion between two nodes at distance d is
+     * strength * (nodeNodeDistance / d)^exponent. The far field is
+     * approximated with a Barnes-Hut quadtree, so that the computation takes
+     * O(n log n) time, and the forces of different nodes are computed in
+     * parallel. Node glyphs are considered as points.
+     */
+    public static class BarnesHutRepulsion2D extends ModularForce {
+
+        /**
+         * The distance at which two nodes repel each other with the given
+         * strength.
+         */
+        protected double nodeNodeDistance;
+        /**
+         * The opening criterion: a quadtree cell is approximated by its
+         * centre of mass when its side is smaller than theta times its
+         * distance from the node.
+         */
+        public double theta = 0.8;
+        /**
+         * The force exponent.
+         */
+        public double exponent = 1;
+        /**
+         * The relative strength of the repulsion with respect to the edge
+         * attraction.
+         */
+        public double strength = 0.2;
+
+        /**
+         * Constructs a Barnes-Hut repulsion force.
+         *
+         * @param nodeNodeDistance the distance at which two nodes repel each
+         * other with the given strength.
+         */
+        public BarnesHutRepulsion2D(double nodeNodeDistance) {
+            this.nodeNodeDistance = nodeNodeDistance;
+        }
+
+        @Override
+        protected double desiredDistance() {
+            return nodeNodeDistance;
+        }
+
+        @Override
+        protected NodeAttribute<Coordinates> computeForces() {
+            List<Node> nodes = new ArrayList<>(mirrorGraph().nodes());
+            int nodeCount = nodes.size();
+            double[] x = new double[nodeCount];
+            double[] y = new double[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                Coordinates position = mirrorPositions().get(nodes.get(i));
+                x[i] = position.x();
+                y[i] = position.y();
+            }
+
+            BarnesHutTree tree = new BarnesHutTree(x, y);
+            double[] forceX = new double[nodeCount];
+            double[] forceY = new double[nodeCount];
+            IntStream.range(0, nodeCount).parallel().forEach(i -> {
+                double[] force = tree.repulsion(i, nodeNodeDistance, exponent, theta);
+                forceX[i] = force[0] * strength;
+                forceY[i] = force[1] * strength;
+            });
+
+            NodeAttribute<Coordinates> forces = new NodeAttribute<>(new Coordinates(0, 0));
+            for (int i = 0; i < nodeCount; i++) {
+                forces.set(nodes.get(i), new Coordinates(forceX[i], forceY[i]));
+            }
+            return forces;
+        }
+    }
+
+    /**
+     * Quadtree over a set of points that stores the mass and centre of mass
+     * of each cell. The cells are kept in flat arrays, and the children of a
+     * cell are stored contiguously.
+     */
+    protected static class BarnesHutTree {
+
+        private static final int maxDepth = 32;
+
+        private final double[] x;
+        private final double[] y;
+        private final int[] order;
+        private final int[] buffer;
+
+        private int cellCount = 0;
+        private double[] cellMinX;
+        private double[] cellMinY;
+        private double[] cellSide;
+        private double[] massX;
+        private double[] massY;
+        private int[] mass;
+        private int[] rangeStart;
+        private int[] firstChild;
+        private int[] childCount;
+
+        /**
+         * Builds the quadtree for the given points.
+         *
+         * @param x the x coordinates of the points.
+         * @param y the y coordinates of the points.
+         */
+        protected BarnesHutTree(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+            this.order = new int[x.length];
+            this.buffer = new int[x.length];
+            int capacity = Math.max(16, 2 * x.length);
+            cellMinX = new double[capacity];
+            cellMinY = new double[capacity];
+            cellSide = new double[capacity];
+            massX = new double[capacity];
+            massY = new double[capacity];
+            mass = new int[capacity];
+            rangeStart = new int[capacity];
+            firstChild = new int[capacity];
+            childCount = new int[capacity];
+
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < x.length; i++) {
+                order[i] = i;
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+            if (x.length > 0) {
+                double side = Math.max(Math.max(maxX - minX, maxY - minY), Distances.minimal) * (1 + 1e-9);
+                int root = newCell();
+                build(root, minX, minY, side, 0, x.length, 0);
+            }
+        }
+
+        /**
+         * Allocates a new cell.
+         *
+         * @return the index of the cell.
+         */
+        private int newCell() {
+            if (cellCount == mass.length) {
+                int capacity = 2 * mass.length;
+                cellMinX = Arrays.copyOf(cellMinX, capacity);
+                cellMinY = Arrays.copyOf(cellMinY, capacity);
+                cellSide = Arrays.copyOf(cellSide, capacity);
+                massX = Arrays.copyOf(massX, capacity);
+                massY = Arrays.copyOf(massY, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                rangeStart = Arrays.copyOf(rangeStart, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+            }
+            return cellCount++;
+        }
+
+        /**
+         * Fills a cell with the points in the given range of the order array,
+         * splitting it in four quadrants when it contains more than one point.
+         *
+         * @param cell the cell.
+         * @param minX the minimum x of the cell.
+         * @param minY the minimum y of the cell.
+         * @param side the side of the cell.
+         * @param start the first point of the cell in the order array.
+         * @param end the end of the range of the cell in the order array.
+         * @param depth the depth of the cell.
+         */
+        private void build(int cell, double minX, double minY, double side, int start, int end, int depth) {
+            double sumX = 0;
+            double sumY = 0;
+            for (int k = start; k < end; k++) {
+                sumX += x[order[k]];
+                sumY += y[order[k]];
+            }
+            cellMinX[cell] = minX;
+            cellMinY[cell] = minY;
+            cellSide[cell] = side;
+            massX[cell] = sumX / (end - start);
+            massY[cell] = sumY / (end - start);
+            mass[cell] = end - start;
+            rangeStart[cell] = start;
+            childCount[cell] = 0;
+            if (end - start <= 1 || depth == maxDepth) {
+                return;
+            }
+
+            double half = side / 2;
+            int[] quadrantCount = new int[4];
+            for (int k = start; k < end; k++) {
+                quadrantCount[quadrant(order[k], minX + half, minY + half)]++;
+            }
+            int[] quadrantStart = new int[5];
+            quadrantStart[0] = start;
+            for (int q = 0; q < 4; q++) {
+                quadrantStart[q + 1] = quadrantStart[q] + quadrantCount[q];
+            }
+            int[] position = Arrays.copyOf(quadrantStart, 4);
+            for (int k = start; k < end; k++) {
+                buffer[position[quadrant(order[k], minX + half, minY + half)]++] = order[k];
+            }
+            System.arraycopy(buffer, start, order, start, end - start);
+
+            int children = 0;
+            for (int q = 0; q < 4; q++) {
+                if (quadrantCount[q] > 0) {
+                    children++;
+                }
+            }
+            int first = cellCount;
+            for (int c = 0; c < children; c++) {
+                newCell();
+            }
+            firstChild[cell] = first;
+            childCount[cell] = children;
+
+            int child = first;
+            for (int q = 0; q < 4; q++) {
+                if (quadrantCount[q] > 0) {
+                    build(child, minX + (q % 2) * half, minY + (q / 2) * half, half,
+                            quadrantStart[q], quadrantStart[q + 1], depth + 1);
+                    child++;
+                }
+            }
+        }
+
+        /**
+         * Computes the quadrant of a point with respect to the centre of a
+         * cell.
+         *
+         * @param point the point.
+         * @param midX the x of the cell centre.
+         * @param midY the y of the cell centre.
+         * @return the quadrant index, from 0 to 3.
+         */
+        private int quadrant(int point, double midX, double midY) {
+            return (x[point] >= midX ? 1 : 0) + (y[point] >= midY ? 2 : 0);
+        }
+
+        /**
+         * Computes the total repulsion that the other points exert on a
+         * point.
+         *
+         * @param point the point.
+         * @param distance the distance at which the repulsion has unit
+         * magnitude.
+         * @param exponent the force exponent.
+         * @param theta the opening criterion.
+         * @return the x and y components of the repulsion.
+         */
+        protected double[] repulsion(int point, double distance, double exponent, double theta) {
+            double[] force = new double[2];
+            if (cellCount == 0) {
+                return force;
+            }
+            int[] stack = new int[4 * maxDepth + 4];
+            int stackSize = 0;
+            stack[stackSize++] = 0;
+            while (stackSize > 0) {
+                int cell = stack[--stackSize];
+                if (childCount[cell] == 0) {
+                    for (int k = rangeStart[cell]; k < rangeStart[cell] + mass[cell]; k++) {
+                        int other = order[k];
+                        if (other != point) {
+                            addRepulsion(force, point, x[other], y[other], 1, distance, exponent, other);
+                        }
+                    }
+                } else {
+                    double dx = x[point] - massX[cell];
+                    double dy = y[point] - massY[cell];
+                    double pointDistance = Math.sqrt(dx * dx + dy * dy);
+                    if (cellSide[cell] < theta * pointDistance && !contains(cell, point)) {
+                        addRepulsion(force, point, massX[cell], massY[cell], mass[cell], distance, exponent, cell);
+                    } else {
+                        for (int c = firstChild[cell]; c < firstChild[cell] + childCount[cell]; c++) {
+                            stack[stackSize++] = c;
+                        }
+                    }
+                }
+            }
+            return force;
+        }
+
+        /**
+         * Checks if a point lies in a cell.
+         *
+         * @param cell the cell.
+         * @param point the point.
+         * @return true if the point is inside the cell.
+         */
+        private boolean contains(int cell, int point) {
+            return x[point] >= cellMinX[cell] && x[point] <= cellMinX[cell] + cellSide[cell]
+                    && y[point] >= cellMinY[cell] && y[point] <= cellMinY[cell] + cellSide[cell];
+        }
+
+        /**
+         * Adds the repulsion exerted by a mass on a point. Coincident points
+         * are pushed apart in a direction that depends on their indices.
+         *
+         * @param force the force to update.
+         * @param point the point.
+         * @param sourceX the x of the mass.
+         * @param sourceY the y of the mass.
+         * @param sourceMass the mass.
+         * @param distance the distance at which the repulsion has unit
+         * magnitude.
+         * @param exponent the force exponent.
+         * @param sourceIndex an index identifying the mass.
+         */
+        private void addRepulsion(double[] force, int point, double sourceX, double sourceY, int sourceMass,
+                double distance, double exponent, int sourceIndex) {
+            double dx = x[point] - sourceX;
+            double dy = y[point] - sourceY;
+            double magnitude = Math.sqrt(dx * dx + dy * dy);
+            if (magnitude == 0) {
+                double angle = (point - sourceIndex) * 2.399963229728653;
+                dx = Math.cos(angle);
+                dy = Math.sin(angle);
+                magnitude = 1;
+            }
+            double ratio = distance / Math.max(magnitude, Distances.minimal);
+            double intensity = sourceMass * (exponent == 1 ? ratio : Math.pow(ratio, exponent));
+            force[0] += dx / magnitude * intensity;
+            force[1] += dy / magnitude * intensity;
+        }
+    }
+
     /**
      * Force that gets activated only when the temperature is lower than a given
      * threshold.
@@ -83,4 +83,19 @@ public abstract class ModularMetric extends ModularElement {
             return "RunningTime";
         }
     }
+
+    /**
+     * Metrics that collects the temperature of each iteration. As the
+     * temperature is decided by the thermostat, the values for this metric are
+     * directly filled in by the algorithm. The metric is not collected by
+     * default, and has to be added to the algorithm to track the cool-down
+     * schedule.
+     */
+    public static class IterationTemperature extends ModularMetric {
+
+        @Override
+        public String metricName() {
+            return "Temperature";
+        }
+    }
 }
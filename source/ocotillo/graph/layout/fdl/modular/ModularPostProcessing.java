@@ -18,6 +18,9 @@ package ocotillo.graph.layout.fdl.modular;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
@@ -25,8 +28,14 @@ import ocotillo.geometry.Geom2D;
 import ocotillo.geometry.GeomE;
 import ocotillo.geometry.Polygon;
 import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
-import ocotillo.graph.extra.BendExplicitGraphSynchroniser;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendChanges;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendPlanner;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.ChainPoint;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.PlannedBends;
 import ocotillo.graph.extra.GraphMetric;
 import ocotillo.graph.layout.Layout2D;
 
@@ -43,7 +52,7 @@ public abstract class ModularPostProcessing extends ModularElement {
     /**
      * Expands or contracts the flexible edges in the graph.
      */
-    public static class FlexibleEdges extends ModularPostProcessing {
+    public static class FlexibleEdges extends ModularPostProcessing implements BendPlanner {
 
         protected final Collection<Edge> flexibleEdges;
         protected final double contractDistance;
@@ -89,8 +98,8 @@ public abstract class ModularPostProcessing extends ModularElement {
         @Override
         protected void execute() {
             if (refreshCounter % refreshInterval == 0 && temperature() > shutDownTemperature) {
-                expandFlexibleEdges();
-                contractFlexibleEdges();
+                BendChanges changes = synchronizer().planBendChanges(flexibleEdges, this);
+                synchronizer().applyBendChanges(changes);
                 refreshCounter++;
             }
         }
@@ -98,63 +107,58 @@ public abstract class ModularPostProcessing extends ModularElement {
         /**
          * Expands the flexible segments whose length exceed the expand
          * distance.
+         *
+         * @param segment the segment.
+         * @return true if the segment should be expanded.
          */
-        private void expandFlexibleEdges() {
-            for (Edge flexibleEdge : flexibleEdges) {
-                BendExplicitGraphSynchroniser.MirrorEdge mirrorEdge = synchronizer().getMirrorEdge(flexibleEdge);
-                for (Edge segment : new ArrayList<>(mirrorEdge.segments())) {
-                    if (Layout2D.edgeLength(segment, mirrorPositions(), null, null) > expandDistance) {
-                        synchronizer().addMirrorBend(mirrorEdge, segment);
-                    }
-                }
-            }
+        @Override
+        public boolean shouldAddBend(Edge segment) {
+            return Layout2D.edgeLength(segment, mirrorPositions(), null, null) > expandDistance;
         }
 
         /**
          * Contracts the flexible chains n1,e1,n2,e2,n3 where n1 and n3 are
-         * closer than the contract distance and no other nodes is in the
-         * triangle n1,n2,n3.
+         * closer than the contract distance and no other nodes, existing or
+         * planned, is in the triangle n1,n2,n3.
+         *
+         * @param previous the preceding point n1.
+         * @param bend the bend n2.
+         * @param next the following point n3.
+         * @param plannedBends the bends planned to be added in the pass.
+         * @return true if the bend should be contracted.
          */
-        private void contractFlexibleEdges() {
-            for (Edge flexibleEdge : flexibleEdges) {
-                BendExplicitGraphSynchroniser.MirrorEdge mirrorEdge = synchronizer().getMirrorEdge(flexibleEdge);
-                for (Node bend : new ArrayList<>(mirrorEdge.bends())) {
-                    Node n1 = mirrorGraph().inEdges(bend).iterator().next().source();
-                    Node n3 = mirrorGraph().outEdges(bend).iterator().next().target();
-                    Coordinates n1Pos = mirrorPositions().get(n1);
-                    Coordinates n3Pos = mirrorPositions().get(n3);
-                    double distance = geometry.magnitude(n1Pos.minus(n3Pos));
-                    if (distance < contractDistance && (geometry.geomDim() > 2 || !nodesInTriangle(n1, bend, n3))) {
-                        synchronizer().removeMirrorBend(mirrorEdge, bend);
-                    }
-                }
-            }
+        @Override
+        public boolean shouldRemoveBend(ChainPoint previous, ChainPoint bend, ChainPoint next, PlannedBends plannedBends) {
+            double distance = geometry.magnitude(previous.position().minus(next.position()));
+            return distance < contractDistance && (geometry.geomDim() > 2 || !nodesInTriangle(previous, bend, next, plannedBends));
         }
 
         /**
-         * Verifies if there are unrelated nodes inside the given triangle.
+         * Verifies if there are unrelated nodes inside the given triangle,
+         * considering both the nodes in the mirror graph and the bends
+         * planned to be added to it. The locator is only queried, so that the
+         * check can be performed concurrently.
          *
-         * @param n1 the first triangle node.
-         * @param n2 the second triangle node.
-         * @param n3 the third triangle node.
+         * @param p1 the first triangle point.
+         * @param p2 the second triangle point.
+         * @param p3 the third triangle point.
+         * @param plannedBends the bends planned to be added in the pass.
          * @return true if there are nodes inside, false otherwise.
          */
-        private boolean nodesInTriangle(Node n1, Node n2, Node n3) {
-            Coordinates n1Pos = mirrorPositions().get(n1);
-            Coordinates n2Pos = mirrorPositions().get(n2);
-            Coordinates n3Pos = mirrorPositions().get(n3);
-            Box nodeBox = Box.boundingBox(Arrays.asList(n1Pos, n2Pos, n3Pos), 1);
-            Collection<Node> closeNodes = locator().getNodesPartiallyInBox(nodeBox);
-            closeNodes.remove(n1);
-            closeNodes.remove(n2);
-            closeNodes.remove(n3);
-            Polygon triangle = new Polygon(Arrays.asList(n1Pos, n2Pos, n3Pos));
-            for (Node unrelatedNode : closeNodes) {
-                if (((Geom2D) geometry).isPointInPolygon(mirrorPositions().get(unrelatedNode), triangle)) {
-                    return true;
-                }
+        private boolean nodesInTriangle(ChainPoint p1, ChainPoint p2, ChainPoint p3, PlannedBends plannedBends) {
+            List<Coordinates> vertices = Arrays.asList(p1.position(), p2.position(), p3.position());
+            Box nodeBox = Box.boundingBox(vertices, 1);
+            Polygon triangle = new Polygon(vertices);
+            Node unrelatedNode = locator().getAnyNodePartiallyInBox(nodeBox,
+                    node -> node != p1.node() && node != p2.node() && node != p3.node()
+                    && ((Geom2D) geometry).isPointInPolygon(mirrorPositions().get(node), triangle));
+            if (unrelatedNode != null) {
+                return true;
             }
-            return false;
+            ChainPoint unrelatedBend = plannedBends.getAnyInBox(nodeBox,
+                    point -> point != p1 && point != p2 && point != p3
+                    && ((Geom2D) geometry).isPointInPolygon(point.position(), triangle));
+            return unrelatedBend != null;
         }
     }
 
@@ -205,6 +209,135 @@ public abstract class ModularPostProcessing extends ModularElement {
         }
     }
 
+    /**
+     * Publishes a throttled snapshot of the mirror graph while the layout is
+     * running. The snapshot is written into a frame that is owned by the
+     * listener until released, so that the layout thread never waits for the
+     * consumer: when the interval is not yet passed or the previous frame is
+     * still in use, the iteration simply goes on without publishing.
+     */
+    public static class LivePreview extends ModularPostProcessing {
+
+        /**
+         * Receives the frames published by a live preview.
+         */
+        public static interface Listener {
+
+            /**
+             * Called on the layout thread when a new frame is available. The
+             * frame must be released once consumed, otherwise no further
+             * frame is published.
+             *
+             * @param frame the frame.
+             */
+            public void frameAvailable(Frame frame);
+        }
+
+        /**
+         * A snapshot of the mirror graph. The frame shares the elements of the
+         * mirror graph, but holds its own copy of node positions and sizes.
+         */
+        public static class Frame {
+
+            private final Graph graph = new Graph();
+            private final NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+            private final NodeAttribute<Coordinates> sizes = graph.nodeAttribute(StdAttribute.nodeSize);
+            private final AtomicBoolean inUse = new AtomicBoolean(false);
+            private int iteration;
+
+            /**
+             * Returns the graph of the frame.
+             *
+             * @return the frame graph.
+             */
+            public Graph graph() {
+                return graph;
+            }
+
+            /**
+             * Returns the iteration at which the frame has been taken.
+             *
+             * @return the iteration number, starting from 1.
+             */
+            public int iteration() {
+                return iteration;
+            }
+
+            /**
+             * Gives the frame back to the live preview, which can then
+             * overwrite it with a new snapshot.
+             */
+            public void release() {
+                inUse.set(false);
+            }
+
+            /**
+             * Copies the current state of the mirror graph into the frame.
+             *
+             * @param mirrorGraph the mirror graph.
+             * @param mirrorPositions the mirror positions.
+             */
+            private void copyFrom(Graph mirrorGraph, NodeAttribute<Coordinates> mirrorPositions) {
+                NodeAttribute<Coordinates> mirrorSizes = mirrorGraph.nodeAttribute(StdAttribute.nodeSize);
+                for (Edge edge : new ArrayList<>(graph.edges())) {
+                    if (!mirrorGraph.has(edge)) {
+                        graph.forcedRemove(edge);
+                    }
+                }
+                for (Node node : new ArrayList<>(graph.nodes())) {
+                    if (!mirrorGraph.has(node)) {
+                        graph.forcedRemove(node);
+                    }
+                }
+                for (Node node : mirrorGraph.nodes()) {
+                    if (!graph.has(node)) {
+                        graph.add(node);
+                    }
+                    positions.set(node, new Coordinates(mirrorPositions.get(node)));
+                    sizes.set(node, new Coordinates(mirrorSizes.get(node)));
+                }
+                for (Edge edge : mirrorGraph.edges()) {
+                    if (!graph.has(edge)) {
+                        graph.add(edge);
+                    }
+                }
+            }
+        }
+
+        protected final long intervalInNanoseconds;
+        private final Listener listener;
+        private final Frame frame = new Frame();
+        private long lastPublicationTime;
+        private int currentIteration = 0;
+
+        /**
+         * Constructs a live preview ModularFdl post-processing.
+         *
+         * @param intervalInMilliseconds the minimum time between two
+         * published frames.
+         * @param listener the listener that receives the frames.
+         */
+        public LivePreview(long intervalInMilliseconds, Listener listener) {
+            this.intervalInNanoseconds = TimeUnit.MILLISECONDS.toNanos(intervalInMilliseconds);
+            this.listener = listener;
+            this.lastPublicationTime = System.nanoTime() - intervalInNanoseconds;
+        }
+
+        @Override
+        protected void execute() {
+            currentIteration++;
+            long currentTime = System.nanoTime();
+            if (currentTime - lastPublicationTime < intervalInNanoseconds
+                    || !frame.inUse.compareAndSet(false, true)) {
+                return;
+            }
+            frame.copyFrom(mirrorGraph(), mirrorPositions());
+            frame.iteration = currentIteration;
+            lastPublicationTime = currentTime;
+            listener.frameAvailable(frame);
+        }
+    }
+
     /**
      * Computes a graph metric.
      */
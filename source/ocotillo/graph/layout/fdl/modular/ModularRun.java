@@ -0,0 +1,485 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Edge;
+import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.StdAttribute.ControlPoints;
+
+/**
+ * An asynchronous execution of the ModularFdl algorithm. The run performs up
+ * to a maximum number of iterations, but stops earlier when cancelled or when
+ * the layout converges, that is, when no node moves more than a given
+ * threshold in an iteration. Listeners can receive snapshots of the layout
+ * and progress notifications while the computation progresses.
+ * <p>
+ * The graph being laid out must not be accessed by other threads until the run
+ * is done. Snapshots are detached copies of the node positions and edge
+ * points, and can be used freely.
+ */
+public class ModularRun {
+
+    private final ModularFdl modularFdl;
+    private final int maxIterations;
+    private final double convergenceThreshold;
+    private final int snapshotInterval;
+    private final List<SnapshotListener> listeners;
+    private final List<ProgressListener> progressListeners;
+    private final Runnable completionStep;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean cancelled = false;
+    private volatile boolean converged = false;
+    private volatile int completedIterations = 0;
+    private volatile double lastMaxMovement = Double.POSITIVE_INFINITY;
+    private ModularStatistics statistics;
+    private Throwable failure;
+
+    /**
+     * Receives the layout snapshots produced during a run.
+     */
+    public static interface SnapshotListener {
+
+        /**
+         * Called on the layout thread when a new snapshot is available.
+         *
+         * @param snapshot the layout snapshot.
+         */
+        public void snapshotTaken(Snapshot snapshot);
+    }
+
+    /**
+     * Receives a notification at the end of each iteration of a run. Unlike
+     * snapshots, notifications do not copy the layout, and are therefore cheap
+     * enough to be produced at every iteration.
+     */
+    public static interface ProgressListener {
+
+        /**
+         * Called on the layout thread at the end of each iteration. The
+         * statistics are updated by the layout thread, and must be read
+         * within this call.
+         *
+         * @param run the run.
+         * @param statistics the statistics collected so far.
+         */
+        public void iterationCompleted(ModularRun run, ModularStatistics statistics);
+    }
+
+    /**
+     * A builder for ModularRun instances.
+     */
+    public static class RunBuilder {
+
+        private final ModularFdl modularFdl;
+        private final int maxIterations;
+        private double convergenceThreshold = 0;
+        private int snapshotInterval = 1;
+        private final List<SnapshotListener> listeners = new ArrayList<>();
+        private final List<ProgressListener> progressListeners = new ArrayList<>();
+        private Runnable completionStep = null;
+        private Executor executor = null;
+
+        /**
+         * Constructs a run builder.
+         *
+         * @param modularFdl the algorithm to run.
+         * @param maxIterations the maximum number of iterations.
+         */
+        public RunBuilder(ModularFdl modularFdl, int maxIterations) {
+            this.modularFdl = modularFdl;
+            this.maxIterations = maxIterations;
+        }
+
+        /**
+         * Stops the run when the largest node movement of an iteration is
+         * below the given threshold.
+         *
+         * @param threshold the movement threshold.
+         * @return the builder.
+         */
+        public RunBuilder withConvergenceThreshold(double threshold) {
+            this.convergenceThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Adds a snapshot listener.
+         *
+         * @param listener the listener.
+         * @return the builder.
+         */
+        public RunBuilder withSnapshotListener(SnapshotListener listener) {
+            this.listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Adds a progress listener.
+         *
+         * @param listener the listener.
+         * @return the builder.
+         */
+        public RunBuilder withProgressListener(ProgressListener listener) {
+            this.progressListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations between two snapshots. A snapshot is
+         * always taken at the end of the run.
+         *
+         * @param interval the number of iterations between snapshots.
+         * @return the builder.
+         */
+        public RunBuilder withSnapshotInterval(int interval) {
+            assert (interval > 0) : "The snapshot interval must be positive.";
+            this.snapshotInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets a step to be performed on the layout thread after the last
+         * iteration, before the run is marked as done.
+         *
+         * @param completionStep the completion step.
+         * @return the builder.
+         */
+        public RunBuilder withCompletionStep(Runnable completionStep) {
+            this.completionStep = completionStep;
+            return this;
+        }
+
+        /**
+         * Sets the executor that performs the run. By default, the run is
+         * performed in a new daemon thread.
+         *
+         * @param executor the executor.
+         * @return the builder.
+         */
+        public RunBuilder withExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Starts the run.
+         *
+         * @return the started run.
+         */
+        public ModularRun start() {
+            ModularRun run = new ModularRun(modularFdl, maxIterations, convergenceThreshold,
+                    snapshotInterval, listeners, progressListeners, completionStep);
+            if (executor != null) {
+                executor.execute(run::execute);
+            } else {
+                Thread thread = new Thread(run::execute, "ModularFdl run");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Constructs a run.
+     *
+     * @param modularFdl the algorithm to run.
+     * @param maxIterations the maximum number of iterations.
+     * @param convergenceThreshold the movement threshold for convergence.
+     * @param snapshotInterval the number of iterations between snapshots.
+     * @param listeners the snapshot listeners.
+     * @param progressListeners the progress listeners.
+     * @param completionStep the step to perform at the end of the run.
+     */
+    private ModularRun(ModularFdl modularFdl, int maxIterations, double convergenceThreshold,
+            int snapshotInterval, List<SnapshotListener> listeners,
+            List<ProgressListener> progressListeners, Runnable completionStep) {
+        this.modularFdl = modularFdl;
+        this.maxIterations = maxIterations;
+        this.convergenceThreshold = convergenceThreshold;
+        this.snapshotInterval = snapshotInterval;
+        this.listeners = new ArrayList<>(listeners);
+        this.progressListeners = new ArrayList<>(progressListeners);
+        this.completionStep = completionStep;
+    }
+
+    /**
+     * Performs the run.
+     */
+    private void execute() {
+        try {
+            if (!cancelled) {
+                statistics = modularFdl.iterate(maxIterations, this);
+            }
+            if (completionStep != null) {
+                completionStep.run();
+            }
+            if (!listeners.isEmpty() && completedIterations % snapshotInterval != 0) {
+                notifyListeners();
+            }
+        } catch (Throwable exception) {
+            failure = exception;
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Called by the algorithm at the end of each iteration.
+     *
+     * @param iteration the index of the completed iteration.
+     * @param maxMovement the largest node movement of the iteration.
+     * @param statistics the statistics collected so far.
+     * @return true if the computation should continue, false otherwise.
+     */
+    boolean iterationCompleted(int iteration, double maxMovement, ModularStatistics statistics) {
+        completedIterations = iteration + 1;
+        lastMaxMovement = maxMovement;
+        converged = maxMovement < convergenceThreshold || modularFdl.thermostat.hasConverged();
+        if (!listeners.isEmpty() && completedIterations % snapshotInterval == 0) {
+            notifyListeners();
+        }
+        for (ProgressListener listener : progressListeners) {
+            listener.iterationCompleted(this, statistics);
+        }
+        return !cancelled && !converged && !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Takes a snapshot of the current layout and passes it to the listeners.
+     */
+    private void notifyListeners() {
+        Snapshot snapshot = new Snapshot(modularFdl.originalGraph, completedIterations, lastMaxMovement);
+        for (SnapshotListener listener : listeners) {
+            listener.snapshotTaken(snapshot);
+        }
+    }
+
+    /**
+     * Requests the run to stop. The run stops at the end of the current
+     * iteration, leaving the graph in a consistent state.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the run has been cancelled.
+     *
+     * @return true if the run has been cancelled, false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the maximum number of iterations of the run.
+     *
+     * @return the maximum number of iterations.
+     */
+    public int maxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Checks whether the run is done.
+     *
+     * @return true if the run is done, false otherwise.
+     */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Checks whether the run stopped because the layout converged, either
+     * according to the run convergence threshold or to the thermostat.
+     *
+     * @return true if the layout converged, false otherwise.
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /**
+     * Gets the number of iterations completed so far.
+     *
+     * @return the number of completed iterations.
+     */
+    public int completedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Waits for the run to be done.
+     *
+     * @return the statistics of the run, or null if cancelled before the
+     * first iteration.
+     * @throws InterruptedException if the current thread is interrupted while
+     * waiting.
+     * @throws IllegalStateException if the run failed, wrapping the cause.
+     */
+    public ModularStatistics await() throws InterruptedException {
+        done.await();
+        return result();
+    }
+
+    /**
+     * Waits for the run to be done, up to the given time.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the time unit of the timeout.
+     * @return the statistics of the run, or null if the run is not done
+     * within the given time or has been cancelled before the first
+     * iteration.
+     * @throws InterruptedException if the current thread is interrupted while
+     * waiting.
+     * @throws IllegalStateException if the run failed, wrapping the cause.
+     */
+    public ModularStatistics await(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!done.await(timeout, unit)) {
+            return null;
+        }
+        return result();
+    }
+
+    /**
+     * Returns the result of a completed run. Any failure of the run,
+     * including errors, is rethrown wrapped in an IllegalStateException.
+     *
+     * @return the statistics of the run.
+     */
+    private ModularStatistics result() {
+        if (failure != null) {
+            throw new IllegalStateException("The layout run failed.", failure);
+        }
+        return statistics;
+    }
+
+    /**
+     * A detached copy of the node positions and edge points of a graph.
+     */
+    public static class Snapshot {
+
+        private final int iteration;
+        private final double maxMovement;
+        private final Map<Node, Coordinates> positions = new HashMap<>();
+        private final Map<Edge, ControlPoints> edgePoints = new HashMap<>();
+
+        /**
+         * Takes a snapshot of a graph.
+         *
+         * @param graph the graph.
+         * @param iteration the number of completed iterations.
+         * @param maxMovement the largest node movement in the last iteration.
+         */
+        private Snapshot(Graph graph, int iteration, double maxMovement) {
+            this.iteration = iteration;
+            this.maxMovement = maxMovement;
+            NodeAttribute<Coordinates> graphPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+            for (Node node : graph.nodes()) {
+                positions.put(node, new Coordinates(graphPositions.get(node)));
+            }
+            if (graph.hasEdgeAttribute(StdAttribute.edgePoints)) {
+                EdgeAttribute<ControlPoints> graphEdgePoints = graph.edgeAttribute(StdAttribute.edgePoints);
+                for (Edge edge : graph.edges()) {
+                    ControlPoints points = new ControlPoints();
+                    for (Coordinates point : graphEdgePoints.get(edge)) {
+                        points.add(new Coordinates(point));
+                    }
+                    edgePoints.put(edge, points);
+                }
+            }
+        }
+
+        /**
+         * Gets the number of iterations completed when the snapshot was taken.
+         *
+         * @return the number of completed iterations.
+         */
+        public int iteration() {
+            return iteration;
+        }
+
+        /**
+         * Gets the largest node movement in the iteration preceding the
+         * snapshot.
+         *
+         * @return the largest node movement.
+         */
+        public double maxMovement() {
+            return maxMovement;
+        }
+
+        /**
+         * Gets the node positions.
+         *
+         * @return the node positions.
+         */
+        public Map<Node, Coordinates> positions() {
+            return Collections.unmodifiableMap(positions);
+        }
+
+        /**
+         * Gets the edge points.
+         *
+         * @return the edge points.
+         */
+        public Map<Edge, ControlPoints> edgePoints() {
+            return Collections.unmodifiableMap(edgePoints);
+        }
+
+        /**
+         * Copies the snapshot positions and edge points into the given graph.
+         * Elements not contained in the snapshot are left untouched.
+         *
+         * @param graph the destination graph.
+         */
+        public void applyTo(Graph graph) {
+            NodeAttribute<Coordinates> graphPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+            graphPositions.startBulkNotification();
+            for (Map.Entry<Node, Coordinates> entry : positions.entrySet()) {
+                if (graph.has(entry.getKey())) {
+                    graphPositions.set(entry.getKey(), new Coordinates(entry.getValue()));
+                }
+            }
+            graphPositions.stopBulkNotification();
+            if (!edgePoints.isEmpty()) {
+                EdgeAttribute<ControlPoints> graphEdgePoints = graph.edgeAttribute(StdAttribute.edgePoints);
+                graphEdgePoints.startBulkNotification();
+                for (Map.Entry<Edge, ControlPoints> entry : edgePoints.entrySet()) {
+                    if (graph.has(entry.getKey())) {
+                        graphEdgePoints.set(entry.getKey(), new ControlPoints(entry.getValue()));
+                    }
+                }
+                graphEdgePoints.stopBulkNotification();
+            }
+        }
+    }
+}
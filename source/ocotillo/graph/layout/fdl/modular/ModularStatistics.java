@@ -28,11 +28,17 @@ import ocotillo.serialization.ParserTools;
 public class ModularStatistics {
 
     private Duration totalRunningTime = Duration.ZERO;
+    private Duration iterationsRunningTime = Duration.ZERO;
+    private int completedIterations = 0;
+    private boolean converged = false;
     private final ModularMetric iterationRunningTimes;
+    private final ModularMetric iterationTemperatures;
     private final List<ModularMetric> metrics = new ArrayList<>();
 
     /**
-     * Creates a set of statistics for a modular FDL algorithm.
+     * Creates a set of statistics for a modular FDL algorithm. The iteration
+     * temperatures are recorded only if an IterationTemperature metric is
+     * among the given ones.
      *
      * @param metrics the metrics to add to the statistics.
      */
@@ -42,23 +48,44 @@ public class ModularStatistics {
         this.metrics.add(iterationNumber);
         this.metrics.add(iterationRunningTimes);
         this.metrics.addAll(metrics);
+        ModularMetric temperatures = null;
+        for (ModularMetric metric : metrics) {
+            if (metric instanceof ModularMetric.IterationTemperature) {
+                temperatures = metric;
+                break;
+            }
+        }
+        iterationTemperatures = temperatures;
     }
 
     /**
      * Performs the metric computation at the end of an iteration.
      *
      * @param iterationRunningTime the running time of this iteration.
+     * @param temperature the temperature used in this iteration.
      */
-    protected void runAtIterationEnd(Duration iterationRunningTime) {
+    protected void runAtIterationEnd(Duration iterationRunningTime, double temperature) {
+        completedIterations++;
+        iterationsRunningTime = iterationsRunningTime.plus(iterationRunningTime);
         for (ModularMetric metric : metrics) {
-            if (metric != iterationRunningTimes) {
-                metric.runAtIterationEnd();
-            } else {
+            if (metric == iterationRunningTimes) {
                 iterationRunningTimes.values.add(iterationRunningTime.toMillis() / 1000.0);
+            } else if (metric == iterationTemperatures) {
+                iterationTemperatures.values.add(temperature);
+            } else {
+                metric.runAtIterationEnd();
             }
         }
     }
 
+    /**
+     * Records that the computation terminated because the thermostat
+     * detected convergence.
+     */
+    protected void runAtConvergence() {
+        converged = true;
+    }
+
     /**
      * Performs the metric computation at the end of a computation.
      *
@@ -81,6 +108,36 @@ public class ModularStatistics {
         return totalRunningTime;
     }
 
+    /**
+     * Gets the number of iterations completed so far.
+     *
+     * @return the number of completed iterations.
+     */
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Gets the sum of the running times of the iterations completed so far.
+     * Unlike the total running time, it is available while the computation
+     * is in progress.
+     *
+     * @return the running time of the completed iterations.
+     */
+    public Duration getIterationsRunningTime() {
+        return iterationsRunningTime;
+    }
+
+    /**
+     * Checks whether the computation terminated early because the layout
+     * converged.
+     *
+     * @return true if the computation converged, false otherwise.
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
     /**
      * Gets the list of metrics.
      *
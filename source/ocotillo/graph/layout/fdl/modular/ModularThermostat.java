@@ -24,6 +24,37 @@ public abstract class ModularThermostat extends ModularElement {
 
     protected abstract void updateTemperature(int currentIteration, int numberOfIterations);
 
+    /**
+     * Indicates whether the thermostat uses the energy of the system. The
+     * energy requires an additional pass over the nodes, and is computed only
+     * when needed. By default, it is not used.
+     *
+     * @return true if the energy must be computed at each iteration.
+     */
+    protected boolean requiresEnergy() {
+        return false;
+    }
+
+    /**
+     * Receives the outcome of an iteration. By default, it is ignored.
+     *
+     * @param energy the energy of the system, computed as the sum of the
+     * squared force magnitudes, or NaN if the thermostat does not require it.
+     * @param maxMovement the largest node movement magnitude.
+     */
+    protected void registerIteration(double energy, double maxMovement) {
+    }
+
+    /**
+     * Checks whether the computation can be terminated early. By default,
+     * the computation always performs all the iterations.
+     *
+     * @return true if the layout converged, false otherwise.
+     */
+    protected boolean hasConverged() {
+        return false;
+    }
+
     /**
      * Thermostat that keeps the temperature constant throughout the
      * computation.
@@ -46,13 +77,113 @@ public abstract class ModularThermostat extends ModularElement {
      */
     public static class LinearCoolDown extends ModularThermostat {
 
+        private final double initialTemperature;
+
         public LinearCoolDown() {
+            this(1);
+        }
+
+        /**
+         * Constructs a thermostat that starts from the given temperature, as
+         * needed to refine a layout that is already close to the final one.
+         *
+         * @param initialTemperature the initial temperature.
+         */
+        public LinearCoolDown(double initialTemperature) {
+            assert (0 <= initialTemperature && initialTemperature <= 1) : "The temperature must be in the range [0,1]";
+            this.initialTemperature = initialTemperature;
+            this.temperature = initialTemperature;
+        }
+
+        @Override
+        protected void updateTemperature(int currentIteration, int numberOfIterations) {
+            temperature = initialTemperature * ((double) numberOfIterations - currentIteration) / numberOfIterations;
+        }
+    }
+
+    /**
+     * Thermostat that adapts the temperature to the progress of the
+     * computation, following the adaptive step length scheme of Hu. The
+     * temperature is decreased by the cooling factor whenever the energy of
+     * the system does not decrease, and increased again after five
+     * consecutive improvements. The temperature never exceeds the one of a
+     * linear cool down, and the computation terminates when the temperature
+     * or the largest node movement fall below the given thresholds.
+     */
+    public static class AdaptiveCoolDown extends ModularThermostat {
+
+        private final double coolingFactor;
+        private final double minTemperature;
+        private final double movementThreshold;
+
+        private double stepLength;
+        private double previousEnergy;
+        private int progress;
+        private boolean converged;
+
+        /**
+         * Constructs an adaptive thermostat with cooling factor 0.9, minimum
+         * temperature 0.01 and no movement threshold.
+         */
+        public AdaptiveCoolDown() {
+            this(0.9, 0.01, 0);
+        }
+
+        /**
+         * Constructs an adaptive thermostat.
+         *
+         * @param coolingFactor the factor applied to the temperature when the
+         * energy does not decrease.
+         * @param minTemperature the temperature under which the computation
+         * terminates.
+         * @param movementThreshold the node movement under which the
+         * computation terminates.
+         */
+        public AdaptiveCoolDown(double coolingFactor, double minTemperature, double movementThreshold) {
+            assert (0 < coolingFactor && coolingFactor < 1) : "The cooling factor must be in the range (0,1)";
+            assert (0 <= minTemperature && minTemperature <= 1) : "The minimum temperature must be in the range [0,1]";
+            this.coolingFactor = coolingFactor;
+            this.minTemperature = minTemperature;
+            this.movementThreshold = movementThreshold;
             this.temperature = 1;
         }
 
         @Override
         protected void updateTemperature(int currentIteration, int numberOfIterations) {
-            temperature = ((double) numberOfIterations - currentIteration) / numberOfIterations;
+            if (currentIteration == 0) {
+                stepLength = 1;
+                previousEnergy = Double.POSITIVE_INFINITY;
+                progress = 0;
+                converged = false;
+            }
+            double linearTemperature = ((double) numberOfIterations - currentIteration) / numberOfIterations;
+            temperature = Math.min(stepLength, linearTemperature);
+        }
+
+        @Override
+        protected boolean requiresEnergy() {
+            return true;
+        }
+
+        @Override
+        protected void registerIteration(double energy, double maxMovement) {
+            if (energy < previousEnergy) {
+                progress++;
+                if (progress >= 5) {
+                    progress = 0;
+                    stepLength = Math.min(1, stepLength / coolingFactor);
+                }
+            } else {
+                progress = 0;
+                stepLength *= coolingFactor;
+            }
+            previousEnergy = energy;
+            converged = stepLength < minTemperature || maxMovement < movementThreshold;
+        }
+
+        @Override
+        protected boolean hasConverged() {
+            return converged;
         }
     }
 }
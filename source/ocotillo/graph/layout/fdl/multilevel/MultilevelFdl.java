@@ -0,0 +1,370 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.multilevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import ocotillo.graph.layout.fdl.modular.ModularFdl;
+import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularForce;
+
+/**
+ * In-process multilevel force-directed layout. The graph is repeatedly
+ * coarsened by merging matched neighbours, the coarsest graph is laid out from
+ * scratch, and each layout is then prolonged to the finer level and refined
+ * with a modular force-directed algorithm that uses a Barnes-Hut repulsion.
+ * The final layout is scaled so that its average edge length is the desired
+ * one. It can be used in place of the sfdp executor to compute a static layout.
+ */
+public class MultilevelFdl {
+
+    /**
+     * The minimum fraction of nodes that a coarsening step must remove to be
+     * considered effective.
+     */
+    private static final double minimumReduction = 0.2;
+
+    private final double edgeLength;
+    private final int coarsestIterations;
+    private final int levelIterations;
+    private final double theta;
+    private final int coarsestSize;
+    private final long seed;
+
+    /**
+     * Builds a multilevel force-directed algorithm.
+     */
+    public static class MultilevelFdlBuilder {
+
+        private double edgeLength = 1;
+        private int coarsestIterations = 200;
+        private int levelIterations = 60;
+        private double theta = 0.8;
+        private int coarsestSize = 50;
+        private long seed = 0;
+
+        /**
+         * Indicates the desired edge length in the final layout.
+         *
+         * @param edgeLength the edge length.
+         * @return the builder.
+         */
+        public MultilevelFdlBuilder withEdgeLength(double edgeLength) {
+            this.edgeLength = edgeLength;
+            return this;
+        }
+
+        /**
+         * Indicates the number of iterations used to lay out the coarsest
+         * graph and to refine each finer level.
+         *
+         * @param coarsestIterations the iterations for the coarsest graph.
+         * @param levelIterations the iterations for each finer level.
+         * @return the builder.
+         */
+        public MultilevelFdlBuilder withIterations(int coarsestIterations, int levelIterations) {
+            this.coarsestIterations = coarsestIterations;
+            this.levelIterations = levelIterations;
+            return this;
+        }
+
+        /**
+         * Indicates the Barnes-Hut opening criterion. Lower values are more
+         * precise but slower.
+         *
+         * @param theta the opening criterion.
+         * @return the builder.
+         */
+        public MultilevelFdlBuilder withTheta(double theta) {
+            this.theta = theta;
+            return this;
+        }
+
+        /**
+         * Indicates the number of nodes under which the graph is not coarsened
+         * any further.
+         *
+         * @param coarsestSize the size of the coarsest graph.
+         * @return the builder.
+         */
+        public MultilevelFdlBuilder withCoarsestSize(int coarsestSize) {
+            this.coarsestSize = coarsestSize;
+            return this;
+        }
+
+        /**
+         * Indicates the seed used for the node matching and for the initial
+         * placement.
+         *
+         * @param seed the random seed.
+         * @return the builder.
+         */
+        public MultilevelFdlBuilder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Builds a multilevel force-directed algorithm.
+         *
+         * @return the multilevel force-directed algorithm.
+         */
+        public MultilevelFdl build() {
+            return new MultilevelFdl(edgeLength, coarsestIterations, levelIterations, theta, coarsestSize, seed);
+        }
+    }
+
+    /**
+     * Constructs a multilevel force-directed algorithm.
+     *
+     * @param edgeLength the desired edge length.
+     * @param coarsestIterations the iterations for the coarsest graph.
+     * @param levelIterations the iterations for each finer level.
+     * @param theta the Barnes-Hut opening criterion.
+     * @param coarsestSize the size of the coarsest graph.
+     * @param seed the random seed.
+     */
+    private MultilevelFdl(double edgeLength, int coarsestIterations, int levelIterations,
+            double theta, int coarsestSize, long seed) {
+        this.edgeLength = edgeLength;
+        this.coarsestIterations = coarsestIterations;
+        this.levelIterations = levelIterations;
+        this.theta = theta;
+        this.coarsestSize = coarsestSize;
+        this.seed = seed;
+    }
+
+    /**
+     * Computes the layout of the given graph and stores it in its node
+     * position attribute.
+     *
+     * @param graph the graph.
+     */
+    public void execute(Graph graph) {
+        if (graph.nodeCount() == 0) {
+            return;
+        }
+        Random random = new Random(seed);
+        List<Level> levels = new ArrayList<>();
+        List<Node> sortedNodes = new ArrayList<>(graph.nodes());
+        Collections.sort(sortedNodes);
+        levels.add(new Level(graph, sortedNodes));
+        Level current = levels.get(0);
+        while (current.graph.nodeCount() > coarsestSize) {
+            Level coarser = coarsen(current, random);
+            if (coarser.graph.nodeCount() > (1 - minimumReduction) * current.graph.nodeCount()) {
+                break;
+            }
+            levels.add(coarser);
+            current = coarser;
+        }
+
+        int originalSize = graph.nodeCount();
+        Level coarsest = levels.get(levels.size() - 1);
+        NodeAttribute<Coordinates> coarsestPositions = coarsest.graph.nodeAttribute(StdAttribute.nodePosition);
+        double side = levelEdgeLength(coarsest, originalSize) * Math.sqrt(coarsest.graph.nodeCount());
+        for (Node node : coarsest.nodes) {
+            coarsestPositions.set(node, new Coordinates(random.nextDouble() * side, random.nextDouble() * side));
+        }
+        refine(coarsest, originalSize, coarsestIterations, 5);
+
+        for (int i = levels.size() - 2; i >= 0; i--) {
+            prolong(levels.get(i), levels.get(i + 1), originalSize, random);
+            refine(levels.get(i), originalSize, levelIterations, 2);
+        }
+        normaliseEdgeLength(graph);
+    }
+
+    /**
+     * Scales the layout so that the average edge length matches the desired
+     * one.
+     *
+     * @param graph the graph.
+     */
+    private void normaliseEdgeLength(Graph graph) {
+        if (graph.edgeCount() == 0) {
+            return;
+        }
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        double edgeLengthSum = 0;
+        for (Edge edge : graph.edges()) {
+            Coordinates source = positions.get(edge.source());
+            Coordinates target = positions.get(edge.target());
+            edgeLengthSum += Math.hypot(target.x() - source.x(), target.y() - source.y());
+        }
+        if (edgeLengthSum == 0) {
+            return;
+        }
+        double factor = edgeLength * graph.edgeCount() / edgeLengthSum;
+        for (Node node : graph.nodes()) {
+            Coordinates position = positions.get(node);
+            positions.set(node, new Coordinates(position.x() * factor, position.y() * factor));
+        }
+    }
+
+    /**
+     * Computes the desired edge length for a level, so that the area covered
+     * by the layout is roughly the same at every level.
+     *
+     * @param level the level.
+     * @param originalSize the number of nodes in the original graph.
+     * @return the edge length for the level.
+     */
+    private double levelEdgeLength(Level level, int originalSize) {
+        return edgeLength * Math.sqrt((double) originalSize / level.graph.nodeCount());
+    }
+
+    /**
+     * Builds the coarser level by merging each node with its unmatched
+     * neighbour of minimum weight.
+     *
+     * @param level the level to coarsen.
+     * @param random the random generator.
+     * @return the coarser level.
+     */
+    private Level coarsen(Level level, Random random) {
+        Graph coarseGraph = new Graph();
+        Level coarse = new Level(coarseGraph, new ArrayList<>());
+        Map<Node, Integer> ranks = new HashMap<>();
+        for (Node node : level.nodes) {
+            ranks.put(node, ranks.size());
+        }
+        List<Node> nodes = new ArrayList<>(level.nodes);
+        Collections.shuffle(nodes, random);
+        for (Node node : nodes) {
+            if (level.parents.containsKey(node)) {
+                continue;
+            }
+            Node match = null;
+            for (Edge edge : level.graph.inOutEdges(node)) {
+                Node neighbour = edge.otherEnd(node);
+                if (!neighbour.equals(node) && !level.parents.containsKey(neighbour)
+                        && (match == null || level.weight(neighbour) < level.weight(match)
+                        || (level.weight(neighbour) == level.weight(match) && ranks.get(neighbour) < ranks.get(match)))) {
+                    match = neighbour;
+                }
+            }
+            Node parent = coarseGraph.newNode(coarse.nodes.size() + "c");
+            coarse.nodes.add(parent);
+            level.parents.put(node, parent);
+            coarse.weights.put(parent, level.weight(node));
+            if (match != null) {
+                level.parents.put(match, parent);
+                coarse.weights.put(parent, level.weight(node) + level.weight(match));
+            }
+        }
+        for (Node node : level.nodes) {
+            List<Edge> edges = new ArrayList<>(level.graph.outEdges(node));
+            edges.sort((first, second) -> Integer.compare(ranks.get(first.target()), ranks.get(second.target())));
+            for (Edge edge : edges) {
+                Node source = level.parents.get(edge.source());
+                Node target = level.parents.get(edge.target());
+                if (!source.equals(target) && coarseGraph.betweenEdge(source, target) == null) {
+                    coarseGraph.newEdge(coarseGraph.edgeCount() + "c", source, target);
+                }
+            }
+        }
+        return coarse;
+    }
+
+    /**
+     * Places the nodes of a level at the position of their coarse
+     * counterpart, with a small random displacement to separate merged nodes.
+     *
+     * @param level the level to place.
+     * @param coarse the coarser level.
+     * @param originalSize the number of nodes in the original graph.
+     * @param random the random generator.
+     */
+    private void prolong(Level level, Level coarse, int originalSize, Random random) {
+        NodeAttribute<Coordinates> positions = level.graph.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<Coordinates> coarsePositions = coarse.graph.nodeAttribute(StdAttribute.nodePosition);
+        double jitter = 0.1 * levelEdgeLength(level, originalSize);
+        for (Node node : level.nodes) {
+            Coordinates parentPosition = coarsePositions.get(level.parents.get(node));
+            positions.set(node, new Coordinates(
+                    parentPosition.x() + (random.nextDouble() - 0.5) * jitter,
+                    parentPosition.y() + (random.nextDouble() - 0.5) * jitter));
+        }
+    }
+
+    /**
+     * Refines the layout of a level with a modular force-directed algorithm.
+     *
+     * @param level the level.
+     * @param originalSize the number of nodes in the original graph.
+     * @param iterations the number of iterations.
+     * @param movementFactor the initial maximum movement in edge lengths.
+     */
+    private void refine(Level level, int originalSize, int iterations, double movementFactor) {
+        double levelEdgeLength = levelEdgeLength(level, originalSize);
+        ModularForce.EdgeAttraction2D attraction = new ModularForce.EdgeAttraction2D(levelEdgeLength);
+        attraction.initialExponent = 2;
+        attraction.finalExponent = 2;
+        ModularForce.BarnesHutRepulsion2D repulsion = new ModularForce.BarnesHutRepulsion2D(levelEdgeLength);
+        repulsion.theta = theta;
+        ModularFdl modularFdl = new ModularFdlBuilder(level.graph)
+                .withForce(attraction)
+                .withForce(repulsion)
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(movementFactor * levelEdgeLength))
+                .build();
+        modularFdl.iterate(iterations);
+        modularFdl.close();
+    }
+
+    /**
+     * A level of the multilevel hierarchy.
+     */
+    private static class Level {
+
+        private final Graph graph;
+        private final List<Node> nodes;
+        private final Map<Node, Node> parents = new HashMap<>();
+        private final Map<Node, Integer> weights = new HashMap<>();
+
+        /**
+         * Constructs a level.
+         *
+         * @param graph the graph of the level.
+         * @param nodes the nodes of the graph in a deterministic order.
+         */
+        private Level(Graph graph, List<Node> nodes) {
+            this.graph = graph;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Gets the number of original nodes merged into a node.
+         *
+         * @param node the node.
+         * @return the weight of the node.
+         */
+        private int weight(Node node) {
+            return weights.getOrDefault(node, 1);
+        }
+    }
+}
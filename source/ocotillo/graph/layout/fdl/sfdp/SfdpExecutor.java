@@ -30,7 +30,8 @@ import ocotillo.serialization.dot.DotValueConverter.SizeDimensionConverter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.List;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -153,8 +154,7 @@ public class SfdpExecutor {
      */
     public void execute(Graph graph) {
         List<String> dotInput = dotWriter.writeGraph(graph);
-        List<String> dotOutput = run(dotInput);
-        Graph generatedGraph = dotReader.parseFile(dotOutput);
+        Graph generatedGraph = dotReader.parse(run(dotInput));
         NodeAttribute<Coordinates> newPositions = generatedGraph.nodeAttribute(StdAttribute.nodePosition);
         NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
         for(Node node : graph.nodes()){
@@ -167,9 +167,9 @@ public class SfdpExecutor {
      * Runs the algorithm.
      *
      * @param dotInput the dot input.
-     * @return the dot output.
+     * @return a reader over the dot output.
      */
-    private List<String> run(List<String> dotInput) {
+    private Reader run(List<String> dotInput) {
         for (String argment : arguments) {
             assert (argment.startsWith("-") && !argment.startsWith("-o") && !argment.startsWith("-O")) : "Arguments that control the input/ouput streams cannot be used here.";
         }
@@ -191,7 +191,7 @@ public class SfdpExecutor {
             throw new IllegalStateException("Error while executing sfdp.");
         }
 
-        return stringToList(outputStream.toString());
+        return new InputStreamReader(new ByteArrayInputStream(outputStream.toByteArray()));
     }
 
     /**
@@ -209,14 +209,4 @@ public class SfdpExecutor {
         return builder.toString();
     }
 
-    /**
-     * Converts a multi-line string into a list of lines.
-     *
-     * @param string the multi-line string.
-     * @return the list of lines.
-     */
-    private static List<String> stringToList(String string) {
-        return Arrays.asList(string.split("\n"));
-    }
-
 }
@@ -17,6 +17,7 @@ package ocotillo.graph.layout.locator;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Predicate;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Edge;
@@ -91,6 +92,19 @@ public interface ElementLocator {
      */
     public Collection<Node> getNodesFullyInBox(Box box);
 
+    /**
+     * Gets any one node contained (even partially) in the given box that
+     * satisfies the given condition. The query does not allocate result
+     * collections and stops at the first match. It does not modify the
+     * locator, and can therefore be called concurrently as long as the graph
+     * is not modified.
+     *
+     * @param box the box.
+     * @param condition the condition the node must satisfy.
+     * @return a node that satisfies the condition, or null if there is none.
+     */
+    public Node getAnyNodePartiallyInBox(Box box, Predicate<Node> condition);
+
     /**
      * Gets the edges contained (even partially) in the box.
      *
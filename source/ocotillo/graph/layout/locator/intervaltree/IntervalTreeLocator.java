@@ -18,6 +18,7 @@ package ocotillo.graph.layout.locator.intervaltree;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomE;
@@ -214,6 +215,13 @@ public class IntervalTreeLocator extends ElementLocatorAbst {
         return unwrap(nodeTree.getAllContainedIn(IntervalBox.newInstance(box)));
     }
 
+    @Override
+    public Node getAnyNodePartiallyInBox(Box box, Predicate<Node> condition) {
+        Boxed<Node> boxed = nodeTree.getAnyOverlapping(IntervalBox.newInstance(box),
+                (Boxed<Node> candidate) -> condition.test(candidate.element));
+        return boxed != null ? boxed.element : null;
+    }
+
     @Override
     public Collection<Edge> getEdgesPartiallyInBox(Box box) {
         return unwrap(edgeTree.getAllOverlapping(IntervalBox.newInstance(box)));
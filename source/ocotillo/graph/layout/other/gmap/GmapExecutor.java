@@ -18,7 +18,8 @@ package ocotillo.graph.layout.other.gmap;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -168,8 +169,7 @@ public class GmapExecutor {
         }
 
         List<String> dotInput = dotWriter.writeGraph(graph);
-        List<String> dotOutput = run(dotInput);
-        Graph generatedGraph = dotReader.parseFile(dotOutput);
+        Graph generatedGraph = dotReader.parse(run(dotInput));
 
         Map<String, Graph> clusterMap = new HashMap<>();
         for (Graph cluster : graph.subGraphs()) {
@@ -195,9 +195,9 @@ public class GmapExecutor {
      * Runs the algorithm.
      *
      * @param dotInput the dot input.
-     * @return the dot output.
+     * @return a reader over the dot output.
      */
-    private List<String> run(List<String> dotInput) {
+    private Reader run(List<String> dotInput) {
         for (String argment : arguments) {
             assert (argment.startsWith("-") && !argment.startsWith("-o") && !argment.startsWith("-O")) : "Arguments that control the input/ouput streams cannot be used here.";
         }
@@ -219,7 +219,7 @@ public class GmapExecutor {
             throw new IllegalStateException("Error while executing gvmap.");
         }
 
-        return stringToList(outputStream.toString());
+        return new InputStreamReader(new ByteArrayInputStream(outputStream.toByteArray()));
     }
 
     /**
@@ -237,14 +237,4 @@ public class GmapExecutor {
         return builder.toString();
     }
 
-    /**
-     * Converts a multi-line string into a list of lines.
-     *
-     * @param string the multi-line string.
-     * @return the list of lines.
-     */
-    private static List<String> stringToList(String string) {
-        return Arrays.asList(string.split("\n"));
-    }
-
 }
@@ -50,6 +50,13 @@ public abstract class GraphRenderer {
      */
     public abstract Box computeBox();
 
+    /**
+     * Releases the resources held by the renderer, such as the observers
+     * registered on the graph. Does nothing by default.
+     */
+    public void close() {
+    }
+
     /**
      * Draws the background of the drawing. Must be called by the graphical
      * component, so that it can pass its width and height. Must be called
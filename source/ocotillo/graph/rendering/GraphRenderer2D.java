@@ -18,8 +18,19 @@ package ocotillo.graph.rendering;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.*;
@@ -28,6 +39,9 @@ import ocotillo.graph.StdAttribute.EdgeShape;
 import ocotillo.graph.StdAttribute.NodeShape;
 import ocotillo.graph.StdAttribute.ClusterShape;
 import ocotillo.graph.layout.Layout2D;
+import ocotillo.graph.layout.locator.ElementLocator.EdgePolicy;
+import ocotillo.graph.layout.locator.ElementLocator.NodePolicy;
+import ocotillo.graph.layout.locator.intervaltree.IntervalTreeLocator;
 import ocotillo.graph.rendering.svg.SvgElement;
 
 /**
@@ -52,6 +66,73 @@ public class GraphRenderer2D extends GraphRenderer {
     private final ClusterAttribute<Color> clusterColors;
     private final ClusterAttribute<StdAttribute.ClusterShape> clusterShapes;
     private final HeatMap heatMap;
+    private LevelOfDetail levelOfDetail = LevelOfDetail.full;
+    private VisibilityIndex visibilityIndex;
+
+    /**
+     * The layers of a drawing, from the bottom one to the top one.
+     */
+    public enum Layer {
+        graphics,
+        heatMap,
+        edges,
+        nodes,
+        labels,
+        clusters;
+    }
+
+    /**
+     * The level of detail of a drawing. Labels and glyphs that would appear
+     * smaller than the given number of pixels are not drawn in full. Renderers
+     * draw in full by default, so that exported images do not depend on the
+     * zoom level.
+     */
+    public static class LevelOfDetail {
+
+        /**
+         * Draws every element in full regardless of the zoom level.
+         */
+        public static final LevelOfDetail full = new LevelOfDetail(0, 0);
+
+        /**
+         * Hides labels smaller than 4 pixels and draws glyphs smaller than 2
+         * pixels as points.
+         */
+        public static final LevelOfDetail standard = new LevelOfDetail(4, 2);
+
+        private final double minLabelHeight;
+        private final int minGlyphSize;
+
+        /**
+         * Constructs a level of detail.
+         *
+         * @param minLabelHeight the minimum height in pixels of a drawn label.
+         * @param minGlyphSize the minimum size in pixels of a glyph drawn in
+         * full. Smaller glyphs are aggregated into points of this size.
+         */
+        public LevelOfDetail(double minLabelHeight, int minGlyphSize) {
+            this.minLabelHeight = minLabelHeight;
+            this.minGlyphSize = minGlyphSize;
+        }
+
+        /**
+         * Returns the minimum height in pixels of a drawn label.
+         *
+         * @return the minimum label height.
+         */
+        public double minLabelHeight() {
+            return minLabelHeight;
+        }
+
+        /**
+         * Returns the minimum size in pixels of a glyph drawn in full.
+         *
+         * @return the minimum glyph size.
+         */
+        public int minGlyphSize() {
+            return minGlyphSize;
+        }
+    }
 
     /**
      * Constructs a rendered for a given graph.
@@ -82,24 +163,214 @@ public class GraphRenderer2D extends GraphRenderer {
         this.heatMap = new HeatMap();
     }
 
+    /**
+     * Sets the level of detail used when drawing. The default level draws
+     * every element in full.
+     *
+     * @param levelOfDetail the level of detail.
+     */
+    public void setLevelOfDetail(LevelOfDetail levelOfDetail) {
+        this.levelOfDetail = levelOfDetail;
+    }
+
+    /**
+     * Returns the level of detail used when drawing.
+     *
+     * @return the level of detail.
+     */
+    public LevelOfDetail levelOfDetail() {
+        return levelOfDetail;
+    }
+
     @Override
     public void draw(Graphics2D graphics) {
+        double pixelsPerUnit = Math.sqrt(Math.abs(graphics.getTransform().getDeterminant())) * scaling;
+        Box viewBox = viewBox(graphics, pixelsPerUnit);
+        PixelGrid pixelGrid = new PixelGrid(graphics, levelOfDetail.minGlyphSize());
+
         drawGraphics(graphics, graph);
         drawHeatMap(graphics);
-        drawEdges(graphics);
-        drawNodes(graphics);
+        drawEdges(graphics, visibleEdges(viewBox), pixelsPerUnit, pixelGrid);
+        drawNodes(graphics, visibleNodes(viewBox), pixelsPerUnit, pixelGrid, true, true);
         drawClusters(graphics);
+        pixelGrid.dispose();
+    }
+
+    /**
+     * Draws a single layer of the graph. Drawing all layers in order produces
+     * the same result of draw, except that labels are drawn on top of all
+     * node glyphs.
+     *
+     * @param graphics the graphics.
+     * @param layer the layer to draw.
+     */
+    public void drawLayer(Graphics2D graphics, Layer layer) {
+        double pixelsPerUnit = Math.sqrt(Math.abs(graphics.getTransform().getDeterminant())) * scaling;
+        Box viewBox = viewBox(graphics, pixelsPerUnit);
+        PixelGrid pixelGrid = new PixelGrid(graphics, levelOfDetail.minGlyphSize());
+
+        switch (layer) {
+            case graphics:
+                drawGraphics(graphics, graph);
+                break;
+            case heatMap:
+                drawHeatMap(graphics);
+                break;
+            case edges:
+                drawEdges(graphics, visibleEdges(viewBox), pixelsPerUnit, pixelGrid);
+                break;
+            case nodes:
+                drawNodes(graphics, visibleNodes(viewBox), pixelsPerUnit, pixelGrid, true, false);
+                break;
+            case labels:
+                drawNodes(graphics, visibleNodes(viewBox), pixelsPerUnit, pixelGrid, false, true);
+                break;
+            case clusters:
+                drawClusters(graphics);
+                break;
+            default:
+                throw new UnsupportedOperationException("The layer " + layer.name() + " is not supported");
+        }
+        pixelGrid.dispose();
+    }
+
+    /**
+     * Returns the box that contains the glyph and the label of a node.
+     *
+     * @param node the node.
+     * @return the node box in graph coordinates.
+     */
+    public Box nodeBox(Node node) {
+        Coordinates position = nodePositions.get(node);
+        Coordinates glyphSize = nodeSizes.get(node);
+        Box glyphBox = new Box.Box2D(position, glyphSize);
+        if (nodeLabels.get(node).isEmpty()) {
+            return glyphBox;
+        }
+        Box labelBox = new Box.Box2D(position.plus(nodeLabelOffset.get(node)), estimatedLabelSize(node));
+        return glyphBox.combine(labelBox);
+    }
+
+    /**
+     * Returns the box that contains an edge.
+     *
+     * @param edge the edge.
+     * @return the edge box in graph coordinates.
+     */
+    public Box edgeBox(Edge edge) {
+        return Layout2D.edgeBox(edge, nodePositions, edgePoints, edgeWidths);
+    }
+
+    /**
+     * Returns an upper estimate of the size of a node label, that is cheaper
+     * to compute than the exact text size.
+     *
+     * @param node the node.
+     * @return the estimated label size.
+     */
+    private Coordinates estimatedLabelSize(Node node) {
+        double fontSize = nodeLabelScaling.get(node);
+        return new Coordinates(nodeLabels.get(node).length() * fontSize, 1.5 * fontSize);
+    }
+
+    @Override
+    public void close() {
+        if (visibilityIndex != null) {
+            visibilityIndex.close();
+            visibilityIndex = null;
+        }
+    }
+
+    /**
+     * Returns the portion of the graph visible in the graphics clip, including
+     * a margin of a few pixels for antialiasing.
+     *
+     * @param graphics the graphics.
+     * @param pixelsPerUnit the number of pixels per graph unit.
+     * @return the visible box in graph coordinates, or null if the graphics
+     * has no clip.
+     */
+    private Box viewBox(Graphics2D graphics, double pixelsPerUnit) {
+        Rectangle clip = graphics.getClipBounds();
+        if (clip == null) {
+            return null;
+        }
+        Box clipBox = new Box.Box2D(clip.getMinX() / scaling, clip.getMaxX() / scaling,
+                -clip.getMaxY() / scaling, -clip.getMinY() / scaling);
+        return clipBox.expand(2 / pixelsPerUnit);
+    }
+
+    /**
+     * Returns the nodes that might be visible in the given box, in drawing
+     * order.
+     *
+     * @param viewBox the visible box, or null if the whole graph is visible.
+     * @return the visible nodes.
+     */
+    private List<Node> visibleNodes(Box viewBox) {
+        if (viewBox == null) {
+            return new ArrayList<>(graph.nodes());
+        }
+        if (visibilityIndex == null) {
+            visibilityIndex = new VisibilityIndex();
+        }
+        return visibilityIndex.visibleNodes(viewBox);
+    }
+
+    /**
+     * Returns the edges that might be visible in the given box, in drawing
+     * order.
+     *
+     * @param viewBox the visible box, or null if the whole graph is visible.
+     * @return the visible edges.
+     */
+    private List<Edge> visibleEdges(Box viewBox) {
+        if (viewBox == null) {
+            return new ArrayList<>(graph.edges());
+        }
+        if (visibilityIndex == null) {
+            visibilityIndex = new VisibilityIndex();
+        }
+        return visibilityIndex.visibleEdges(viewBox);
+    }
+
+    /**
+     * Checks whether the glyph of a node is too small to be drawn in full.
+     *
+     * @param node the node.
+     * @param pixelsPerUnit the number of pixels per graph unit.
+     * @return true if the node should be drawn as a point.
+     */
+    private boolean isDrawnAsPoint(Node node, double pixelsPerUnit) {
+        Coordinates size = nodeSizes.get(node);
+        return Math.max(size.x(), size.y()) * pixelsPerUnit < levelOfDetail.minGlyphSize();
     }
 
     /**
      * Draws the graph nodes.
      *
      * @param graphics2D the 2D graphics.
+     * @param nodes the nodes to draw.
+     * @param pixelsPerUnit the number of pixels per graph unit.
+     * @param pixelGrid the grid used to aggregate nodes drawn as points.
+     * @param glyphs whether to draw the node glyphs.
+     * @param labels whether to draw the node labels.
      */
-    private void drawNodes(Graphics2D graphics2D) {
-        for (Node node : new ArrayList<>(graph.nodes())) {
-            drawNodeGlyph(graphics2D, node);
-            drawNodeLabel(graphics2D, node);
+    private void drawNodes(Graphics2D graphics2D, List<Node> nodes, double pixelsPerUnit, PixelGrid pixelGrid,
+            boolean glyphs, boolean labels) {
+        for (Node node : nodes) {
+            if (isDrawnAsPoint(node, pixelsPerUnit)) {
+                if (glyphs) {
+                    pixelGrid.drawPoint(nodePositions.get(node), nodeColors.get(node));
+                }
+                continue;
+            }
+            if (glyphs) {
+                drawNodeGlyph(graphics2D, node);
+            }
+            if (labels && nodeLabelScaling.get(node) * pixelsPerUnit >= levelOfDetail.minLabelHeight()) {
+                drawNodeLabel(graphics2D, node);
+            }
         }
     }
 
@@ -144,12 +415,16 @@ public class GraphRenderer2D extends GraphRenderer {
     }
 
     /**
-     * Draws the graph edges.
+     * Draws the graph edges. Straight edges between nodes drawn as points are
+     * drawn as pixel segments, merging those that join the same grid cells.
      *
      * @param graphics2D the 2D graphics.
+     * @param edges the edges to draw.
+     * @param pixelsPerUnit the number of pixels per graph unit.
+     * @param pixelGrid the grid used to aggregate nodes drawn as points.
      */
-    private void drawEdges(Graphics2D graphics2D) {
-        for (Edge edge : new ArrayList<>(graph.edges())) {
+    private void drawEdges(Graphics2D graphics2D, List<Edge> edges, double pixelsPerUnit, PixelGrid pixelGrid) {
+        for (Edge edge : edges) {
             Double width = edgeWidths.get(edge);
             EdgeShape shape = edgeShapes.get(edge);
             Color color = edgeColors.get(edge);
@@ -157,6 +432,12 @@ public class GraphRenderer2D extends GraphRenderer {
             Coordinates endingPoint = nodePositions.get(edge.target());
             ControlPoints controlPoints = edgePoints.get(edge);
 
+            if (controlPoints.isEmpty() && isDrawnAsPoint(edge.source(), pixelsPerUnit)
+                    && isDrawnAsPoint(edge.target(), pixelsPerUnit)) {
+                pixelGrid.drawSegment(startingPoint, endingPoint, color);
+                continue;
+            }
+
             switch (shape) {
                 case polyline:
                     ComponentDrawer.drawPolyline(graphics2D, startingPoint, endingPoint, controlPoints, width, color);
@@ -400,4 +681,275 @@ public class GraphRenderer2D extends GraphRenderer {
         } while (labelSize.x() < nodeSize.x() - 2 * margin && labelSize.y() < nodeSize.y() - 2 * margin);
         nodeLabelFontScaling.set(node, fontScaling / basicIncrement);
     }
+
+    /**
+     * Spatial index of the graph elements used to select the visible ones. The
+     * index is rebuilt lazily when the graph is modified.
+     */
+    private class VisibilityIndex {
+
+        private IntervalTreeLocator locator;
+        private final List<Observer> observers = new ArrayList<>();
+        private final Map<Element, Integer> drawingOrder = new HashMap<>();
+        private Box graphBox;
+        private double labelReach;
+        private volatile boolean outdated = true;
+
+        /**
+         * Constructs the index and registers the observers that mark it as
+         * outdated.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private VisibilityIndex() {
+            observers.add(new Observer.GraphElements(graph) {
+                @Override
+                public void theseElementsChanged(Collection<Element> changedElements) {
+                    outdated = true;
+                }
+            });
+            List<ElementAttribute<?, ?>> attributes = Arrays.asList(nodePositions, nodeSizes,
+                    nodeLabels, nodeLabelScaling, nodeLabelOffset, edgePoints, edgeWidths);
+            for (ElementAttribute attribute : attributes) {
+                observers.add(new Observer.ElementAttributeChanges(attribute) {
+                    @Override
+                    public void update(Collection changedElements) {
+                        outdated = true;
+                    }
+
+                    @Override
+                    public void updateAll() {
+                        outdated = true;
+                    }
+                });
+            }
+        }
+
+        /**
+         * Rebuilds the index if the graph has been modified.
+         */
+        private void refresh() {
+            if (!outdated) {
+                return;
+            }
+            outdated = false;
+            if (locator == null) {
+                locator = new IntervalTreeLocator.ItlBuilder(graph, NodePolicy.nodesAsGlyphs, EdgePolicy.edgesAsGlyphs)
+                        .disableAutoSync()
+                        .build();
+            } else {
+                locator.rebuild();
+            }
+            drawingOrder.clear();
+            graphBox = null;
+            labelReach = 0;
+            for (Node node : graph.nodes()) {
+                drawingOrder.put(node, drawingOrder.size());
+                graphBox = graphBox == null ? locator.getBox(node) : graphBox.combine(locator.getBox(node));
+                Coordinates offset = nodeLabelOffset.get(node);
+                Coordinates labelSize = estimatedLabelSize(node);
+                labelReach = Math.max(labelReach, Math.abs(offset.x()) + labelSize.x() / 2);
+                labelReach = Math.max(labelReach, Math.abs(offset.y()) + labelSize.y() / 2);
+            }
+            for (Edge edge : graph.edges()) {
+                drawingOrder.put(edge, drawingOrder.size());
+                graphBox = graphBox == null ? locator.getBox(edge) : graphBox.combine(locator.getBox(edge));
+            }
+        }
+
+        /**
+         * Returns the nodes whose glyph or label might intersect the given
+         * box, in drawing order.
+         *
+         * @param viewBox the visible box.
+         * @return the visible nodes.
+         */
+        private List<Node> visibleNodes(Box viewBox) {
+            refresh();
+            if (graphBox == null || contains(viewBox, graphBox.expand(labelReach))) {
+                return new ArrayList<>(graph.nodes());
+            }
+            return inDrawingOrder(locator.getNodesPartiallyInBox(viewBox.expand(labelReach)));
+        }
+
+        /**
+         * Returns the edges that might intersect the given box, in drawing
+         * order.
+         *
+         * @param viewBox the visible box.
+         * @return the visible edges.
+         */
+        private List<Edge> visibleEdges(Box viewBox) {
+            refresh();
+            if (graphBox == null || contains(viewBox, graphBox)) {
+                return new ArrayList<>(graph.edges());
+            }
+            return inDrawingOrder(locator.getEdgesPartiallyInBox(viewBox));
+        }
+
+        /**
+         * Sorts the given elements in the order they appear in the graph.
+         *
+         * @param <T> the type of element.
+         * @param elements the elements.
+         * @return the sorted elements.
+         */
+        private <T extends Element> List<T> inDrawingOrder(Collection<T> elements) {
+            List<T> result = new ArrayList<>(elements);
+            result.sort(Comparator.comparingInt(element -> drawingOrder.getOrDefault(element, Integer.MAX_VALUE)));
+            return result;
+        }
+
+        /**
+         * Checks if a 2D box contains another one.
+         *
+         * @param container the containing box.
+         * @param box the contained box.
+         * @return true if the box is contained, false otherwise.
+         */
+        private boolean contains(Box container, Box box) {
+            return container.left() <= box.left() && container.right() >= box.right()
+                    && container.bottom() <= box.bottom() && container.top() >= box.top();
+        }
+
+        /**
+         * Unregisters the observers of the index.
+         */
+        private void close() {
+            for (Observer observer : observers) {
+                observer.unregister();
+            }
+            if (locator != null) {
+                locator.close();
+            }
+        }
+    }
+
+    /**
+     * Grid of device pixel cells used to aggregate the elements too small to
+     * be drawn in full. Each cell is filled at most once, and segments joining
+     * the same two cells are drawn once.
+     */
+    private static class PixelGrid {
+
+        private final Graphics2D graphics;
+        private final AffineTransform transform;
+        private final int cellSize;
+        private final Set<Long> filledCells = new HashSet<>();
+        private final Map<Long, Set<Long>> drawnSegments = new HashMap<>();
+        private Graphics2D deviceGraphics;
+
+        /**
+         * Constructs a pixel grid.
+         *
+         * @param graphics the graphics.
+         * @param cellSize the cell size in pixels.
+         */
+        private PixelGrid(Graphics2D graphics, int cellSize) {
+            this.graphics = graphics;
+            this.transform = graphics.getTransform();
+            this.cellSize = Math.max(cellSize, 1);
+        }
+
+        /**
+         * Returns the graphics that draws directly in device pixels.
+         *
+         * @return the device graphics.
+         */
+        private Graphics2D deviceGraphics() {
+            if (deviceGraphics == null) {
+                deviceGraphics = (Graphics2D) graphics.create();
+                deviceGraphics.setTransform(new AffineTransform());
+                deviceGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            }
+            return deviceGraphics;
+        }
+
+        /**
+         * Computes the cell containing a point.
+         *
+         * @param point the point in graph coordinates.
+         * @return the cell key.
+         */
+        private long cell(Coordinates point) {
+            Point2D device = transform.transform(new Point2D.Double(point.x() * scaling, -point.y() * scaling), null);
+            long column = (long) Math.floor(device.getX() / cellSize);
+            long row = (long) Math.floor(device.getY() / cellSize);
+            return (column << 32) ^ (row & 0xffffffffL);
+        }
+
+        /**
+         * Draws a point, unless its cell is already filled.
+         *
+         * @param point the point in graph coordinates.
+         * @param color the point color.
+         */
+        private void drawPoint(Coordinates point, Color color) {
+            if (color.getAlpha() == 0) {
+                return;
+            }
+            long cell = cell(point);
+            if (filledCells.add(cell)) {
+                Graphics2D device = deviceGraphics();
+                device.setColor(color);
+                device.fillRect(column(cell) * cellSize, row(cell) * cellSize, cellSize, cellSize);
+            }
+        }
+
+        /**
+         * Draws a segment between the centres of two cells, unless the two
+         * cells coincide or are already joined.
+         *
+         * @param start the segment start in graph coordinates.
+         * @param end the segment end in graph coordinates.
+         * @param color the segment color.
+         */
+        private void drawSegment(Coordinates start, Coordinates end, Color color) {
+            if (color.getAlpha() == 0) {
+                return;
+            }
+            long startCell = cell(start);
+            long endCell = cell(end);
+            if (startCell == endCell) {
+                return;
+            }
+            long first = Math.min(startCell, endCell);
+            long second = Math.max(startCell, endCell);
+            if (drawnSegments.computeIfAbsent(first, key -> new HashSet<>()).add(second)) {
+                Graphics2D device = deviceGraphics();
+                device.setColor(color);
+                int halfCell = cellSize / 2;
+                device.drawLine(column(startCell) * cellSize + halfCell, row(startCell) * cellSize + halfCell,
+                        column(endCell) * cellSize + halfCell, row(endCell) * cellSize + halfCell);
+            }
+        }
+
+        /**
+         * Returns the column of a cell.
+         *
+         * @param cell the cell key.
+         * @return the column.
+         */
+        private static int column(long cell) {
+            return (int) (cell >> 32);
+        }
+
+        /**
+         * Returns the row of a cell.
+         *
+         * @param cell the cell key.
+         * @return the row.
+         */
+        private static int row(long cell) {
+            return (int) cell;
+        }
+
+        /**
+         * Releases the device graphics.
+         */
+        private void dispose() {
+            if (deviceGraphics != null) {
+                deviceGraphics.dispose();
+            }
+        }
+    }
 }
@@ -17,16 +17,27 @@ package ocotillo.graph.rendering;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 import ocotillo.geometry.Box.Box2D;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Edge;
 import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Element;
+import ocotillo.graph.ElementAttribute;
 import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.Observer;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.graph.StdAttribute.EdgeShape;
@@ -35,6 +46,13 @@ import ocotillo.graph.StdAttribute.NodeShape;
 /**
  * Renderer for 3D graphs into graphics objects. The rendering is a simplified
  * representation of the 3D graph as view from a certain angle.
+ * <p>
+ * By default, nodes and edges are painted by a software rasteriser that keeps
+ * the graph primitives in arrays, transforms and depth sorts them only when
+ * the view angle changes, and paints horizontal bands of the framebuffer in
+ * parallel. The labels are drawn on top of the rasterised image. The original
+ * vector path, that draws every element with Java2D, can be enabled with
+ * {@link #setSoftwareRasterisation(boolean)}.
  */
 public class GraphRenderer3D extends GraphRenderer {
 
@@ -54,6 +72,13 @@ public class GraphRenderer3D extends GraphRenderer {
     private final EdgeAttribute<Color> edgeColors;
     private final HeatMap heatMap;
     private final ViewAngle viewAngle;
+    private final RasterScene rasterScene;
+    private boolean softwareRasterisation = true;
+
+    /**
+     * The minimum number of rows painted by a single rasterisation task.
+     */
+    private static final int minBandHeight = 32;
 
     /**
      * Constructs a renderer for a given graph.
@@ -91,21 +116,41 @@ public class GraphRenderer3D extends GraphRenderer {
         this.viewAngle = viewAngle;
 
         this.nodePositions = new NodeAttribute<>(new Coordinates(0, 0));
+        this.rasterScene = new RasterScene();
+    }
+
+    /**
+     * Sets whether nodes and edges are painted by the software rasteriser or
+     * drawn one by one with Java2D.
+     *
+     * @param softwareRasterisation true to use the software rasteriser.
+     */
+    public void setSoftwareRasterisation(boolean softwareRasterisation) {
+        this.softwareRasterisation = softwareRasterisation;
     }
 
     @Override
     public void draw(Graphics2D graphics) {
+        drawGraphics(graphics, graph);
+        drawHeatMap(graphics);
+        if (softwareRasterisation) {
+            rasterScene.draw(graphics);
+            return;
+        }
+
         nodePositions.reset();
         for (Node node : graph.nodes()) {
             nodePositions.set(node, viewAngle.transformedPosition(originalPosition.get(node)));
         }
-
-        drawGraphics(graphics, graph);
-        drawHeatMap(graphics);
         drawEdges(graphics);
         drawNodes(graphics);
     }
 
+    @Override
+    public void close() {
+        rasterScene.close();
+    }
+
     /**
      * Draws the graph nodes.
      *
@@ -118,7 +163,7 @@ public class GraphRenderer3D extends GraphRenderer {
 
         for (Node node : orderedNodes) {
             drawNodeGlyph(graphics2D, node);
-            drawNodeLabel(graphics2D, node);
+            drawNodeLabel(graphics2D, node, nodePositions.get(node));
         }
     }
 
@@ -152,12 +197,15 @@ public class GraphRenderer3D extends GraphRenderer {
      *
      * @param graphics2D the 2D graphics.
      * @param node the node.
+     * @param position the transformed position of the node.
      */
-    private void drawNodeLabel(Graphics2D graphics2D, Node node) {
+    private void drawNodeLabel(Graphics2D graphics2D, Node node, Coordinates position) {
         String label = nodeLabels.get(node);
+        if (label.isEmpty()) {
+            return;
+        }
         Color color = nodeLabelColors.get(node);
         double dimension = nodeLabelScaling.get(node);
-        Coordinates position = nodePositions.get(node);
         Coordinates labelOffset = nodeLabelOffset.get(node);
         Coordinates transformedLP = position.plus(labelOffset);
         ComponentDrawer.drawText(graphics2D, label, transformedLP, dimension, color);
@@ -223,4 +271,327 @@ public class GraphRenderer3D extends GraphRenderer {
         return new Box2D(-100, 100, -100, 100);   // TODO must be changed
     }
 
+    /**
+     * Primitive arrays describing the graph elements, as used by the software
+     * rasteriser. The arrays are rebuilt lazily when the graph is modified,
+     * and transformed and depth sorted only when the view angle changes.
+     */
+    private class RasterScene {
+
+        private final List<Observer> observers = new ArrayList<>();
+        private volatile boolean outdated = true;
+        private long viewVersion;
+
+        private int segmentCount;
+        private double[] segmentPoints = new double[0];
+        private int[] segmentColors = new int[0];
+        private double[] segmentWidths = new double[0];
+        private double[] segmentPlane = new double[0];
+        private double[] segmentScreen = new double[0];
+        private int[] segmentOrder = new int[0];
+
+        private int nodeCount;
+        private Node[] nodes = new Node[0];
+        private double[] nodePoints = new double[0];
+        private double[] nodeHalfSizes = new double[0];
+        private int[] nodeFillColors = new int[0];
+        private boolean[] nodeEllipses = new boolean[0];
+        private double[] nodeViewPoints = new double[0];
+        private double[] nodePlane = new double[0];
+        private double[] nodeScreen = new double[0];
+        private int[] nodeOrder = new int[0];
+
+        private BufferedImage framebuffer;
+        private int[] pixels;
+
+        /**
+         * Constructs the scene and registers the observers that mark it as
+         * outdated.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private RasterScene() {
+            observers.add(new Observer.GraphElements(graph) {
+                @Override
+                public void theseElementsChanged(Collection<Element> changedElements) {
+                    outdated = true;
+                }
+            });
+            List<ElementAttribute<?, ?>> attributes = Arrays.asList(originalPosition, nodeSizes,
+                    nodeShapes, nodeColors, edgeWidths, edgeShapes, edgePoints, edgeColors);
+            for (ElementAttribute attribute : attributes) {
+                observers.add(new Observer.ElementAttributeChanges(attribute) {
+                    @Override
+                    public void update(Collection changedElements) {
+                        outdated = true;
+                    }
+
+                    @Override
+                    public void updateAll() {
+                        outdated = true;
+                    }
+                });
+            }
+        }
+
+        /**
+         * Rasterises nodes and edges and draws the labels on the given
+         * graphics.
+         *
+         * @param graphics2D the 2D graphics.
+         */
+        private void draw(Graphics2D graphics2D) {
+            Rectangle bounds = deviceBounds(graphics2D);
+            if (bounds.isEmpty()) {
+                return;
+            }
+            refresh();
+
+            AffineTransform toFramebuffer = AffineTransform.getTranslateInstance(-bounds.x, -bounds.y);
+            toFramebuffer.concatenate(graphics2D.getTransform());
+            toFramebuffer.transform(segmentPlane, 0, segmentScreen, 0, segmentCount * 2);
+            toFramebuffer.transform(nodePlane, 0, nodeScreen, 0, nodeCount);
+            double pixelScale = Math.sqrt(Math.abs(toFramebuffer.getDeterminant())) * scaling;
+
+            prepareFramebuffer(bounds.width, bounds.height);
+            int width = bounds.width;
+            int height = bounds.height;
+            int bands = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 2, height / minBandHeight));
+            IntStream.range(0, bands).parallel().forEach(band -> rasterise(
+                    new SoftwareRasteriser(pixels, width, height * band / bands, height * (band + 1) / bands),
+                    pixelScale));
+
+            Graphics2D deviceGraphics = (Graphics2D) graphics2D.create();
+            deviceGraphics.setTransform(new AffineTransform());
+            deviceGraphics.drawImage(framebuffer, bounds.x, bounds.y, null);
+            deviceGraphics.dispose();
+
+            for (int i = 0; i < nodeCount; i++) {
+                int index = nodeOrder[i];
+                drawNodeLabel(graphics2D, nodes[index],
+                        new Coordinates(nodeViewPoints[index * 3], nodeViewPoints[index * 3 + 1]));
+            }
+        }
+
+        /**
+         * Paints the primitives in a band of the framebuffer, from the
+         * farthest to the closest one.
+         *
+         * @param rasteriser the rasteriser for the band.
+         * @param pixelScale the number of pixels per graph unit.
+         */
+        private void rasterise(SoftwareRasteriser rasteriser, double pixelScale) {
+            for (int i = 0; i < segmentCount; i++) {
+                int index = segmentOrder[i];
+                rasteriser.drawSegment(segmentScreen[index * 4], segmentScreen[index * 4 + 1],
+                        segmentScreen[index * 4 + 2], segmentScreen[index * 4 + 3],
+                        segmentWidths[index] * pixelScale, segmentColors[index]);
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                int index = nodeOrder[i];
+                double centerX = nodeScreen[index * 2];
+                double centerY = nodeScreen[index * 2 + 1];
+                double halfWidth = nodeHalfSizes[index * 2] * pixelScale;
+                double halfHeight = nodeHalfSizes[index * 2 + 1] * pixelScale;
+                if (nodeEllipses[index]) {
+                    rasteriser.fillEllipse(centerX, centerY, halfWidth, halfHeight, nodeFillColors[index]);
+                } else {
+                    rasteriser.fillRectangle(centerX, centerY, halfWidth, halfHeight, nodeFillColors[index]);
+                }
+            }
+        }
+
+        /**
+         * Computes the device area to paint, given by the clip of the graphics
+         * or, if absent, by the bounds of its device.
+         *
+         * @param graphics2D the 2D graphics.
+         * @return the device area.
+         */
+        private Rectangle deviceBounds(Graphics2D graphics2D) {
+            Shape clip = graphics2D.getClip();
+            if (clip == null) {
+                return graphics2D.getDeviceConfiguration().getBounds();
+            }
+            return graphics2D.getTransform().createTransformedShape(clip).getBounds();
+        }
+
+        /**
+         * Makes sure the framebuffer has the given size and clears it.
+         *
+         * @param width the framebuffer width.
+         * @param height the framebuffer height.
+         */
+        private void prepareFramebuffer(int width, int height) {
+            if (framebuffer == null || framebuffer.getWidth() != width || framebuffer.getHeight() != height) {
+                framebuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                pixels = ((DataBufferInt) framebuffer.getRaster().getDataBuffer()).getData();
+            } else {
+                Arrays.fill(pixels, 0);
+            }
+        }
+
+        /**
+         * Rebuilds the primitive arrays if the graph has been modified, and
+         * transforms them if the view angle has changed.
+         */
+        private void refresh() {
+            if (outdated) {
+                outdated = false;
+                rebuild();
+                updateView();
+            } else if (viewVersion != viewAngle.version()) {
+                updateView();
+            }
+        }
+
+        /**
+         * Collects the graph elements in the primitive arrays.
+         */
+        private void rebuild() {
+            int segments = 0;
+            for (Edge edge : graph.edges()) {
+                segments += edgePoints.get(edge).size() + 1;
+            }
+            segmentPoints = new double[segments * 6];
+            segmentColors = new int[segments];
+            segmentWidths = new double[segments];
+            segmentCount = 0;
+            for (Edge edge : graph.edges()) {
+                EdgeShape shape = edgeShapes.get(edge);
+                if (shape != EdgeShape.polyline) {
+                    throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
+                }
+                Color color = edgeColors.get(edge);
+                if (color.getAlpha() == 0) {
+                    continue;
+                }
+                int premultipliedColor = SoftwareRasteriser.premultiply(color.getRGB());
+                double width = edgeWidths.get(edge);
+                Coordinates previous = originalPosition.get(edge.source());
+                for (Coordinates point : edgePoints.get(edge)) {
+                    addSegment(previous, point, width, premultipliedColor);
+                    previous = point;
+                }
+                addSegment(previous, originalPosition.get(edge.target()), width, premultipliedColor);
+            }
+            segmentPlane = new double[segmentCount * 4];
+            segmentScreen = new double[segmentCount * 4];
+            segmentOrder = new int[segmentCount];
+
+            nodeCount = graph.nodeCount();
+            nodes = new Node[nodeCount];
+            nodePoints = new double[nodeCount * 3];
+            nodeHalfSizes = new double[nodeCount * 2];
+            nodeFillColors = new int[nodeCount];
+            nodeEllipses = new boolean[nodeCount];
+            int index = 0;
+            for (Node node : graph.nodes()) {
+                NodeShape shape = nodeShapes.get(node);
+                if (shape != NodeShape.spheroid && shape != NodeShape.cuboid) {
+                    throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
+                }
+                Coordinates position = originalPosition.get(node);
+                Coordinates size = nodeSizes.get(node);
+                nodes[index] = node;
+                nodePoints[index * 3] = position.x();
+                nodePoints[index * 3 + 1] = position.y();
+                nodePoints[index * 3 + 2] = position.z();
+                nodeHalfSizes[index * 2] = size.x() / 2;
+                nodeHalfSizes[index * 2 + 1] = size.y() / 2;
+                nodeFillColors[index] = SoftwareRasteriser.premultiply(nodeColors.get(node).getRGB());
+                nodeEllipses[index] = shape == NodeShape.spheroid;
+                index++;
+            }
+            nodeViewPoints = new double[nodeCount * 3];
+            nodePlane = new double[nodeCount * 2];
+            nodeScreen = new double[nodeCount * 2];
+            nodeOrder = new int[nodeCount];
+        }
+
+        /**
+         * Adds a segment to the primitive arrays.
+         *
+         * @param start the starting point.
+         * @param end the ending point.
+         * @param width the segment width.
+         * @param color the premultiplied segment color.
+         */
+        private void addSegment(Coordinates start, Coordinates end, double width, int color) {
+            int offset = segmentCount * 6;
+            segmentPoints[offset] = start.x();
+            segmentPoints[offset + 1] = start.y();
+            segmentPoints[offset + 2] = start.z();
+            segmentPoints[offset + 3] = end.x();
+            segmentPoints[offset + 4] = end.y();
+            segmentPoints[offset + 5] = end.z();
+            segmentColors[segmentCount] = color;
+            segmentWidths[segmentCount] = width;
+            segmentCount++;
+        }
+
+        /**
+         * Transforms all the primitives according to the current view angle
+         * and sorts them from the farthest to the closest.
+         */
+        private void updateView() {
+            viewVersion = viewAngle.version();
+
+            double[] segmentView = new double[segmentCount * 6];
+            viewAngle.transformAll(segmentPoints, segmentView, segmentCount * 2);
+            long[] segmentKeys = new long[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segmentPlane[i * 4] = segmentView[i * 6] * scaling;
+                segmentPlane[i * 4 + 1] = -segmentView[i * 6 + 1] * scaling;
+                segmentPlane[i * 4 + 2] = segmentView[i * 6 + 3] * scaling;
+                segmentPlane[i * 4 + 3] = -segmentView[i * 6 + 4] * scaling;
+                segmentKeys[i] = depthKey((segmentView[i * 6 + 2] + segmentView[i * 6 + 5]) / 2, i);
+            }
+            sortByDepth(segmentKeys, segmentOrder);
+
+            viewAngle.transformAll(nodePoints, nodeViewPoints, nodeCount);
+            long[] nodeKeys = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodePlane[i * 2] = nodeViewPoints[i * 3] * scaling;
+                nodePlane[i * 2 + 1] = -nodeViewPoints[i * 3 + 1] * scaling;
+                nodeKeys[i] = depthKey(nodeViewPoints[i * 3 + 2], i);
+            }
+            sortByDepth(nodeKeys, nodeOrder);
+        }
+
+        /**
+         * Computes a sorting key that places primitives with higher depth
+         * first, and primitives with the same depth in their original order.
+         *
+         * @param depth the depth of the primitive.
+         * @param index the index of the primitive.
+         * @return the sorting key.
+         */
+        private long depthKey(double depth, int index) {
+            int bits = Float.floatToIntBits((float) -depth);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            return ((long) bits << 32) | index;
+        }
+
+        /**
+         * Sorts the depth keys and stores the resulting primitive order.
+         *
+         * @param keys the depth keys.
+         * @param order the array where to store the order.
+         */
+        private void sortByDepth(long[] keys, int[] order) {
+            Arrays.parallelSort(keys);
+            for (int i = 0; i < keys.length; i++) {
+                order[i] = (int) keys[i];
+            }
+        }
+
+        /**
+         * Unregisters the observers of the scene.
+         */
+        private void close() {
+            for (Observer observer : observers) {
+                observer.unregister();
+            }
+        }
+    }
 }
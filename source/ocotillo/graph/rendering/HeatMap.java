@@ -16,14 +16,20 @@
 package ocotillo.graph.rendering;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
@@ -36,12 +42,18 @@ import ocotillo.graph.StdAttribute;
 import ocotillo.graph.layout.Layout2D;
 
 /**
- * HeatMap on graph nodes.
+ * HeatMap on graph nodes. The heat map is divided in square tiles, which are
+ * rasterised in parallel by stamping a precomputed hot spot kernel. When nodes
+ * move or change heat, only the tiles touched by their old and new hot spots
+ * are recomputed.
  */
 public class HeatMap {
 
     private static final int hotSpotRadius = 60;
     private static final int pixelFactor = 10;
+    private static final int tileSize = 64;
+    private static final int kernelSide = 2 * hotSpotRadius + 1;
+    private static final double[] hotSpotKernel = computeHotSpotKernel();
 
     private Gradient gradient = new Gradient(Arrays.asList(new Color(255, 0, 0, 0), new Color(255, 0, 0, 200)), 200);
     private Double coldestHeatValue = null;
@@ -49,10 +61,19 @@ public class HeatMap {
 
     private Graph graph;
     private Box graphBox;
-    private double[][] pixelHeat;
-    private Image image;
-    private boolean needHeatRecomputing = true;
-    private boolean needImageRecomputing = true;
+    private int width;
+    private int height;
+    private int horizontalTiles;
+    private int verticalTiles;
+    private double[] pixelHeat;
+    private int[] imagePixels;
+    private BufferedImage image;
+    private double[] heatRange;
+    private final Map<Node, HotSpot> hotSpots = new HashMap<>();
+    private final List<Set<Node>> tileNodes = new ArrayList<>();
+    private final Set<Node> changedNodes = new HashSet<>();
+    private volatile boolean needHeatRecomputing = true;
+    private volatile boolean needImageRecomputing = true;
 
     private final List<Observer> observers = new ArrayList<>();
 
@@ -105,7 +126,8 @@ public class HeatMap {
     }
 
     /**
-     * Returns the heat map image for the graph.
+     * Returns the heat map image for the graph. Changes observed since the
+     * previous call are applied incrementally when possible.
      *
      * @param graph the graph.
      * @return the heat map image.
@@ -113,12 +135,27 @@ public class HeatMap {
     public Image getImage(Graph graph) {
         if (needHeatRecomputing || this.graph != graph) {
             recompute(graph);
-            needHeatRecomputing = false;
-            needImageRecomputing = false;
-        } else if (needImageRecomputing) {
-            image = recomputeImage(pixelHeat, graph, gradient, coldestHeatValue, hottestHeatValue);
-            needImageRecomputing = false;
+            return image;
         }
+
+        BitSet dirtyTiles = new BitSet(horizontalTiles * verticalTiles);
+        if (!restampHotSpots(drainChangedNodes(), dirtyTiles)) {
+            recompute(graph);
+            return image;
+        }
+        if (dirtyTiles.isEmpty() && !needImageRecomputing) {
+            return image;
+        }
+
+        fillTiles(dirtyTiles.stream().toArray());
+        double[] newHeatRange = getHeatRange(graph, coldestHeatValue, hottestHeatValue);
+        if (needImageRecomputing || !Arrays.equals(newHeatRange, heatRange)) {
+            heatRange = newHeatRange;
+            colourTiles(allTiles());
+        } else {
+            colourTiles(dirtyTiles.stream().toArray());
+        }
+        needImageRecomputing = false;
         return image;
     }
 
@@ -141,11 +178,37 @@ public class HeatMap {
         for (Observer observer : observers) {
             observer.unregister();
         }
+        observers.clear();
+        needHeatRecomputing = false;
+        needImageRecomputing = false;
+        drainChangedNodes();
 
         this.graph = graph;
         this.graphBox = Layout2D.graphBox(graph);
-        pixelHeat = recomputePixelHeat(graph, graphBox);
-        image = recomputeImage(pixelHeat, graph, gradient, coldestHeatValue, hottestHeatValue);
+        width = (int) Math.ceil(graphBox.width() * pixelFactor) + 2 * hotSpotRadius + 10;
+        height = (int) Math.ceil(graphBox.height() * pixelFactor) + 2 * hotSpotRadius + 10;
+        horizontalTiles = (width + tileSize - 1) / tileSize;
+        verticalTiles = (height + tileSize - 1) / tileSize;
+        pixelHeat = new double[width * height];
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        imagePixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        hotSpots.clear();
+        tileNodes.clear();
+        for (int i = 0; i < horizontalTiles * verticalTiles; i++) {
+            tileNodes.add(new HashSet<>());
+        }
+        for (Node node : graph.nodes()) {
+            HotSpot hotSpot = computeHotSpot(node);
+            if (hotSpot != null) {
+                addHotSpot(node, hotSpot, null);
+            }
+        }
+
+        int[] tiles = allTiles();
+        fillTiles(tiles);
+        heatRange = getHeatRange(graph, coldestHeatValue, hottestHeatValue);
+        colourTiles(tiles);
 
         registerGraphObserver();
         registerPositionObserver();
@@ -161,11 +224,13 @@ public class HeatMap {
 
             @Override
             public void theseElementsChanged(Collection<Element> changedElements) {
+                List<Node> nodes = new ArrayList<>();
                 for (Element element : changedElements) {
                     if (element instanceof Node) {
-                        needHeatRecomputing = true;
+                        nodes.add((Node) element);
                     }
                 }
+                markChanged(nodes);
             }
         });
     }
@@ -179,7 +244,7 @@ public class HeatMap {
 
             @Override
             public void update(Collection<Node> changedElements) {
-                needHeatRecomputing = true;
+                markChanged(changedElements);
             }
 
             @Override
@@ -197,7 +262,7 @@ public class HeatMap {
 
             @Override
             public void update(Collection<Node> changedElements) {
-                needHeatRecomputing = true;
+                markChanged(changedElements);
             }
 
             @Override
@@ -207,6 +272,30 @@ public class HeatMap {
         });
     }
 
+    /**
+     * Records nodes whose hot spot has to be recomputed.
+     *
+     * @param nodes the changed nodes.
+     */
+    private void markChanged(Collection<Node> nodes) {
+        synchronized (changedNodes) {
+            changedNodes.addAll(nodes);
+        }
+    }
+
+    /**
+     * Returns and clears the nodes changed since the last call.
+     *
+     * @return the changed nodes.
+     */
+    private Set<Node> drainChangedNodes() {
+        synchronized (changedNodes) {
+            Set<Node> drained = new HashSet<>(changedNodes);
+            changedNodes.clear();
+            return drained;
+        }
+    }
+
     /**
      * Closes the HeatMap and detach the observers.
      */
@@ -214,91 +303,237 @@ public class HeatMap {
         for (Observer observer : observers) {
             observer.unregister();
         }
+        observers.clear();
     }
 
     /**
-     * Recompute the heat of each heat map pixel.
+     * Recomputes the hot spots of the given nodes and marks the tiles touched
+     * by their old and new hot spots.
      *
-     * @param graph the graph.
-     * @param graphBox the graph box.
-     * @return
+     * @param nodes the changed nodes.
+     * @param dirtyTiles the set of tiles to update.
+     * @return false if a hot spot falls outside the current image, so that
+     * the heat map has to be completely recomputed.
      */
-    private static double[][] recomputePixelHeat(Graph graph, Box graphBox) {
-        int width = (int) graphBox.width() * pixelFactor + 2 * hotSpotRadius + 10;
-        int height = (int) graphBox.height() * pixelFactor + 2 * hotSpotRadius + 10;
-        double[][] pixelHeat = new double[width][height];
+    private boolean restampHotSpots(Collection<Node> nodes, BitSet dirtyTiles) {
+        for (Node node : nodes) {
+            HotSpot oldHotSpot = hotSpots.remove(node);
+            if (oldHotSpot != null) {
+                forEachTile(oldHotSpot, tile -> {
+                    tileNodes.get(tile).remove(node);
+                    dirtyTiles.set(tile);
+                });
+            }
+            HotSpot newHotSpot = graph.has(node) ? computeHotSpot(node) : null;
+            if (newHotSpot != null) {
+                if (newHotSpot.x - hotSpotRadius < 0 || newHotSpot.x + hotSpotRadius >= width
+                        || newHotSpot.row - hotSpotRadius < 0 || newHotSpot.row + hotSpotRadius >= height) {
+                    return false;
+                }
+                addHotSpot(node, newHotSpot, dirtyTiles);
+            }
+        }
+        return true;
+    }
 
-        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
-        NodeAttribute<Double> heatValues = graph.nodeAttribute(StdAttribute.nodeHeat);
+    /**
+     * Computes the hot spot of a node in image pixel coordinates.
+     *
+     * @param node the node.
+     * @return the hot spot, or null if the node has no heat.
+     */
+    private HotSpot computeHotSpot(Node node) {
+        double nodeHeat = graph.<Double>nodeAttribute(StdAttribute.nodeHeat).get(node);
+        if (Geom.eXD.almostZero(nodeHeat)) {
+            return null;
+        }
+        Coordinates position = graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).get(node);
+        Coordinates relativePos = position.minus(new Coordinates(graphBox.left(), graphBox.bottom()));
+        int x = (int) (relativePos.x() * pixelFactor + hotSpotRadius + 5);
+        int y = (int) (relativePos.y() * pixelFactor + hotSpotRadius + 5);
+        int row = height - 1 - y;  // Java uses reverse coordinates for the y axis
+        return new HotSpot(x, row, nodeHeat);
+    }
 
-        for (Node node : graph.nodes()) {
-            double nodeHeat = heatValues.get(node);
-            if (!Geom.eXD.almostZero(nodeHeat)) {
-                Coordinates relativePos = positions.get(node).minus(new Coordinates(graphBox.left(), graphBox.bottom()));
-                int x = (int) (relativePos.x() * pixelFactor + hotSpotRadius + 5);
-                int y = (int) (relativePos.y() * pixelFactor + hotSpotRadius + 5);
-                fillHotSpot(pixelHeat, x, y, heatValues.get(node));
+    /**
+     * Adds a hot spot to the tiles it touches.
+     *
+     * @param node the node.
+     * @param hotSpot its hot spot.
+     * @param dirtyTiles the set of tiles to update, or null if not needed.
+     */
+    private void addHotSpot(Node node, HotSpot hotSpot, BitSet dirtyTiles) {
+        hotSpots.put(node, hotSpot);
+        forEachTile(hotSpot, tile -> {
+            tileNodes.get(tile).add(node);
+            if (dirtyTiles != null) {
+                dirtyTiles.set(tile);
             }
+        });
+    }
+
+    /**
+     * Applies an action to all the tiles touched by a hot spot.
+     *
+     * @param hotSpot the hot spot.
+     * @param action the action to apply to each tile index.
+     */
+    private void forEachTile(HotSpot hotSpot, IntConsumer action) {
+        int firstColumn = Math.max(0, (hotSpot.x - hotSpotRadius) / tileSize);
+        int lastColumn = Math.min(horizontalTiles - 1, (hotSpot.x + hotSpotRadius) / tileSize);
+        int firstRow = Math.max(0, (hotSpot.row - hotSpotRadius) / tileSize);
+        int lastRow = Math.min(verticalTiles - 1, (hotSpot.row + hotSpotRadius) / tileSize);
+        for (int tileRow = firstRow; tileRow <= lastRow; tileRow++) {
+            for (int tileColumn = firstColumn; tileColumn <= lastColumn; tileColumn++) {
+                action.accept(tileRow * horizontalTiles + tileColumn);
+            }
+        }
+    }
+
+    /**
+     * Returns the indices of all the tiles.
+     *
+     * @return the tile indices.
+     */
+    private int[] allTiles() {
+        int[] tiles = new int[horizontalTiles * verticalTiles];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = i;
         }
-        return pixelHeat;
+        return tiles;
     }
 
     /**
-     * Fills the pixels of an hot spot.
+     * Recomputes the pixel heat of the given tiles in parallel. Each tile only
+     * writes its own pixels, so that tiles can be processed independently.
      *
-     * @param pixelHeat the pixel heat matrix.
+     * @param tiles the tile indices.
+     */
+    private void fillTiles(int[] tiles) {
+        Arrays.stream(tiles).parallel().forEach(tile -> {
+            int left = (tile % horizontalTiles) * tileSize;
+            int top = (tile / horizontalTiles) * tileSize;
+            int right = Math.min(width, left + tileSize);
+            int bottom = Math.min(height, top + tileSize);
+            for (int row = top; row < bottom; row++) {
+                Arrays.fill(pixelHeat, row * width + left, row * width + right, 0);
+            }
+            for (Node node : tileNodes.get(tile)) {
+                HotSpot hotSpot = hotSpots.get(node);
+                fillHotSpot(pixelHeat, width, hotSpot.x, hotSpot.row, hotSpot.heat, left, right, top, bottom);
+            }
+        });
+    }
+
+    /**
+     * Fills the pixels of an hot spot that fall in the given window.
+     *
+     * @param pixelHeat the pixel heat matrix, stored by rows.
+     * @param width the width of the pixel heat matrix.
      * @param x the x pixel index.
-     * @param y the y pixel index.
+     * @param row the row pixel index.
      * @param maxHeat the heat of the central pixel.
+     * @param left the first column of the window.
+     * @param right the column after the last one of the window.
+     * @param top the first row of the window.
+     * @param bottom the row after the last one of the window.
+     */
+    private static void fillHotSpot(double[] pixelHeat, int width, int x, int row, double maxHeat, int left, int right, int top, int bottom) {
+        int firstColumn = Math.max(left, x - hotSpotRadius);
+        int lastColumn = Math.min(right - 1, x + hotSpotRadius);
+        int firstRow = Math.max(top, row - hotSpotRadius);
+        int lastRow = Math.min(bottom - 1, row + hotSpotRadius);
+        for (int j = firstRow; j <= lastRow; j++) {
+            int kernelOffset = (j - row + hotSpotRadius) * kernelSide + hotSpotRadius - x;
+            int pixelOffset = j * width;
+            for (int i = firstColumn; i <= lastColumn; i++) {
+                double heat = maxHeat * hotSpotKernel[kernelOffset + i];
+                if (heat > pixelHeat[pixelOffset + i]) {
+                    pixelHeat[pixelOffset + i] = heat;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the hot spot kernel, that is the fraction of the central heat
+     * assigned to each pixel of the hot spot.
+     *
+     * @return the kernel, stored by rows.
      */
-    private static void fillHotSpot(double[][] pixelHeat, int x, int y, double maxHeat) {
-        for (int i = -hotSpotRadius; i <= hotSpotRadius; i++) {
-            for (int j = -hotSpotRadius; j <= hotSpotRadius; j++) {
+    private static double[] computeHotSpotKernel() {
+        double[] kernel = new double[kernelSide * kernelSide];
+        for (int j = -hotSpotRadius; j <= hotSpotRadius; j++) {
+            for (int i = -hotSpotRadius; i <= hotSpotRadius; i++) {
                 double radiusXComp = ((double) i) / hotSpotRadius;
                 double radiusYComp = ((double) j) / hotSpotRadius;
                 double radius = Math.sqrt(radiusXComp * radiusXComp + radiusYComp * radiusYComp);
-                double distanceFactor = Math.pow(Math.max(0, 1 - radius), 2);
-                double heat = maxHeat * distanceFactor;
-                pixelHeat[x + i][y + j] = Math.max(pixelHeat[x + i][y + j], heat);
+                double distanceFactor = Math.max(0, 1 - radius);
+                kernel[(j + hotSpotRadius) * kernelSide + i + hotSpotRadius] = distanceFactor * distanceFactor;
             }
         }
+        return kernel;
     }
 
     /**
-     * Recomputes the heat map image.
+     * Recolours the image pixels of the given tiles in parallel, writing
+     * directly into the image raster.
+     *
+     * @param tiles the tile indices.
+     */
+    private void colourTiles(int[] tiles) {
+        int[] palette = computePalette(gradient);
+        double coldest = heatRange[0];
+        double range = heatRange[1] - heatRange[0];
+        Arrays.stream(tiles).parallel().forEach(tile -> {
+            int left = (tile % horizontalTiles) * tileSize;
+            int top = (tile / horizontalTiles) * tileSize;
+            int right = Math.min(width, left + tileSize);
+            int bottom = Math.min(height, top + tileSize);
+            for (int row = top; row < bottom; row++) {
+                for (int i = row * width + left; i < row * width + right; i++) {
+                    double normalizedHeat = (pixelHeat[i] - coldest) / range;
+                    normalizedHeat = Math.max(0, normalizedHeat);
+                    normalizedHeat = Math.min(1, normalizedHeat);
+                    int index = (int) (normalizedHeat * palette.length);
+                    index = Math.max(0, index);
+                    index = Math.min(palette.length - 1, index);
+                    imagePixels[i] = palette[index];
+                }
+            }
+        });
+    }
+
+    /**
+     * Converts a gradient in a table of ARGB values. Fully transparent colours
+     * are mapped to zero, as the pixels of an empty image.
      *
-     * @param pixelHeat the pixel heat matrix.
-     * @param graph the graph.
      * @param gradient the gradient.
-     * @param coldestHeatValue the set value of the coldest color, null if
-     * dynamic.
-     * @param hottestHeatValue the set value of the hottest color, null if
-     * dynamic.
-     * @return
+     * @return the ARGB palette.
      */
-    private static Image recomputeImage(double[][] pixelHeat, Graph graph, Gradient gradient, Double coldestHeatValue, Double hottestHeatValue) {
-        if (pixelHeat == null) {
-            return null;
+    private static int[] computePalette(Gradient gradient) {
+        int[] palette = new int[gradient.size()];
+        int index = 0;
+        for (Color color : gradient) {
+            palette[index++] = color.getAlpha() > 0 ? color.getRGB() : 0;
         }
+        return palette;
+    }
 
-        BufferedImage image = new BufferedImage(pixelHeat.length, pixelHeat[0].length, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = image.createGraphics();
-        double[] heatRange = getHeatRange(graph, coldestHeatValue, hottestHeatValue);
-
-        for (int i = 0; i < pixelHeat.length; i++) {
-            for (int j = 0; j < pixelHeat[0].length; j++) {
-                double normalizedHeat = (pixelHeat[i][j] - heatRange[0]) / (heatRange[1] - heatRange[0]);
-                normalizedHeat = Math.max(0, normalizedHeat);
-                normalizedHeat = Math.min(1, normalizedHeat);
-                Color pixelColor = gradient.get(normalizedHeat);
-                if (pixelColor.getAlpha() > 0) {
-                    graphics.setColor(pixelColor);
-                    int transformedJ = pixelHeat[0].length - 1 - j;  // Java uses reverse coordinates for the y axis
-                    graphics.fillRect(i, transformedJ, 1, 1);
-                }
-            }
+    /**
+     * Hot spot of a node in image pixel coordinates.
+     */
+    private static class HotSpot {
+
+        private final int x;
+        private final int row;
+        private final double heat;
+
+        private HotSpot(int x, int row, double heat) {
+            this.x = x;
+            this.row = row;
+            this.heat = heat;
         }
-        return image;
     }
 
     /**
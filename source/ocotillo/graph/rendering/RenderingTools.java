@@ -18,7 +18,10 @@ package ocotillo.graph.rendering;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Graph;
@@ -31,6 +34,8 @@ import ocotillo.graph.rendering.svg.SvgElement;
  */
 public class RenderingTools {
 
+    private static final Map<Integer, FontMetrics> fontMetricsCache = new ConcurrentHashMap<>();
+
     /**
      * Converts a color in its hexadecimal representation.
      *
@@ -65,18 +70,32 @@ public class RenderingTools {
      * @return the text size.
      */
     public static Coordinates textSize(String text, double fontScaling) {
-        BufferedImage dummyImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-        Font referenceFont = new Font("SansSerif", Font.PLAIN, 10 * GraphRenderer.scaling);
-        FontMetrics referenceFontMetrics = dummyImage.getGraphics().getFontMetrics(referenceFont);
+        FontMetrics referenceFontMetrics = fontMetrics(10 * GraphRenderer.scaling);
         double referenceWidth = referenceFontMetrics.stringWidth("x") * 1.5;
         double referenceHeight = referenceFontMetrics.getHeight() * 1.5;
-        Font currentFont = new Font("SansSerif", Font.PLAIN, (int) (fontScaling * 10 * GraphRenderer.scaling));
-        FontMetrics currentFontMetrics = dummyImage.getGraphics().getFontMetrics(currentFont);
+        FontMetrics currentFontMetrics = fontMetrics((int) (fontScaling * 10 * GraphRenderer.scaling));
         double currentWidht = currentFontMetrics.stringWidth(text);
         double currentHeight = currentFontMetrics.getHeight();
         return new Coordinates(currentWidht / referenceWidth, currentHeight / referenceHeight);
     }
 
+    /**
+     * Returns the metrics of the plain sans serif font with given size. The
+     * metrics are cached, as obtaining them requires a graphics context.
+     *
+     * @param fontSize the font size.
+     * @return the font metrics.
+     */
+    private static FontMetrics fontMetrics(int fontSize) {
+        return fontMetricsCache.computeIfAbsent(fontSize, size -> {
+            BufferedImage dummyImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = dummyImage.createGraphics();
+            FontMetrics metrics = graphics.getFontMetrics(new Font("SansSerif", Font.PLAIN, size));
+            graphics.dispose();
+            return metrics;
+        });
+    }
+
     /**
      * Computes the box of the given text.
      *
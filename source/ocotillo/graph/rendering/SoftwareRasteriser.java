@@ -0,0 +1,279 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.rendering;
+
+/**
+ * Minimal software rasteriser that paints filled primitives into a band of
+ * rows of an integer framebuffer. Pixels are premultiplied ARGB values stored
+ * row by row. Each instance only writes the rows of its band, so that several
+ * rasterisers can paint disjoint bands of the same framebuffer in parallel.
+ */
+class SoftwareRasteriser {
+
+    private final int[] pixels;
+    private final int width;
+    private final int top;
+    private final int bottom;
+
+    /**
+     * Constructs a rasteriser for a band of a framebuffer.
+     *
+     * @param pixels the framebuffer pixels.
+     * @param width the framebuffer width.
+     * @param top the first row of the band.
+     * @param bottom the row after the last one of the band.
+     */
+    SoftwareRasteriser(int[] pixels, int width, int top, int bottom) {
+        this.pixels = pixels;
+        this.width = width;
+        this.top = top;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Converts a non-premultiplied ARGB color in a premultiplied one.
+     *
+     * @param argb the ARGB color.
+     * @return the premultiplied color.
+     */
+    static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 255) {
+            return argb;
+        }
+        int red = ((argb >> 16) & 0xff) * alpha / 255;
+        int green = ((argb >> 8) & 0xff) * alpha / 255;
+        int blue = (argb & 0xff) * alpha / 255;
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Draws a segment with the given width. Segments thinner than a pixel
+     * and a half are drawn as one pixel lines.
+     *
+     * @param x0 the x coordinate of the first point.
+     * @param y0 the y coordinate of the first point.
+     * @param x1 the x coordinate of the second point.
+     * @param y1 the y coordinate of the second point.
+     * @param lineWidth the line width in pixels.
+     * @param color the premultiplied color.
+     */
+    void drawSegment(double x0, double y0, double x1, double y1, double lineWidth, int color) {
+        double halfWidth = lineWidth / 2;
+        if (Math.max(y0, y1) + halfWidth < top || Math.min(y0, y1) - halfWidth >= bottom) {
+            return;
+        }
+        if (lineWidth <= 1.5) {
+            drawThinSegment(x0, y0, x1, y1, color);
+            return;
+        }
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        double normalX = length == 0 ? halfWidth : -(y1 - y0) / length * halfWidth;
+        double normalY = length == 0 ? 0 : (x1 - x0) / length * halfWidth;
+        fillConvexPolygon(new double[]{x0 + normalX, x1 + normalX, x1 - normalX, x0 - normalX},
+                new double[]{y0 + normalY, y1 + normalY, y1 - normalY, y0 - normalY}, color);
+    }
+
+    /**
+     * Draws a one pixel line, only iterating over the steps that fall in the
+     * band.
+     *
+     * @param x0 the x coordinate of the first point.
+     * @param y0 the y coordinate of the first point.
+     * @param x1 the x coordinate of the second point.
+     * @param y1 the y coordinate of the second point.
+     * @param color the premultiplied color.
+     */
+    private void drawThinSegment(double x0, double y0, double x1, double y1, int color) {
+        double deltaX = x1 - x0;
+        double deltaY = y1 - y0;
+        int steps = (int) Math.ceil(Math.max(Math.abs(deltaX), Math.abs(deltaY)));
+        if (steps == 0) {
+            plot(x0, y0, color);
+            return;
+        }
+        double firstT = 0;
+        double lastT = 1;
+        if (deltaY != 0) {
+            double topT = (top - y0) / deltaY;
+            double bottomT = (bottom - y0) / deltaY;
+            firstT = Math.max(firstT, Math.min(topT, bottomT));
+            lastT = Math.min(lastT, Math.max(topT, bottomT));
+        }
+        if (deltaX != 0) {
+            double leftT = -x0 / deltaX;
+            double rightT = (width - x0) / deltaX;
+            firstT = Math.max(firstT, Math.min(leftT, rightT));
+            lastT = Math.min(lastT, Math.max(leftT, rightT));
+        }
+        int firstStep = Math.max(0, (int) Math.floor(firstT * steps) - 1);
+        int lastStep = Math.min(steps, (int) Math.ceil(lastT * steps) + 1);
+        for (int step = firstStep; step <= lastStep; step++) {
+            double t = (double) step / steps;
+            plot(x0 + deltaX * t, y0 + deltaY * t, color);
+        }
+    }
+
+    /**
+     * Fills an ellipse. Ellipses smaller than a pixel are drawn as a single
+     * pixel.
+     *
+     * @param centerX the x coordinate of the center.
+     * @param centerY the y coordinate of the center.
+     * @param radiusX the horizontal radius.
+     * @param radiusY the vertical radius.
+     * @param color the premultiplied color.
+     */
+    void fillEllipse(double centerX, double centerY, double radiusX, double radiusY, int color) {
+        if (radiusX < 1 && radiusY < 1) {
+            plot(centerX, centerY, color);
+            return;
+        }
+        radiusX = Math.max(radiusX, 0.5);
+        radiusY = Math.max(radiusY, 0.5);
+        int firstRow = Math.max(top, (int) Math.ceil(centerY - radiusY - 0.5));
+        int lastRow = Math.min(bottom - 1, (int) Math.floor(centerY + radiusY - 0.5));
+        for (int row = firstRow; row <= lastRow; row++) {
+            double relativeY = (row + 0.5 - centerY) / radiusY;
+            double halfSpan = radiusX * Math.sqrt(Math.max(0, 1 - relativeY * relativeY));
+            fillSpan(row, centerX - halfSpan, centerX + halfSpan, color);
+        }
+    }
+
+    /**
+     * Fills an axis aligned rectangle. Rectangles smaller than a pixel are
+     * drawn as a single pixel.
+     *
+     * @param centerX the x coordinate of the center.
+     * @param centerY the y coordinate of the center.
+     * @param halfWidth half of the rectangle width.
+     * @param halfHeight half of the rectangle height.
+     * @param color the premultiplied color.
+     */
+    void fillRectangle(double centerX, double centerY, double halfWidth, double halfHeight, int color) {
+        if (halfWidth < 1 && halfHeight < 1) {
+            plot(centerX, centerY, color);
+            return;
+        }
+        halfWidth = Math.max(halfWidth, 0.5);
+        halfHeight = Math.max(halfHeight, 0.5);
+        int firstRow = Math.max(top, (int) Math.ceil(centerY - halfHeight - 0.5));
+        int lastRow = Math.min(bottom - 1, (int) Math.floor(centerY + halfHeight - 0.5));
+        for (int row = firstRow; row <= lastRow; row++) {
+            fillSpan(row, centerX - halfWidth, centerX + halfWidth, color);
+        }
+    }
+
+    /**
+     * Fills a convex polygon by intersecting each row center with its sides.
+     *
+     * @param xs the x coordinates of the vertices.
+     * @param ys the y coordinates of the vertices.
+     * @param color the premultiplied color.
+     */
+    void fillConvexPolygon(double[] xs, double[] ys, int color) {
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (double y : ys) {
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        int firstRow = Math.max(top, (int) Math.ceil(minY - 0.5));
+        int lastRow = Math.min(bottom - 1, (int) Math.floor(maxY - 0.5));
+        for (int row = firstRow; row <= lastRow; row++) {
+            double rowCenter = row + 0.5;
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < xs.length; i++) {
+                int j = (i + 1) % xs.length;
+                if (Math.min(ys[i], ys[j]) > rowCenter || Math.max(ys[i], ys[j]) < rowCenter) {
+                    continue;
+                }
+                if (ys[i] == ys[j]) {
+                    left = Math.min(left, Math.min(xs[i], xs[j]));
+                    right = Math.max(right, Math.max(xs[i], xs[j]));
+                } else {
+                    double x = xs[i] + (rowCenter - ys[i]) / (ys[j] - ys[i]) * (xs[j] - xs[i]);
+                    left = Math.min(left, x);
+                    right = Math.max(right, x);
+                }
+            }
+            if (left <= right) {
+                fillSpan(row, left, right, color);
+            }
+        }
+    }
+
+    /**
+     * Fills the pixels of a row whose center falls between the given
+     * abscissas. At least one pixel is filled.
+     *
+     * @param row the row.
+     * @param left the left abscissa.
+     * @param right the right abscissa.
+     * @param color the premultiplied color.
+     */
+    private void fillSpan(int row, double left, double right, int color) {
+        int first = (int) Math.ceil(left - 0.5);
+        int last = (int) Math.floor(right - 0.5);
+        if (first > last) {
+            first = last = (int) Math.floor((left + right) / 2);
+        }
+        first = Math.max(first, 0);
+        last = Math.min(last, width - 1);
+        int rowStart = row * width;
+        for (int column = first; column <= last; column++) {
+            blend(rowStart + column, color);
+        }
+    }
+
+    /**
+     * Fills the pixel containing the given point, if it belongs to the band.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @param color the premultiplied color.
+     */
+    private void plot(double x, double y, int color) {
+        int column = (int) Math.floor(x);
+        int row = (int) Math.floor(y);
+        if (row >= top && row < bottom && column >= 0 && column < width) {
+            blend(row * width + column, color);
+        }
+    }
+
+    /**
+     * Composes a color over a pixel of the framebuffer.
+     *
+     * @param index the pixel index.
+     * @param color the premultiplied color.
+     */
+    private void blend(int index, int color) {
+        int alpha = color >>> 24;
+        if (alpha == 255) {
+            pixels[index] = color;
+            return;
+        }
+        int inverse = 255 - alpha;
+        int destination = pixels[index];
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int channel = ((color >>> shift) & 0xff) + ((destination >>> shift) & 0xff) * inverse / 255;
+            result |= Math.min(channel, 255) << shift;
+        }
+        pixels[index] = result;
+    }
+}
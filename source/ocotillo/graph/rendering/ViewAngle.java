@@ -27,6 +27,7 @@ public final class ViewAngle {
 
     private TransMatrix transMatrix;
     private double offsetZ;
+    private long version;
 
     private final Set<Observer> observers = new HashSet<>();
 
@@ -56,6 +57,7 @@ public final class ViewAngle {
         System.arraycopy(other.transMatrix.values, 0,
                 transMatrix.values, 0, transMatrix.values.length);
         other.offsetZ = offsetZ;
+        version++;
     }
 
     /**
@@ -84,6 +86,18 @@ public final class ViewAngle {
      */
     public void setOffsetZ(double offsetZ) {
         this.offsetZ = offsetZ;
+        version++;
+    }
+
+    /**
+     * Returns a counter that changes every time the view angle or the Z
+     * offset change. Renderers can use it to detect when results computed
+     * for a previous view are outdated.
+     *
+     * @return the current version of the view angle.
+     */
+    public long version() {
+        return version;
     }
 
     /**
@@ -94,6 +108,7 @@ public final class ViewAngle {
      */
     public void setAngles(double yaw, double pitch) {
         transMatrix = TransMatrix.rotation(yaw, pitch);
+        version++;
         notifyObservers();
     }
 
@@ -104,6 +119,7 @@ public final class ViewAngle {
      */
     public void yawRotate(double yaw) {
         transMatrix = transMatrix.combine(TransMatrix.yawRotation(yaw));
+        version++;
         notifyObservers();
     }
 
@@ -114,6 +130,7 @@ public final class ViewAngle {
      */
     public void pitchRotate(double pitch) {
         transMatrix = transMatrix.combine(TransMatrix.pitchRotation(pitch));
+        version++;
         notifyObservers();
     }
 
@@ -126,6 +143,7 @@ public final class ViewAngle {
     public void rotate(double yaw, double pitch) {
         transMatrix = transMatrix.combine(TransMatrix.yawRotation(yaw))
                 .combine(TransMatrix.pitchRotation(pitch));
+        version++;
         notifyObservers();
     }
 
@@ -139,6 +157,26 @@ public final class ViewAngle {
         return transMatrix.transform(original.minus(new Coordinates(0, 0, offsetZ)));
     }
 
+    /**
+     * Transforms several points at once according to the current view angle.
+     *
+     * @param points the input points, as consecutive x, y and z values.
+     * @param result the array where to store the transformed points, in the
+     * same format.
+     * @param count the number of points to transform.
+     */
+    public void transformAll(double[] points, double[] result, int count) {
+        double[] values = transMatrix.values;
+        for (int i = 0; i < count * 3; i += 3) {
+            double x = points[i];
+            double y = points[i + 1];
+            double z = points[i + 2] - offsetZ;
+            result[i] = x * values[0] + y * values[3] + z * values[6];
+            result[i + 1] = x * values[1] + y * values[4] + z * values[7];
+            result[i + 2] = x * values[2] + y * values[5] + z * values[8];
+        }
+    }
+
     /**
      * Register a ViewAngle observer.
      *
@@ -15,6 +15,7 @@
  */
 package ocotillo.graph.rendering.image;
 
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
@@ -51,12 +52,7 @@ public class ImageExporter {
         int imageHeight = (int) Math.round(graphBox.height() * scaling);
 
         BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = image.createGraphics();
-        renderer.drawBackground(graph, graphics, imageWidth, imageHeight);
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graphics.translate(-graphBox.left() * scaling, graphBox.top() * scaling);
-        graphics.scale(scaling / GraphRenderer2D.scaling, scaling / GraphRenderer2D.scaling);
-        renderer.draw(graphics);
+        drawOnImage(renderer, graph, image, graphBox);
 
         try {
             ImageIO.write(image, "png", destinationFile);
@@ -65,6 +61,33 @@ public class ImageExporter {
         }
     }
 
+    /**
+     * Draws a graph on an image, so that the given view box is scaled to fit
+     * the image keeping its aspect ratio. The previous content of the image is
+     * cleared, so that images can be reused.
+     *
+     * @param renderer the renderer to use.
+     * @param graph the graph.
+     * @param image the image.
+     * @param viewBox the box of the drawing to show, in rendering units.
+     */
+    public static void drawOnImage(GraphRenderer renderer, Graph graph, BufferedImage image, Box viewBox) {
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        double scaling = Math.min(imageWidth / viewBox.width(), imageHeight / viewBox.height());
+
+        Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, imageWidth, imageHeight);
+        graphics.setComposite(AlphaComposite.SrcOver);
+        renderer.drawBackground(graph, graphics, imageWidth, imageHeight);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.translate(-viewBox.left() * scaling, viewBox.top() * scaling);
+        graphics.scale(scaling / GraphRenderer2D.scaling, scaling / GraphRenderer2D.scaling);
+        renderer.draw(graphics);
+        graphics.dispose();
+    }
+
     /**
      * Saves a graph as a PNG image with given dimensions. The graph is scaled
      * keeping the original aspect ratio to the smallest of the two dimensions.
@@ -101,6 +101,19 @@ public class SvgDocument {
      * @return the string with transformed alpha.
      */
     private static String transformColorAlpha(String originalString) {
+        return transformColorAlpha(originalString, -1);
+    }
+
+    /**
+     * Transform a color alpha into the opacity attribute, rounding the
+     * opacity to the given number of decimal digits.
+     *
+     * @param originalString the original string.
+     * @param decimalDigits the number of decimal digits, or a negative value
+     * to write the opacity at full precision.
+     * @return the string with transformed alpha.
+     */
+    static String transformColorAlpha(String originalString, int decimalDigits) {
         int i = originalString.indexOf("fill=");
         while (i != -1) {
             String fillString = originalString.substring(i, i + 16);
@@ -110,7 +123,9 @@ public class SvgDocument {
 
             int alpha = Integer.parseInt(fillString.substring(13, 15), 16);
             double opacity = alpha / 255.0;
-            replacement.append("opacity=\"").append(opacity).append("\"");
+            replacement.append("opacity=\"");
+            SvgElement.appendNumber(replacement, opacity, decimalDigits);
+            replacement.append("\"");
 
             originalString = originalString.substring(0, i) + replacement + originalString.substring(i+16);
             i = originalString.indexOf("fill=", i+1);
@@ -125,7 +140,9 @@ public class SvgDocument {
 
             int alpha = Integer.parseInt(strokeString.substring(15, 17), 16);
             double opacity = alpha / 255.0;
-            replacement.append("stroke-opacity=\"").append(opacity).append("\"");
+            replacement.append("stroke-opacity=\"");
+            SvgElement.appendNumber(replacement, opacity, decimalDigits);
+            replacement.append("\"");
 
             originalString = originalString.substring(0, i) + replacement + originalString.substring(i+18);
             i = originalString.indexOf("stroke=", i+1);
@@ -79,21 +79,94 @@ public abstract class SvgElement {
 
     @Override
     public String toString() {
+        return toString(-1);
+    }
+
+    /**
+     * Returns the SVG definition of the element, with numbers rounded to the
+     * given number of decimal digits.
+     *
+     * @param decimalDigits the number of decimal digits, or a negative value
+     * to write numbers at full precision.
+     * @return the SVG definition of the element.
+     */
+    public String toString(int decimalDigits) {
+        StringBuilder builder = new StringBuilder();
+        appendTo(builder, decimalDigits);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the SVG definition of the element to a builder, with numbers
+     * rounded to the given number of decimal digits.
+     *
+     * @param builder the string builder.
+     * @param decimalDigits the number of decimal digits, or a negative value
+     * to write numbers at full precision.
+     */
+    @SuppressWarnings("unchecked")
+    public void appendTo(StringBuilder builder, int decimalDigits) {
         if (attributes == null) {
             fillSvgFields();
         }
-        StringBuilder builder = new StringBuilder();
-        builder.append("<").append(type).append(" ");
+        builder.append("<").append(type);
         for (String attributeId : attributes.keySet()) {
-            builder.append(attributeId).append("=\"").append(attributes.get(attributeId)).append("\" ");
+            builder.append(" ").append(attributeId).append("=\"");
+            Object value = attributes.get(attributeId);
+            if (value instanceof Double) {
+                appendNumber(builder, (Double) value, decimalDigits);
+            } else if (value instanceof List) {
+                appendPoints(builder, (List<Coordinates>) value, decimalDigits);
+            } else {
+                builder.append(value);
+            }
+            builder.append("\"");
         }
-        builder.delete(builder.length() - 1, builder.length());
         if (content.isEmpty()) {
             builder.append("/>");
         } else {
             builder.append(">").append(content).append("</").append(type).append(">");
         }
-        return builder.toString();
+    }
+
+    /**
+     * Appends a number rounded to the given number of decimal digits. Rounded
+     * numbers are written without trailing zeros.
+     *
+     * @param builder the string builder.
+     * @param value the number.
+     * @param decimalDigits the number of decimal digits, or a negative value
+     * to write the number at full precision.
+     */
+    public static void appendNumber(StringBuilder builder, double value, int decimalDigits) {
+        if (decimalDigits < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append(value);
+            return;
+        }
+        long scale = 1;
+        for (int i = 0; i < decimalDigits; i++) {
+            scale *= 10;
+        }
+        long rounded = Math.round(value * scale);
+        if (rounded < 0) {
+            builder.append('-');
+            rounded = -rounded;
+        }
+        builder.append(rounded / scale);
+        long fraction = rounded % scale;
+        if (fraction != 0) {
+            int digits = decimalDigits;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            builder.append('.');
+            String fractionString = Long.toString(fraction);
+            for (int i = fractionString.length(); i < digits; i++) {
+                builder.append('0');
+            }
+            builder.append(fractionString);
+        }
     }
 
     /**
@@ -159,17 +232,22 @@ public abstract class SvgElement {
     }
 
     /**
-     * Converts a list of coordinates into the SVG point definition.
+     * Appends the SVG point definition of a list of coordinates.
      *
+     * @param builder the string builder.
      * @param points the point coordinates.
-     * @return the SVG points definition.
+     * @param decimalDigits the number of decimal digits, or a negative value
+     * to write the coordinates at full precision.
      */
-    private static String writePoints(List<Coordinates> points) {
-        StringBuilder builder = new StringBuilder();
-        for (Coordinates point : points) {
-            builder.append(point.x()).append(",").append(point.y()).append(" ");
+    private static void appendPoints(StringBuilder builder, List<Coordinates> points, int decimalDigits) {
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) {
+                builder.append(" ");
+            }
+            appendNumber(builder, points.get(i).x(), decimalDigits);
+            builder.append(",");
+            appendNumber(builder, points.get(i).y(), decimalDigits);
         }
-        return builder.substring(0, builder.length() - 1);
     }
 
     /**
@@ -379,7 +457,7 @@ public abstract class SvgElement {
             attributes.put("id", id);
             attributes.put("stroke-width", width);
             attributes.put("stroke", RenderingTools.colorHexWriter(strokeColor));
-            attributes.put("points", writePoints(points));
+            attributes.put("points", points);
         }
 
         @Override
@@ -433,7 +511,7 @@ public abstract class SvgElement {
             attributes.put("fill", RenderingTools.colorHexWriter(fillColor));
             attributes.put("stroke-width", strokeWidth);
             attributes.put("stroke", RenderingTools.colorHexWriter(strokeColor));
-            attributes.put("points", writePoints(points));
+            attributes.put("points", points);
         }
 
         @Override
@@ -16,11 +16,25 @@
 package ocotillo.graph.rendering.svg;
 
 import java.awt.Color;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Edge;
@@ -38,12 +52,19 @@ import ocotillo.graph.rendering.svg.SvgElement.SvgText;
 
 /**
  * Export graphs as SVG images. Currently, only a 2D rendering of the graph is
- * supported.
+ * supported. Besides building the document in memory, the exporter can stream
+ * it to a file or output stream, optionally compressed and with rounded
+ * coordinates, formatting chunks of elements in parallel.
  */
 public class SvgExporter {
 
+    private static final int chunkSize = 2048;
+
     private final Graph graph;
     private final Box graphBox;
+    private final boolean gzip;
+    private final int decimalDigits;
+    private final int threads;
 
     private final NodeAttribute<Coordinates> nodePositions;
     private final NodeAttribute<Coordinates> nodeSizes;
@@ -60,17 +81,14 @@ public class SvgExporter {
     private final EdgeAttribute<Color> edgeColors;
 
     /**
-     * Saves an SVG file with the graph layout.
+     * Saves an SVG file with the graph layout. The file is streamed to disk
+     * and compressed if its name ends with ".svgz".
      *
      * @param graph the graph.
      * @param destinationFile the destination file.
      */
     public static void saveSvg(Graph graph, File destinationFile) {
-        try (PrintWriter writer = new PrintWriter(destinationFile)) {
-            writer.write(makeSvg(graph));
-        } catch (FileNotFoundException ex) {
-            throw new IllegalStateException("Impossible to write on the destination file " + destinationFile.getName());
-        }
+        new SeBuilder(graph).build().save(destinationFile);
     }
 
     /**
@@ -80,18 +98,88 @@ public class SvgExporter {
      * @return the SVG content.
      */
     public static String makeSvg(Graph graph) {
-        SvgExporter exporter = new SvgExporter(graph);
+        SvgExporter exporter = new SeBuilder(graph).build();
         return exporter.buildSvg();
     }
 
+    /**
+     * A builder for SVG exporters.
+     */
+    public static class SeBuilder {
+
+        private final Graph graph;
+        private boolean gzip = false;
+        private int decimalDigits = -1;
+        private int threads = 1;
+
+        /**
+         * Constructs a builder for an SVG exporter.
+         *
+         * @param graph the graph.
+         */
+        public SeBuilder(Graph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Compresses the streamed output with gzip, as in .svgz files. By
+         * default, files are compressed only if their name ends with ".svgz".
+         *
+         * @return the builder.
+         */
+        public SeBuilder withGzip() {
+            this.gzip = true;
+            return this;
+        }
+
+        /**
+         * Rounds all numbers in the document to the given number of decimal
+         * digits. By default, numbers are written at full precision.
+         *
+         * @param decimalDigits the number of decimal digits.
+         * @return the builder.
+         */
+        public SeBuilder withDecimalDigits(int decimalDigits) {
+            assert (decimalDigits >= 0 && decimalDigits <= 9) : "The decimal digits must be between 0 and 9.";
+            this.decimalDigits = decimalDigits;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to format the elements when
+         * streaming. By default, the elements are formatted by the calling
+         * thread.
+         *
+         * @param threads the number of threads.
+         * @return the builder.
+         */
+        public SeBuilder withThreads(int threads) {
+            assert (threads > 0) : "The number of threads must be positive.";
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Builds the SVG exporter.
+         *
+         * @return the SVG exporter.
+         */
+        public SvgExporter build() {
+            return new SvgExporter(this);
+        }
+    }
+
     /**
      * Constructs an SVG exporter.
      *
-     * @param graph the graph.
+     * @param builder the builder.
      */
-    private SvgExporter(Graph graph) {
-        this.graph = graph;
+    private SvgExporter(SeBuilder builder) {
+        this.graph = builder.graph;
         this.graphBox = new GraphRenderer2D(graph).computeBox();
+        this.gzip = builder.gzip;
+        this.decimalDigits = builder.decimalDigits;
+        this.threads = builder.threads;
 
         this.nodePositions = graph.nodeAttribute(StdAttribute.nodePosition);
         this.nodeSizes = graph.nodeAttribute(StdAttribute.nodeSize);
@@ -108,6 +196,44 @@ public class SvgExporter {
         this.edgeColors = graph.edgeAttribute(StdAttribute.color);
     }
 
+    /**
+     * Streams the SVG document to a file. The file is compressed if the
+     * exporter has been built with gzip or if its name ends with ".svgz".
+     *
+     * @param destinationFile the destination file.
+     */
+    public void save(File destinationFile) {
+        boolean compress = gzip || destinationFile.getName().endsWith(".svgz");
+        try (OutputStream fileStream = new FileOutputStream(destinationFile);
+                OutputStream stream = compress ? new GZIPOutputStream(fileStream, 1 << 16) : fileStream) {
+            writeSvg(stream);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write on the destination file " + destinationFile.getName(), ex);
+        }
+    }
+
+    /**
+     * Streams the SVG document to an output stream. The stream is compressed
+     * if the exporter has been built with gzip. The output stream is flushed
+     * but not closed.
+     *
+     * @param outputStream the output stream.
+     */
+    public void write(OutputStream outputStream) {
+        try {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 1 << 16);
+                writeSvg(gzipStream);
+                gzipStream.finish();
+            } else {
+                writeSvg(outputStream);
+            }
+            outputStream.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write the SVG document.", ex);
+        }
+    }
+
     /**
      * Builds the SVG document.
      *
@@ -115,31 +241,116 @@ public class SvgExporter {
      */
     private String buildSvg() {
         SvgDocument svgDocument = new SvgDocument(graphBox.width(), graphBox.height());
-        buildGraphics(svgDocument, graph);
-        buildEdges(svgDocument);
-        buildNodes(svgDocument);
+        buildGraphics(svgDocument::addElement, graph);
+        for (Edge edge : new ArrayList<>(graph.edges())) {
+            buildEdge(svgDocument::addElement, edge);
+        }
+        for (Node node : new ArrayList<>(graph.nodes())) {
+            buildNode(svgDocument::addElement, node);
+        }
         return svgDocument.close();
     }
 
     /**
-     * Inserts the graph nodes.
+     * Writes the SVG document on an uncompressed output stream.
      *
-     * @param svgDocument the SVG document.
+     * @param outputStream the output stream.
+     * @throws IOException if the document cannot be written.
      */
-    private void buildNodes(SvgDocument svgDocument) {
-        for (Node node : new ArrayList<>(graph.nodes())) {
-            buildNodeGlyph(svgDocument, node);
-            buildNodeLabel(svgDocument, node);
+    private void writeSvg(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        SvgStream svgStream = new SvgStream(writer, graphBox.width(), graphBox.height(), decimalDigits);
+        StringBuilder graphics = new StringBuilder();
+        buildGraphics(element -> svgStream.format(graphics, element), graph);
+        svgStream.addFormatted(graphics);
+
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            writeInChunks(svgStream, new ArrayList<>(graph.edges()), this::buildEdge, executor);
+            writeInChunks(svgStream, new ArrayList<>(graph.nodes()), this::buildNode, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        svgStream.close();
+    }
+
+    /**
+     * Formats the elements of the given graph components in chunks and
+     * writes them in order. When an executor is given, chunks are formatted
+     * in parallel, keeping at most two chunks per thread in memory.
+     *
+     * @param <T> the type of graph component.
+     * @param svgStream the SVG stream.
+     * @param components the graph components.
+     * @param elementBuilder the function that produces the SVG elements of a
+     * component.
+     * @param executor the executor, or null to format on the calling thread.
+     * @throws IOException if the chunks cannot be written.
+     */
+    private <T> void writeInChunks(SvgStream svgStream, List<T> components, BiConsumer<Consumer<SvgElement>, T> elementBuilder,
+            ExecutorService executor) throws IOException {
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        try {
+            for (int start = 0; start < components.size(); start += chunkSize) {
+                List<T> chunk = components.subList(start, Math.min(components.size(), start + chunkSize));
+                if (executor == null) {
+                    svgStream.addFormatted(formatChunk(svgStream, chunk, elementBuilder));
+                    continue;
+                }
+                if (pending.size() == 2 * threads) {
+                    svgStream.addFormatted(pending.removeFirst().get());
+                }
+                pending.addLast(executor.submit(() -> formatChunk(svgStream, chunk, elementBuilder)));
+            }
+            while (!pending.isEmpty()) {
+                svgStream.addFormatted(pending.removeFirst().get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting the SVG document.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot format the SVG elements.", ex.getCause());
         }
     }
 
+    /**
+     * Formats the SVG elements of a chunk of graph components.
+     *
+     * @param <T> the type of graph component.
+     * @param svgStream the SVG stream.
+     * @param chunk the graph components.
+     * @param elementBuilder the function that produces the SVG elements of a
+     * component.
+     * @return the formatted chunk.
+     */
+    private static <T> String formatChunk(SvgStream svgStream, List<T> chunk, BiConsumer<Consumer<SvgElement>, T> elementBuilder) {
+        StringBuilder builder = new StringBuilder();
+        for (T component : chunk) {
+            elementBuilder.accept(element -> svgStream.format(builder, element), component);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Inserts the glyph and the label of a node.
+     *
+     * @param sink the consumer of the SVG elements.
+     * @param node the node.
+     */
+    private void buildNode(Consumer<SvgElement> sink, Node node) {
+        buildNodeGlyph(sink, node);
+        buildNodeLabel(sink, node);
+    }
+
     /**
      * Inserts the glyph of the nodes.
      *
-     * @param svgDocument the SVG document.
+     * @param sink the consumer of the SVG elements.
      * @param node the node for which a glyph must be added.
      */
-    private void buildNodeGlyph(SvgDocument svgDocument, Node node) {
+    private void buildNodeGlyph(Consumer<SvgElement> sink, Node node) {
         Color color = nodeColors.get(node);
         if (color.getAlpha() == 0) {
             return;
@@ -150,10 +361,10 @@ public class SvgExporter {
         Coordinates position = graphToCanvasPosition(nodePositions.get(node));
         switch (shape) {
             case spheroid:
-                svgDocument.addElement(new SvgEllipse(node.id(), position, size, color));
+                sink.accept(new SvgEllipse(node.id(), position, size, color));
                 break;
             case cuboid:
-                svgDocument.addElement(new SvgRectangle(node.id(), position, size, color));
+                sink.accept(new SvgRectangle(node.id(), position, size, color));
                 break;
             default:
                 throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
@@ -163,10 +374,10 @@ public class SvgExporter {
     /**
      * Draws the label of a node.
      *
-     * @param svgDocument the SVG document.
+     * @param sink the consumer of the SVG elements.
      * @param node the node.
      */
-    private void buildNodeLabel(SvgDocument svgDocument, Node node) {
+    private void buildNodeLabel(Consumer<SvgElement> sink, Node node) {
         String label = nodeLabels.get(node);
         Color color = nodeLabelColors.get(node);
         if (label.isEmpty() || color.getAlpha() == 0) {
@@ -176,47 +387,46 @@ public class SvgExporter {
         double labelFontSize = nodeLabelScaling.get(node);
         Color labelColor = nodeLabelColors.get(node);
         Coordinates position = graphToCanvasPosition(nodePositions.get(node).plus(nodeLabelOffset.get(node)));
-        svgDocument.addElement(new SvgText(node.id() + "_label", label, position, labelFontSize, labelColor));
+        sink.accept(new SvgText(node.id() + "_label", label, position, labelFontSize, labelColor));
     }
 
     /**
-     * Inserts the graph edges.
+     * Inserts an edge.
      *
-     * @param svgDocument the SVG document.
+     * @param sink the consumer of the SVG elements.
+     * @param edge the edge.
      */
-    private void buildEdges(SvgDocument svgDocument) {
-        for (Edge edge : new ArrayList<>(graph.edges())) {
-            Color color = edgeColors.get(edge);
-            if (color.getAlpha() < 10) {
-                continue;
-            }
+    private void buildEdge(Consumer<SvgElement> sink, Edge edge) {
+        Color color = edgeColors.get(edge);
+        if (color.getAlpha() < 10) {
+            return;
+        }
 
-            double width = edgeWidths.get(edge);
-            StdAttribute.EdgeShape shape = edgeShapes.get(edge);
-            StdAttribute.ControlPoints controlPoints = edgePoints.get(edge);
-            switch (shape) {
-                case polyline:
-                    List<Coordinates> points = new ArrayList<>();
-                    points.add(graphToCanvasPosition(nodePositions.get(edge.source())));
-                    for (Coordinates bend : controlPoints) {
-                        points.add(graphToCanvasPosition(bend));
-                    }
-                    points.add(graphToCanvasPosition(nodePositions.get(edge.target())));
-                    svgDocument.addElement(new SvgPolyline(edge.id(), points, width, color));
-                    break;
-                default:
-                    throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
-            }
+        double width = edgeWidths.get(edge);
+        StdAttribute.EdgeShape shape = edgeShapes.get(edge);
+        StdAttribute.ControlPoints controlPoints = edgePoints.get(edge);
+        switch (shape) {
+            case polyline:
+                List<Coordinates> points = new ArrayList<>();
+                points.add(graphToCanvasPosition(nodePositions.get(edge.source())));
+                for (Coordinates bend : controlPoints) {
+                    points.add(graphToCanvasPosition(bend));
+                }
+                points.add(graphToCanvasPosition(nodePositions.get(edge.target())));
+                sink.accept(new SvgPolyline(edge.id(), points, width, color));
+                break;
+            default:
+                throw new UnsupportedOperationException("The shape " + shape.name() + " is not supported");
         }
     }
 
     /**
      * Inserts the graphics into the SVG document.
      *
-     * @param svgDocument the SVG document.
+     * @param sink the consumer of the SVG elements.
      * @param graph the graph.
      */
-    private void buildGraphics(SvgDocument svgDocument, Graph graph) {
+    private void buildGraphics(Consumer<SvgElement> sink, Graph graph) {
         if (graph.hasLocalGraphAttribute(StdAttribute.graphics)) {
             String graphicsString = graph.<String>graphAttribute(StdAttribute.graphics).get();
             List<SvgElement> svgElements = SvgElement.parseSvg(graphicsString);
@@ -224,15 +434,15 @@ public class SvgExporter {
                 switch (svgElement.type) {
                     case "rect":
                         SvgRectangle rectangle = (SvgRectangle) svgElement;
-                        svgDocument.addElement(new SvgRectangle(rectangle.id, graphToCanvasPosition(rectangle.center), rectangle.size, rectangle.fillColor));
+                        sink.accept(new SvgRectangle(rectangle.id, graphToCanvasPosition(rectangle.center), rectangle.size, rectangle.fillColor));
                         break;
                     case "ellipse":
                         SvgEllipse ellipse = (SvgEllipse) svgElement;
-                        svgDocument.addElement(new SvgEllipse(ellipse.id, graphToCanvasPosition(ellipse.center), ellipse.size, ellipse.fillColor));
+                        sink.accept(new SvgEllipse(ellipse.id, graphToCanvasPosition(ellipse.center), ellipse.size, ellipse.fillColor));
                         break;
                     case "text":
                         SvgText text = (SvgText) svgElement;
-                        svgDocument.addElement(new SvgText(text.id, text.text, graphToCanvasPosition(text.center), text.dimension, text.fillColor));
+                        sink.accept(new SvgText(text.id, text.text, graphToCanvasPosition(text.center), text.dimension, text.fillColor));
                         break;
                     case "polyline":
                         SvgPolyline polyline = (SvgPolyline) svgElement;
@@ -240,7 +450,7 @@ public class SvgExporter {
                         for (Coordinates point : polyline.points) {
                             transformedPolyline.add(graphToCanvasPosition(point));
                         }
-                        svgDocument.addElement(new SvgPolyline(polyline.id, transformedPolyline, polyline.width, polyline.strokeColor));
+                        sink.accept(new SvgPolyline(polyline.id, transformedPolyline, polyline.width, polyline.strokeColor));
                         break;
                     case "polygon":
                         SvgPolygon polygon = (SvgPolygon) svgElement;
@@ -248,7 +458,7 @@ public class SvgExporter {
                         for (Coordinates point : polygon.points) {
                             transformedPolygon.add(graphToCanvasPosition(point));
                         }
-                        svgDocument.addElement(new SvgPolygon(polygon.id, transformedPolygon, polygon.fillColor, polygon.strokeWidth, polygon.strokeColor));
+                        sink.accept(new SvgPolygon(polygon.id, transformedPolygon, polygon.fillColor, polygon.strokeWidth, polygon.strokeColor));
                         break;
                     default:
                         throw new UnsupportedOperationException("The svg element " + svgElement.type + " is not supported.");
@@ -257,7 +467,7 @@ public class SvgExporter {
         }
 
         for (Graph subGraph : graph.subGraphs()) {
-            buildGraphics(svgDocument, subGraph);
+            buildGraphics(sink, subGraph);
         }
     }
 
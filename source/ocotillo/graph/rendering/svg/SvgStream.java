@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.rendering.svg;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes an SVG file element by element. Differently from SvgDocument, the
+ * text is written directly to the destination as soon as elements are added,
+ * so that the whole document never needs to be kept in memory.
+ */
+public class SvgStream {
+
+    private final Writer writer;
+    private final int decimalDigits;
+    private int currentIndentation;
+
+    /**
+     * Opens an SVG stream and writes the document header.
+     *
+     * @param writer the destination writer.
+     * @param width the drawing width.
+     * @param height the drawing height.
+     * @param decimalDigits the number of decimal digits used for numbers, or
+     * a negative value to write numbers at full precision.
+     * @throws IOException if the header cannot be written.
+     */
+    public SvgStream(Writer writer, double width, double height, int decimalDigits) throws IOException {
+        this.writer = writer;
+        this.decimalDigits = decimalDigits;
+        StringBuilder header = new StringBuilder();
+        header.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n\n");
+        header.append("<svg width=\"");
+        SvgElement.appendNumber(header, width, decimalDigits);
+        header.append("\" height=\"");
+        SvgElement.appendNumber(header, height, decimalDigits);
+        header.append("\"");
+        header.append(" font-family=\"Sans\" text-anchor=\"middle\" xmlns=\"http://www.w3.org/2000/svg\">\n");
+        writer.write(header.toString());
+        currentIndentation++;
+    }
+
+    /**
+     * Opens a group of SVG elements.
+     *
+     * @throws IOException if the group cannot be written.
+     */
+    public void openGroup() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        indent(builder);
+        builder.append("<g>\n");
+        writer.write(builder.toString());
+        currentIndentation++;
+    }
+
+    /**
+     * Closes a group of SVG elements.
+     *
+     * @throws IOException if the group cannot be written.
+     */
+    public void closeGroup() throws IOException {
+        currentIndentation--;
+        StringBuilder builder = new StringBuilder();
+        indent(builder);
+        builder.append("</g>\n");
+        writer.write(builder.toString());
+    }
+
+    /**
+     * Writes an element.
+     *
+     * @param element the element.
+     * @throws IOException if the element cannot be written.
+     */
+    public void addElement(SvgElement element) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        format(builder, element);
+        writer.write(builder.toString());
+    }
+
+    /**
+     * Writes a chunk of text previously produced by the format method.
+     *
+     * @param chunk the formatted elements.
+     * @throws IOException if the chunk cannot be written.
+     */
+    public void addFormatted(CharSequence chunk) throws IOException {
+        writer.append(chunk);
+    }
+
+    /**
+     * Formats an element as it would be written at the current indentation
+     * level. Does not write on the stream, and can be therefore called by
+     * several threads at the same time to prepare chunks of text to be
+     * written in order with addFormatted.
+     *
+     * @param builder the builder where to append the element text.
+     * @param element the element.
+     */
+    public void format(StringBuilder builder, SvgElement element) {
+        indent(builder);
+        builder.append(SvgDocument.transformColorAlpha(element.toString(decimalDigits), decimalDigits));
+        builder.append('\n');
+    }
+
+    /**
+     * Closes the SVG document and flushes the writer. The writer itself is
+     * not closed.
+     *
+     * @throws IOException if the document cannot be closed.
+     */
+    public void close() throws IOException {
+        assert (currentIndentation == 1) : "The svg groups have not been opened/closed correctly.";
+        writer.write("</svg>");
+        writer.flush();
+    }
+
+    /**
+     * Indents a row according to the current indentation level.
+     *
+     * @param builder the builder where to append the indentation.
+     */
+    private void indent(StringBuilder builder) {
+        for (int i = 0; i < currentIndentation; i++) {
+            builder.append("  ");
+        }
+    }
+
+}
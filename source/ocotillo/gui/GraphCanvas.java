@@ -15,23 +15,29 @@
  */
 package ocotillo.gui;
 
+import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import javax.swing.JLayeredPane;
 import javax.swing.JPanel;
+import ocotillo.dygraph.rendering.FrameStream;
 import ocotillo.geometry.Box;
 import ocotillo.graph.Element;
 import ocotillo.graph.ElementAttribute;
 import ocotillo.graph.Graph;
 import ocotillo.graph.GraphAttribute;
+import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.Observer;
 import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularPostProcessing.LivePreview;
 import ocotillo.graph.rendering.GraphRenderer;
 import ocotillo.graph.rendering.GraphRenderer2D;
+import ocotillo.graph.rendering.GraphRenderer2D.Layer;
 import ocotillo.graph.rendering.GraphRenderer3D;
 import ocotillo.graph.rendering.ViewAngle;
 
@@ -47,6 +53,7 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
     private final List<Observer> observers = new ArrayList<>();
     private final DrawingPanel drawing;
     private final CanvasOverlay overlay;
+    private final RenderCache renderCache;
 
     private boolean firstPaint = true;
     private static final long serialVersionUID = 1L;
@@ -58,7 +65,8 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
      */
     public GraphCanvas(Graph graph) {
         this.graph = graph;
-        this.renderer = new GraphRenderer2D(graph);
+        this.renderer = newRenderer2D();
+        this.renderCache = new RenderCache(graph);
 
         cameraControl = new CameraControl(this);
         cameraControl.viewAngle().registerObserver(this);
@@ -127,6 +135,28 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
         repaint();
     }
 
+    /**
+     * Returns a live preview listener that shows the published frames in this
+     * canvas. The frames are transferred onto the canvas graph in the event
+     * dispatch thread, and the view is reset when the first non-empty frame is
+     * shown. The canvas graph should not be the graph being laid out.
+     *
+     * @return the live preview listener.
+     */
+    public LivePreview.Listener previewListener() {
+        return frame -> EventQueue.invokeLater(() -> {
+            boolean wasEmpty = graph.nodes().isEmpty();
+            try {
+                FrameStream.showFrame(frame.graph(), graph);
+            } finally {
+                frame.release();
+            }
+            if (wasEmpty && !graph.nodes().isEmpty()) {
+                resetView();
+            }
+        });
+    }
+
     /**
      * Returns the box that contains a compete view of the graph.
      *
@@ -149,7 +179,22 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
      * Forces the usage of a 2D rendering.
      */
     protected void setRendering2D() {
-        renderer = new GraphRenderer2D(graph);
+        renderer.close();
+        renderer = newRenderer2D();
+        renderCache.invalidateAll();
+    }
+
+    /**
+     * Creates a 2D renderer for the canvas graph. As the canvas is redrawn at
+     * every zoom change, it uses the standard level of detail to skip the
+     * elements too small to be seen.
+     *
+     * @return the renderer.
+     */
+    private GraphRenderer2D newRenderer2D() {
+        GraphRenderer2D renderer2D = new GraphRenderer2D(graph);
+        renderer2D.setLevelOfDetail(GraphRenderer2D.LevelOfDetail.standard);
+        return renderer2D;
     }
 
     /**
@@ -161,21 +206,39 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
 
     /**
      * Adds an observer for each graph modification that alter the graph
-     * rendering.
+     * rendering. Each observer invalidates the cached layers affected by the
+     * modification.
      */
     private void addGraphModificationObservers() {
         addGraphAttributeObserver(graph);
         for (GraphAttribute<?> attribute : StdAttribute.thatAffectRendering.graphAttributes(graph)) {
             addGraphAttributeObserver(attribute);
         }
-        for (ElementAttribute<?, ?> attribute : StdAttribute.thatAffectRendering.nodeAttributes(graph)) {
-            addElementAttributeObserver(attribute);
-        }
+        addNodeAttributeObserver(StdAttribute.nodePosition, Layer.heatMap, Layer.edges, Layer.nodes, Layer.labels, Layer.clusters);
+        addNodeAttributeObserver(StdAttribute.nodeSize, Layer.nodes);
+        addNodeAttributeObserver(StdAttribute.nodeShape, Layer.nodes);
+        addNodeAttributeObserver(StdAttribute.nodeHeat, Layer.heatMap);
+        addNodeAttributeObserver(StdAttribute.color, Layer.nodes);
+        addNodeAttributeObserver(StdAttribute.label, Layer.labels);
+        addNodeAttributeObserver(StdAttribute.labelColor, Layer.labels);
+        addNodeAttributeObserver(StdAttribute.labelScaling, Layer.labels);
+        addNodeAttributeObserver(StdAttribute.labelOffset, Layer.labels);
         for (ElementAttribute<?, ?> attribute : StdAttribute.thatAffectRendering.edgeAttributes(graph)) {
-            addElementAttributeObserver(attribute);
+            addElementAttributeObserver(attribute, Layer.edges);
         }
     }
 
+    /**
+     * Adds an observer to a node attribute.
+     *
+     * @param attributeId the attribute id.
+     * @param layers the layers affected by the attribute.
+     */
+    private void addNodeAttributeObserver(StdAttribute attributeId, Layer... layers) {
+        NodeAttribute<?> attribute = graph.nodeAttribute(attributeId);
+        addElementAttributeObserver(attribute, layers);
+    }
+
     /**
      * Adds a graph observer that force the canvas redrawing on graph
      * modifications.
@@ -187,6 +250,7 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
 
             @Override
             public void theseElementsChanged(Collection<Element> changedElements) {
+                renderCache.invalidateAll();
                 repaint();
             }
         });
@@ -203,6 +267,7 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
 
             @Override
             public void update() {
+                renderCache.invalidateAll();
                 repaint();
             }
         });
@@ -213,18 +278,21 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
      * modifications of the attribute.
      *
      * @param attribute the attribute to observe.
+     * @param layers the layers affected by the attribute.
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private void addElementAttributeObserver(ElementAttribute<?, ?> attribute) {
+    private void addElementAttributeObserver(ElementAttribute<?, ?> attribute, Layer... layers) {
         observers.add(new Observer.ElementAttributeChanges(attribute) {
 
             @Override
             public void update(Collection changedElements) {
+                renderCache.invalidate(changedElements, layers);
                 repaint();
             }
 
             @Override
             public void updateAll() {
+                renderCache.invalidate(layers);
                 repaint();
             }
         });
@@ -247,11 +315,13 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
         for (Observer observer : observers) {
             observer.unregister();
         }
+        renderer.close();
     }
 
     @Override
     public void viewAngleMoved() {
         if (!cameraControl.viewAngle().isStandard2D() && renderer instanceof GraphRenderer2D) {
+            renderer.close();
             renderer = new GraphRenderer3D(graph, cameraControl.viewAngle());
             if (!overlay.isOn()) {
                 overlay.toggleOnOff();
@@ -276,8 +346,13 @@ public class GraphCanvas extends JLayeredPane implements ViewAngle.Observer {
                 firstPaint = false;
             }
             renderer.drawBackground(graph, graphics2D, getWidth(), getHeight());
-            graphics2D.setTransform(cameraControl.getTransform());
-            renderer.draw(graphics2D);
+            if (renderer instanceof GraphRenderer2D && getWidth() > 0 && getHeight() > 0) {
+                graphics2D.setTransform(new AffineTransform());
+                renderCache.paint(graphics2D, (GraphRenderer2D) renderer, cameraControl.getTransform(), getWidth(), getHeight());
+            } else {
+                graphics2D.setTransform(cameraControl.getTransform());
+                renderer.draw(graphics2D);
+            }
             overlay.repaint();
         }
     }
@@ -0,0 +1,364 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.gui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ocotillo.geometry.Box;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Element;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.rendering.GraphRenderer;
+import ocotillo.graph.rendering.GraphRenderer2D;
+import ocotillo.graph.rendering.GraphRenderer2D.Layer;
+
+/**
+ * Caches each layer of a 2D drawing in an offscreen image. A layer is drawn
+ * again only when invalidated, and only in the regions occupied by the
+ * changed elements before and after the change.
+ */
+class RenderCache {
+
+    private static final int maxDirtyElements = 1000;
+    private static final int maxDirtyRegions = 16;
+    private static final int regionMargin = 2;
+
+    private final Graph graph;
+    private final Map<Layer, BufferedImage> layerImages = new EnumMap<>(Layer.class);
+    private final Set<Layer> invalidLayers = EnumSet.allOf(Layer.class);
+    private final Map<Layer, Set<Element>> dirtyElements = new EnumMap<>(Layer.class);
+    private final Map<Element, Box> drawnBoxes = new HashMap<>();
+    private boolean drawnBoxesOutdated = true;
+    private AffineTransform cachedTransform;
+
+    /**
+     * Constructs a render cache.
+     *
+     * @param graph the graph drawn.
+     */
+    RenderCache(Graph graph) {
+        this.graph = graph;
+        for (Layer layer : Layer.values()) {
+            dirtyElements.put(layer, new HashSet<>());
+        }
+    }
+
+    /**
+     * Invalidates all layers.
+     */
+    synchronized void invalidateAll() {
+        invalidLayers.addAll(EnumSet.allOf(Layer.class));
+        drawnBoxesOutdated = true;
+    }
+
+    /**
+     * Invalidates the given layers.
+     *
+     * @param layers the layers.
+     */
+    synchronized void invalidate(Layer... layers) {
+        for (Layer layer : layers) {
+            invalidLayers.add(layer);
+        }
+        drawnBoxesOutdated = true;
+    }
+
+    /**
+     * Invalidates the regions of the given layers occupied by the given
+     * elements. When a node is invalidated in the edge layer, its incident
+     * edges are invalidated instead. The layers not made of nodes or edges,
+     * and the layers where too many elements change, are invalidated
+     * completely.
+     *
+     * @param elements the changed elements.
+     * @param layers the layers affected.
+     */
+    synchronized void invalidate(Collection<? extends Element> elements, Layer... layers) {
+        for (Layer layer : layers) {
+            if (invalidLayers.contains(layer)) {
+                continue;
+            }
+            if (layer != Layer.edges && layer != Layer.nodes && layer != Layer.labels) {
+                invalidLayers.add(layer);
+                continue;
+            }
+            Set<Element> layerDirtyElements = dirtyElements.get(layer);
+            for (Element element : elements) {
+                if (layer == Layer.edges && element instanceof Node) {
+                    Node node = (Node) element;
+                    if (graph.has(node)) {
+                        layerDirtyElements.addAll(graph.inOutEdges(node));
+                    }
+                } else {
+                    layerDirtyElements.add(element);
+                }
+            }
+            if (layerDirtyElements.size() > maxDirtyElements) {
+                invalidate(layer);
+            }
+        }
+    }
+
+    /**
+     * Paints the drawing in the given graphics, updating the invalid portions
+     * of the layers first.
+     *
+     * @param graphics the graphics, with an identity transform.
+     * @param renderer the renderer.
+     * @param transform the transform from rendering units to pixels.
+     * @param width the width of the drawing area.
+     * @param height the height of the drawing area.
+     */
+    void paint(Graphics2D graphics, GraphRenderer2D renderer, AffineTransform transform, int width, int height) {
+        Set<Layer> layersToDraw;
+        Map<Layer, Set<Element>> elementsToDraw = new EnumMap<>(Layer.class);
+        Set<Element> changedElements = new HashSet<>();
+        boolean refreshBoxes;
+        synchronized (this) {
+            if (!transform.equals(cachedTransform) || !hasImagesOfSize(width, height)) {
+                cachedTransform = new AffineTransform(transform);
+                invalidLayers.addAll(EnumSet.allOf(Layer.class));
+                if (!hasImagesOfSize(width, height)) {
+                    for (Layer layer : Layer.values()) {
+                        layerImages.put(layer, new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+                    }
+                }
+            }
+            layersToDraw = EnumSet.copyOf(invalidLayers);
+            invalidLayers.clear();
+            for (Layer layer : Layer.values()) {
+                if (!layersToDraw.contains(layer) && !dirtyElements.get(layer).isEmpty()) {
+                    elementsToDraw.put(layer, new HashSet<>(dirtyElements.get(layer)));
+                }
+                changedElements.addAll(dirtyElements.get(layer));
+                dirtyElements.get(layer).clear();
+            }
+            refreshBoxes = drawnBoxesOutdated;
+            drawnBoxesOutdated = false;
+        }
+
+        Map<Element, List<Rectangle>> elementRegions = elementRegions(changedElements, renderer, transform, refreshBoxes);
+        Map<Layer, List<Rectangle>> regionsToDraw = new EnumMap<>(Layer.class);
+        for (Map.Entry<Layer, Set<Element>> entry : elementsToDraw.entrySet()) {
+            regionsToDraw.put(entry.getKey(), layerRegions(entry.getValue(), elementRegions, width, height));
+        }
+        if (refreshBoxes) {
+            recordDrawnBoxes(renderer);
+        }
+
+        for (Layer layer : Layer.values()) {
+            if (layersToDraw.contains(layer)) {
+                drawLayer(layer, renderer, transform, new Rectangle(0, 0, width, height));
+            } else if (regionsToDraw.containsKey(layer)) {
+                for (Rectangle region : regionsToDraw.get(layer)) {
+                    drawLayer(layer, renderer, transform, region);
+                }
+            }
+            graphics.drawImage(layerImages.get(layer), 0, 0, null);
+        }
+    }
+
+    /**
+     * Checks whether the layer images have the given size.
+     *
+     * @param width the width.
+     * @param height the height.
+     * @return true if the images exist and have the given size.
+     */
+    private boolean hasImagesOfSize(int width, int height) {
+        BufferedImage image = layerImages.get(Layer.graphics);
+        return image != null && image.getWidth() == width && image.getHeight() == height;
+    }
+
+    /**
+     * Clears a region of a layer image and draws the layer in it.
+     *
+     * @param layer the layer.
+     * @param renderer the renderer.
+     * @param transform the transform from rendering units to pixels.
+     * @param region the region to draw, in pixels.
+     */
+    private void drawLayer(Layer layer, GraphRenderer2D renderer, AffineTransform transform, Rectangle region) {
+        Graphics2D layerGraphics = layerImages.get(layer).createGraphics();
+        layerGraphics.setClip(region);
+        layerGraphics.setComposite(AlphaComposite.Clear);
+        layerGraphics.fill(region);
+        layerGraphics.setComposite(AlphaComposite.SrcOver);
+        layerGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        layerGraphics.setTransform(transform);
+        renderer.drawLayer(layerGraphics, layer);
+        layerGraphics.dispose();
+    }
+
+    /**
+     * Computes the regions occupied by the given elements at the last drawing
+     * and now, and records their current boxes.
+     *
+     * @param elements the changed elements.
+     * @param renderer the renderer.
+     * @param transform the transform from rendering units to pixels.
+     * @param boxesUnknown whether the boxes at the last drawing are unknown.
+     * @return the regions of each element in pixels, or null for the
+     * elements whose previous region is unknown.
+     */
+    private Map<Element, List<Rectangle>> elementRegions(Set<Element> elements, GraphRenderer2D renderer,
+            AffineTransform transform, boolean boxesUnknown) {
+        Map<Element, List<Rectangle>> elementRegions = new HashMap<>();
+        for (Element element : elements) {
+            Box previousBox = drawnBoxes.get(element);
+            Box currentBox = currentBox(element, renderer);
+            if (boxesUnknown || (previousBox == null && currentBox != null)) {
+                elementRegions.put(element, null);
+                continue;
+            }
+            List<Rectangle> regions = new ArrayList<>();
+            if (previousBox != null) {
+                regions.add(pixelRegion(previousBox, transform));
+            }
+            if (currentBox != null) {
+                regions.add(pixelRegion(currentBox, transform));
+                drawnBoxes.put(element, currentBox);
+            } else {
+                drawnBoxes.remove(element);
+            }
+            elementRegions.put(element, regions);
+        }
+        return elementRegions;
+    }
+
+    /**
+     * Computes the regions of a layer to draw again. Overlapping regions are
+     * merged, and the regions are reduced to their bounding rectangle if
+     * there are too many.
+     *
+     * @param elements the changed elements of the layer.
+     * @param elementRegions the regions of each changed element.
+     * @param width the width of the drawing area.
+     * @param height the height of the drawing area.
+     * @return the dirty regions in pixels.
+     */
+    private List<Rectangle> layerRegions(Set<Element> elements, Map<Element, List<Rectangle>> elementRegions,
+            int width, int height) {
+        List<Rectangle> regions = new ArrayList<>();
+        for (Element element : elements) {
+            List<Rectangle> currentRegions = elementRegions.get(element);
+            if (currentRegions == null) {
+                regions.clear();
+                regions.add(new Rectangle(0, 0, width, height));
+                return regions;
+            }
+            for (Rectangle region : currentRegions) {
+                addRegion(regions, region);
+            }
+        }
+        if (regions.size() > maxDirtyRegions) {
+            Rectangle union = new Rectangle(regions.get(0));
+            for (Rectangle region : regions) {
+                union.add(region);
+            }
+            regions.clear();
+            regions.add(union);
+        }
+        return regions;
+    }
+
+    /**
+     * Adds a region to a list, merging it with the regions it overlaps.
+     *
+     * @param regions the current regions.
+     * @param region the region to add.
+     */
+    private void addRegion(List<Rectangle> regions, Rectangle region) {
+        Rectangle merged = new Rectangle(region);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = regions.size() - 1; i >= 0; i--) {
+                if (regions.get(i).intersects(merged)) {
+                    merged.add(regions.remove(i));
+                    changed = true;
+                }
+            }
+        }
+        regions.add(merged);
+    }
+
+    /**
+     * Returns the current box of an element.
+     *
+     * @param element the element.
+     * @param renderer the renderer.
+     * @return the element box, or null if the element is not in the graph.
+     */
+    private Box currentBox(Element element, GraphRenderer2D renderer) {
+        if (element instanceof Node && graph.has((Node) element)) {
+            return renderer.nodeBox((Node) element);
+        }
+        if (element instanceof Edge && graph.has((Edge) element)) {
+            return renderer.edgeBox((Edge) element);
+        }
+        return null;
+    }
+
+    /**
+     * Records the current boxes of all nodes and edges.
+     *
+     * @param renderer the renderer.
+     */
+    private void recordDrawnBoxes(GraphRenderer2D renderer) {
+        drawnBoxes.clear();
+        for (Node node : new ArrayList<>(graph.nodes())) {
+            drawnBoxes.put(node, renderer.nodeBox(node));
+        }
+        for (Edge edge : new ArrayList<>(graph.edges())) {
+            drawnBoxes.put(edge, renderer.edgeBox(edge));
+        }
+    }
+
+    /**
+     * Converts a box in graph coordinates into a pixel region, including a
+     * small margin for antialiasing.
+     *
+     * @param box the box.
+     * @param transform the transform from rendering units to pixels.
+     * @return the pixel region.
+     */
+    private Rectangle pixelRegion(Box box, AffineTransform transform) {
+        double scaling = GraphRenderer.scaling;
+        Point2D first = transform.transform(new Point2D.Double(box.left() * scaling, -box.top() * scaling), null);
+        Point2D second = transform.transform(new Point2D.Double(box.right() * scaling, -box.bottom() * scaling), null);
+        int left = (int) Math.floor(Math.min(first.getX(), second.getX())) - regionMargin;
+        int top = (int) Math.floor(Math.min(first.getY(), second.getY())) - regionMargin;
+        int right = (int) Math.ceil(Math.max(first.getX(), second.getX())) + regionMargin;
+        int bottom = (int) Math.ceil(Math.max(first.getY(), second.getY())) + regionMargin;
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+}
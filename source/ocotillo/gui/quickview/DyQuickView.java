@@ -15,11 +15,9 @@
  */
 package ocotillo.gui.quickview;
 
-import java.awt.CardLayout;
+import java.awt.BorderLayout;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -29,6 +27,7 @@ import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.rendering.Animation;
+import ocotillo.dygraph.rendering.FrameStream;
 import ocotillo.graph.Graph;
 import ocotillo.gui.GraphCanvas;
 
@@ -38,13 +37,15 @@ import ocotillo.gui.GraphCanvas;
 public class DyQuickView extends JFrame {
 
     private final DyGraph dyGraph;
-    private GraphCanvas canvas;
+    private final Graph displayGraph;
+    private final GraphCanvas canvas;
     private Animation animation;
+    private int lookAheadFrames = 10;
 
-    private final JPanel content = new JPanel(new CardLayout());
+    private final JPanel content = new JPanel(new BorderLayout());
     private final PlayCommandListner currentListner = new PlayCommandListner();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final List<GraphCanvas> frameCanvases = new ArrayList<>();
+    private FrameStream frameStream;
     private ScheduledFuture<?> refreshTaskHandle;
 
     private static final long serialVersionUID = 1L;
@@ -59,7 +60,8 @@ public class DyQuickView extends JFrame {
         setTitle("Graph QuickView");
         add(content);
         this.dyGraph = dyGraph;
-        this.canvas = new GraphCanvas(dyGraph.snapshotAt(staticTiming));
+        this.displayGraph = dyGraph.snapshotAt(staticTiming);
+        this.canvas = new GraphCanvas(displayGraph);
         content.add(canvas);
         canvas.addKeyListener(currentListner);
         canvas.requestFocus();
@@ -78,30 +80,22 @@ public class DyQuickView extends JFrame {
     }
 
     /**
-     * Sets the current animation.
+     * Sets the current animation. The frames are computed during the playback.
      *
      * @param animation the current animation.
      */
     public void setAnimation(Animation animation) {
         this.animation = animation;
-        computeFrameCanvases();
     }
 
-    private void computeFrameCanvases() {
-        if (animation == null) {
-            return;
-        }
-        for (GraphCanvas frameCanvas : frameCanvases) {
-            content.remove(frameCanvas);
-        }
-        frameCanvases.clear();
-        for (Double frameTiming : animation.frames()) {
-            Graph snapshot = dyGraph.snapshotAt(frameTiming);
-            GraphCanvas frameCanvas = new GraphCanvas(snapshot);
-            frameCanvases.add(frameCanvas);
-            content.add(frameCanvas);
-        }
-        validate();
+    /**
+     * Sets the number of frames prepared in advance during the playback.
+     *
+     * @param lookAheadFrames the number of frames to prepare in advance.
+     */
+    public void setLookAheadFrames(int lookAheadFrames) {
+        assert (lookAheadFrames > 0) : "The number of look-ahead frames must be positive.";
+        this.lookAheadFrames = lookAheadFrames;
     }
 
     /**
@@ -168,13 +162,9 @@ public class DyQuickView extends JFrame {
         content.requestFocusInWindow();
 
         canvas.disableCameraControl();
-        for (GraphCanvas frameCanvas : frameCanvases) {
-            frameCanvas.copyCameraSettings(canvas);
-            frameCanvas.viewAngleMoved();
-            frameCanvas.disableCameraControl();
-        }
+        frameStream = new FrameStream(dyGraph, animation.frames(), lookAheadFrames);
 
-        final AnimationTask animationTask = new AnimationTask();
+        final AnimationTask animationTask = new AnimationTask(frameStream);
         int refreshPeriod = 1000 / animation.framesPerSecond();
         refreshTaskHandle = scheduler.scheduleAtFixedRate(animationTask,
                 0, refreshPeriod, TimeUnit.MILLISECONDS);
@@ -187,11 +177,8 @@ public class DyQuickView extends JFrame {
         if (refreshTaskHandle != null) {
             refreshTaskHandle.cancel(false);
             refreshTaskHandle = null;
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ex) {
-                throw new IllegalStateException("Something went wrong");
-            }
+            frameStream.close();
+            frameStream = null;
             content.removeKeyListener(currentListner);
             canvas.addKeyListener(currentListner);
             canvas.enableCameraControl();
@@ -200,31 +187,43 @@ public class DyQuickView extends JFrame {
     }
 
     /**
-     * Refreshes the graph canvas view with the current animation.
+     * Refreshes the graph canvas view with the next prepared frame. When the
+     * frame is not ready yet, the current one is kept until the next refresh.
+     * If a frame cannot be shown, the error is reported and the playback is
+     * stopped, so that it can be started again.
      */
     private class AnimationTask implements Runnable {
 
-        private int index;
+        private final FrameStream stream;
 
-        public AnimationTask() {
-            this.index = 0;
+        public AnimationTask(FrameStream stream) {
+            this.stream = stream;
         }
 
         @Override
         public void run() {
             try {
-                canvas = frameCanvases.get(index);
-                CardLayout cardLayout = (CardLayout) content.getLayout();
-                if (index == 0) {
-                    cardLayout.first(content);
+                FrameStream.Frame frame = stream.poll();
+                if (frame == null) {
+                    return;
                 }
-                cardLayout.next(content);
-                index++;
-                if (index == frameCanvases.size()) {
-                    stopPlaying();
+                SwingUtilities.invokeAndWait(() -> {
+                    frame.showOn(displayGraph);
+                });
+                if (stream.isFinished()) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (frameStream == stream) {
+                            stopPlaying();
+                        }
+                    });
                 }
             } catch (Exception e) {
                 System.out.println(e);
+                SwingUtilities.invokeLater(() -> {
+                    if (frameStream == stream) {
+                        stopPlaying();
+                    }
+                });
             }
         }
     }
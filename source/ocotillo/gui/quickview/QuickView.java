@@ -25,7 +25,7 @@ import ocotillo.gui.GraphCanvas;
  */
 public class QuickView extends JFrame {
 
-    private GraphCanvas canvas;
+    private final GraphCanvas canvas;
 
     private static final long serialVersionUID = 1L;
 
@@ -36,12 +36,22 @@ public class QuickView extends JFrame {
      */
     public QuickView(Graph graph) {
         setTitle("Graph QuickView");
-        add(new GraphCanvas(graph));
+        canvas = new GraphCanvas(graph);
+        add(canvas);
         setSize(1200, 1200);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setLocationRelativeTo(null);
     }
 
+    /**
+     * Returns the canvas of the QuickView.
+     *
+     * @return the graph canvas.
+     */
+    public GraphCanvas canvas() {
+        return canvas;
+    }
+
     /**
      * Sets the canvas to be 2D only by disabling rotations.
      */
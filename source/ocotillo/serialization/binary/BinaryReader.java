@@ -0,0 +1,278 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+
+/**
+ * Reader for binary dynamic graph files. The file is memory mapped and
+ * decoded in place: the structural arrays are read in bulk, and the blocks of
+ * the attributes that are not requested are skipped without being decoded.
+ */
+public class BinaryReader {
+
+    static final Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * Constructs a binary reader.
+     */
+    protected BinaryReader() {
+    }
+
+    /**
+     * Reads a dynamic graph from a binary file.
+     *
+     * @param file the file.
+     * @param attributeFilter the condition that the name of an attribute must
+     * satisfy to be loaded.
+     * @return the dynamic graph.
+     */
+    protected DyGraph read(File file, Predicate<String> attributeFilter) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("The file " + file.getName() + " is too large to be mapped.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, attributeFilter);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to read the file " + file.getName(), ex);
+        }
+    }
+
+    /**
+     * Reads a dynamic graph from a buffer containing a binary file.
+     *
+     * @param buffer the buffer.
+     * @param attributeFilter the condition that the name of an attribute must
+     * satisfy to be loaded.
+     * @return the dynamic graph.
+     */
+    protected DyGraph read(ByteBuffer buffer, Predicate<String> attributeFilter) {
+        if (buffer.limit() < 32 || buffer.getInt(0) != BinaryWriter.magic) {
+            throw new IllegalStateException("The input is not a binary dynamic graph.");
+        }
+        if (buffer.getShort(4) != BinaryWriter.version) {
+            throw new IllegalStateException("Binary dynamic graph version " + buffer.getShort(4) + " is not supported.");
+        }
+        String[] strings = readStrings(buffer, (int) buffer.getLong(BinaryWriter.tableOffsetPosition));
+
+        buffer.position(BinaryWriter.tableOffsetPosition + 8);
+        int graphCount = buffer.getInt();
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        int attributeCount = buffer.getInt();
+
+        int[] parents = readInts(buffer, graphCount);
+        int[] nodeIds = readInts(buffer, nodeCount);
+        int[] edgeIds = readInts(buffer, edgeCount);
+        int[] sources = readInts(buffer, edgeCount);
+        int[] targets = readInts(buffer, edgeCount);
+
+        DyGraph[] graphs = new DyGraph[graphCount];
+        graphs[0] = new DyGraph();
+        Node[] nodes = new Node[nodeCount];
+        Edge[] edges = new Edge[edgeCount];
+        graphs[0].startBulkNotification();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = graphs[0].newNode(strings[nodeIds[i]]);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i] = graphs[0].newEdge(strings[edgeIds[i]], nodes[sources[i]], nodes[targets[i]]);
+        }
+        graphs[0].stopBulkNotification();
+
+        for (int i = 1; i < graphCount; i++) {
+            graphs[i] = graphs[parents[i]].newSubGraph();
+            for (int index : readInts(buffer, buffer.getInt())) {
+                graphs[i].add(nodes[index]);
+            }
+            for (int index : readInts(buffer, buffer.getInt())) {
+                graphs[i].add(edges[index]);
+            }
+        }
+
+        for (int i = 0; i < attributeCount; i++) {
+            DyGraph graph = graphs[buffer.getInt()];
+            Attribute.Type type = Attribute.Type.values()[buffer.get()];
+            String attributeName = strings[buffer.getInt()];
+            BinaryValueType valueType = BinaryValueType.values()[buffer.get()];
+            int blockLength = buffer.getInt();
+            if (attributeFilter.test(attributeName)) {
+                readAttribute(buffer, graph, type, attributeName, valueType, nodes, edges, strings);
+            } else {
+                buffer.position(buffer.position() + blockLength);
+            }
+        }
+        return graphs[0];
+    }
+
+    /**
+     * Reads the string table.
+     *
+     * @param buffer the buffer.
+     * @param offset the position of the string table.
+     * @return the strings.
+     */
+    private static String[] readStrings(ByteBuffer buffer, int offset) {
+        buffer.position(offset);
+        String[] strings = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, charset);
+        }
+        return strings;
+    }
+
+    /**
+     * Reads an attribute block and creates the attribute in the graph.
+     *
+     * @param buffer the buffer positioned at the start of the block.
+     * @param graph the graph owning the attribute.
+     * @param type the attribute type.
+     * @param attributeName the attribute name.
+     * @param valueType the type of the attribute values.
+     * @param nodes the nodes by index.
+     * @param edges the edges by index.
+     * @param strings the string table.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void readAttribute(ByteBuffer buffer, DyGraph graph, Attribute.Type type, String attributeName,
+            BinaryValueType valueType, Node[] nodes, Edge[] edges, String[] strings) {
+        int evolutionCount = buffer.getInt();
+        int[] elementIndices = readInts(buffer, evolutionCount - 1);
+        int[] pieceCounts = readInts(buffer, evolutionCount);
+        Evolution[] evolutions = new Evolution[evolutionCount];
+        int totalPieces = 0;
+        for (int i = 0; i < evolutionCount; i++) {
+            evolutions[i] = new Evolution<>(valueType.read(buffer, strings));
+            totalPieces += pieceCounts[i];
+        }
+
+        byte[] kinds = readBytes(buffer, totalPieces);
+        double[] leftBounds = readDoubles(buffer, totalPieces);
+        double[] rightBounds = readDoubles(buffer, totalPieces);
+        byte[] closures = readBytes(buffer, totalPieces);
+        Object[] leftValues = new Object[totalPieces];
+        for (int p = 0; p < totalPieces; p++) {
+            leftValues[p] = valueType.read(buffer, strings);
+        }
+        Object[] rightValues = new Object[totalPieces];
+        for (int p = 0; p < totalPieces; p++) {
+            rightValues[p] = valueType.read(buffer, strings);
+        }
+        int[] interpolations = readInts(buffer, totalPieces);
+
+        Interpolation[] interpolationCache = new Interpolation[strings.length];
+        int piece = 0;
+        for (int i = 0; i < evolutionCount; i++) {
+            for (int j = 0; j < pieceCounts[i]; j++, piece++) {
+                Interval interval = Interval.newCustom(leftBounds[piece], rightBounds[piece],
+                        (closures[piece] & 1) != 0, (closures[piece] & 2) != 0);
+                if (kinds[piece] == BinaryWriter.constPiece) {
+                    evolutions[i].insert(new FunctionConst<>(interval, leftValues[piece]));
+                } else {
+                    int name = interpolations[piece];
+                    if (interpolationCache[name] == null) {
+                        interpolationCache[name] = Interpolation.Std.valueOf(strings[name]).get();
+                    }
+                    evolutions[i].insert(valueType.rect(interval, leftValues[piece], rightValues[piece], interpolationCache[name]));
+                }
+            }
+        }
+
+        if (type == Attribute.Type.graph) {
+            graph.newLocalGraphAttribute(attributeName, evolutions[0]);
+        } else if (type == Attribute.Type.node) {
+            DyNodeAttribute attribute = graph.newLocalNodeAttribute(attributeName, evolutions[0]);
+            attribute.startBulkNotification();
+            for (int i = 1; i < evolutionCount; i++) {
+                attribute.set(nodes[elementIndices[i - 1]], evolutions[i]);
+            }
+            attribute.stopBulkNotification();
+        } else {
+            DyEdgeAttribute attribute = graph.newLocalEdgeAttribute(attributeName, evolutions[0]);
+            attribute.startBulkNotification();
+            for (int i = 1; i < evolutionCount; i++) {
+                attribute.set(edges[elementIndices[i - 1]], evolutions[i]);
+            }
+            attribute.stopBulkNotification();
+        }
+    }
+
+    /**
+     * Reads an array of integers and advances the buffer.
+     *
+     * @param buffer the buffer.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Reads an array of doubles and advances the buffer.
+     *
+     * @param buffer the buffer.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * Reads an array of bytes and advances the buffer.
+     *
+     * @param buffer the buffer.
+     * @param count the number of values.
+     * @return the values.
+     */
+    private static byte[] readBytes(ByteBuffer buffer, int count) {
+        byte[] values = new byte[count];
+        buffer.get(values);
+        return values;
+    }
+}
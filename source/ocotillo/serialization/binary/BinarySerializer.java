@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.binary;
+
+import java.io.File;
+import java.util.function.Predicate;
+import ocotillo.dygraph.DyGraph;
+
+/**
+ * Reads and writes dynamic graphs in a compact binary format. Evolutions are
+ * stored as numeric columns rather than as text, so that a laid out graph can
+ * be saved and reloaded without formatting and parsing its functions.
+ * Clusters are not stored.
+ */
+public class BinarySerializer {
+
+    /**
+     * Reads a binary file and generates a dynamic graph.
+     *
+     * @param file the input binary file.
+     * @return the generated dynamic graph.
+     */
+    public DyGraph readDynamicFile(File file) {
+        return readDynamicFile(file, attributeName -> true);
+    }
+
+    /**
+     * Reads a binary file and generates a dynamic graph containing only the
+     * attributes whose name satisfies the given condition. The other
+     * attributes are skipped without being decoded.
+     *
+     * @param file the input binary file.
+     * @param attributeFilter the condition on the attribute names.
+     * @return the generated dynamic graph.
+     */
+    public DyGraph readDynamicFile(File file, Predicate<String> attributeFilter) {
+        BinaryReader reader = new BinaryReader();
+        return reader.read(file, attributeFilter);
+    }
+
+    /**
+     * Writes a dynamic graph in the given file.
+     *
+     * @param graph the graph to write.
+     * @param file the destination file.
+     */
+    public void writeFile(DyGraph graph, File file) {
+        BinaryWriter writer = new BinaryWriter();
+        writer.write(graph, file);
+    }
+}
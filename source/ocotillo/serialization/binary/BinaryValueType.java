@@ -0,0 +1,246 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.binary;
+
+import java.awt.Color;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.StdAttribute.ClusterShape;
+import ocotillo.graph.StdAttribute.EdgeShape;
+import ocotillo.graph.StdAttribute.NodeShape;
+
+/**
+ * The types of value that can be stored in a binary dynamic graph file. Each
+ * type knows how to write and read its values and how to build the
+ * interpolated functions for them.
+ */
+enum BinaryValueType {
+
+    booleanValue(Boolean.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeByte((Boolean) value ? 1 : 0);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return buffer.get() != 0;
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Boolean(interval, (Boolean) leftValue, (Boolean) rightValue, interpolation);
+        }
+    },
+    integerValue(Integer.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt((Integer) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return buffer.getInt();
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Integer(interval, (Integer) leftValue, (Integer) rightValue, interpolation);
+        }
+    },
+    doubleValue(Double.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeDouble((Double) value);
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return buffer.getDouble();
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Double(interval, (Double) leftValue, (Double) rightValue, interpolation);
+        }
+    },
+    stringValue(String.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt(strings.indexOf((String) value));
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return strings[buffer.getInt()];
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.String(interval, (String) leftValue, (String) rightValue, interpolation);
+        }
+    },
+    coordinatesValue(Coordinates.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            Coordinates coordinates = (Coordinates) value;
+            output.writeByte(coordinates.dim());
+            for (int i = 0; i < coordinates.dim(); i++) {
+                output.writeDouble(coordinates.get(i));
+            }
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            int dim = buffer.get();
+            Coordinates coordinates = new Coordinates(dim);
+            for (int i = 0; i < dim; i++) {
+                coordinates.setAt(i, buffer.getDouble());
+            }
+            return coordinates;
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Coordinates(interval, (Coordinates) leftValue, (Coordinates) rightValue, interpolation);
+        }
+    },
+    colorValue(Color.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt(((Color) value).getRGB());
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return new Color(buffer.getInt(), true);
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.Color(interval, (Color) leftValue, (Color) rightValue, interpolation);
+        }
+    },
+    nodeShapeValue(NodeShape.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt(strings.indexOf(((NodeShape) value).name()));
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return NodeShape.valueOf(strings[buffer.getInt()]);
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.NodeShape(interval, (NodeShape) leftValue, (NodeShape) rightValue, interpolation);
+        }
+    },
+    edgeShapeValue(EdgeShape.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt(strings.indexOf(((EdgeShape) value).name()));
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return EdgeShape.valueOf(strings[buffer.getInt()]);
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.EdgeShape(interval, (EdgeShape) leftValue, (EdgeShape) rightValue, interpolation);
+        }
+    },
+    clusterShapeValue(ClusterShape.class) {
+        @Override
+        void write(DataOutputStream output, Object value, StringTable strings) throws IOException {
+            output.writeInt(strings.indexOf(((ClusterShape) value).name()));
+        }
+
+        @Override
+        Object read(ByteBuffer buffer, String[] strings) {
+            return ClusterShape.valueOf(strings[buffer.getInt()]);
+        }
+
+        @Override
+        Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation) {
+            return new FunctionRect.ClusterShape(interval, (ClusterShape) leftValue, (ClusterShape) rightValue, interpolation);
+        }
+    };
+
+    private final Class<?> typeClass;
+
+    private BinaryValueType(Class<?> typeClass) {
+        this.typeClass = typeClass;
+    }
+
+    /**
+     * Writes a value.
+     *
+     * @param output the output.
+     * @param value the value.
+     * @param strings the string table.
+     * @throws IOException if the value cannot be written.
+     */
+    abstract void write(DataOutputStream output, Object value, StringTable strings) throws IOException;
+
+    /**
+     * Reads a value at the current buffer position.
+     *
+     * @param buffer the buffer.
+     * @param strings the string table.
+     * @return the value.
+     */
+    abstract Object read(ByteBuffer buffer, String[] strings);
+
+    /**
+     * Builds an interpolated function for this type of value.
+     *
+     * @param interval the definition interval.
+     * @param leftValue the initial value.
+     * @param rightValue the final value.
+     * @param interpolation the interpolation.
+     * @return the function.
+     */
+    abstract Function<?> rect(Interval interval, Object leftValue, Object rightValue, Interpolation interpolation);
+
+    /**
+     * Gets the value type that stores the values of an attribute.
+     *
+     * @param attributeName the attribute name.
+     * @param sampleValue a value of the attribute.
+     * @return the value type.
+     */
+    static BinaryValueType of(String attributeName, Object sampleValue) {
+        Class<?> type = StdAttribute.isStandard(attributeName)
+                ? StdAttribute.get(attributeName).matchingClass : sampleValue.getClass();
+        for (BinaryValueType valueType : values()) {
+            if (valueType.typeClass.equals(type)) {
+                return valueType;
+            }
+        }
+        throw new UnsupportedOperationException("Binary representation for the type " + type.getSimpleName() + " is not available.");
+    }
+}
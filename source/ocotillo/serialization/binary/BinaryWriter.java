@@ -0,0 +1,304 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.FunctionConst;
+import ocotillo.dygraph.FunctionRect;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Attribute;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Element;
+import ocotillo.graph.ElementAttribute;
+import ocotillo.graph.Node;
+
+/**
+ * Writer for binary dynamic graph files.
+ * <p>
+ * A file starts with a fixed size header containing the format version and
+ * the position of the string table, which is written last. The header is
+ * followed by the graph hierarchy, the ids, sources and targets of the
+ * elements as arrays of indices, the members of each subgraph and finally
+ * the attributes. Each attribute is stored as a block of columns: the element
+ * indices, the number of function pieces and the default value of each
+ * evolution, and then one column for each property of the pieces. Each block
+ * is preceded by its length, so that the reader can skip it.
+ */
+public class BinaryWriter {
+
+    static final int magic = 0x44594742;
+    static final short version = 1;
+    static final int tableOffsetPosition = 8;
+
+    static final byte constPiece = 0;
+    static final byte rectPiece = 1;
+
+    /**
+     * Constructs a binary writer.
+     */
+    protected BinaryWriter() {
+    }
+
+    /**
+     * Writes a dynamic graph in a binary file.
+     *
+     * @param graph the graph.
+     * @param file the destination file.
+     */
+    protected void write(DyGraph graph, File file) {
+        try (FileOutputStream fileStream = new FileOutputStream(file)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileStream, 1 << 16));
+            StringTable strings = new StringTable();
+
+            List<DyGraph> graphs = new ArrayList<>();
+            collectGraphs(graph, graphs);
+            List<Node> nodes = new ArrayList<>(graph.nodes());
+            List<Edge> edges = new ArrayList<>(graph.edges());
+            Map<Element, Integer> indices = new HashMap<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                indices.put(nodes.get(i), i);
+            }
+            for (int i = 0; i < edges.size(); i++) {
+                indices.put(edges.get(i), i);
+            }
+
+            int attributeCount = 0;
+            for (DyGraph level : graphs) {
+                for (Attribute.Type type : storedTypes()) {
+                    attributeCount += storedAttributes(level, type).size();
+                }
+            }
+
+            output.writeInt(magic);
+            output.writeShort(version);
+            output.writeShort(0);
+            output.writeLong(0);
+            output.writeInt(graphs.size());
+            output.writeInt(nodes.size());
+            output.writeInt(edges.size());
+            output.writeInt(attributeCount);
+
+            for (DyGraph level : graphs) {
+                output.writeInt(level == graph ? -1 : graphs.indexOf(level.parentGraph()));
+            }
+            for (Node node : nodes) {
+                output.writeInt(strings.indexOf(node.id()));
+            }
+            for (Edge edge : edges) {
+                output.writeInt(strings.indexOf(edge.id()));
+            }
+            for (Edge edge : edges) {
+                output.writeInt(indices.get(edge.source()));
+            }
+            for (Edge edge : edges) {
+                output.writeInt(indices.get(edge.target()));
+            }
+            for (DyGraph subgraph : graphs.subList(1, graphs.size())) {
+                writeIndices(output, subgraph.nodes(), indices);
+                writeIndices(output, subgraph.edges(), indices);
+            }
+
+            for (int i = 0; i < graphs.size(); i++) {
+                DyGraph level = graphs.get(i);
+                for (Attribute.Type type : storedTypes()) {
+                    for (String attributeName : storedAttributes(level, type)) {
+                        writeAttribute(output, level, i, type, attributeName, indices, strings);
+                    }
+                }
+            }
+
+            output.flush();
+            long tableOffset = fileStream.getChannel().position();
+            output.writeInt(strings.strings().size());
+            for (String string : strings.strings()) {
+                byte[] bytes = string.getBytes(BinaryReader.charset);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+            output.flush();
+            ByteBuffer offsetBuffer = ByteBuffer.allocate(8).putLong(0, tableOffset);
+            fileStream.getChannel().write(offsetBuffer, tableOffsetPosition);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write on the destination file " + file.getName(), ex);
+        }
+    }
+
+    /**
+     * Collects the graph and its subgraphs in pre-order.
+     *
+     * @param graph the graph.
+     * @param graphs the collected graphs.
+     */
+    private static void collectGraphs(DyGraph graph, List<DyGraph> graphs) {
+        graphs.add(graph);
+        for (DyGraph subgraph : graph.subGraphs()) {
+            collectGraphs(subgraph, graphs);
+        }
+    }
+
+    /**
+     * Returns the types of attributes stored in the file. Clusters are not
+     * stored.
+     *
+     * @return the attribute types.
+     */
+    static Attribute.Type[] storedTypes() {
+        return new Attribute.Type[]{Attribute.Type.graph, Attribute.Type.node, Attribute.Type.edge};
+    }
+
+    /**
+     * Returns the names of the local attributes of a graph that are stored in
+     * the file, in alphabetical order.
+     *
+     * @param graph the graph.
+     * @param type the attribute type.
+     * @return the attribute names.
+     */
+    private static List<String> storedAttributes(DyGraph graph, Attribute.Type type) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Attribute<?>> entry : graph.<Attribute<?>>localAttributes(type).entrySet()) {
+            if (!entry.getValue().isSleeping()) {
+                names.add(entry.getKey());
+            }
+        }
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Writes the number and the indices of a collection of elements.
+     *
+     * @param output the output.
+     * @param elements the elements.
+     * @param indices the element indices.
+     * @throws IOException if the indices cannot be written.
+     */
+    private static void writeIndices(DataOutputStream output, Iterable<? extends Element> elements,
+            Map<Element, Integer> indices) throws IOException {
+        List<Integer> elementIndices = new ArrayList<>();
+        for (Element element : elements) {
+            elementIndices.add(indices.get(element));
+        }
+        output.writeInt(elementIndices.size());
+        for (int index : elementIndices) {
+            output.writeInt(index);
+        }
+    }
+
+    /**
+     * Writes an attribute block. The first evolution of the block is the
+     * default value of the attribute, or the value of a graph attribute,
+     * followed by the values of the elements that do not have the default.
+     *
+     * @param output the output.
+     * @param graph the graph owning the attribute.
+     * @param graphIndex the index of the graph.
+     * @param type the attribute type.
+     * @param attributeName the attribute name.
+     * @param indices the element indices.
+     * @param strings the string table.
+     * @throws IOException if the attribute cannot be written.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void writeAttribute(DataOutputStream output, DyGraph graph, int graphIndex, Attribute.Type type,
+            String attributeName, Map<Element, Integer> indices, StringTable strings) throws IOException {
+        List<Evolution<?>> evolutions = new ArrayList<>();
+        List<Integer> elementIndices = new ArrayList<>();
+        Attribute<?> attribute = graph.attribute(type, attributeName);
+        evolutions.add((Evolution<?>) attribute.getDefault());
+        if (type != Attribute.Type.graph) {
+            ElementAttribute elementAttribute = (ElementAttribute) attribute;
+            Iterable<? extends Element> elements = type == Attribute.Type.node ? graph.nodes() : graph.edges();
+            for (Element element : elements) {
+                if (!elementAttribute.isDefault(element)) {
+                    evolutions.add((Evolution<?>) elementAttribute.get(element));
+                    elementIndices.add(indices.get(element));
+                }
+            }
+        }
+        BinaryValueType valueType = BinaryValueType.of(attributeName, evolutions.get(0).getDefaultValue());
+
+        ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+        DataOutputStream block = new DataOutputStream(blockBytes);
+        List<Function<?>> pieces = new ArrayList<>();
+        block.writeInt(evolutions.size());
+        for (int index : elementIndices) {
+            block.writeInt(index);
+        }
+        for (Evolution<?> evolution : evolutions) {
+            int pieceCount = 0;
+            for (Function<?> piece : evolution) {
+                pieces.add(piece);
+                pieceCount++;
+            }
+            block.writeInt(pieceCount);
+        }
+        for (Evolution<?> evolution : evolutions) {
+            valueType.write(block, evolution.getDefaultValue(), strings);
+        }
+
+        for (Function<?> piece : pieces) {
+            if (piece instanceof FunctionConst) {
+                block.writeByte(constPiece);
+            } else if (piece instanceof FunctionRect) {
+                block.writeByte(rectPiece);
+            } else {
+                throw new UnsupportedOperationException("Binary representation for the following function is not available: " + piece);
+            }
+        }
+        for (Function<?> piece : pieces) {
+            block.writeDouble(piece.interval().leftBound());
+        }
+        for (Function<?> piece : pieces) {
+            block.writeDouble(piece.interval().rightBound());
+        }
+        for (Function<?> piece : pieces) {
+            Interval interval = piece.interval();
+            block.writeByte((interval.isLeftClosed() ? 1 : 0) | (interval.isRightClosed() ? 2 : 0));
+        }
+        for (Function<?> piece : pieces) {
+            valueType.write(block, piece.leftValue(), strings);
+        }
+        for (Function<?> piece : pieces) {
+            valueType.write(block, piece.rightValue(), strings);
+        }
+        for (Function<?> piece : pieces) {
+            block.writeInt(piece instanceof FunctionRect
+                    ? strings.indexOf(((FunctionRect<?>) piece).interpolation().name()) : -1);
+        }
+
+        block.flush();
+        output.writeInt(graphIndex);
+        output.writeByte(type.ordinal());
+        output.writeInt(strings.indexOf(attributeName));
+        output.writeByte(valueType.ordinal());
+        output.writeInt(block.size());
+        blockBytes.writeTo(output);
+    }
+}
@@ -0,0 +1,417 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.dot;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming lexer for the dot language. The input is read through a fixed
+ * size buffer and split into tokens one at a time, so that the memory used
+ * does not depend on the size of the input.
+ */
+class DotLexer {
+
+    /**
+     * The types of dot tokens.
+     */
+    enum Type {
+
+        /**
+         * An unquoted identifier or number.
+         */
+        id,
+        /**
+         * A double quoted string, whose text excludes the quotes.
+         */
+        quoted,
+        /**
+         * An HTML string, whose text excludes the outer angle brackets.
+         */
+        html,
+        openBrace,
+        closeBrace,
+        openBracket,
+        closeBracket,
+        semicolon,
+        comma,
+        equals,
+        plus,
+        /**
+         * An edge operator, either "--" or "->".
+         */
+        edgeOp,
+        /**
+         * The end of the input.
+         */
+        end;
+
+        /**
+         * Checks if the token can be used as a dot identifier.
+         *
+         * @return true for identifiers, quoted and HTML strings.
+         */
+        boolean isValue() {
+            return this == id || this == quoted || this == html;
+        }
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 16];
+    private int position = 0;
+    private int limit = 0;
+    private boolean inputEnded = false;
+
+    private final StringBuilder text = new StringBuilder();
+    private String textValue;
+    private Type type;
+    private int line = 1;
+    private int tokenLine = 1;
+    private boolean atLineStart = true;
+
+    /**
+     * Constructs a lexer over the given reader. The reader is not closed.
+     *
+     * @param reader the reader.
+     */
+    DotLexer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the type of the token read.
+     */
+    Type next() {
+        skipSpacesAndComments();
+        tokenLine = line;
+        text.setLength(0);
+        textValue = null;
+        int c = peek(0);
+        if (c == -1) {
+            type = Type.end;
+            return type;
+        }
+        atLineStart = false;
+        switch (c) {
+            case '{':
+                return punctuation(Type.openBrace);
+            case '}':
+                return punctuation(Type.closeBrace);
+            case '[':
+                return punctuation(Type.openBracket);
+            case ']':
+                return punctuation(Type.closeBracket);
+            case ';':
+                return punctuation(Type.semicolon);
+            case ',':
+                return punctuation(Type.comma);
+            case '=':
+                return punctuation(Type.equals);
+            case '+':
+                return punctuation(Type.plus);
+            case '"':
+                readQuoted();
+                return type;
+            case '<':
+                readHtml();
+                return type;
+            default:
+                if (isEdgeOperator()) {
+                    text.append((char) read()).append((char) read());
+                    type = Type.edgeOp;
+                } else {
+                    readId();
+                }
+                return type;
+        }
+    }
+
+    /**
+     * Returns the type of the current token.
+     *
+     * @return the token type.
+     */
+    Type type() {
+        return type;
+    }
+
+    /**
+     * Returns the text of the current token.
+     *
+     * @return the token text.
+     */
+    String text() {
+        if (textValue == null) {
+            textValue = text.toString();
+        }
+        return textValue;
+    }
+
+    /**
+     * Returns the line where the current token starts.
+     *
+     * @return the line number, starting from 1.
+     */
+    int line() {
+        return tokenLine;
+    }
+
+    /**
+     * Consumes a single character token.
+     *
+     * @param punctuationType the token type.
+     * @return the token type.
+     */
+    private Type punctuation(Type punctuationType) {
+        text.append((char) read());
+        type = punctuationType;
+        return type;
+    }
+
+    /**
+     * Skips white spaces, comments and preprocessor lines.
+     */
+    private void skipSpacesAndComments() {
+        while (true) {
+            int c = peek(0);
+            if (c == -1) {
+                return;
+            } else if (Character.isWhitespace(c)) {
+                read();
+            } else if (c == '#' && atLineStart) {
+                skipToLineEnd();
+            } else if (c == '/' && peek(1) == '/') {
+                skipToLineEnd();
+            } else if (c == '/' && peek(1) == '*') {
+                read();
+                read();
+                while (peek(0) != -1 && !(peek(0) == '*' && peek(1) == '/')) {
+                    read();
+                }
+                read();
+                read();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips the characters up to the end of the current line.
+     */
+    private void skipToLineEnd() {
+        while (peek(0) != -1 && peek(0) != '\n') {
+            read();
+        }
+    }
+
+    /**
+     * Reads a double quoted string. Escaped quotes are kept as they are. A
+     * backslash followed by a new line is a line continuation and is removed,
+     * while other new lines are collapsed with their surrounding white spaces
+     * into a single space.
+     */
+    private void readQuoted() {
+        int startLine = line;
+        read();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new UnsupportedOperationException("The string starting at line " + startLine + " is not closed.");
+            } else if (c == '"') {
+                break;
+            } else if (c == '\\' && isNewLine(peek(0))) {
+                skipNewLine();
+            } else if (c == '\\') {
+                text.append('\\');
+                if (peek(0) != -1) {
+                    text.append((char) read());
+                }
+            } else if (isNewLine(c)) {
+                if (c == '\r' && peek(0) == '\n') {
+                    read();
+                }
+                collapseNewLine();
+            } else {
+                text.append((char) c);
+            }
+        }
+        type = Type.quoted;
+    }
+
+    /**
+     * Skips a new line sequence.
+     */
+    private void skipNewLine() {
+        if (read() == '\r' && peek(0) == '\n') {
+            read();
+        }
+    }
+
+    /**
+     * Replaces a new line in a quoted string, together with the white spaces
+     * that surround it, with a single space.
+     */
+    private void collapseNewLine() {
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        text.setLength(end);
+        while (peek(0) == ' ' || peek(0) == '\t') {
+            read();
+        }
+        text.append(' ');
+    }
+
+    /**
+     * Reads an HTML string, delimited by matching angle brackets.
+     */
+    private void readHtml() {
+        int startLine = line;
+        read();
+        int depth = 1;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new UnsupportedOperationException("The HTML string starting at line " + startLine + " is not closed.");
+            } else if (c == '<') {
+                depth++;
+            } else if (c == '>' && --depth == 0) {
+                break;
+            }
+            text.append((char) c);
+        }
+        type = Type.html;
+    }
+
+    /**
+     * Reads an unquoted identifier.
+     */
+    private void readId() {
+        while (true) {
+            int c = peek(0);
+            if (c == -1 || Character.isWhitespace(c) || isDelimiter(c) || isEdgeOperator()
+                    || (c == '/' && (peek(1) == '/' || peek(1) == '*'))) {
+                break;
+            }
+            text.append((char) read());
+        }
+        type = Type.id;
+    }
+
+    /**
+     * Checks if a character terminates an unquoted identifier.
+     *
+     * @param c the character.
+     * @return true if it is a delimiter.
+     */
+    private static boolean isDelimiter(int c) {
+        switch (c) {
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case ';':
+            case ',':
+            case '=':
+            case '+':
+            case '"':
+            case '<':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if the next characters form an edge operator.
+     *
+     * @return true if an edge operator follows.
+     */
+    private boolean isEdgeOperator() {
+        return peek(0) == '-' && (peek(1) == '-' || peek(1) == '>');
+    }
+
+    /**
+     * Checks if a character starts a new line.
+     *
+     * @param c the character.
+     * @return true for line feeds and carriage returns.
+     */
+    private static boolean isNewLine(int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /**
+     * Returns a character ahead in the input without consuming it.
+     *
+     * @param offset the offset from the current position, at most 1.
+     * @return the character, or -1 if the input ends before.
+     */
+    private int peek(int offset) {
+        if (position + offset >= limit) {
+            fill();
+            if (position + offset >= limit) {
+                return -1;
+            }
+        }
+        return buffer[position + offset];
+    }
+
+    /**
+     * Consumes a character of the input.
+     *
+     * @return the character, or -1 at the end of the input.
+     */
+    private int read() {
+        int c = peek(0);
+        if (c != -1) {
+            position++;
+            if (c == '\n') {
+                line++;
+                atLineStart = true;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Moves the unread characters at the beginning of the buffer and fills
+     * the rest from the reader.
+     */
+    private void fill() {
+        if (inputEnded) {
+            return;
+        }
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        try {
+            int count = reader.read(buffer, limit, buffer.length - limit);
+            if (count == -1) {
+                inputEnded = true;
+            } else {
+                limit += count;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to read the dot input.", ex);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.dot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ocotillo.serialization.dot.DotLexer.Type;
+import ocotillo.serialization.dot.DotTools.DotAttributes;
+
+/**
+ * Streaming parser for the dot language. Reads the statements of a graph one
+ * token at a time and collects the dot attributes of the graph, of its nodes
+ * and of its edges. Subgraphs are not supported.
+ */
+class DotParser {
+
+    private final DotLexer lexer;
+    private final DotAttributes graphAttributes;
+    private final DotAttributes defaultNodeAttributes;
+    private final DotAttributes defaultEdgeAttributes;
+    private final Map<String, DotAttributes> nodeAttributes;
+    private final List<DotAttributes> edgeAttributes;
+    private final Map<String, String> attributeNames = new HashMap<>();
+
+    /**
+     * Constructs a dot parser.
+     *
+     * @param lexer the lexer providing the tokens.
+     * @param graphAttributes the collector of graph attributes.
+     * @param defaultNodeAttributes the collector of the global node
+     * attributes.
+     * @param defaultEdgeAttributes the collector of the global edge
+     * attributes.
+     * @param nodeAttributes the collector of the attributes of each node.
+     * @param edgeAttributes the collector of the attributes of each edge.
+     */
+    DotParser(DotLexer lexer, DotAttributes graphAttributes, DotAttributes defaultNodeAttributes,
+            DotAttributes defaultEdgeAttributes, Map<String, DotAttributes> nodeAttributes, List<DotAttributes> edgeAttributes) {
+        this.lexer = lexer;
+        this.graphAttributes = graphAttributes;
+        this.defaultNodeAttributes = defaultNodeAttributes;
+        this.defaultEdgeAttributes = defaultEdgeAttributes;
+        this.nodeAttributes = nodeAttributes;
+        this.edgeAttributes = edgeAttributes;
+    }
+
+    /**
+     * Parses a graph. An empty input is accepted and produces no attributes.
+     * The input following the graph closing brace is ignored.
+     */
+    void parseGraph() {
+        lexer.next();
+        if (lexer.type() == Type.end) {
+            return;
+        }
+        if (isKeyword("strict")) {
+            graphAttributes.put(DotTools.strictAttr, "true");
+            lexer.next();
+        }
+        if (isKeyword("digraph")) {
+            graphAttributes.put(DotTools.directedAttr, "true");
+        } else if (isKeyword("graph")) {
+            graphAttributes.put(DotTools.directedAttr, "false");
+        } else {
+            throw unsupported("a graph or digraph declaration");
+        }
+        lexer.next();
+        if (lexer.type().isValue()) {
+            graphAttributes.put(DotTools.graphNameAttr, readValue());
+        }
+        expect(Type.openBrace, "an opening brace");
+        lexer.next();
+
+        while (lexer.type() != Type.closeBrace) {
+            if (lexer.type() == Type.end) {
+                throw unsupported("a closing brace");
+            } else if (lexer.type() == Type.semicolon) {
+                lexer.next();
+            } else {
+                parseStatement();
+            }
+        }
+    }
+
+    /**
+     * Parses a single statement.
+     */
+    private void parseStatement() {
+        if (isKeyword("graph")) {
+            lexer.next();
+            parseAttributeLists(graphAttributes);
+        } else if (isKeyword("node")) {
+            lexer.next();
+            parseAttributeLists(defaultNodeAttributes);
+        } else if (isKeyword("edge")) {
+            lexer.next();
+            parseAttributeLists(defaultEdgeAttributes);
+        } else if (isKeyword("subgraph") || lexer.type() == Type.openBrace) {
+            throw new UnsupportedOperationException("The subgraph at line " + lexer.line() + " is not supported.");
+        } else {
+            String id = readValue();
+            if (lexer.type() == Type.equals) {
+                lexer.next();
+                graphAttributes.put(attributeName(id), readValue());
+            } else if (lexer.type() == Type.edgeOp) {
+                parseEdgeStatement(id);
+            } else {
+                parseAttributeLists(nodeAttributes(id));
+            }
+        }
+    }
+
+    /**
+     * Parses an edge statement. Supports the definition of multiple edges in
+     * the same statement, as allowed by the dot format. Example a -- b -- c.
+     *
+     * @param firstId the id of the first node of the statement.
+     */
+    private void parseEdgeStatement(String firstId) {
+        List<String> nodeIds = new ArrayList<>();
+        List<String> directions = new ArrayList<>();
+        nodeIds.add(firstId);
+        while (lexer.type() == Type.edgeOp) {
+            directions.add(lexer.text().equals("->") ? "true" : "false");
+            lexer.next();
+            if (isKeyword("subgraph") || lexer.type() == Type.openBrace) {
+                throw new UnsupportedOperationException("The subgraph at line " + lexer.line() + " is not supported.");
+            }
+            nodeIds.add(readValue());
+        }
+
+        DotAttributes multiEdgeAttributes = new DotAttributes();
+        parseAttributeLists(multiEdgeAttributes);
+
+        for (int i = 0; i < directions.size(); i++) {
+            nodeAttributes(nodeIds.get(i));
+            nodeAttributes(nodeIds.get(i + 1));
+            DotAttributes currentEdgeAttributes = new DotAttributes();
+            currentEdgeAttributes.put(DotTools.edgeSourceAttr, nodeIds.get(i));
+            currentEdgeAttributes.put(DotTools.edgeTargetAttr, nodeIds.get(i + 1));
+            currentEdgeAttributes.put(DotTools.directedAttr, directions.get(i));
+            currentEdgeAttributes.putAll(multiEdgeAttributes);
+            edgeAttributes.add(currentEdgeAttributes);
+        }
+    }
+
+    /**
+     * Parses zero or more attribute lists, such as [a=1, b=2] [c=3].
+     *
+     * @param attributes the collector of the parsed attributes.
+     */
+    private void parseAttributeLists(DotAttributes attributes) {
+        while (lexer.type() == Type.openBracket) {
+            lexer.next();
+            while (lexer.type() != Type.closeBracket) {
+                if (lexer.type() == Type.comma || lexer.type() == Type.semicolon) {
+                    lexer.next();
+                    continue;
+                }
+                String name = attributeName(readValue());
+                expect(Type.equals, "a value for the attribute " + name);
+                lexer.next();
+                attributes.put(name, readValue());
+            }
+            lexer.next();
+        }
+    }
+
+    /**
+     * Reads a dot identifier, concatenating the quoted strings joined by a
+     * plus sign, and moves to the following token.
+     *
+     * @return the identifier.
+     */
+    private String readValue() {
+        if (!lexer.type().isValue()) {
+            throw unsupported("an identifier");
+        }
+        String value = lexer.text();
+        lexer.next();
+        while (lexer.type() == Type.plus) {
+            lexer.next();
+            expect(Type.quoted, "a quoted string");
+            value += lexer.text();
+            lexer.next();
+        }
+        return value;
+    }
+
+    /**
+     * Gets the attributes of a node, registering the node if it has not been
+     * seen before.
+     *
+     * @param nodeId the node id.
+     * @return the node attributes.
+     */
+    private DotAttributes nodeAttributes(String nodeId) {
+        DotAttributes attributes = nodeAttributes.get(nodeId);
+        if (attributes == null) {
+            attributes = new DotAttributes();
+            nodeAttributes.put(nodeId, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns a shared instance of an attribute name, so that the names
+     * repeated for every element are stored only once.
+     *
+     * @param name the attribute name.
+     * @return the shared instance.
+     */
+    private String attributeName(String name) {
+        String sharedName = attributeNames.get(name);
+        if (sharedName == null) {
+            attributeNames.put(name, name);
+            sharedName = name;
+        }
+        return sharedName;
+    }
+
+    /**
+     * Checks if the current token is the given unquoted keyword. Dot
+     * keywords are case independent.
+     *
+     * @param keyword the keyword.
+     * @return true if the current token is the keyword.
+     */
+    private boolean isKeyword(String keyword) {
+        return lexer.type() == Type.id && lexer.text().equalsIgnoreCase(keyword);
+    }
+
+    /**
+     * Checks that the current token has the expected type.
+     *
+     * @param expectedType the expected type.
+     * @param description the description of the expected token.
+     */
+    private void expect(Type expectedType, String description) {
+        if (lexer.type() != expectedType) {
+            throw unsupported(description);
+        }
+    }
+
+    /**
+     * Builds the exception for an unexpected token.
+     *
+     * @param expected the description of the expected token.
+     * @return the exception.
+     */
+    private UnsupportedOperationException unsupported(String expected) {
+        String found = lexer.type() == Type.end ? "the end of the input" : "\"" + lexer.text() + "\"";
+        return new UnsupportedOperationException("Expected " + expected + " at line " + lexer.line() + ", but found " + found + ".");
+    }
+}
@@ -16,12 +16,12 @@
 package ocotillo.serialization.dot;
 
 import java.awt.Color;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,11 +38,8 @@ import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.rendering.RenderingTools;
 import ocotillo.graph.rendering.svg.SvgElement.SvgPolygon;
-import ocotillo.serialization.ParserTools;
-import ocotillo.serialization.ParserTools.EscapedString;
 import ocotillo.serialization.dot.ConversionSettings.AttributeConvSettings;
 import ocotillo.serialization.dot.DotTools.DotAttributes;
-import ocotillo.serialization.dot.DotTools.DotLineType;
 
 /**
  * Reads and writes graphs in dot format.
@@ -62,6 +59,7 @@ public class DotReader {
     private final DotAttributes defaultEdgeAttributes = new DotAttributes();
     private final Map<String, DotAttributes> nodeAttributes = new HashMap<>();
     private final List<DotAttributes> edgeAttributes = new ArrayList<>();
+    private final Map<String, List<String>> combinedIdTokens = new HashMap<>();
 
     /**
      * Builder for dot reader.
@@ -157,22 +155,17 @@ public class DotReader {
     }
 
     /**
-     * Parses a file and generates a graph.
+     * Parses a file and generates a graph. The file is read as a stream.
      *
      * @param file the input dot file.
      * @return the generated graph.
      */
     public Graph parseFile(File file) {
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line);
-            }
-        } catch (IOException e) {
-            System.err.println("The file " + file.getName() + "is not readable.");
+        try (Reader reader = new FileReader(file)) {
+            return parse(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to read the file " + file.getName(), ex);
         }
-        return parseFile(lines);
     }
 
     /**
@@ -182,234 +175,29 @@ public class DotReader {
      * @return the generated graph.
      */
     public Graph parseFile(List<String> lines) {
-        graphAttributes.clear();
-        nodeAttributes.clear();
-        edgeAttributes.clear();
-
-        List<String> combinedLines = combineLines(lines);
-        for (String line : combinedLines) {
-            EscapedString escapedLine = escapeLine(line);
-            parseLine(escapedLine);
-        }
-
-        return generateGraph();
+        return parse(new StringReader(String.join("\n", lines)));
     }
 
     /**
-     * Combines the input lines so that the graph has a single line for global
-     * properties, nodes and edges.
+     * Parses the dot input provided by a reader and generates a graph. The
+     * input is tokenized as a stream, so that only the collected attributes
+     * are kept in memory. The reader is not closed.
      *
-     * @param lines the input lines.
-     * @return the combined input lines.
-     */
-    private static List<String> combineLines(List<String> lines) {
-        List<String> combinedLines = new ArrayList<>();
-        String currentLine = "";
-        for (String line : lines) {
-            line = line.trim();
-
-            if (!currentLine.isEmpty()) {
-                currentLine += " ";
-            }
-            currentLine += line;
-
-            if (line.endsWith(";") || line.endsWith("{") || line.endsWith("}")) {
-                combinedLines.add(currentLine);
-                currentLine = "";
-            }
-        }
-        return combinedLines;
-    }
-
-    /**
-     * Builds an EscapedString using dot conventions. Everything between double
-     * quotes is considered as a single entity, and is not parsed according to
-     * the dot syntax. These entities might contain a double quotes, but only if
-     * escaped with backslash.
-     *
-     * @param line the input line.
-     * @return its escaped string.
-     */
-    private static EscapedString escapeLine(String line) {
-        // Regular expression with negative lookbehind to ignore escaped quotes.
-        String notEscapedQuotes = "(?<!\\\\)\"";
-        return new EscapedString(line, notEscapedQuotes);
-    }
-
-    /**
-     * Parses a single dot line, provided as an escaped string.
-     *
-     * @param eString a dot line where the quoted portions have been substituted
-     * by place holders.
-     */
-    private void parseLine(EscapedString eString) {
-        List<String> tokens = splitLine(eString);
-        switch (tokens.size()) {
-            case 0:
-                return;
-
-            case 1:
-            case 2:
-                switch (DotLineType.detect(tokens.get(0))) {
-                    case opening:
-                        parseOpeningLine(graphAttributes, eString, tokens);
-                        break;
-
-                    case graphGlobal:
-                        parseGlobalLine(graphAttributes, eString, tokens);
-                        break;
-
-                    case nodeGlobal:
-                        parseGlobalLine(defaultNodeAttributes, eString, tokens);
-                        break;
-
-                    case edgeGlobal:
-                        parseGlobalLine(defaultEdgeAttributes, eString, tokens);
-                        break;
-
-                    case node:
-                        parseNodeLine(nodeAttributes, eString, tokens);
-                        break;
-
-                    case edge:
-                        parseEdgeLine(edgeAttributes, eString, tokens);
-                        break;
-                }
-                break;
-
-            default:
-                throw new UnsupportedOperationException("The line:\n" + eString.original + "\nhas an unsupported syntax.");
-        }
-    }
-
-    /**
-     * Splits an input line into the heading and the eventual attribute string.
-     *
-     * @param line the input line.
-     * @return the line components.
-     */
-    private static List<String> splitLine(EscapedString line) {
-        String[] tokens = line.withSubstitutions.split("[\\[\\];]+");
-        List<String> answer = new ArrayList<>();
-        for (String token : tokens) {
-            String trimmedToken = token.trim();
-            if (!trimmedToken.isEmpty()) {
-                answer.add(trimmedToken);
-            }
-        }
-        return answer;
-    }
-
-    /**
-     * Parses the opening line of a dot file.
-     *
-     * @param graphAttributes the graph attributes.
-     * @param line the line.
-     * @param tokens the line components.
-     */
-    private static void parseOpeningLine(DotAttributes graphAttributes, EscapedString line, List<String> tokens) {
-        String[] headerTokens = tokens.get(0).split("[ \t{}]+");
-        for (String headerToken : headerTokens) {
-            switch (headerToken) {
-                case "strict":
-                    graphAttributes.put(DotTools.strictAttr, "true");
-                    break;
-                case "digraph":
-                    graphAttributes.put(DotTools.directedAttr, "true");
-                    break;
-                case "graph":
-                    graphAttributes.put(DotTools.directedAttr, "false");
-                    break;
-                default:
-                    graphAttributes.put(DotTools.graphNameAttr, line.revertSubst(headerToken));
-            }
-        }
-    }
-
-    /**
-     * Parses a line with global graph, nodes or edges attributes.
-     *
-     * @param graphAttributes the global attributes.
-     * @param line the line.
-     * @param tokens the line components.
-     */
-    private static void parseGlobalLine(DotAttributes attributes, EscapedString line, List<String> tokens) {
-        if (tokens.size() > 1) {
-            attributes.putAll(extractAttributes(line, tokens.get(1)));
-        }
-    }
-
-    /**
-     * Parses a node line.
-     *
-     * @param nodeAttributes the node attributes.
-     * @param line the line.
-     * @param tokens the line components.
+     * @param reader the reader.
+     * @return the generated graph.
      */
-    private static void parseNodeLine(Map<String, DotAttributes> nodeAttributes, EscapedString line, List<String> tokens) {
-        if (tokens.get(0).trim().split(" ").length > 1) {
-            throw new UnsupportedOperationException("The line:\n" + line.original + "\nhas an unsupported syntax.");
-        }
-
-        String nodeId = line.revertSubst(tokens.get(0).trim());
-        if (!nodeAttributes.containsKey(nodeId)) {
-            nodeAttributes.put(nodeId, new DotAttributes());
-        }
-        if (tokens.size() > 1) {
-            DotAttributes attributes = nodeAttributes.get(nodeId);
-            attributes.putAll(extractAttributes(line, tokens.get(1)));
-        }
-    }
+    public Graph parse(Reader reader) {
+        graphAttributes.clear();
+        defaultNodeAttributes.clear();
+        defaultEdgeAttributes.clear();
+        nodeAttributes.clear();
+        edgeAttributes.clear();
 
-    /**
-     * Parses an edge line. Supports the definition of multiple edges in the
-     * same line, as allowed by the dot format. Example a -- b -- c.
-     *
-     * @param edgeAttributes the edge attributes.
-     * @param line the line.
-     * @param tokens the line components.
-     */
-    private static void parseEdgeLine(List<DotAttributes> edgeAttributes, EscapedString line, List<String> tokens) {
-        String[] multiEdgeDefinition = tokens.get(0).trim().split(String.format(ParserTools.SPLIT_KEEP_DELIMITERS, "(--|->)"));
-        if (multiEdgeDefinition.length % 2 != 1) {
-            throw new UnsupportedOperationException("The line:\n" + line.original + "\nhas an unsupported syntax.");
-        }
-        DotAttributes multiEdgeAttributes = new DotAttributes();
-        if (tokens.size() > 1) {
-            multiEdgeAttributes.putAll(extractAttributes(line, tokens.get(1)));
-        }
-        for (int i = 0; i < multiEdgeDefinition.length - 2; i = i + 2) {
-            String source = line.revertSubst(multiEdgeDefinition[i]).trim();
-            String target = line.revertSubst(multiEdgeDefinition[i + 2]).trim();
-            String edge = line.revertSubst(multiEdgeDefinition[i + 1]);
-            DotAttributes currentEdgeAttributes = new DotAttributes();
-            currentEdgeAttributes.put(DotTools.edgeSourceAttr, source);
-            currentEdgeAttributes.put(DotTools.edgeTargetAttr, target);
-            currentEdgeAttributes.put(DotTools.directedAttr, edge.equals("->") ? "true" : "false");
-            currentEdgeAttributes.putAll(multiEdgeAttributes);
-            edgeAttributes.add(currentEdgeAttributes);
-        }
-    }
+        DotParser parser = new DotParser(new DotLexer(reader), graphAttributes,
+                defaultNodeAttributes, defaultEdgeAttributes, nodeAttributes, edgeAttributes);
+        parser.parseGraph();
 
-    /**
-     * Extracts the dot attributes from a line.
-     *
-     * @param line the line.
-     * @param attributeToken the attribute string of that line.
-     * @return the collection of dot attributes.
-     */
-    private static DotAttributes extractAttributes(EscapedString line, String attributeToken) {
-        DotAttributes attributes = new DotAttributes();
-        String[] tokens = attributeToken.split("[,= \t]+");
-        if (tokens.length % 2 != 0) {
-            throw new UnsupportedOperationException("The attribute line:\n" + attributeToken + "\nhas an unsupported syntax.");
-        }
-        for (int i = 0; i < tokens.length; i++) {
-            String attributeName = line.revertSubst(tokens[i]);
-            String attributeValue = line.revertSubst(tokens[++i]);
-            attributes.put(attributeName, attributeValue);
-        }
-        return attributes;
+        return generateGraph();
     }
 
     /**
@@ -663,6 +451,44 @@ public class DotReader {
         RenderingTools.Graphics.addLocalGraphicLast(subgraph, svgPolygon);
     }
 
+    /**
+     * Splits a combined attribute id into alternating runs of attribute id
+     * characters and of other characters. The result is computed once for
+     * each combined id, as it is needed for every graph element.
+     *
+     * @param combinedDotId the combined attribute id.
+     * @return the tokens of the combined id.
+     */
+    private List<String> combinedIdTokens(String combinedDotId) {
+        List<String> tokens = combinedIdTokens.get(combinedDotId);
+        if (tokens == null) {
+            tokens = new ArrayList<>();
+            int tokenStart = 0;
+            for (int i = 1; i <= combinedDotId.length(); i++) {
+                if (i == combinedDotId.length()
+                        || isAttributeIdChar(combinedDotId.charAt(i)) != isAttributeIdChar(combinedDotId.charAt(tokenStart))) {
+                    tokens.add(combinedDotId.substring(tokenStart, i));
+                    tokenStart = i;
+                }
+            }
+            combinedIdTokens.put(combinedDotId, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Checks if a character can be part of a dot attribute id in a combined
+     * attribute id.
+     *
+     * @param character the character.
+     * @return true for ASCII letters and digits.
+     */
+    private static boolean isAttributeIdChar(char character) {
+        return (character >= 'a' && character <= 'z')
+                || (character >= 'A' && character <= 'Z')
+                || (character >= '0' && character <= '9');
+    }
+
     /**
      * A class storing a polygon and its color.
      */
@@ -745,8 +571,11 @@ public class DotReader {
         private Set<String> specifiedAttributes(List<AttributeConvSettings> attributesToConvert) {
             Set<String> specifiedAttributes = new HashSet<>();
             for (AttributeConvSettings attributeSettings : attributesToConvert) {
-                String[] singleAttributes = attributeSettings.sourceAttrId.split("[^a-zA-Z0-9]+");
-                specifiedAttributes.addAll(Arrays.asList(singleAttributes));
+                for (String token : combinedIdTokens(attributeSettings.sourceAttrId)) {
+                    if (isAttributeIdChar(token.charAt(0))) {
+                        specifiedAttributes.add(token);
+                    }
+                }
             }
             return specifiedAttributes;
         }
@@ -766,21 +595,20 @@ public class DotReader {
          * @return the result string.
          */
         protected String getCombinedAttributeValue(String combinedDotId, DotAttributes attributes) {
-            String[] combineAttrTokens = combinedDotId.split(String.format(ParserTools.SPLIT_KEEP_DELIMITERS, "[^a-zA-Z0-9]+"));
-            String value = "";
-            for (String token : combineAttrTokens) {
-                boolean isAttributeId = token.matches("[a-zA-Z0-9]+");
+            StringBuilder value = new StringBuilder();
+            for (String token : combinedIdTokens(combinedDotId)) {
+                boolean isAttributeId = isAttributeIdChar(token.charAt(0));
                 if (isAttributeId) {
                     if (attributes.containsKey(token)) {
-                        value += attributes.get(token);
+                        value.append(attributes.get(token));
                     } else {
                         return null;
                     }
                 } else {
-                    value += token;
+                    value.append(token);
                 }
             }
-            return value;
+            return value.toString();
         }
 
         /**
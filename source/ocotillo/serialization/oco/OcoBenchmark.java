@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.oco;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.serialization.ParserTools;
+
+/**
+ * Compares reading and writing a dynamic oco file through in-memory lines
+ * with the streaming reader and writer. For each approach, the elapsed time
+ * and the peak heap usage are reported.
+ */
+public class OcoBenchmark {
+
+    /**
+     * Executes the benchmark.
+     *
+     * @param argv the oco file, optionally followed by the number of nodes and
+     * of presence intervals per node of a synthetic graph to be written in
+     * the file first.
+     */
+    public static void main(String[] argv) {
+        if (argv.length != 1 && argv.length != 3) {
+            System.out.println("Usage: OcoBenchmark <file.oco> [<nodes> <intervalsPerNode>]");
+            System.out.println("When the number of nodes is given, a synthetic dynamic graph is written in the file first.");
+            return;
+        }
+
+        File file = new File(argv[0]);
+        OcoSerializer serializer = new OcoSerializer();
+        if (argv.length == 3) {
+            DyGraph synthetic = syntheticGraph(Integer.parseInt(argv[1]), Integer.parseInt(argv[2]));
+            serializer.writeFile(synthetic, file);
+        }
+        System.out.println("File: " + file.getName() + " (" + file.length() / (1024 * 1024) + " MB)");
+
+        DyGraph graph = measure("Read lines", () -> serializer.readDynamic(ParserTools.readFileLines(file)));
+        graph = null;
+        graph = measure("Read stream", () -> serializer.readDynamicFile(file));
+        System.out.println("Nodes: " + graph.nodeCount() + ", edges: " + graph.edgeCount());
+
+        DyGraph readGraph = graph;
+        File output = new File(file.getPath() + ".out");
+        measure("Write lines", () -> {
+            List<String> lines = serializer.write(readGraph);
+            ParserTools.writeFileLines(lines, output);
+            return lines.size();
+        });
+        measure("Write stream", () -> {
+            serializer.writeFile(readGraph, output);
+            return output.length();
+        });
+        output.delete();
+    }
+
+    /**
+     * Measures the time and the peak heap usage of a task.
+     *
+     * @param <T> the type of result.
+     * @param name the name of the task.
+     * @param task the task.
+     * @return the task result.
+     */
+    private static <T> T measure(String name, Supplier<T> task) {
+        System.gc();
+        long baseline = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                baseline += pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+        }
+        long startTime = System.nanoTime();
+        T result = task.get();
+        long elapsed = (System.nanoTime() - startTime) / 1000000;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println(String.format("%-13s %8d ms  peak heap %6d MB (+%d MB)", name, elapsed,
+                peak / (1024 * 1024), Math.max(0, peak - baseline) / (1024 * 1024)));
+        return result;
+    }
+
+    /**
+     * Generates a dynamic graph whose nodes and edges appear and disappear
+     * several times, similarly to a contact network.
+     *
+     * @param nodeCount the number of nodes.
+     * @param intervalsPerNode the number of presence intervals per node.
+     * @return the synthetic dynamic graph.
+     */
+    private static DyGraph syntheticGraph(int nodeCount, int intervalsPerNode) {
+        Random random = new Random(42);
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> nodePresence = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        DyEdgeAttribute<Boolean> edgePresence = graph.edgeAttribute(StdAttribute.dyPresence);
+
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = graph.newNode();
+            EvoBuilder.Builder<Boolean> presence = EvoBuilder.defaultAt(false);
+            EvoBuilder.Builder<Coordinates> position = EvoBuilder.defaultAt(new Coordinates(0, 0));
+            double time = random.nextDouble();
+            for (int j = 0; j < intervalsPerNode; j++) {
+                Interval interval = Interval.newClosed(time, time + 1 + random.nextDouble());
+                presence.withConst(interval, true);
+                position.withRect(interval, new Coordinates(random.nextDouble(), random.nextDouble()),
+                        new Coordinates(random.nextDouble(), random.nextDouble()), Interpolation.Std.linear);
+                time = interval.rightBound() + 1 + random.nextDouble();
+            }
+            nodePresence.set(nodes[i], presence.build());
+            positions.set(nodes[i], position.build());
+        }
+        for (int i = 1; i < nodeCount; i++) {
+            Edge edge = graph.newEdge(nodes[i], nodes[random.nextInt(i)]);
+            double time = random.nextDouble() * intervalsPerNode;
+            edgePresence.set(edge, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(time, time + random.nextDouble()), true).build());
+        }
+        return graph;
+    }
+}
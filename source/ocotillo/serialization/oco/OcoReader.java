@@ -15,8 +15,16 @@
  */
 package ocotillo.serialization.oco;
 
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import ocotillo.graph.*;
 
@@ -32,6 +40,16 @@ import ocotillo.graph.*;
 public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
         U extends GraphAttribute<?>, V extends NodeAttribute<?>, Z extends EdgeAttribute<?>, C extends ClusterAttribute<?>> {
 
+    /**
+     * The number of element lines whose values are converted together.
+     */
+    private static final int conversionChunkSize = 4096;
+
+    /**
+     * The minimum number of lines for a chunk to be converted in parallel.
+     */
+    private static final int parallelConversionThreshold = 256;
+
     private final OcoConverterSet converters;
     private final GraphGenerator<T, U, V, Z, C> generator;
     private final String graphHeader;
@@ -70,59 +88,73 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
      * @return the generated graph.
      */
     protected T read(List<String> lines) {
-        LinkedList<T> graphStack = new LinkedList<>();
+        return read(lines.iterator());
+    }
 
-        LinkedList<Block> blocks = getBlocks(lines);
-        while (!blocks.isEmpty()) {
-            parseGraphBlock(blocks, graphStack);
-            parseNodeBlock(blocks, graphStack.peek());
-            parseEdgeBlock(blocks, graphStack.peek());
+    /**
+     * Reads a graph in oco format from a reader. The input is parsed one line
+     * at a time, and the elements of each block are added to the graph as
+     * soon as their line is read. The reader is not closed.
+     *
+     * @param reader the reader.
+     * @return the generated graph.
+     */
+    protected T read(Reader reader) {
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        try {
+            return read(bufferedReader.lines().iterator());
+        } catch (UncheckedIOException ex) {
+            throw new IllegalStateException("Impossible to read the oco input.", ex.getCause());
         }
-
-        return graphStack.peekLast();
     }
 
     /**
-     * Groups the oco file lines into blocks.
+     * Reads the given oco lines and generates a graph.
      *
-     * @param lines the lines.
-     * @return the blocks
+     * @param lines the iterator over the lines in oco format.
+     * @return the generated graph.
      */
-    private static LinkedList<Block> getBlocks(List<String> lines) {
-        LinkedList<Block> blocks = new LinkedList<>();
-        LinkedList<Line> blockLines = null;
-        int lineNumber = 1;
-
-        for (String line : lines) {
-            line = line.trim();
+    private T read(Iterator<String> lines) {
+        LinkedList<T> graphStack = new LinkedList<>();
+        LineCursor cursor = new LineCursor(lines);
+        cursor.skipToHeader();
 
-            if (line.startsWith("#")) {
-                if (blockLines != null) {
-                    blocks.add(new Block(blockLines));
-                }
-                blockLines = new LinkedList<>();
+        Block block = cursor.nextBlock();
+        if (block == null) {
+            throw new MalformedFileException(cursor.lineNumber, "the input does not contain any graph block.");
+        }
+        while (block != null) {
+            T graph = parseGraphBlock(block, cursor, graphStack);
+            block = cursor.nextBlock();
+            if (block != null && isNodeBlock(block)) {
+                parseNodeBlock(block, cursor, graph);
+                block = cursor.nextBlock();
             }
-
-            if (!line.isEmpty() && blockLines != null) {
-                blockLines.add(new Line(line, lineNumber));
+            if (block != null && isEdgeBlock(block)) {
+                parseEdgeBlock(block, cursor, graph);
+                block = cursor.nextBlock();
+            }
+            if (block != null && isClusterBlock(block)) {
+                block.forEachValueRow(cursor, row -> {
+                });
+                block = cursor.nextBlock();
             }
-
-            lineNumber++;
         }
 
-        blocks.add(new Block(blockLines));
-        return blocks;
+        return graphStack.peekLast();
     }
 
     /**
-     * Parses the next block in the list, assuming it is a graph one.
+     * Parses a graph block.
      *
-     * @param blocks the blocks.
+     * @param graphBlock the graph block.
+     * @param cursor the cursor on the remaining lines.
      * @param graphStack the current stack of graph levels.
+     * @return the graph defined by the block.
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void parseGraphBlock(LinkedList<Block> blocks, LinkedList<T> graphStack) {
-        Block graphBlock = blocks.pop();
+    private T parseGraphBlock(Block graphBlock, LineCursor cursor, LinkedList<T> graphStack) {
         int graphLevel = checkAndParseGraphHeader(graphBlock, graphStack, graphHeader);
         T graph = createGraphAtLevel(graphStack, graphLevel, generator);
 
@@ -144,6 +176,10 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
             Object value = converter.ocoToGraphLib(attributeValue);
             attribute.setDefault(value);
         }
+
+        graphBlock.forEachValueRow(cursor, row -> {
+        });
+        return graph;
     }
 
     /**
@@ -191,47 +227,49 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
     }
 
     /**
-     * Parses the next block in the list, assuming it is a nodes one.
+     * Parses a nodes block. The node lines are converted in parallel chunks,
+     * while the nodes are created in their original order.
      *
-     * @param blocks the blocks.
+     * @param block the nodes block.
+     * @param cursor the cursor on the remaining lines.
      * @param graph the current graph.
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void parseNodeBlock(LinkedList<Block> blocks, T graph) {
-        Block block = blocks.peek();
-        if (block != null && isNodeBlock(block)) {
-
-            createNodes(block, graph);
-
-            for (int j = 1; j < block.attributeNames.length; j++) {
-                String attributeName = block.getAttributeName(j);
-                String attributeType = block.getAttributeType(j);
-                String attributeDefault = block.getAttributeDefault(j);
-
-                OcoValueConverter<?> converter = getConverter(block, attributeName, attributeType);
-                NodeAttribute attribute = graph.newLocalNodeAttribute(attributeName, converter.baseDefaultValue());
-
-                Object defaultValue;
-                if (!attributeDefault.isEmpty()) {
-                    defaultValue = converter.ocoToGraphLib(attributeDefault);
-                } else if (StdAttribute.isStandard(attributeName)) {
-                    defaultValue = generator.newGraph().nodeAttribute(attributeName).getDefault();
-                } else {
-                    defaultValue = converter.defaultValue();
-                }
+    private void parseNodeBlock(Block block, LineCursor cursor, T graph) {
+        int columns = block.attributeNames.length;
+        OcoValueConverter<?>[] columnConverters = new OcoValueConverter<?>[columns];
+        NodeAttribute[] columnAttributes = new NodeAttribute[columns];
+
+        for (int j = 1; j < columns; j++) {
+            String attributeName = block.getAttributeName(j);
+            String attributeType = block.getAttributeType(j);
+            String attributeDefault = block.getAttributeDefault(j);
+
+            OcoValueConverter<?> converter = getConverter(block, attributeName, attributeType);
+            NodeAttribute attribute = graph.newLocalNodeAttribute(attributeName, converter.baseDefaultValue());
+
+            Object defaultValue;
+            if (!attributeDefault.isEmpty()) {
+                defaultValue = converter.ocoToGraphLib(attributeDefault);
+            } else if (StdAttribute.isStandard(attributeName)) {
+                defaultValue = generator.newGraph().nodeAttribute(attributeName).getDefault();
+            } else {
+                defaultValue = converter.defaultValue();
+            }
 
-                attribute.setDefault(defaultValue);
+            attribute.setDefault(defaultValue);
+            columnConverters[j] = converter;
+            columnAttributes[j] = attribute;
+        }
 
-                for (int i = 0; i < block.values.length; i++) {
-                    Node node = graph.rootGraph().getNode(block.getValue(i, 0));
-                    if (!block.getValue(i, j).isEmpty()) {
-                        attribute.set(node, converter.ocoToGraphLib(block.getValue(i, j)));
-                    }
+        forEachConvertedRow(block, cursor, columnConverters, 1, (row, values) -> {
+            Node node = createNode(row[0], graph);
+            for (int j = 1; j < columns; j++) {
+                if (!row[j].isEmpty()) {
+                    columnAttributes[j].set(node, values[j]);
                 }
             }
-
-            blocks.pop();
-        }
+        });
     }
 
     /**
@@ -249,93 +287,149 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
     }
 
     /**
-     * Creates the graph nodes.
+     * Creates a graph node.
      *
-     * @param block the nodes block.
+     * @param nodeId the node id.
      * @param graph the current graph.
+     * @return the node.
      */
-    private void createNodes(Block block, T graph) {
-        boolean isRootGraph = (graph == graph.rootGraph());
-        for (String[] nodeRows : block.values) {
-            String nodeId = nodeRows[0];
-            if (isRootGraph) {
-                graph.newNode(nodeId);
-            } else {
-                graph.add(graph.rootGraph().getNode(nodeId));
-            }
+    private Node createNode(String nodeId, T graph) {
+        if (graph == graph.rootGraph()) {
+            return graph.newNode(nodeId);
+        } else {
+            Node node = graph.rootGraph().getNode(nodeId);
+            graph.add(node);
+            return node;
         }
     }
 
     /**
-     * Parses the next block in the list, assuming it is a edges one.
+     * Parses an edges block. The edge lines are converted in parallel chunks,
+     * while the edges are created in their original order.
      *
-     * @param blocks the blocks.
+     * @param block the edges block.
+     * @param cursor the cursor on the remaining lines.
      * @param graph the current graph.
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void parseEdgeBlock(LinkedList<Block> blocks, T graph) {
-        Block block = blocks.peek();
-        if (block != null && isEdgeBlock(block)) {
-
-            boolean isRootGraph = (graph == graph.rootGraph());
-            createEdges(block, graph, isRootGraph);
-
-            int startingIndex = isRootGraph ? 3 : 1;
-            for (int j = startingIndex; j < block.attributeNames.length; j++) {
-                String attributeName = block.getAttributeName(j);
-                String attributeType = block.getAttributeType(j);
-                String attributeDefault = block.getAttributeDefault(j);
-
-                OcoValueConverter<?> converter = getConverter(block, attributeName, attributeType);
-                EdgeAttribute attribute = graph.newLocalEdgeAttribute(attributeName, converter.baseDefaultValue());
-
-                Object defaultValue;
-                if (!attributeDefault.isEmpty()) {
-                    defaultValue = converter.ocoToGraphLib(attributeDefault);
-                } else if (StdAttribute.isStandard(attributeName)) {
-                    defaultValue = generator.newGraph().edgeAttribute(attributeName).getDefault();
-                } else {
-                    defaultValue = converter.defaultValue();
-                }
+    private void parseEdgeBlock(Block block, LineCursor cursor, T graph) {
+        boolean isRootGraph = (graph == graph.rootGraph());
+        if (!isRootGraph && block.attributeNames.length >= 3
+                && (block.getAttributeName(1).startsWith("@") || block.getAttributeName(2).startsWith("@"))) {
+            throw new MalformedFileException(block.headerLn, "edges sources and targets can only be defined in the root graph.");
+        }
 
-                attribute.setDefault(defaultValue);
+        int columns = block.attributeNames.length;
+        int startingIndex = isRootGraph ? 3 : 1;
+        OcoValueConverter<?>[] columnConverters = new OcoValueConverter<?>[columns];
+        EdgeAttribute[] columnAttributes = new EdgeAttribute[columns];
 
-                for (int i = 0; i < block.values.length; i++) {
-                    Edge edge = graph.rootGraph().getEdge(block.getValue(i, 0));
-                    if (!block.getValue(i, j).isEmpty()) {
-                        attribute.set(edge, converter.ocoToGraphLib(block.getValue(i, j)));
-                    }
-                }
+        for (int j = startingIndex; j < columns; j++) {
+            String attributeName = block.getAttributeName(j);
+            String attributeType = block.getAttributeType(j);
+            String attributeDefault = block.getAttributeDefault(j);
+
+            OcoValueConverter<?> converter = getConverter(block, attributeName, attributeType);
+            EdgeAttribute attribute = graph.newLocalEdgeAttribute(attributeName, converter.baseDefaultValue());
+
+            Object defaultValue;
+            if (!attributeDefault.isEmpty()) {
+                defaultValue = converter.ocoToGraphLib(attributeDefault);
+            } else if (StdAttribute.isStandard(attributeName)) {
+                defaultValue = generator.newGraph().edgeAttribute(attributeName).getDefault();
+            } else {
+                defaultValue = converter.defaultValue();
             }
-            blocks.pop();
+
+            attribute.setDefault(defaultValue);
+            columnConverters[j] = converter;
+            columnAttributes[j] = attribute;
         }
+
+        forEachConvertedRow(block, cursor, columnConverters, startingIndex, (row, values) -> {
+            Edge edge;
+            if (isRootGraph) {
+                Node source = graph.rootGraph().getNode(row[1]);
+                Node target = graph.rootGraph().getNode(row[2]);
+                edge = graph.newEdge(row[0], source, target);
+            } else {
+                edge = graph.rootGraph().getEdge(row[0]);
+                graph.add(edge);
+            }
+            for (int j = startingIndex; j < columns; j++) {
+                if (!row[j].isEmpty()) {
+                    columnAttributes[j].set(edge, values[j]);
+                }
+            }
+        });
     }
 
     /**
-     * Creates the graph edges.
+     * Reads the value rows of an element block in chunks. The values of the
+     * rows in a chunk are converted in parallel, as the conversions of
+     * different elements are independent, and then the action is called for
+     * each row sequentially and in the original order. The converters must
+     * therefore be stateless.
      *
-     * @param block the nodes block.
-     * @param graph the current graph.
+     * @param block the element block.
+     * @param cursor the cursor on the remaining lines.
+     * @param columnConverters the converters of each column.
+     * @param firstColumn the first column holding an attribute value.
+     * @param action the action to perform on each row and its converted
+     * values.
      */
-    private void createEdges(Block block, T graph, boolean isRootGraph) {
-        if (isRootGraph && block.values.length > 0 && block.values[0].length < 3) {
-            throw new MalformedFileException(block.headerLn, "edges are not correctly defined.");
+    private static void forEachConvertedRow(Block block, LineCursor cursor, OcoValueConverter<?>[] columnConverters,
+            int firstColumn, BiConsumer<String[], Object[]> action) {
+        List<String[]> chunk = new ArrayList<>(conversionChunkSize);
+        block.forEachValueRow(cursor, row -> {
+            chunk.add(row);
+            if (chunk.size() == conversionChunkSize) {
+                convertChunk(chunk, columnConverters, firstColumn, action);
+                chunk.clear();
+            }
+        });
+        convertChunk(chunk, columnConverters, firstColumn, action);
+    }
+
+    /**
+     * Converts the values of a chunk of rows and performs the action on each
+     * of them in order.
+     *
+     * @param chunk the rows in the chunk.
+     * @param columnConverters the converters of each column.
+     * @param firstColumn the first column holding an attribute value.
+     * @param action the action to perform on each row and its converted
+     * values.
+     */
+    private static void convertChunk(List<String[]> chunk, OcoValueConverter<?>[] columnConverters,
+            int firstColumn, BiConsumer<String[], Object[]> action) {
+        Object[][] chunkValues = new Object[chunk.size()][];
+        IntStream indices = IntStream.range(0, chunk.size());
+        if (chunk.size() >= parallelConversionThreshold) {
+            indices = indices.parallel();
         }
-        if (!isRootGraph && block.attributeNames.length >= 3
-                && (block.getAttributeName(1).startsWith("@") || block.getAttributeName(2).startsWith("@"))) {
-            throw new MalformedFileException(block.headerLn, "edges sources and targets can only be defined in the root graph.");
+        indices.forEach(i -> chunkValues[i] = convertRow(chunk.get(i), columnConverters, firstColumn));
+        for (int i = 0; i < chunk.size(); i++) {
+            action.accept(chunk.get(i), chunkValues[i]);
         }
+    }
 
-        for (int i = 0; i < block.values.length; i++) {
-            String edgeId = block.getValue(i, 0);
-            if (isRootGraph) {
-                Node source = graph.rootGraph().getNode(block.getValue(i, 1));
-                Node target = graph.rootGraph().getNode(block.getValue(i, 2));
-                graph.newEdge(edgeId, source, target);
-            } else {
-                graph.add(graph.rootGraph().getEdge(edgeId));
+    /**
+     * Converts the non-empty values of a row.
+     *
+     * @param row the row.
+     * @param columnConverters the converters of each column.
+     * @param firstColumn the first column holding an attribute value.
+     * @return the converted values, null for the empty ones.
+     */
+    private static Object[] convertRow(String[] row, OcoValueConverter<?>[] columnConverters, int firstColumn) {
+        Object[] values = new Object[columnConverters.length];
+        for (int j = firstColumn; j < columnConverters.length; j++) {
+            if (!row[j].isEmpty()) {
+                values[j] = columnConverters[j].ocoToGraphLib(row[j]);
             }
         }
+        return values;
     }
 
     /**
@@ -348,6 +442,18 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
         return block.header.matches("#edges");
     }
 
+    /**
+     * Checks if it is a clusters block. Clusters are written without their
+     * pole and members, and therefore cannot be restored: their block is
+     * skipped.
+     *
+     * @param block the block.
+     * @return true if it is a clusters block, false otherwise.
+     */
+    private boolean isClusterBlock(Block block) {
+        return block.header.equals("#clusters");
+    }
+
     /**
      * Gets the converted for the given attribute descriptions.
      *
@@ -390,6 +496,85 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
         }
     }
 
+    /**
+     * Cursor over the lines of an oco input. The cursor numbers the lines,
+     * trims them and skips the empty ones, reading the underlying input only
+     * when the next line is requested.
+     */
+    protected static class LineCursor {
+
+        private final Iterator<String> lines;
+        private int lineNumber = 0;
+        private Line next;
+
+        /**
+         * Constructs a cursor over the given lines.
+         *
+         * @param lines the lines.
+         */
+        protected LineCursor(Iterator<String> lines) {
+            this.lines = lines;
+        }
+
+        /**
+         * Returns the next non-empty line without consuming it.
+         *
+         * @return the next line, or null if the input is finished.
+         */
+        protected Line peek() {
+            while (next == null && lines.hasNext()) {
+                lineNumber++;
+                String text = lines.next().trim();
+                if (!text.isEmpty()) {
+                    next = new Line(text, lineNumber);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Consumes and returns the next non-empty line.
+         *
+         * @return the next line, or null if the input is finished.
+         */
+        protected Line pop() {
+            Line line = peek();
+            next = null;
+            return line;
+        }
+
+        /**
+         * Checks if the next line is part of the current block.
+         *
+         * @return true if the next line is not a header.
+         */
+        protected boolean hasBlockLine() {
+            return peek() != null && !next.text.startsWith("#");
+        }
+
+        /**
+         * Skips the lines preceding the first header.
+         */
+        protected void skipToHeader() {
+            while (hasBlockLine()) {
+                pop();
+            }
+        }
+
+        /**
+         * Reads the header and the attribute definitions of the next block.
+         * The value lines of the block are left to be read.
+         *
+         * @return the block, or null if the input is finished.
+         */
+        protected Block nextBlock() {
+            if (peek() == null) {
+                return null;
+            }
+            return new Block(pop(), this);
+        }
+    }
+
     /**
      * A block of oco file lines. Blocks describe different aspects of a graph
      * (graph attributes, nodes and their attributes, edges and their
@@ -403,49 +588,59 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
         protected String[] attributeNames = new String[]{"@attribute"};
         protected String[] attributeTypes = new String[]{"@type"};
         protected String[] attributeDefaults = new String[]{"@default"};
-        protected String[][] values;
 
         protected int headerLn = -1;
         protected int attributeNamesLn = -1;
         protected int attributeTypesLn = -1;
         protected int attributeDefaultsLn = -1;
-        protected int[] valuesLn;
 
         /**
-         * Construct a block by parsing its lines.
+         * Constructs a block by parsing its header and attribute lines. The
+         * value lines are left in the cursor.
          *
-         * @param lines the block lines.
+         * @param headerLine the header line.
+         * @param cursor the cursor positioned after the header.
          */
-        protected Block(LinkedList<Line> lines) {
-            Line headerLine = lines.pop();
+        protected Block(Line headerLine, LineCursor cursor) {
             header = headerLine.text;
             headerLn = headerLine.lineNumber;
-            parseAttributeDefinitions(lines);
-            parseValues(lines);
-            trimValues();
+            while (cursor.hasBlockLine() && cursor.peek().text.startsWith("@")) {
+                parseAttributeDefinition(cursor.pop());
+            }
+            trimAttributes();
         }
 
         /**
-         * Parses the attributes of a block.
+         * Parses the value lines of the block one at a time, consuming them
+         * from the cursor. The rows are not stored in the block.
          *
-         * @param lines the currently unparsed lines.
+         * @param cursor the cursor positioned after the attribute lines.
+         * @param action the action to perform on each row.
          */
-        private void parseAttributeDefinitions(LinkedList<Line> lines) {
-            while (!lines.isEmpty() && lines.peek().text.startsWith("@")) {
-                Line line = lines.pop();
-                if (line.text.startsWith("@attribute")) {
-                    attributeNames = line.text.split("\t");
-                    attributeNamesLn = line.lineNumber;
-                    checkAttributeNames();
-                } else if (line.text.startsWith("@type")) {
-                    attributeTypes = line.text.split("\t");
-                    attributeTypesLn = line.lineNumber;
-                } else if (line.text.startsWith("@default")) {
-                    attributeDefaults = line.text.split("\t");
-                    attributeDefaultsLn = line.lineNumber;
-                } else {
-                    throw new MalformedFileException(line.lineNumber, "attribute line not recognizable.");
-                }
+        protected void forEachValueRow(LineCursor cursor, Consumer<String[]> action) {
+            while (cursor.hasBlockLine()) {
+                action.accept(parseValues(cursor.pop()));
+            }
+        }
+
+        /**
+         * Parses an attribute line of a block.
+         *
+         * @param line the attribute line.
+         */
+        private void parseAttributeDefinition(Line line) {
+            if (line.text.startsWith("@attribute")) {
+                attributeNames = line.text.split("\t");
+                attributeNamesLn = line.lineNumber;
+                checkAttributeNames();
+            } else if (line.text.startsWith("@type")) {
+                attributeTypes = line.text.split("\t");
+                attributeTypesLn = line.lineNumber;
+            } else if (line.text.startsWith("@default")) {
+                attributeDefaults = line.text.split("\t");
+                attributeDefaultsLn = line.lineNumber;
+            } else {
+                throw new MalformedFileException(line.lineNumber, "attribute line not recognizable.");
             }
         }
 
@@ -461,32 +656,33 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
         }
 
         /**
-         * Parses the values of the block.
+         * Parses a value line of the block. The values are trimmed to
+         * eliminate leading and trailing spaces, and the missing ones are set
+         * to the empty string.
          *
-         * @param lines the currently unparsed lines.
+         * @param line the value line.
+         * @return the row of values.
          */
-        private void parseValues(LinkedList<Line> lines) {
-            values = new String[lines.size()][Math.max(attributeNames.length, 3)];
-            valuesLn = new int[lines.size()];
-            int i = 0;
-            while (!lines.isEmpty()) {
-                Line line = lines.pop();
-                String[] tokens = line.text.split("\t");
-                System.arraycopy(tokens, 0, values[i], 0, tokens.length);
-                valuesLn[i] = line.lineNumber;
-                try {
-                    Rules.checkId(tokens[0]);
-                } catch (IllegalArgumentException e) {
-                    throw new MalformedFileException(line.lineNumber, "the element does not have a valid id.");
-                }
-                i++;
+        private String[] parseValues(Line line) {
+            String[] row = new String[Math.max(attributeNames.length, 3)];
+            String[] tokens = line.text.split("\t");
+            System.arraycopy(tokens, 0, row, 0, tokens.length);
+            try {
+                Rules.checkId(tokens[0]);
+            } catch (IllegalArgumentException e) {
+                throw new MalformedFileException(line.lineNumber, "the element does not have a valid id.");
+            }
+            for (int j = 0; j < row.length; j++) {
+                row[j] = row[j] != null ? row[j].trim() : "";
             }
+            return row;
         }
 
         /**
-         * Trims all values to eliminate leading and trailing spaces.
+         * Trims the attribute definitions to eliminate leading and trailing
+         * spaces.
          */
-        private void trimValues() {
+        private void trimAttributes() {
             for (int i = 0; i < attributeNames.length; i++) {
                 attributeNames[i] = attributeNames[i].trim();
             }
@@ -496,15 +692,6 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
             for (int i = 0; i < attributeDefaults.length; i++) {
                 attributeDefaults[i] = attributeDefaults[i].trim();
             }
-            for (String[] valuesRow : values) {
-                for (int j = 0; j < valuesRow.length; j++) {
-                    if (valuesRow[j] != null) {
-                        valuesRow[j] = valuesRow[j].trim();
-                    } else {
-                        valuesRow[j] = "";
-                    }
-                }
-            }
         }
 
         /**
@@ -545,17 +732,6 @@ public class OcoReader<T extends GraphWithAttributes<T, U, V, Z, C>,
             }
         }
 
-        /**
-         * Gets the value with given row and column index.
-         *
-         * @param i the row index.
-         * @param j the column index.
-         * @return the attribute default value.
-         */
-        protected String getValue(int i, int j) {
-            return values[i][j];
-        }
-
     }
 
     /**
@@ -15,12 +15,18 @@
  */
 package ocotillo.serialization.oco;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
 
 import ocotillo.dygraph.*;
 import ocotillo.graph.*;
-import ocotillo.serialization.ParserTools;
 
 /**
  * Reads and writes oco files.
@@ -37,8 +43,11 @@ public class OcoSerializer {
      * @return the generated static graph.
      */
     public Graph readStaticFile(File file) {
-        List<String> lines = ParserTools.readFileLines(file);
-        return readStatic(lines);
+        try (Reader reader = openReader(file)) {
+            return readStatic(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to read the file " + file.getName(), ex);
+        }
     }
 
     /**
@@ -48,8 +57,11 @@ public class OcoSerializer {
      * @return the generated dynamic graph.
      */
     public DyGraph readDynamicFile(File file) {
-        List<String> lines = ParserTools.readFileLines(file);
-        return readDynamic(lines);
+        try (Reader reader = openReader(file)) {
+            return readDynamic(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to read the file " + file.getName(), ex);
+        }
     }
 
     /**
@@ -76,6 +88,34 @@ public class OcoSerializer {
         return reader.read(lines);
     }
 
+    /**
+     * Reads a static graph in oco format from a reader. The input is parsed
+     * one line at a time without being loaded in memory. The reader is not
+     * closed.
+     *
+     * @param reader the reader.
+     * @return the generated graph.
+     */
+    public Graph readStatic(Reader reader) {
+        OcoReader<Graph, GraphAttribute<?>, NodeAttribute<?>, EdgeAttribute<?>, ClusterAttribute<?>> ocoReader
+                = new OcoReader<>(staticConverters, () -> new Graph(), "graph");
+        return ocoReader.read(reader);
+    }
+
+    /**
+     * Reads a dynamic graph in oco format from a reader. The input is parsed
+     * one line at a time without being loaded in memory. The reader is not
+     * closed.
+     *
+     * @param reader the reader.
+     * @return the generated dynamic graph.
+     */
+    public DyGraph readDynamic(Reader reader) {
+        OcoReader<DyGraph, DyGraphAttribute<?>, DyNodeAttribute<?>, DyEdgeAttribute<?>, DyClusterAttribute<?>> ocoReader
+                = new OcoReader<>(dynamicConverters, () -> new DyGraph(), "dygraph");
+        return ocoReader.read(reader);
+    }
+
     /**
      * Writes a static graph in the given file.
      *
@@ -83,7 +123,11 @@ public class OcoSerializer {
      * @param file the destination file.
      */
     public void writeFile(Graph graph, File file) {
-        ParserTools.writeFileLines(write(graph), file);
+        try (Writer writer = openWriter(file)) {
+            write(graph, writer);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write on the destination file " + file.getName(), ex);
+        }
     }
 
     /**
@@ -93,7 +137,11 @@ public class OcoSerializer {
      * @param file the destination file.
      */
     public void writeFile(DyGraph graph, File file) {
-        ParserTools.writeFileLines(write(graph), file);
+        try (Writer writer = openWriter(file)) {
+            write(graph, writer);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write on the destination file " + file.getName(), ex);
+        }
     }
 
     /**
@@ -118,6 +166,54 @@ public class OcoSerializer {
         return writer.write(graph);
     }
 
+    /**
+     * Writes a static graph in the oco format to a writer. Each line is
+     * written as soon as it is composed. The writer is flushed but not
+     * closed.
+     *
+     * @param graph the input graph.
+     * @param writer the writer.
+     */
+    public void write(Graph graph, Writer writer) {
+        OcoWriter ocoWriter = new OcoWriter(staticConverters, "graph");
+        ocoWriter.write(graph, writer);
+    }
+
+    /**
+     * Writes a dynamic graph in the oco format to a writer. Each line is
+     * written as soon as it is composed. The writer is flushed but not
+     * closed.
+     *
+     * @param graph the input graph.
+     * @param writer the writer.
+     */
+    public void write(DyGraph graph, Writer writer) {
+        OcoWriter ocoWriter = new OcoWriter(dynamicConverters, "dygraph");
+        ocoWriter.write(graph, writer);
+    }
+
+    /**
+     * Opens a buffered reader on a file.
+     *
+     * @param file the file.
+     * @return the reader.
+     * @throws IOException if the file cannot be opened.
+     */
+    private static Reader openReader(File file) throws IOException {
+        return new BufferedReader(new FileReader(file), 1 << 16);
+    }
+
+    /**
+     * Opens a buffered writer on a file.
+     *
+     * @param file the file.
+     * @return the writer.
+     * @throws IOException if the file cannot be opened.
+     */
+    private static Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new FileWriter(file), 1 << 16);
+    }
+
     /**
      * Gets the set of static converters.
      *
@@ -33,6 +33,38 @@ import ocotillo.geometry.Interval;
  */
 public abstract class OcoStandardConverter {
 
+    private static final String evolutionDelimiter = " § ";
+    private static final String functionDelimiter = " ^ ";
+    private static final String controlPointDelimiter = " | ";
+
+    /**
+     * Splits a value around a literal delimiter. Differently from
+     * String.split, no regular expression is involved and trailing empty
+     * tokens are kept, so that empty string values are preserved.
+     *
+     * @param value the value to split.
+     * @param delimiter the delimiter.
+     * @return the tokens.
+     */
+    static String[] tokenize(String value, String delimiter) {
+        int tokenCount = 1;
+        int index = value.indexOf(delimiter);
+        while (index != -1) {
+            tokenCount++;
+            index = value.indexOf(delimiter, index + delimiter.length());
+        }
+
+        String[] tokens = new String[tokenCount];
+        int tokenStart = 0;
+        for (int i = 0; i < tokenCount - 1; i++) {
+            int tokenEnd = value.indexOf(delimiter, tokenStart);
+            tokens[i] = value.substring(tokenStart, tokenEnd);
+            tokenStart = tokenEnd + delimiter.length();
+        }
+        tokens[tokenCount - 1] = value.substring(tokenStart);
+        return tokens;
+    }
+
     /**
      * Base for static data converters.
      *
@@ -81,11 +113,11 @@ public abstract class OcoStandardConverter {
 
         @Override
         public Evolution<T> ocoToGraphLib(String value) {
-            String[] evolutionTokens = value.split(" § ");
+            String[] evolutionTokens = tokenize(value, evolutionDelimiter);
             T defaultValue = staticConverter.ocoToGraphLib(evolutionTokens[0]);
             Evolution<T> result = new Evolution<>(defaultValue);
             for (int i = 1; i < evolutionTokens.length; i++) {
-                String[] functionTokens = evolutionTokens[i].split(" \\^ ");
+                String[] functionTokens = tokenize(evolutionTokens[i], functionDelimiter);
                 Interval interval = Interval.parse(functionTokens[1]);
                 T leftValue = staticConverter.ocoToGraphLib(functionTokens[2]);
                 switch (functionTokens[0]) {
@@ -483,7 +515,7 @@ public abstract class OcoStandardConverter {
         @Override
         public ControlPoints ocoToGraphLib(String value) {
             ControlPoints controlPoints = new ControlPoints();
-            String[] pointStrings = value.split(" \\| ");
+            String[] pointStrings = tokenize(value, controlPointDelimiter);
             for (String pointString : pointStrings) {
                 controlPoints.add(Coordinates.parse(pointString));
             }
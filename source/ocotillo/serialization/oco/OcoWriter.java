@@ -15,12 +15,14 @@
  */
 package ocotillo.serialization.oco;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import ocotillo.dygraph.Evolution;
 import ocotillo.graph.*;
 
@@ -32,6 +34,20 @@ public class OcoWriter {
     private final OcoConverterSet converters;
     private final String graphHeader;
 
+    /**
+     * Receives the lines produced by the writer.
+     */
+    private static interface LineOutput {
+
+        /**
+         * Outputs a line.
+         *
+         * @param line the line, without line terminator.
+         * @throws IOException if the line cannot be written.
+         */
+        public void writeLine(CharSequence line) throws IOException;
+    }
+
     /**
      * Constructs an oco writer.
      *
@@ -51,34 +67,57 @@ public class OcoWriter {
      */
     protected List<String> write(GraphWithAttributes<?, ?, ?, ?, ?> graph) {
         List<String> lines = new LinkedList<>();
-        writeGraph(graph, 0, lines);
+        try {
+            writeGraph(graph, 0, line -> lines.add(line.toString()));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write the oco lines.", ex);
+        }
         return lines;
     }
 
+    /**
+     * Writes a graph in the oco format to a writer. Each line is written as
+     * soon as it is composed. The writer is flushed but not closed.
+     *
+     * @param graph the input graph.
+     * @param writer the writer.
+     */
+    protected void write(GraphWithAttributes<?, ?, ?, ?, ?> graph, Writer writer) {
+        String lineSeparator = System.lineSeparator();
+        Writer output = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        try {
+            writeGraph(graph, 0, line -> output.append(line).append(lineSeparator));
+            output.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Impossible to write the oco output.", ex);
+        }
+    }
+
     /**
      * Recursively write graphs in oco format.
      *
      * @param graph the graph.
      * @param graphLevel the current graph level.
-     * @param lines the file lines.
+     * @param output the line output.
+     * @throws IOException if the lines cannot be written.
      */
-    private void writeGraph(GraphWithAttributes<?, ?, ?, ?, ?> graph, int graphLevel, List<String> lines) {
-        writeGraphHeader(graphLevel, lines);
-        writeAttributesAndElements(graph, Attribute.Type.graph, lines);
-        lines.add("");
-        lines.add("#nodes");
-        writeAttributesAndElements(graph, Attribute.Type.node, lines);
-        lines.add("");
-        lines.add("#edges");
-        writeAttributesAndElements(graph, Attribute.Type.edge, lines);
-        lines.add("");
-        lines.add("#clusters");
-        writeAttributesAndElements(graph, Attribute.Type.cluster, lines);
-        lines.add("");
-        lines.add("");
+    private void writeGraph(GraphWithAttributes<?, ?, ?, ?, ?> graph, int graphLevel, LineOutput output) throws IOException {
+        writeGraphHeader(graphLevel, output);
+        writeAttributesAndElements(graph, Attribute.Type.graph, output);
+        output.writeLine("");
+        output.writeLine("#nodes");
+        writeAttributesAndElements(graph, Attribute.Type.node, output);
+        output.writeLine("");
+        output.writeLine("#edges");
+        writeAttributesAndElements(graph, Attribute.Type.edge, output);
+        output.writeLine("");
+        output.writeLine("#clusters");
+        writeAttributesAndElements(graph, Attribute.Type.cluster, output);
+        output.writeLine("");
+        output.writeLine("");
 
         for (GraphWithAttributes<?, ?, ?, ?, ?> subgraph : graph.subGraphs()) {
-            writeGraph(subgraph, graphLevel + 1, lines);
+            writeGraph(subgraph, graphLevel + 1, output);
         }
     }
 
@@ -86,41 +125,45 @@ public class OcoWriter {
      * Writes the graph header according to the current graph level.
      *
      * @param graphLevel the current graph level.
-     * @param lines the file lines.
+     * @param output the line output.
+     * @throws IOException if the header cannot be written.
      */
-    private void writeGraphHeader(int graphLevel, List<String> lines) {
+    private void writeGraphHeader(int graphLevel, LineOutput output) throws IOException {
         StringBuilder headerPrefix = new StringBuilder("#");
         for (int i = 0; i < graphLevel; i++) {
             headerPrefix.append("#");
         }
-        lines.add(headerPrefix.append(graphHeader).toString());
+        output.writeLine(headerPrefix.append(graphHeader));
     }
 
     /**
-     * Write the attribute and the eventual elements of a oco file block.
+     * Write the attribute and the eventual elements of a oco file block. The
+     * attribute lines are written first, followed by one line per element in
+     * order of id.
      *
      * @param graph the graph.
      * @param generalAttrType the kind of block to written for the graph.
-     * @param lines the file lines.
+     * @param output the line output.
+     * @throws IOException if the block cannot be written.
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void writeAttributesAndElements(GraphWithAttributes<?, ?, ?, ?, ?> graph, Attribute.Type generalAttrType, List<String> lines) {
-        StringBuilder attributes = new StringBuilder("@attribute\t");
-        StringBuilder types = new StringBuilder("@type\t");
-        StringBuilder defaults = new StringBuilder("@default\t");
+    private void writeAttributesAndElements(GraphWithAttributes<?, ?, ?, ?, ?> graph, Attribute.Type generalAttrType, LineOutput output) throws IOException {
+        StringBuilder attributes = new StringBuilder("@attribute");
+        StringBuilder types = new StringBuilder("@type");
+        StringBuilder defaults = new StringBuilder("@default");
 
         boolean isRootGraph = (graph == graph.rootGraph());
         if (generalAttrType == Attribute.Type.edge && isRootGraph) {
-            attributes.append("@from\t@to\t");
+            attributes.append("\t@from\t@to");
             types.append("\t\t");
             defaults.append("\t\t");
         }
 
-        Map<Element, StringBuilder> elements = prepareElementsMap(graph, generalAttrType, isRootGraph);
-
         List<String> orderedAttributeList = new ArrayList<>(graph.localAttributes(generalAttrType).keySet());
         Collections.sort(orderedAttributeList);
 
+        List<ElementAttribute> elementAttributes = new ArrayList<>();
+        List<OcoValueConverter> elementConverters = new ArrayList<>();
         for (String attributeName : orderedAttributeList) {
             Attribute attribute = graph.attribute(generalAttrType, attributeName);
             if (!attribute.isSleeping()) {
@@ -129,36 +172,21 @@ public class OcoWriter {
                 String attributeType = converter.typeName();
                 String attributeDefault = converter.graphLibToOco(defaultValue);
 
-                attributes.append(attributeName).append("\t");
-                types.append(attributeType).append("\t");
-                defaults.append(attributeDefault).append("\t");
-
-                if (generalAttrType == Attribute.Type.node) {
-                    for (Node node : graph.nodes()) {
-                        NodeAttribute nodeAttribute = (NodeAttribute) attribute;
-                        String value = nodeAttribute.isDefault(node)
-                                ? "" : converter.graphLibToOco(nodeAttribute.get(node));
-                        elements.get(node).append(value).append("\t");
-                    }
-                } else if (generalAttrType == Attribute.Type.edge) {
-                    for (Edge edge : graph.edges()) {
-                        EdgeAttribute edgeAttribute = (EdgeAttribute) attribute;
-                        String value = converter.graphLibToOco(edgeAttribute.get(edge)) + "\t";
-                        elements.get(edge).append(value);
-                    }
-                } else if(generalAttrType == Attribute.Type.cluster) {
-                    for(Cluster cluster : graph.clusters()) {
-                        ClusterAttribute clusterAttribute = (ClusterAttribute) attribute;
-                        String value = converter.graphLibToOco(clusterAttribute.get(cluster)) + "\t";
-                        elements.get(cluster).append(value);
-                    }
+                attributes.append("\t").append(attributeName);
+                types.append("\t").append(attributeType);
+                defaults.append("\t").append(attributeDefault);
+
+                if (generalAttrType != Attribute.Type.graph) {
+                    elementAttributes.add((ElementAttribute) attribute);
+                    elementConverters.add(converter);
                 }
             }
         }
-        lines.add(attributes.substring(0, attributes.length() - 1));
-        lines.add(types.substring(0, types.length() - 1));
-        lines.add(defaults.substring(0, defaults.length() - 1));
-        writeElements(elements, lines);
+        output.writeLine(attributes);
+        output.writeLine(types);
+        output.writeLine(defaults);
+        writeElements(getElements(graph, generalAttrType), generalAttrType, isRootGraph,
+                elementAttributes, elementConverters, output);
     }
 
     /**
@@ -186,50 +214,61 @@ public class OcoWriter {
     }
 
     /**
-     * Prepares the map of elements for the block.
+     * Gets the elements described by the block.
      *
      * @param graph the graph.
      * @param generalAttrType the kind of block to written for the graph.
-     * @param isRootGraph indicates if the graph is the root one.
-     * @return the element map.
+     * @return the elements of the block.
      */
-    private Map<Element, StringBuilder> prepareElementsMap(GraphWithAttributes<?, ?, ?, ?, ?> graph, Attribute.Type generalAttrType, boolean isRootGraph) {
-        Map<Element, StringBuilder> elements = new HashMap<>();
-        if (generalAttrType == Attribute.Type.node) {
-            for (Node node : graph.nodes()) {
-                elements.put(node, new StringBuilder(node.id() + "\t"));
-            }
-        } else if (generalAttrType == Attribute.Type.edge) {
-            for (Edge edge : graph.edges()) {
-                StringBuilder edgeLine = new StringBuilder(edge.id() + "\t");
-                if (isRootGraph) {
-                    edgeLine.append(edge.source().id()).append("\t")
-                            .append(edge.target().id()).append("\t");
-                }
-                elements.put(edge, edgeLine);
-            }
-        } else if (generalAttrType == Attribute.Type.cluster) {
-            for(Cluster cluster : graph.clusters()) {
-                elements.put(cluster, new StringBuilder(cluster.id() + "\t"));
-            }
+    private Collection<? extends Element> getElements(GraphWithAttributes<?, ?, ?, ?, ?> graph, Attribute.Type generalAttrType) {
+        switch (generalAttrType) {
+            case node:
+                return graph.nodes();
+            case edge:
+                return graph.edges();
+            case cluster:
+                return graph.clusters();
+            default:
+                return Collections.emptyList();
         }
-        return elements;
     }
 
     /**
-     * Writes the elements in order by id.
+     * Writes the elements in order by id. Each element line is composed in the
+     * same buffer and written before the next one is composed.
      *
-     * @param elements the element map.
-     * @param lines the file lines.
+     * @param elements the elements.
+     * @param generalAttrType the kind of block to written for the graph.
+     * @param isRootGraph indicates if the graph is the root one.
+     * @param attributes the attributes of the block.
+     * @param attributeConverters the converters of the block attributes.
+     * @param output the line output.
+     * @throws IOException if the elements cannot be written.
      */
-    private void writeElements(Map<Element, StringBuilder> elements, List<String> lines) {
-        List<Element> elementList = new ArrayList<>(elements.keySet());
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeElements(Collection<? extends Element> elements, Attribute.Type generalAttrType, boolean isRootGraph,
+            List<ElementAttribute> attributes, List<OcoValueConverter> attributeConverters, LineOutput output) throws IOException {
+        List<Element> elementList = new ArrayList<>(elements);
         Collections.sort(elementList, (Element a, Element b)
                 -> a.id().compareTo(b.id()));
 
+        StringBuilder elementLine = new StringBuilder();
         for (Element element : elementList) {
-            StringBuilder elementLine = elements.get(element);
-            lines.add(elementLine.substring(0, elementLine.length() - 1));
+            elementLine.setLength(0);
+            elementLine.append(element.id());
+            if (generalAttrType == Attribute.Type.edge && isRootGraph) {
+                Edge edge = (Edge) element;
+                elementLine.append("\t").append(edge.source().id())
+                        .append("\t").append(edge.target().id());
+            }
+            for (int i = 0; i < attributes.size(); i++) {
+                ElementAttribute attribute = attributes.get(i);
+                elementLine.append("\t");
+                if (generalAttrType != Attribute.Type.node || !attribute.isDefault(element)) {
+                    elementLine.append(attributeConverters.get(i).graphLibToOco(attribute.get(element)));
+                }
+            }
+            output.writeLine(elementLine);
         }
     }
 }
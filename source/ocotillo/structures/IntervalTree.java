@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 import lombok.EqualsAndHashCode;
 import ocotillo.geometry.Interval;
 
@@ -94,6 +95,20 @@ public class IntervalTree<T extends IntervalTree.Data> implements Iterable<T> {
         return anyOverlappingRecursion(queryInterval, (ItNode) tree.root);
     }
 
+    /**
+     * Gets any one element whose interval overlaps with the query interval and
+     * that satisfies the given condition. The search stops as soon as such an
+     * element is found, and no result collection is allocated.
+     *
+     * @param queryInterval the query interval.
+     * @param condition the condition the element must satisfy.
+     * @return an element whose interval overlaps with the query one and that
+     * satisfies the condition, or null if there is none.
+     */
+    public T getAnyOverlapping(Interval queryInterval, Predicate<? super T> condition) {
+        return anyOverlappingRecursion(queryInterval, (ItNode) tree.root, condition);
+    }
+
     /**
      * Gets all the elements whose intervals overlap with the query interval.
      *
@@ -187,6 +202,34 @@ public class IntervalTree<T extends IntervalTree.Data> implements Iterable<T> {
         return anyOverlappingRecursion(queryInterval, (ItNode) currentRoot.rightChild);
     }
 
+    /**
+     * Returns an element whose interval overlaps with the query one and that
+     * satisfies the condition as soon as it finds one.
+     *
+     * @param queryInterval the query interval.
+     * @param currentRoot the current root of the subtree.
+     * @param condition the condition the element must satisfy.
+     * @return an element whose interval overlaps with the query one.
+     */
+    private T anyOverlappingRecursion(Interval queryInterval, ItNode currentRoot, Predicate<? super T> condition) {
+        if (currentRoot == null || currentRoot.maxRightInSubTree < queryInterval.leftBound()) {
+            return null;
+        }
+        T leftTreeResult = anyOverlappingRecursion(queryInterval, (ItNode) currentRoot.leftChild, condition);
+        if (leftTreeResult != null) {
+            return leftTreeResult;
+        }
+        if (queryInterval.rightBound() < currentRoot.bstKey()) {
+            return null;
+        }
+        for (DataContainer<T> dataContainer : currentRoot.dataSet) {
+            if (dataContainer.interval.overlapsWith(queryInterval) && condition.test(dataContainer.originalObject)) {
+                return dataContainer.originalObject;
+            }
+        }
+        return anyOverlappingRecursion(queryInterval, (ItNode) currentRoot.rightChild, condition);
+    }
+
     /**
      * Adds to the current results all the elements with intervals overlapping
      * the query one in the subtree with given root.
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.Predicate;
 import lombok.EqualsAndHashCode;
 import ocotillo.geometry.Interval;
 import ocotillo.geometry.IntervalBox;
@@ -83,18 +84,53 @@ public class MultidimIntervalTree<T extends MultidimIntervalTree.Data> {
      * @param queryBox the query box.
      * @return all the elements whose box overlap the given one.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public Set<T> getAllOverlapping(IntervalBox queryBox) {
-        Set results = new HashSet();
-        results.add(rootTree);
-        for (int i = dimensions - 1; i >= 0; i--) {
-            Set newResults = new HashSet();
-            for (Object tree : results) {
-                newResults.addAll(((IntervalTree) tree).getAllOverlapping(queryBox.interval(i)));
-            }
-            results = newResults;
+        Set<T> results = new HashSet<>();
+        anyOverlappingRecursion(rootTree, queryBox, dimensions - 1, element -> {
+            results.add(element);
+            return false;
+        });
+        return results;
+    }
+
+    /**
+     * Gets any one element whose box overlaps the query one and that satisfies
+     * the given condition. The search stops as soon as such an element is
+     * found, and no intermediate result set is allocated.
+     *
+     * @param queryBox the query box.
+     * @param condition the condition the element must satisfy.
+     * @return an element whose box overlaps the given one and that satisfies
+     * the condition, or null if there is none.
+     */
+    public T getAnyOverlapping(IntervalBox queryBox, Predicate<? super T> condition) {
+        return anyOverlappingRecursion(rootTree, queryBox, dimensions - 1, condition);
+    }
+
+    /**
+     * Searches the given level tree for an element whose box overlaps the
+     * query one and that satisfies the condition.
+     *
+     * @param levelTree the tree of the current dimension.
+     * @param queryBox the query box.
+     * @param dimension the current dimension.
+     * @param condition the condition the element must satisfy.
+     * @return an element that satisfies the query, or null if there is none.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private T anyOverlappingRecursion(IntervalTree levelTree, IntervalBox queryBox, int dimension, Predicate<? super T> condition) {
+        Interval queryInterval = queryBox.interval(dimension);
+        if (dimension == 0) {
+            DataContainer<T> container = (DataContainer<T>) levelTree.getAnyOverlapping(queryInterval,
+                    (Object data) -> condition.test(((DataContainer<T>) data).originalObject));
+            return container != null ? container.originalObject : null;
         }
-        return (Set<T>) unwrapData(results);
+        Object[] result = new Object[1];
+        levelTree.getAnyOverlapping(queryInterval, (Object subTree) -> {
+            result[0] = anyOverlappingRecursion((IntervalTree) subTree, queryBox, dimension - 1, condition);
+            return result[0] != null;
+        });
+        return (T) result[0];
     }
 
     /**
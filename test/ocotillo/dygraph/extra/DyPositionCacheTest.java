@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the position cache.
+ */
+public class DyPositionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Builds a graph with an infector present from time 0 and an infected
+     * node present from time 5.
+     *
+     * @param withInfected true to include the infected node.
+     * @return the dynamic graph.
+     */
+    private DyGraph outbreak(boolean withInfected) {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Node infector = graph.newNode("infector");
+        presences.set(infector, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+        positions.set(infector, new Evolution<>(new Coordinates(0, 0)));
+        if (withInfected) {
+            Node infected = graph.newNode("infected");
+            presences.set(infected, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(5, 10), true)
+                    .build());
+            positions.set(infected, new Evolution<>(new Coordinates(0, 0)));
+            Edge edge = graph.newEdge(infector, infected);
+            edgePresences.set(edge, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(5, 10), true)
+                    .build());
+        }
+        return graph;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DyGraph graph = outbreak(false);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node infector = graph.getNode("infector");
+        positions.set(infector, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newClosed(0, 4), new Coordinates(0, 0), new Coordinates(4, 8), Interpolation.Std.linear)
+                .withRect(Interval.newRightClosed(4, 10), new Coordinates(4, 8), new Coordinates(4, 2), Interpolation.Std.linear)
+                .build());
+
+        DyPositionCache cache = new DyPositionCache();
+        cache.record(graph);
+        File file = new File(folder.getRoot(), "cache.txt");
+        cache.save(file);
+
+        DyPositionCache loaded = DyPositionCache.load(file);
+        assertThat(loaded.size(), is(1));
+
+        DyGraph newGraph = outbreak(false);
+        Set<Node> cachedNodes = loaded.seed(newGraph, 5);
+        Node newInfector = newGraph.getNode("infector");
+        assertThat(cachedNodes.contains(newInfector), is(true));
+        DyNodeAttribute<Coordinates> newPositions = newGraph.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(newPositions.get(newInfector).valueAt(2), isAlmost(new Coordinates(2, 4)));
+        assertThat(newPositions.get(newInfector).valueAt(7), isAlmost(new Coordinates(4, 5)));
+        assertThat(newPositions.get(newInfector).valueAt(12), isAlmost(new Coordinates(4, 2)));
+    }
+
+    @Test
+    public void testNewNodesPlacedNearInfector() {
+        DyGraph graph = outbreak(false);
+        graph.nodeAttribute(StdAttribute.nodePosition)
+                .set(graph.getNode("infector"), new Evolution<>(new Coordinates(30, 40)));
+        DyPositionCache cache = new DyPositionCache();
+        cache.record(graph);
+
+        DyGraph grownGraph = outbreak(true);
+        Set<Node> cachedNodes = cache.seed(grownGraph, 5);
+        assertThat(cachedNodes.size(), is(1));
+        assertThat(cache.contains(grownGraph.getNode("infected")), is(false));
+
+        DyNodeAttribute<Coordinates> positions = grownGraph.nodeAttribute(StdAttribute.nodePosition);
+        Coordinates infectedPosition = positions.get(grownGraph.getNode("infected")).valueAt(7);
+        double distance = Geom.e2D.magnitude(infectedPosition.minus(new Coordinates(30, 40)));
+        assertThat(distance, isAlmost(5));
+    }
+
+    @Test
+    public void testMissingFile() {
+        DyPositionCache cache = DyPositionCache.load(new File(folder.getRoot(), "missing.txt"));
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.extra;
+
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl.DyModularFdlBuilder;
+import ocotillo.dygraph.layout.fdl.modular.DyModularForce;
+import ocotillo.dygraph.layout.fdl.modular.DyModularPreMovement;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Tests the sliding window over dynamic graphs.
+ */
+public class DySlidingWindowTest {
+
+    @Test
+    public void testWindowLayout() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Node a = graph.newNode("a");
+        presences.set(a, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        positions.set(a, EvoBuilder.defaultAt(new Coordinates(4, 0))
+                .withRect(Interval.newClosed(0, 4), new Coordinates(0, 0), new Coordinates(4, 0), Interpolation.Std.linear)
+                .build());
+        Node b = graph.newNode("b");
+        presences.set(b, EvoBuilder.defaultAt(false).withConst(Interval.newRightClosed(5, 10), true).build());
+        positions.set(b, new Evolution<>(new Coordinates(20, 20)));
+        Node c = graph.newNode("c");
+        presences.set(c, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 3), true).build());
+        positions.set(c, new Evolution<>(new Coordinates(-5, 5)));
+        Edge ab = graph.newEdge(a, b);
+        edgePresences.set(ab, EvoBuilder.defaultAt(false).withConst(Interval.newRightClosed(5, 10), true).build());
+
+        DySlidingWindow slidingWindow = new DySlidingWindow(graph, 4);
+        DyGraph window = slidingWindow.window();
+        assertThat(window.nodeCount(), is(2));
+        assertThat(window.edgeCount(), is(1));
+        assertThat(slidingWindow.continuingNodes().size(), is(1));
+        assertThat(slidingWindow.continuingNodes().contains(window.getNode("a")), is(true));
+
+        DyModularFdl algorithm = new DyModularFdlBuilder(window, 1)
+                .withForce(new DyModularForce.ConnectionAttraction(2))
+                .withForce(new DyModularForce.EdgeRepulsion(2))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(4))
+                .withPreMovmement(new DyModularPreMovement.PinnedTrajectoryStarts(slidingWindow.continuingNodes()))
+                .build();
+        algorithm.iterate(30);
+        slidingWindow.commit();
+
+        assertThat(positions.get(a).valueAt(2), isAlmost(new Coordinates(2, 0)));
+        assertThat(positions.get(a).valueAt(4), isAlmost(new Coordinates(4, 0)));
+        assertThat(positions.get(c).valueAt(2), isAlmost(new Coordinates(-5, 5)));
+        Coordinates bPosition = positions.get(b).valueAt(8);
+        assertThat(bPosition.x() < 20 && bPosition.y() < 20, is(true));
+    }
+
+    @Test
+    public void testReturningNode() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Node a = graph.newNode("a");
+        presences.set(a, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        positions.set(a, new Evolution<>(new Coordinates(0, 0)));
+        Node b = graph.newNode("b");
+        presences.set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 2), true)
+                .withConst(Interval.newClosed(6, 10), true)
+                .build());
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(6, 0))
+                .withRect(Interval.newClosed(0, 6), new Coordinates(0, 0), new Coordinates(6, 0), Interpolation.Std.linear)
+                .build());
+
+        DySlidingWindow slidingWindow = new DySlidingWindow(graph, 4);
+        DyGraph window = slidingWindow.window();
+        assertThat(window.nodeCount(), is(2));
+        assertThat(slidingWindow.continuingNodes().size(), is(1));
+        assertThat(slidingWindow.continuingNodes().contains(window.getNode("a")), is(true));
+        assertThat(slidingWindow.continuingNodes().contains(window.getNode("b")), is(false));
+
+        DyNodeAttribute<Coordinates> windowPositions = window.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(windowPositions.get(window.getNode("b")).valueAt(6), isAlmost(new Coordinates(6, 0)));
+    }
+}
@@ -234,4 +234,63 @@ public class SpaceTimeCubeSynchroniserTest {
                 .withRect(Interval.newOpen(8, 10), new Coordinates(5, 32), new Coordinates(8, 3), Interpolation.Std.linear)
                 .build()));
     }
+
+    @Test
+    public void testPositionAtMirrorTime() {
+        DyGraph graph = new DyGraph();
+        Node node = graph.newNode();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        dyPresences.set(node, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+
+        SpaceTimeCubeSynchroniser synchroniser = new StcsBuilder(graph, 10).build();
+        Graph mirrorGraph = synchroniser.mirrorGraph();
+        MirrorLine line = synchroniser.mirrorLines().get(0);
+        NodeAttribute<Coordinates> mirrorPositions = mirrorGraph.nodeAttribute(StdAttribute.nodePosition);
+        EdgeAttribute<ControlPoints> bends = mirrorGraph.edgeAttribute(StdAttribute.edgePoints);
+
+        mirrorPositions.set(line.mirrorSource(), new Coordinates(0, 0, 0));
+        mirrorPositions.set(line.mirrorTarget(), new Coordinates(10, 20, 100));
+        assertThat(line.positionAtMirrorTime(50), isAlmost(new Coordinates(5, 10, 50)));
+
+        bends.set(line.mirrorEdge(), new ControlPoints(new Coordinates(4, 0, 20), new Coordinates(4, 8, 60)));
+        assertThat(line.positionAtMirrorTime(0), isAlmost(new Coordinates(0, 0, 0)));
+        assertThat(line.positionAtMirrorTime(10), isAlmost(new Coordinates(2, 0, 10)));
+        assertThat(line.positionAtMirrorTime(20), isAlmost(new Coordinates(4, 0, 20)));
+        assertThat(line.positionAtMirrorTime(50), isAlmost(new Coordinates(4, 6, 50)));
+        assertThat(line.positionAtMirrorTime(80), isAlmost(new Coordinates(7, 14, 80)));
+        assertThat(line.positionAtMirrorTime(100), isAlmost(new Coordinates(10, 20, 100)));
+
+        mirrorPositions.set(line.mirrorTarget(), new Coordinates(4, 8, 100));
+        assertThat(line.positionAtMirrorTime(80), isAlmost(new Coordinates(4, 8, 80)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPositionsAtMirrorTimes() {
+        DyGraph graph = new DyGraph();
+        Node node = graph.newNode();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        dyPresences.set(node, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+
+        SpaceTimeCubeSynchroniser synchroniser = new StcsBuilder(graph, 10).build();
+        Graph mirrorGraph = synchroniser.mirrorGraph();
+        MirrorLine line = synchroniser.mirrorLines().get(0);
+        NodeAttribute<Coordinates> mirrorPositions = mirrorGraph.nodeAttribute(StdAttribute.nodePosition);
+        EdgeAttribute<ControlPoints> bends = mirrorGraph.edgeAttribute(StdAttribute.edgePoints);
+
+        mirrorPositions.set(line.mirrorSource(), new Coordinates(0, 0, 0));
+        mirrorPositions.set(line.mirrorTarget(), new Coordinates(10, 20, 100));
+        bends.set(line.mirrorEdge(), new ControlPoints(new Coordinates(4, 0, 20), new Coordinates(4, 8, 60)));
+
+        assertThat(line.positionsAtMirrorTimes(10, 20, 50, 80, 30), contains(
+                isAlmost(new Coordinates(2, 0, 10)),
+                isAlmost(new Coordinates(4, 0, 20)),
+                isAlmost(new Coordinates(4, 6, 50)),
+                isAlmost(new Coordinates(7, 14, 80)),
+                isAlmost(new Coordinates(4, 2, 30))));
+    }
 }
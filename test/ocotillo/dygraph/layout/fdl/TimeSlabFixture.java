@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl;
+
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Graph used to test the layouts split into time slabs, together with the
+ * checks on its final layout.
+ */
+public class TimeSlabFixture {
+
+    /**
+     * The time at which the graph is split when using two slabs.
+     */
+    public static final double slabBoundary = 20;
+
+    /**
+     * Builds a graph with three nodes present in [0, 40]. The nodes a and b
+     * are connected for all the time, while a and c are connected only from
+     * time 25, after the slab boundary.
+     *
+     * @return the dynamic graph.
+     */
+    public static DyGraph buildGraph() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> dyEdgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        Node c = graph.newNode("c");
+        for (Node node : graph.nodes()) {
+            dyPresences.set(node, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(0, 40), true)
+                    .build());
+        }
+        dyPositions.set(a, EvoBuilder.defaultAt(new Coordinates(0, 0)).build());
+        dyPositions.set(b, EvoBuilder.defaultAt(new Coordinates(30, 0)).build());
+        dyPositions.set(c, EvoBuilder.defaultAt(new Coordinates(0, 30)).build());
+        Edge ab = graph.newEdge(a, b);
+        dyEdgePresences.set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 40), true)
+                .build());
+        Edge ac = graph.newEdge(a, c);
+        dyEdgePresences.set(ac, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(25, 40), true)
+                .build());
+        return graph;
+    }
+
+    /**
+     * Checks that the connected nodes a and b have been drawn close along
+     * all the time, and that the trajectories are continuous across the slab
+     * boundary.
+     *
+     * @param graph the laid out graph.
+     */
+    public static void assertLayout(DyGraph graph) {
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node a = graph.getNode("a");
+        Node b = graph.getNode("b");
+        for (double time : new double[]{5, 15, 25, 35}) {
+            Coordinates aPosition = dyPositions.get(a).valueAt(time);
+            Coordinates bPosition = dyPositions.get(b).valueAt(time);
+            assertThat(Geom.e2D.magnitude(aPosition.minus(bPosition)), lessThan(15.0));
+        }
+        for (Node node : graph.nodes()) {
+            Coordinates beforeBoundary = dyPositions.get(node).valueAt(slabBoundary - 1e-3);
+            Coordinates atBoundary = dyPositions.get(node).valueAt(slabBoundary);
+            assertThat(Geom.e2D.magnitude(beforeBoundary.minus(atBoundary)), lessThan(0.01));
+        }
+    }
+}
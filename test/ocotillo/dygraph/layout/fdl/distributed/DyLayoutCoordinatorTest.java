@@ -0,0 +1,256 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.layout.fdl.TimeSlabFixture;
+import ocotillo.dygraph.layout.fdl.distributed.DyLayoutCoordinator.DyLayoutCoordinatorBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for the DyLayoutCoordinator class. The workers run in threads of the
+ * test process.
+ */
+public class DyLayoutCoordinatorTest {
+
+    private final List<TestWorker> workers = new ArrayList<>();
+
+    @After
+    public void closeWorkers() {
+        for (TestWorker worker : workers) {
+            worker.close();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testWorkers() throws IOException {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+        TestWorker first = startWorker(DyLayoutWorker::serve);
+        TestWorker second = startWorker(DyLayoutWorker::serve);
+
+        coordinator(graph, first, second).iterate(60);
+
+        TimeSlabFixture.assertLayout(graph);
+        assertThat(first.connections.get(), is(1));
+        assertThat(second.connections.get(), is(1));
+    }
+
+    @Test(timeout = 60000)
+    public void testLocalWorker() {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+
+        new DyLayoutCoordinatorBuilder(graph, 1, 5)
+                .withLocalWorkers(1, "-Xmx256m")
+                .withExchangeInterval(5)
+                .build()
+                .iterate(20);
+
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Coordinates aPosition = positions.get(graph.getNode("a")).valueAt(10);
+        Coordinates bPosition = positions.get(graph.getNode("b")).valueAt(10);
+        assertThat(Geom.e2D.magnitude(aPosition.minus(bPosition)), lessThan(30.0));
+    }
+
+    @Test(timeout = 60000, expected = IllegalStateException.class)
+    public void testDeadWorker() throws IOException {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+        TestWorker healthy = startWorker(DyLayoutWorker::serve);
+        TestWorker dying = startWorker((in, out) -> {
+            readSlab(in);
+            in.readByte();
+            in.readInt();
+        });
+
+        coordinator(graph, healthy, dying).iterate(60);
+    }
+
+    @Test(timeout = 60000, expected = IllegalStateException.class)
+    public void testUnresponsiveWorker() throws IOException {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+        TestWorker healthy = startWorker(DyLayoutWorker::serve);
+        TestWorker unresponsive = startWorker((in, out) -> {
+            readSlab(in);
+            while (true) {
+                in.readByte();
+            }
+        });
+
+        new DyLayoutCoordinatorBuilder(graph, 1, 5)
+                .withWorkers(Arrays.asList(healthy.address(), unresponsive.address()))
+                .withExchangeInterval(5)
+                .withReplyTimeout(Duration.ofMillis(500))
+                .build()
+                .iterate(60);
+    }
+
+    @Test(timeout = 60000)
+    public void testMoreWorkersThanSlabs() throws IOException {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        for (Node node : graph.nodes()) {
+            presences.set(node, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(0, 10), true)
+                    .withConst(Interval.newClosed(30, 40), true)
+                    .build());
+        }
+        List<TestWorker> testWorkers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            TestWorker worker = startWorker(DyLayoutWorker::serve);
+            testWorkers.add(worker);
+            addresses.add(worker.address());
+        }
+
+        new DyLayoutCoordinatorBuilder(graph, 1, 5)
+                .withWorkers(addresses)
+                .withGhostWidth(0)
+                .withExchangeInterval(5)
+                .build()
+                .iterate(60);
+
+        int connections = 0;
+        for (TestWorker worker : testWorkers) {
+            connections += worker.connections.get();
+        }
+        assertThat(connections, is(2));
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        for (double time : new double[]{5, 35}) {
+            Coordinates aPosition = positions.get(graph.getNode("a")).valueAt(time);
+            Coordinates bPosition = positions.get(graph.getNode("b")).valueAt(time);
+            assertThat(Geom.e2D.magnitude(aPosition.minus(bPosition)), lessThan(15.0));
+        }
+    }
+
+    /**
+     * Builds a coordinator that uses the given workers.
+     *
+     * @param graph the graph to lay out.
+     * @param workers the workers.
+     * @return the coordinator.
+     */
+    private static DyLayoutCoordinator coordinator(DyGraph graph, TestWorker... workers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (TestWorker worker : workers) {
+            addresses.add(worker.address());
+        }
+        return new DyLayoutCoordinatorBuilder(graph, 1, 5)
+                .withWorkers(addresses)
+                .withExchangeInterval(5)
+                .build();
+    }
+
+    /**
+     * Reads the slab message sent by the coordinator.
+     *
+     * @param in the stream from the coordinator.
+     * @throws IOException if the message cannot be read.
+     */
+    private static void readSlab(DataInputStream in) throws IOException {
+        in.readInt();
+        in.readByte();
+        in.readDouble();
+        in.readDouble();
+        in.readDouble();
+        in.readInt();
+        DySlabProtocol.readInterval(in);
+        DySlabProtocol.readGraph(in);
+    }
+
+    /**
+     * Starts a worker listening on a free local port.
+     *
+     * @param behaviour the behaviour of the worker on a connection.
+     * @return the worker.
+     * @throws IOException if the worker cannot listen.
+     */
+    private TestWorker startWorker(WorkerBehaviour behaviour) throws IOException {
+        TestWorker worker = new TestWorker(behaviour);
+        workers.add(worker);
+        return worker;
+    }
+
+    /**
+     * The behaviour of a test worker on a connection.
+     */
+    private interface WorkerBehaviour {
+
+        void serve(DataInputStream in, DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A worker that serves the coordinator connections in a thread.
+     */
+    private static class TestWorker implements Closeable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private TestWorker(WorkerBehaviour behaviour) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            Thread thread = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try (Socket socket = serverSocket.accept()) {
+                        connections.incrementAndGet();
+                        behaviour.serve(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+                    } catch (IOException ex) {
+                        // The coordinator or the test closed the connection.
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private InetSocketAddress address() {
+            return new InetSocketAddress("localhost", serverSocket.getLocalPort());
+        }
+
+        @Override
+        public void close() {
+            try {
+                serverSocket.close();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot close the test worker.", ex);
+            }
+        }
+    }
+}
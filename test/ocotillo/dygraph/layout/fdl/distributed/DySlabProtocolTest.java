@@ -0,0 +1,178 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.distributed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Function;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.dygraph.extra.EvolutionAnalyser;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Test for the DySlabProtocol class.
+ */
+public class DySlabProtocolTest {
+
+    @Test
+    public void testIntervals() throws IOException {
+        List<Interval> intervals = Arrays.asList(
+                Interval.newClosed(0, 1),
+                Interval.newOpen(2, 3.5),
+                Interval.newLeftClosed(Double.NEGATIVE_INFINITY, 5),
+                Interval.newRightClosed(-3, Double.POSITIVE_INFINITY),
+                Interval.global);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DySlabProtocol.writeInterval(out, Interval.newLeftClosed(7, 9));
+        DySlabProtocol.writeIntervals(out, intervals);
+        out.flush();
+
+        DataInputStream in = input(bytes);
+        assertThat(DySlabProtocol.readInterval(in), is(Interval.newLeftClosed(7, 9)));
+        assertThat(DySlabProtocol.readIntervals(in), is(intervals));
+        assertThat(in.available(), is(0));
+    }
+
+    @Test
+    public void testGraph() throws IOException {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> presences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> edgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Node a = graph.newNode("a");
+        presences.set(a, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 2), true)
+                .withConst(Interval.newLeftClosed(6, Double.POSITIVE_INFINITY), true)
+                .build());
+        positions.set(a, EvoBuilder.defaultAt(new Coordinates(1, 2))
+                .withRect(Interval.newClosed(0, 2), new Coordinates(0, 0), new Coordinates(4, 2), Interpolation.Std.linear)
+                .build());
+        Node b = graph.newNode("b", "origin");
+        presences.set(b, new Evolution<>(true));
+        positions.set(b, new Evolution<>(new Coordinates(-3, 5)));
+        Edge ab = graph.newEdge("ab", a, b);
+        edgePresences.set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newRightClosed(Double.NEGATIVE_INFINITY, 1), true)
+                .build());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DySlabProtocol.writeGraph(out, graph);
+        out.flush();
+        DataInputStream in = input(bytes);
+        DyGraph copy = DySlabProtocol.readGraph(in);
+        assertThat(in.available(), is(0));
+
+        DyNodeAttribute<Boolean> copyPresences = copy.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> copyEdgePresences = copy.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> copyPositions = copy.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(copy.nodeCount(), is(2));
+        assertThat(copy.edgeCount(), is(1));
+
+        Node copyA = copy.getNode("a");
+        assertThat(copyA.originId(), is(nullValue()));
+        assertThat(EvolutionAnalyser.getIntervalsWithValue(copyPresences.get(copyA), true),
+                is(EvolutionAnalyser.getIntervalsWithValue(presences.get(a), true)));
+        assertThat(copyPositions.get(copyA).getDefaultValue(), isAlmost(new Coordinates(1, 2)));
+        assertThat(copyPositions.get(copyA).valueAt(1), isAlmost(new Coordinates(2, 1)));
+        assertThat(copyPositions.get(copyA).valueAt(2), isAlmost(new Coordinates(4, 2)));
+        assertThat(copyPositions.get(copyA).valueAt(5), isAlmost(new Coordinates(1, 2)));
+
+        Node copyB = copy.getNode("b");
+        assertThat(copyB.originId(), is("origin"));
+        assertThat(EvolutionAnalyser.getIntervalsWithValue(copyPresences.get(copyB), true),
+                is(Arrays.asList(Interval.global)));
+        assertThat(copyPositions.get(copyB).valueAt(100), isAlmost(new Coordinates(-3, 5)));
+
+        Edge copyAb = copy.getEdge("ab");
+        assertThat(copyAb.source(), is(copyA));
+        assertThat(copyAb.target(), is(copyB));
+        assertThat(EvolutionAnalyser.getIntervalsWithValue(copyEdgePresences.get(copyAb), true),
+                is(Arrays.asList(Interval.newRightClosed(Double.NEGATIVE_INFINITY, 1))));
+    }
+
+    @Test
+    public void testTrajectories() throws IOException {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Node a = graph.newNode("a");
+        positions.set(a, EvoBuilder.defaultAt(new Coordinates(1, 1))
+                .withRect(Interval.newClosed(0, 4), new Coordinates(0, 0), new Coordinates(4, 0), Interpolation.Std.linear)
+                .withRect(Interval.newRightClosed(4, 8), new Coordinates(4, 0), new Coordinates(4, 4), Interpolation.Std.linear)
+                .build());
+        Node b = graph.newNode("b");
+        positions.set(b, new Evolution<>(new Coordinates(2, 2)));
+        Node c = graph.newNode("c");
+        positions.set(c, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newLeftClosed(5, Double.POSITIVE_INFINITY), new Coordinates(1, 3), new Coordinates(1, 3), Interpolation.Std.linear)
+                .build());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DySlabProtocol.writeTrajectories(out, graph, Interval.newLeftClosed(2, Double.POSITIVE_INFINITY));
+        out.flush();
+        DataInputStream in = input(bytes);
+        Map<String, Evolution<Coordinates>> trajectories = DySlabProtocol.readTrajectories(in);
+        assertThat(in.available(), is(0));
+
+        assertThat(trajectories.size(), is(3));
+        Evolution<Coordinates> aTrajectory = trajectories.get("a");
+        assertThat(aTrajectory.valueAt(1), is(nullValue()));
+        assertThat(aTrajectory.valueAt(2), isAlmost(new Coordinates(2, 0)));
+        assertThat(aTrajectory.valueAt(4), isAlmost(new Coordinates(4, 0)));
+        assertThat(aTrajectory.valueAt(6), isAlmost(new Coordinates(4, 2)));
+        assertThat(aTrajectory.valueAt(8), isAlmost(new Coordinates(4, 4)));
+        assertThat(aTrajectory.valueAt(9), is(nullValue()));
+        assertThat(trajectories.get("b").valueAt(3), is(nullValue()));
+        Function<Coordinates> cFunction = trajectories.get("c").iterator().next();
+        assertThat(cFunction.interval(), is(Interval.newLeftClosed(5, Double.POSITIVE_INFINITY)));
+        assertThat(cFunction.leftValue(), isAlmost(new Coordinates(1, 3)));
+        assertThat(cFunction.rightValue(), isAlmost(new Coordinates(1, 3)));
+    }
+
+    /**
+     * Returns a stream reading the written bytes.
+     *
+     * @param bytes the written bytes.
+     * @return the input stream.
+     */
+    private static DataInputStream input(ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
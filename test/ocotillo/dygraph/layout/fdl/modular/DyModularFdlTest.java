@@ -0,0 +1,206 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.modular;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.extra.DyGraphMetric;
+import ocotillo.dygraph.extra.SpaceTimeCubeSynchroniser;
+import ocotillo.dygraph.layout.fdl.modular.DyModularFdl.DyModularFdlBuilder;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import ocotillo.geometry.Interval;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.Observer;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.extra.GraphMetric;
+import ocotillo.graph.layout.fdl.multilevel.MultilevelFdl.MultilevelFdlBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+/**
+ * Tests the dynamic modular force-directed algorithm.
+ */
+public class DyModularFdlTest {
+
+    @Test
+    public void testMultilevelPlacement() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> dyEdgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Node node = graph.newNode("n" + i);
+            dyPresences.set(node, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(0, 10), true)
+                    .build());
+            nodes.add(node);
+        }
+        for (int i = 1; i < nodes.size(); i++) {
+            Edge edge = graph.newEdge(nodes.get(i - 1), nodes.get(i));
+            dyEdgePresences.set(edge, EvoBuilder.defaultAt(false)
+                    .withConst(i % 2 == 0 ? Interval.newClosed(1, 3) : Interval.newClosed(7, 9), true)
+                    .build());
+        }
+
+        new DyModularFdlBuilder(graph, 1)
+                .withMultilevelPlacement(new MultilevelFdlBuilder().withEdgeLength(5).build())
+                .build();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Coordinates position = dyPositions.get(nodes.get(i)).valueAt(0);
+            assertThat(dyPositions.get(nodes.get(i)).valueAt(5), isAlmost(position));
+            assertThat(dyPositions.get(nodes.get(i)).valueAt(10), isAlmost(position));
+            for (int j = 0; j < i; j++) {
+                Coordinates other = dyPositions.get(nodes.get(j)).valueAt(0);
+                assertThat(Geom.e2D.magnitude(position.minus(other)), is(greaterThan(0.5)));
+            }
+        }
+    }
+
+    @Test
+    public void testMultilevelPlacementQuality() {
+        DyGraph scatteredGraph = gridGraph(6);
+        DyModularFdl scatteredAlgorithm = new DyModularFdlBuilder(scatteredGraph, 1)
+                .withDynnoSliceModules(5)
+                .build();
+        scatteredAlgorithm.iterate(10);
+        scatteredAlgorithm.close();
+
+        DyGraph placedGraph = gridGraph(6);
+        DyModularFdl placedAlgorithm = new DyModularFdlBuilder(placedGraph, 1)
+                .withDynnoSliceModules(5)
+                .withMultilevelPlacement(new MultilevelFdlBuilder().withEdgeLength(5).withSeed(1).build())
+                .build();
+        placedAlgorithm.iterate(10);
+        placedAlgorithm.close();
+
+        DyGraphMetric<Double> stress = new DyGraphMetric.AverageSnapshotMetricCalculation(
+                new GraphMetric.StressMetric.Builder().withScaling(5).build(), Interval.newClosed(0, 10), 5);
+        assertThat(stress.computeMetric(placedGraph), is(lessThan(stress.computeMetric(scatteredGraph))));
+    }
+
+    /**
+     * Builds a dynamic grid graph whose nodes start at scattered positions.
+     * The grid edges appear and disappear over time, while the nodes are
+     * always present.
+     *
+     * @param side the number of nodes on each side of the grid.
+     * @return the dynamic graph.
+     */
+    private static DyGraph gridGraph(int side) {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> dyEdgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        DyNodeAttribute<Coordinates> dyPositions = graph.nodeAttribute(StdAttribute.nodePosition);
+
+        Random random = new Random(42);
+        Node[][] nodes = new Node[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                Node node = graph.newNode("n" + i + "_" + j);
+                dyPresences.set(node, EvoBuilder.defaultAt(false)
+                        .withConst(Interval.newClosed(0, 10), true)
+                        .build());
+                dyPositions.set(node, new Evolution<>(new Coordinates(random.nextDouble() * 50, random.nextDouble() * 50)));
+                nodes[i][j] = node;
+            }
+        }
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                Interval presence = (i + j) % 2 == 0 ? Interval.newClosed(0, 7) : Interval.newClosed(3, 10);
+                if (i + 1 < side) {
+                    dyEdgePresences.set(graph.newEdge(nodes[i][j], nodes[i + 1][j]), EvoBuilder.defaultAt(false)
+                            .withConst(presence, true)
+                            .build());
+                }
+                if (j + 1 < side) {
+                    dyEdgePresences.set(graph.newEdge(nodes[i][j], nodes[i][j + 1]), EvoBuilder.defaultAt(false)
+                            .withConst(presence, true)
+                            .build());
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    public void testCloseReleasesObservers() {
+        DyGraph graph = new DyGraph();
+        DyNodeAttribute<Boolean> dyPresences = graph.nodeAttribute(StdAttribute.dyPresence);
+        DyEdgeAttribute<Boolean> dyEdgePresences = graph.edgeAttribute(StdAttribute.dyPresence);
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        for (Node node : graph.nodes()) {
+            dyPresences.set(node, EvoBuilder.defaultAt(false)
+                    .withConst(Interval.newClosed(0, 10), true)
+                    .build());
+        }
+        Edge ab = graph.newEdge(a, b);
+        dyEdgePresences.set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 10), true)
+                .build());
+
+        DyModularFdl algorithm = new DyModularFdlBuilder(graph, 1)
+                .withForce(new DyModularForce.ConnectionAttraction(5))
+                .build();
+        SpaceTimeCubeSynchroniser synchronizer = algorithm.getSyncro();
+        List<Observer> synchronizerObservers = new ArrayList<>(Whitebox.<List<Observer>>getInternalState(synchronizer, "observers"));
+        assertThat(synchronizerObservers.isEmpty(), is(false));
+        assertThat(mirrorObservers(synchronizer).containsAll(synchronizerObservers), is(true));
+
+        algorithm.iterate(5);
+        algorithm.close();
+
+        for (Observer observer : synchronizerObservers) {
+            assertThat(mirrorObservers(synchronizer).contains(observer), is(false));
+        }
+        assertThat(synchronizer.mirrorLines().get(0).positionAtMirrorTime(5), is(notNullValue()));
+    }
+
+    /**
+     * Returns the observers registered on the mirror graph attributes of a
+     * synchroniser.
+     *
+     * @param synchronizer the synchroniser.
+     * @return the observers.
+     */
+    private static Set<Observer> mirrorObservers(SpaceTimeCubeSynchroniser synchronizer) {
+        Set<Observer> observers = new HashSet<>();
+        Graph mirrorGraph = synchronizer.mirrorGraph();
+        observers.addAll(Whitebox.<Set<Observer>>getInternalState(mirrorGraph.nodeAttribute(StdAttribute.nodePosition), "observers"));
+        observers.addAll(Whitebox.<Set<Observer>>getInternalState(mirrorGraph.edgeAttribute(StdAttribute.edgePoints), "observers"));
+        return observers;
+    }
+}
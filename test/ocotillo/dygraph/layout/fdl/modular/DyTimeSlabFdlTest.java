@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.layout.fdl.modular;
+
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.layout.fdl.TimeSlabFixture;
+import ocotillo.dygraph.layout.fdl.modular.DyTimeSlabFdl.DyTimeSlabFdlBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularConstraint;
+import org.junit.Test;
+
+/**
+ * Tests the time slab decomposition of the dynamic modular force-directed
+ * algorithm.
+ */
+public class DyTimeSlabFdlTest {
+
+    @Test
+    public void testTimeSlabLayout() {
+        DyGraph graph = TimeSlabFixture.buildGraph();
+
+        new DyTimeSlabFdlBuilder(graph, 1, builder -> builder
+                .withForce(new DyModularForce.TimeStraightning(5))
+                .withForce(new DyModularForce.ConnectionAttraction(5))
+                .withForce(new DyModularForce.EdgeRepulsion(5))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(10)))
+                .withSlabs(2)
+                .withThreads(2)
+                .withExchangeInterval(5)
+                .build()
+                .iterate(60);
+
+        TimeSlabFixture.assertLayout(graph);
+    }
+}
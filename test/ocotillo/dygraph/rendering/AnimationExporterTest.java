@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import javax.imageio.ImageIO;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Box;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for the AnimationExporter class.
+ */
+public class AnimationExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPngSequenceWithResume() throws IOException {
+        DyGraph dyGraph = new DyGraph();
+        Node a = dyGraph.newNode("a");
+        Node b = dyGraph.newNode("b");
+        dyGraph.newEdge(a, b);
+
+        DyNodeAttribute<Boolean> presence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        presence.set(a, EvoBuilder.defaultAt(true).build());
+        presence.set(b, EvoBuilder.defaultAt(true).build());
+        DyNodeAttribute<Coordinates> positions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(10, 0))
+                .withRect(Interval.newClosed(0, 1), new Coordinates(10, 0), new Coordinates(0, 10), Interpolation.Std.linear)
+                .build());
+
+        Animation animation = new Animation(Interval.newClosed(0, 1), Duration.ofSeconds(1), 5);
+        int frameCount = animation.frames().size();
+        File directory = folder.newFolder("frames");
+        AnimationExporter exporter = new AnimationExporter.AeBuilder(dyGraph, animation, 40, 30)
+                .withThreads(2)
+                .build();
+
+        assertThat(exporter.savePngSequence(directory, "frame"), is(frameCount));
+        for (int i = 0; i < frameCount; i++) {
+            BufferedImage image = ImageIO.read(AnimationExporter.frameFile(directory, "frame", i));
+            assertThat(image.getWidth(), is(40));
+            assertThat(image.getHeight(), is(30));
+        }
+        assertThat(directory.listFiles().length, is(frameCount + 1));
+        assertThat(AnimationExporter.viewBoxFile(directory, "frame").exists(), is(true));
+
+        assertThat(AnimationExporter.frameFile(directory, "frame", 2).delete(), is(true));
+        assertThat(exporter.savePngSequence(directory, "frame"), is(1));
+        assertThat(AnimationExporter.frameFile(directory, "frame", 2).exists(), is(true));
+        assertThat(exporter.savePngSequence(directory, "frame"), is(0));
+
+        Box firstViewBox = exporter.viewBox();
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(100, 0)).build());
+        AnimationExporter resumed = new AnimationExporter.AeBuilder(dyGraph, animation, 40, 30)
+                .withThreads(2)
+                .build();
+        assertThat(AnimationExporter.frameFile(directory, "frame", 3).delete(), is(true));
+        assertThat(resumed.savePngSequence(directory, "frame"), is(1));
+        assertThat(resumed.viewBox(), is(firstViewBox));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.util.Arrays;
+import java.util.List;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Test for the FrameStream class.
+ */
+public class FrameStreamTest {
+
+    @Test
+    public void testStreamOnDisplayGraph() throws InterruptedException {
+        DyGraph dyGraph = new DyGraph();
+        Node a = dyGraph.newNode("a");
+        Node b = dyGraph.newNode("b");
+        Edge ab = dyGraph.newEdge(a, b);
+
+        DyNodeAttribute<Boolean> nodePresence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        nodePresence.set(a, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 17), true)
+                .build());
+        nodePresence.set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(5, 15), true)
+                .build());
+        DyNodeAttribute<Coordinates> positions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(10, 0))
+                .withRect(Interval.newClosed(7, 17), new Coordinates(10, 0), new Coordinates(0, 10), Interpolation.Std.linear)
+                .build());
+        DyEdgeAttribute<Boolean> edgePresence = dyGraph.edgeAttribute(StdAttribute.dyPresence);
+        edgePresence.set(ab, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newOpen(10, 13), true)
+                .build());
+
+        Graph display = dyGraph.snapshotAt(0);
+        NodeAttribute<Coordinates> displayPositions = display.nodeAttribute(StdAttribute.nodePosition);
+        List<Double> frames = Arrays.asList(8.0, 12.0, 16.0, 0.0);
+        FrameStream stream = new FrameStream(dyGraph, frames, 1);
+
+        for (Double frameTime : frames) {
+            FrameStream.Frame frame = stream.poll();
+            while (frame == null) {
+                Thread.sleep(1);
+                frame = stream.poll();
+            }
+            assertThat(frame.time(), is(frameTime));
+            frame.showOn(display);
+
+            Graph expected = dyGraph.snapshotAt(frameTime);
+            assertThat(display.nodes(), containsInAnyOrder(expected.nodes().toArray()));
+            assertThat(display.edges(), containsInAnyOrder(expected.edges().toArray()));
+            NodeAttribute<Coordinates> expectedPositions = expected.nodeAttribute(StdAttribute.nodePosition);
+            for (Node node : expected.nodes()) {
+                assertThat(displayPositions.get(node), is(expectedPositions.get(node)));
+            }
+        }
+        assertThat(stream.isFinished(), is(true));
+        assertThat(display.<Coordinates>nodeAttribute(StdAttribute.nodePosition), is(sameInstance(displayPositions)));
+        stream.close();
+    }
+
+    @Test
+    public void testStreamWithReappearingNode() throws InterruptedException {
+        DyGraph dyGraph = new DyGraph();
+        Node a = dyGraph.newNode("a");
+        Node b = dyGraph.newNode("b");
+
+        DyNodeAttribute<Boolean> nodePresence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        nodePresence.set(a, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 20), true)
+                .build());
+        nodePresence.set(b, EvoBuilder.defaultAt(false)
+                .withConst(Interval.newClosed(0, 4), true)
+                .withConst(Interval.newClosed(12, 20), true)
+                .build());
+        DyNodeAttribute<String> labels = dyGraph.nodeAttribute(StdAttribute.label);
+        labels.set(a, EvoBuilder.defaultAt("")
+                .withConst(Interval.newRightClosed(0, 10), "first")
+                .withConst(Interval.newLeftClosed(10, 20), "second")
+                .build());
+        labels.set(b, EvoBuilder.defaultAt("")
+                .withConst(Interval.newRightClosed(0, 8), "early")
+                .withConst(Interval.newLeftClosed(8, 20), "late")
+                .build());
+
+        Graph display = dyGraph.snapshotAt(0);
+        NodeAttribute<String> displayLabels = display.nodeAttribute(StdAttribute.label);
+        List<Double> frames = Arrays.asList(2.0, 6.0, 9.0, 14.0, 18.0);
+        FrameStream stream = new FrameStream(dyGraph, frames, 2);
+
+        for (Double frameTime : frames) {
+            FrameStream.Frame frame = stream.poll();
+            while (frame == null) {
+                Thread.sleep(1);
+                frame = stream.poll();
+            }
+            frame.showOn(display);
+
+            Graph expected = dyGraph.snapshotAt(frameTime);
+            assertThat(display.nodes(), containsInAnyOrder(expected.nodes().toArray()));
+            NodeAttribute<String> expectedLabels = expected.nodeAttribute(StdAttribute.label);
+            for (Node node : expected.nodes()) {
+                assertThat(displayLabels.get(node), is(expectedLabels.get(node)));
+            }
+        }
+        assertThat(displayLabels.get(a), is("second"));
+        assertThat(displayLabels.get(b), is("late"));
+        stream.close();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.dygraph.rendering;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.xml.parsers.DocumentBuilderFactory;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Test for the SvgAnimationExporter class.
+ */
+public class SvgAnimationExporterTest {
+
+    @Test
+    public void testLinearTrack() {
+        Evolution<Double> evolution = EvoBuilder.defaultAt(5.0)
+                .withRect(Interval.newClosed(1, 2), 0.0, 10.0, Interpolation.Std.linear)
+                .build();
+        KeyframeTrack<Double> track = KeyframeTrack.of(evolution, Interval.newClosed(0, 4)).compactLinear();
+        assertThat(track.size(), is(6));
+        assertThat(track.time(0), is(0.0));
+        assertThat(track.time(1), is(1.0));
+        assertThat(track.time(2), is(1.0));
+        assertThat(track.time(3), is(2.0));
+        assertThat(track.time(4), is(2.0));
+        assertThat(track.time(5), is(4.0));
+        assertThat(track.values(), is(Arrays.asList(5.0, 5.0, 0.0, 10.0, 5.0, 5.0)));
+
+        KeyframeTrack<Double> clipped = KeyframeTrack.of(evolution, Interval.newClosed(1.5, 2)).compactLinear();
+        assertThat(clipped.values(), is(Arrays.asList(5.0, 10.0)));
+    }
+
+    @Test
+    public void testHeldTrack() {
+        Evolution<Boolean> evolution = EvoBuilder.defaultAt(false)
+                .withRect(Interval.newClosed(1, 3), false, true, Interpolation.Std.step)
+                .build();
+        KeyframeTrack<Boolean> track = KeyframeTrack.of(evolution, Interval.newClosed(0, 4)).compactHeld();
+        assertThat(track.values(), is(Arrays.asList(false, true, false)));
+        assertThat(track.time(1), is(2.0));
+        assertThat(track.time(2), is(3.0));
+        assertThat(track.heldValueAt(2.5), is(true));
+        assertThat(track.heldValueAt(3.5), is(false));
+    }
+
+    @Test
+    public void testSmilExport() throws Exception {
+        DyGraph dyGraph = new DyGraph();
+        Node a = dyGraph.newNode("a");
+        Node b = dyGraph.newNode("b");
+        dyGraph.newEdge(a, b);
+
+        DyNodeAttribute<Boolean> presence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        presence.set(a, EvoBuilder.defaultAt(true).build());
+        presence.set(b, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0.5, 1), true).build());
+        DyNodeAttribute<Coordinates> positions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(10, 0))
+                .withRect(Interval.newClosed(0, 1), new Coordinates(10, 0), new Coordinates(0, 10), Interpolation.Std.linear)
+                .build());
+
+        Animation animation = new Animation(Interval.newClosed(0, 1), Duration.ofSeconds(4));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new SvgAnimationExporter.SaeBuilder(dyGraph, animation).withDecimalDigits(3).build().write(output);
+        String svg = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(output.toByteArray()));
+        assertThat(document.getElementsByTagName("g").getLength(), is(2));
+        assertThat(document.getElementsByTagName("line").getLength(), is(1));
+        assertThat(document.getElementsByTagName("animateTransform").getLength(), is(1));
+        Element translation = (Element) document.getElementsByTagName("animateTransform").item(0);
+        assertThat(translation.getAttribute("keyTimes"), is("0;1"));
+        assertThat(translation.getAttribute("dur"), is("4.0s"));
+        assertThat(svg, containsString("attributeName=\"visibility\" calcMode=\"discrete\""));
+        assertThat(svg, containsString("keyTimes=\"0;0.5\" values=\"hidden;visible\""));
+    }
+
+    @Test
+    public void testBentEdgeExport() throws Exception {
+        DyGraph dyGraph = new DyGraph();
+        Node a = dyGraph.newNode("a");
+        Node b = dyGraph.newNode("b");
+        Node c = dyGraph.newNode("c");
+        Edge ab = dyGraph.newEdge(a, b);
+        dyGraph.newEdge(b, c);
+
+        DyNodeAttribute<Boolean> presence = dyGraph.nodeAttribute(StdAttribute.dyPresence);
+        presence.setDefault(EvoBuilder.defaultAt(true).build());
+        DyNodeAttribute<Coordinates> positions = dyGraph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(10, 0))
+                .withRect(Interval.newClosed(0, 1), new Coordinates(10, 0), new Coordinates(20, 0), Interpolation.Std.linear)
+                .build());
+        positions.set(c, EvoBuilder.defaultAt(new Coordinates(20, 10)).build());
+        DyEdgeAttribute<StdAttribute.ControlPoints> edgePoints = dyGraph.edgeAttribute(StdAttribute.edgePoints);
+        edgePoints.set(ab, new Evolution<>(new StdAttribute.ControlPoints(new Coordinates(5, 10))));
+
+        Animation animation = new Animation(Interval.newClosed(0, 1), Duration.ofSeconds(4));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new SvgAnimationExporter.SaeBuilder(dyGraph, animation).withDecimalDigits(3).build().write(output);
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(output.toByteArray()));
+        assertThat(document.getElementsByTagName("line").getLength(), is(1));
+        assertThat(document.getElementsByTagName("polyline").getLength(), is(1));
+        Element polyline = (Element) document.getElementsByTagName("polyline").item(0);
+        assertThat(polyline.getAttribute("id"), is(ab.id()));
+        assertThat(polyline.getAttribute("fill"), is("none"));
+        assertThat(polyline.getAttribute("points"), is("1,11 6,1 11,11"));
+        Element pointsAnimation = (Element) polyline.getElementsByTagName("animate").item(0);
+        assertThat(pointsAnimation.getAttribute("attributeName"), is("points"));
+        assertThat(pointsAnimation.getAttribute("values"), is("1,11 6,1 11,11;1,11 6,1 21,11"));
+    }
+}
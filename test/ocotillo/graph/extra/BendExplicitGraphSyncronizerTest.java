@@ -16,16 +16,25 @@
 package ocotillo.graph.extra;
 
 import java.util.Arrays;
+import java.util.Collection;
+import ocotillo.geometry.Box;
 import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
 import ocotillo.graph.Edge;
 import ocotillo.graph.EdgeAttribute;
+import ocotillo.graph.Element;
 import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.Observer;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.StdAttribute.ControlPoints;
 import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BegsBuilder;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendChanges;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.BendPlanner;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.ChainPoint;
 import ocotillo.graph.extra.BendExplicitGraphSynchroniser.MirrorEdge;
+import ocotillo.graph.extra.BendExplicitGraphSynchroniser.PlannedBends;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertEquals;
@@ -351,4 +360,172 @@ public class BendExplicitGraphSyncronizerTest {
         syncronizer.updateOriginal();
         assertThat(controlPoints.get(ab), is(Arrays.asList(new Coordinates(1, 1))));
     }
+
+    @Test
+    public void testApplyBendChanges() {
+        controlPoints.set(ab, new ControlPoints());
+        BendExplicitGraphSynchroniser syncronizer = new BegsBuilder(graph)
+                .preserveNodeAttribute(StdAttribute.nodeSize, true)
+                .preserveEdgeAttribute("metric")
+                .build();
+
+        Graph mirror = syncronizer.getMirrorGraph();
+        NodeAttribute<Coordinates> mirrorPositions = syncronizer.getMirrorPositions();
+        NodeAttribute<Coordinates> mirrorSizes = mirror.nodeAttribute(StdAttribute.nodeSize);
+        EdgeAttribute<Double> mirrorMetric = mirror.edgeAttribute("metric");
+        MirrorEdge mirrorEdge = syncronizer.getMirrorEdge(ab);
+        final int[] notifications = {0};
+        new Observer.GraphElements(mirror) {
+            @Override
+            public void theseElementsChanged(Collection<Element> changedElements) {
+                notifications[0]++;
+            }
+        };
+
+        syncronizer.applyBendChanges(new BendChanges()
+                .addBend(mirrorEdge, mirrorEdge.segments().get(0), mirrorPositions));
+        assertThat(notifications[0], is(1));
+        assertThat(mirrorEdge.bends().size(), is(1));
+        Node middle = mirrorEdge.bends().get(0);
+        assertThat(mirrorPositions.get(middle), is(new Coordinates(5, 0)));
+        Edge middleToB = mirrorEdge.segments().get(1);
+
+        syncronizer.applyBendChanges(new BendChanges()
+                .addBend(mirrorEdge, mirrorEdge.segments().get(0), new Coordinates(2, 0))
+                .addBend(mirrorEdge, mirrorEdge.segments().get(1), new Coordinates(7, 0)));
+        assertThat(notifications[0], is(2));
+        assertThat(mirror.nodeCount(), is(5));
+        assertThat(mirror.edgeCount(), is(4));
+        assertThat(mirrorEdge.bends().get(1), is(middle));
+        Node left = mirrorEdge.bends().get(0);
+        Node right = mirrorEdge.bends().get(2);
+        assertThat(mirrorPositions.get(left), is(new Coordinates(2, 0)));
+        assertThat(mirrorPositions.get(right), is(new Coordinates(7, 0)));
+        assertThat(mirrorSizes.get(right), is(sizes.get(a)));
+        assertThat(mirror.has(middleToB), is(false));
+        assertChain(mirror, mirrorEdge);
+        for (Edge segment : mirrorEdge.segments()) {
+            assertThat(mirrorMetric.get(segment), is(metrics.get(ab)));
+            assertThat(syncronizer.getOriginalEdge(segment), is(ab));
+        }
+
+        Edge leftToMiddle = mirrorEdge.segments().get(1);
+        Edge rightToB = mirrorEdge.segments().get(3);
+        syncronizer.applyBendChanges(new BendChanges()
+                .removeBend(mirrorEdge, right)
+                .addBend(mirrorEdge, rightToB, new Coordinates(9, 0)));
+        assertThat(notifications[0], is(3));
+        assertThat(mirror.has(right), is(false));
+        assertThat(mirror.has(leftToMiddle), is(true));
+        assertThat(mirrorEdge.bends().size(), is(3));
+        assertThat(mirrorEdge.bends().get(1), is(middle));
+        assertThat(mirrorPositions.get(mirrorEdge.bends().get(2)), is(new Coordinates(9, 0)));
+        assertChain(mirror, mirrorEdge);
+
+        syncronizer.updateOriginal();
+        assertThat(controlPoints.get(ab), is(Arrays.asList(new Coordinates(2, 0), new Coordinates(5, 0), new Coordinates(9, 0))));
+
+        syncronizer.applyBendChanges(new BendChanges()
+                .removeBend(mirrorEdge, mirrorEdge.bends().get(0))
+                .removeBend(mirrorEdge, mirrorEdge.bends().get(1))
+                .removeBend(mirrorEdge, mirrorEdge.bends().get(2)));
+        assertThat(notifications[0], is(4));
+        assertThat(mirror.nodeCount(), is(2));
+        assertThat(mirror.edgeCount(), is(1));
+        assertThat(mirrorEdge.bends().isEmpty(), is(true));
+        assertChain(mirror, mirrorEdge);
+    }
+
+    @Test
+    public void testPlanBendChanges() {
+        controlPoints.set(ab, new ControlPoints());
+        BendExplicitGraphSynchroniser syncronizer = new BegsBuilder(graph).build();
+
+        Graph mirror = syncronizer.getMirrorGraph();
+        NodeAttribute<Coordinates> mirrorPositions = syncronizer.getMirrorPositions();
+        MirrorEdge mirrorEdge = syncronizer.getMirrorEdge(ab);
+        syncronizer.applyBendChanges(new BendChanges()
+                .addBend(mirrorEdge, mirrorEdge.segments().get(0), new Coordinates(2, 0)));
+        Node existing = mirrorEdge.bends().get(0);
+
+        BendPlanner planner = new BendPlanner() {
+            @Override
+            public boolean shouldAddBend(Edge segment) {
+                return mirrorPositions.get(segment.target()).minus(mirrorPositions.get(segment.source())).x() > 6;
+            }
+
+            @Override
+            public boolean shouldRemoveBend(ChainPoint previous, ChainPoint bend, ChainPoint next, PlannedBends plannedBends) {
+                return next.position().minus(previous.position()).x() < 9;
+            }
+        };
+
+        BendChanges changes = syncronizer.planBendChanges(Arrays.asList(ab), planner);
+        assertThat(changes.insertionCount(), is(1));
+        assertThat(changes.removalCount(), is(1));
+        assertThat(mirror.nodeCount(), is(3));
+        assertThat(mirrorEdge.bends().get(0), is(existing));
+
+        syncronizer.applyBendChanges(changes);
+        assertThat(mirror.has(existing), is(false));
+        assertThat(mirrorEdge.bends().size(), is(1));
+        assertThat(mirrorPositions.get(mirrorEdge.bends().get(0)), is(new Coordinates(6, 0)));
+        assertChain(mirror, mirrorEdge);
+
+        assertThat(syncronizer.planBendChanges(Arrays.asList(ab), planner).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testPlanBendChangesWithOtherEdgeInsertions() {
+        controlPoints.set(ab, new ControlPoints(new Coordinates(5, 2)));
+        Node c = graph.newNode();
+        Node d = graph.newNode();
+        Edge cd = graph.newEdge(c, d);
+        positions.set(c, new Coordinates(4, -10));
+        positions.set(d, new Coordinates(6, 10));
+        BendExplicitGraphSynchroniser syncronizer = new BegsBuilder(graph).build();
+        NodeAttribute<Coordinates> mirrorPositions = syncronizer.getMirrorPositions();
+
+        BendPlanner planner = new BendPlanner() {
+            @Override
+            public boolean shouldAddBend(Edge segment) {
+                return Geom.e2D.magnitude(mirrorPositions.get(segment.target()).minus(mirrorPositions.get(segment.source()))) > 15;
+            }
+
+            @Override
+            public boolean shouldRemoveBend(ChainPoint previous, ChainPoint bend, ChainPoint next, PlannedBends plannedBends) {
+                Box triangleBox = Box.boundingBox(previous.position(), bend.position(), next.position());
+                return !bend.isPlanned() && plannedBends.getAnyInBox(triangleBox,
+                        point -> point != previous && point != bend && point != next) == null;
+            }
+        };
+
+        BendChanges changes = syncronizer.planBendChanges(Arrays.asList(ab), planner);
+        assertThat(changes.insertionCount(), is(0));
+        assertThat(changes.removalCount(), is(1));
+
+        changes = syncronizer.planBendChanges(Arrays.asList(ab, cd), planner);
+        assertThat(changes.insertionCount(), is(1));
+        assertThat(changes.removalCount(), is(0));
+    }
+
+    /**
+     * Checks that the segments of a mirror edge connect its source, bends and
+     * target in order.
+     *
+     * @param mirror the mirror graph.
+     * @param mirrorEdge the mirror edge.
+     */
+    private void assertChain(Graph mirror, MirrorEdge mirrorEdge) {
+        assertThat(mirrorEdge.segments().size(), is(mirrorEdge.bends().size() + 1));
+        Node previous = mirrorEdge.source();
+        for (int i = 0; i < mirrorEdge.segments().size(); i++) {
+            Edge segment = mirrorEdge.segments().get(i);
+            Node next = i < mirrorEdge.bends().size() ? mirrorEdge.bends().get(i) : mirrorEdge.target();
+            assertThat(mirror.has(segment), is(true));
+            assertThat(segment.source(), is(previous));
+            assertThat(segment.target(), is(next));
+            previous = next;
+        }
+    }
 }
@@ -18,6 +18,7 @@ package ocotillo.graph.layout.fdl.modular;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import ocotillo.geometry.GeomNumeric;
@@ -129,6 +130,98 @@ public class ModularFdlTest {
 
     }
 
+    @Test
+    public void testAdaptiveCoolDown() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        graph.newEdge(a, b);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 2));
+        graph.newNodeAttribute(StdAttribute.nodeSize, new Coordinates(0, 0));
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(5))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(5))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(3))
+                .withThermostat(new ModularThermostat.AdaptiveCoolDown())
+                .withMetric(new ModularMetric.IterationTemperature())
+                .build();
+
+        ModularStatistics stats = modularFdl.iterate(1000);
+
+        assertThat(stats.hasConverged(), is(true));
+        ModularMetric temperatures = stats.getMetrics().get(2);
+        assertThat(temperatures.metricName(), is("Temperature"));
+        assertThat(temperatures.values().size() - 1, is(lessThan(1000)));
+        assertThat(Geom.e2D.magnitude(positions.get(b).minus(positions.get(a))), is(greaterThan(4.5)));
+        assertThat(Geom.e2D.magnitude(positions.get(b).minus(positions.get(a))), is(lessThan(5.5)));
+    }
+
+    @Test
+    public void testEnergyOnlyWhenRequired() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        graph.newEdge(a, b);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 2));
+        graph.newNodeAttribute(StdAttribute.nodeSize, new Coordinates(0, 0));
+
+        for (boolean requiresEnergy : new boolean[]{false, true}) {
+            List<Double> energies = new ArrayList<>();
+            ModularThermostat thermostat = new ModularThermostat.LinearCoolDown() {
+                @Override
+                protected boolean requiresEnergy() {
+                    return requiresEnergy;
+                }
+
+                @Override
+                protected void registerIteration(double energy, double maxMovement) {
+                    energies.add(energy);
+                }
+            };
+            new ModularFdlBuilder(graph)
+                    .withForce(new ModularForce.EdgeAttraction2D(5))
+                    .withThermostat(thermostat)
+                    .build()
+                    .iterate(3);
+
+            assertThat(energies.size(), is(3));
+            for (double energy : energies) {
+                assertThat(Double.isNaN(energy), is(!requiresEnergy));
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultStatistics() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        graph.newEdge(a, b);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 2));
+        graph.newNodeAttribute(StdAttribute.nodeSize, new Coordinates(0, 0));
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(5))
+                .withThermostat(new ModularThermostat.AdaptiveCoolDown())
+                .build();
+
+        ModularStatistics stats = modularFdl.iterate(10);
+
+        assertThat(stats.getMetrics().size(), is(2));
+        assertThat(stats.getMetrics().get(0).metricName(), is("Iteration"));
+        assertThat(stats.getMetrics().get(1).metricName(), is("RunningTime"));
+    }
+
     @Test
     public void testEdgeNodeRepulsionDynamic() {
         Graph graph = new Graph();
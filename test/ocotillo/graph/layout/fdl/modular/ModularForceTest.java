@@ -18,6 +18,7 @@ package ocotillo.graph.layout.fdl.modular;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import ocotillo.geometry.Coordinates;
 import ocotillo.geometry.Geom;
 import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
@@ -175,6 +176,58 @@ public class ModularForceTest {
         assertThat(Geom.e2D.magnitude(forces.get(b)), isAlmost(0.0));
     }
 
+    @Test
+    public void testBarnesHutRepulsion() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0, 56));
+        positions.set(b, new Coordinates(0, 3, 13));
+
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.BarnesHutRepulsion2D(5))
+                .build();
+
+        NodeAttribute<Coordinates> forces = Whitebox.getInternalState(modularFdl, "forces");
+
+        modularFdl.iterate(1);
+        assertThat(Geom.e2D.unitVector(forces.get(a)), isAlmost(new Coordinates(0, -1)));
+        assertThat(Geom.e2D.unitVector(forces.get(b)), isAlmost(new Coordinates(0, 1)));
+        assertThat(Geom.e2D.magnitude(forces.get(a)), isAlmost(Geom.e2D.magnitude(forces.get(b))));
+
+        double originalMagnitude = Geom.e2D.magnitude(forces.get(a));
+
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 7));
+
+        modularFdl.iterate(1);
+        assertThat(Geom.e2D.magnitude(forces.get(a)), is(lessThan(originalMagnitude)));
+    }
+
+    @Test
+    public void testBarnesHutTree() {
+        Random random = new Random(42);
+        int pointCount = 500;
+        double[] x = new double[pointCount];
+        double[] y = new double[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            x[i] = random.nextDouble() * 100;
+            y[i] = random.nextDouble() * 100;
+        }
+        x[1] = x[0];
+        y[1] = y[0];
+
+        ModularForce.BarnesHutTree tree = new ModularForce.BarnesHutTree(x, y);
+        for (int i = 0; i < pointCount; i++) {
+            double[] exact = tree.repulsion(i, 1, 1, 0);
+            double[] approximated = tree.repulsion(i, 1, 1, 0.5);
+            double error = Math.hypot(exact[0] - approximated[0], exact[1] - approximated[1]);
+            assertThat(error, is(lessThan(0.05 * Math.hypot(exact[0], exact[1]))));
+        }
+    }
+
     @Test
     public void testEdgeNodeRepulsion() {
         Graph graph = new Graph();
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.util.ArrayList;
+import java.util.List;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularPostProcessing.LivePreview;
+import ocotillo.graph.layout.fdl.modular.ModularPostProcessing.LivePreview.Frame;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ * Test for the ModularPostProcessing class.
+ */
+public class ModularPostProcessingTest {
+
+    @Test
+    public void testLivePreview() {
+        Graph graph = new Graph();
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        graph.newEdge(a, b);
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 2));
+
+        List<Frame> frames = new ArrayList<>();
+        ModularFdl modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(5))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(5))
+                .withPostProcessing(new LivePreview(0, frames::add))
+                .build();
+
+        modularFdl.iterate(5);
+        assertThat(frames.size(), is(1));
+        Frame frame = frames.get(0);
+        assertThat(frame.iteration(), is(1));
+        assertThat(frame.graph().nodeCount(), is(2));
+        assertThat(frame.graph().edgeCount(), is(1));
+        Coordinates firstPosition = frame.graph().<Coordinates>nodeAttribute(StdAttribute.nodePosition)
+                .get(frame.graph().getNode("b"));
+
+        frame.release();
+        modularFdl.iterate(3);
+        assertThat(frames.size(), is(2));
+        assertThat(frames.get(1).iteration(), is(6));
+        assertThat(firstPosition.equals(positions.get(b)), is(false));
+
+        frames.get(1).release();
+        modularFdl.iterate(1);
+        NodeAttribute<Coordinates> framePositions = frame.graph().nodeAttribute(StdAttribute.nodePosition);
+        assertThat(framePositions.get(frame.graph().getNode("a")), is(positions.get(a)));
+        assertThat(framePositions.get(frame.graph().getNode("b")), is(positions.get(b)));
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.modular;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.modular.ModularFdl.ModularFdlBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularRun.RunBuilder;
+import ocotillo.graph.layout.fdl.modular.ModularRun.Snapshot;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModularRunTest {
+
+    private Graph graph;
+    private Node a;
+    private Node b;
+    private NodeAttribute<Coordinates> positions;
+    private ModularFdl modularFdl;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        a = graph.newNode();
+        b = graph.newNode();
+        graph.newEdge(a, b);
+
+        positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(0, 2));
+        graph.newNodeAttribute(StdAttribute.nodeSize, new Coordinates(0, 0));
+
+        modularFdl = new ModularFdlBuilder(graph)
+                .withForce(new ModularForce.EdgeAttraction2D(5))
+                .withForce(new ModularForce.NodeNodeRepulsion2D(5))
+                .withConstraint(new ModularConstraint.DecreasingMaxMovement(3))
+                .build();
+    }
+
+    @Test
+    public void testConvergence() throws InterruptedException {
+        ModularRun run = new RunBuilder(modularFdl, 500)
+                .withConvergenceThreshold(0.001)
+                .start();
+        ModularStatistics stats = run.await();
+
+        assertThat(run.isDone(), is(true));
+        assertThat(run.hasConverged(), is(true));
+        assertThat(run.completedIterations(), is(lessThan(500)));
+        assertThat(stats, is(not(nullValue())));
+    }
+
+    @Test
+    public void testSnapshots() throws InterruptedException {
+        List<Snapshot> snapshots = new ArrayList<>();
+        ModularRun run = new RunBuilder(modularFdl, 12)
+                .withSnapshotInterval(5)
+                .withSnapshotListener(snapshots::add)
+                .start();
+        run.await();
+
+        List<Integer> iterations = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            iterations.add(snapshot.iteration());
+        }
+        assertThat(iterations, is(Arrays.asList(5, 10, 12)));
+        assertThat(run.hasConverged(), is(false));
+
+        Snapshot first = snapshots.get(0);
+        Snapshot last = snapshots.get(2);
+        assertThat(last.positions().get(b), is(positions.get(b)));
+        assertThat(first.positions().get(b), is(not(positions.get(b))));
+
+        first.applyTo(graph);
+        assertThat(positions.get(b), is(first.positions().get(b)));
+    }
+
+    @Test
+    public void testProgress() throws InterruptedException {
+        List<Integer> iterations = new ArrayList<>();
+        ModularRun run = new RunBuilder(modularFdl, 4)
+                .withProgressListener((progressRun, statistics) -> {
+                    assertThat(progressRun.maxIterations(), is(4));
+                    iterations.add(statistics.getCompletedIterations());
+                })
+                .start();
+        ModularStatistics stats = run.await();
+
+        assertThat(iterations, is(Arrays.asList(1, 2, 3, 4)));
+        assertThat(stats.getCompletedIterations(), is(4));
+        assertThat(stats.getIterationsRunningTime().compareTo(stats.getTotalRunnningTime()), is(not(1)));
+    }
+
+    @Test
+    public void testCancellation() throws InterruptedException {
+        CountDownLatch thirdIterationReached = new CountDownLatch(1);
+        CountDownLatch cancelRequested = new CountDownLatch(1);
+        ModularRun run = new RunBuilder(modularFdl, 100)
+                .withSnapshotListener(snapshot -> {
+                    if (snapshot.iteration() == 3) {
+                        thirdIterationReached.countDown();
+                        try {
+                            cancelRequested.await();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                })
+                .start();
+
+        thirdIterationReached.await();
+        run.cancel();
+        cancelRequested.countDown();
+        run.await();
+
+        assertThat(run.isCancelled(), is(true));
+        assertThat(run.completedIterations(), is(3));
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        AssertionError error = new AssertionError("listener failure");
+        ModularRun run = new RunBuilder(modularFdl, 10)
+                .withProgressListener((progressRun, statistics) -> {
+                    throw error;
+                })
+                .start();
+
+        try {
+            run.await();
+            fail("The failure of the run should be rethrown.");
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getCause(), is((Throwable) error));
+        }
+        assertThat(run.isDone(), is(true));
+        assertThat(run.completedIterations(), is(1));
+    }
+}
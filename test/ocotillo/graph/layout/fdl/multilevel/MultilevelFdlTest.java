@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.layout.fdl.multilevel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Geom;
+import static ocotillo.geometry.matchers.CoreMatchers.isAlmost;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.layout.fdl.multilevel.MultilevelFdl.MultilevelFdlBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class MultilevelFdlTest {
+
+    private static final int side = 20;
+
+    /**
+     * Builds a square grid graph.
+     *
+     * @return the grid graph.
+     */
+    private Graph gridGraph() {
+        Graph graph = new Graph();
+        Node[][] nodes = new Node[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                nodes[i][j] = graph.newNode("n" + i + "_" + j);
+                if (i > 0) {
+                    graph.newEdge(nodes[i - 1][j], nodes[i][j]);
+                }
+                if (j > 0) {
+                    graph.newEdge(nodes[i][j - 1], nodes[i][j]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    public void testGridLayout() {
+        Graph graph = gridGraph();
+        new MultilevelFdlBuilder().withEdgeLength(2).withSeed(7).build().execute(graph);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        Set<Coordinates> distinctPositions = new HashSet<>();
+        for (Node node : graph.nodes()) {
+            Coordinates position = positions.get(node);
+            assertThat(Double.isFinite(position.x()) && Double.isFinite(position.y()), is(true));
+            distinctPositions.add(position);
+        }
+        assertThat(distinctPositions.size(), is(graph.nodeCount()));
+
+        double edgeLengthSum = 0;
+        for (Edge edge : graph.edges()) {
+            edgeLengthSum += Geom.e2D.magnitude(positions.get(edge.target()).minus(positions.get(edge.source())));
+        }
+        double averageEdgeLength = edgeLengthSum / graph.edgeCount();
+        assertThat(averageEdgeLength, isAlmost(2));
+
+        Coordinates firstCorner = positions.get(graph.getNode("n0_0"));
+        Coordinates oppositeCorner = positions.get(graph.getNode("n" + (side - 1) + "_" + (side - 1)));
+        double cornerDistance = Geom.e2D.magnitude(oppositeCorner.minus(firstCorner));
+        assertThat(cornerDistance, is(greaterThan(side * averageEdgeLength)));
+    }
+
+    @Test
+    public void testSmallGraphs() {
+        Graph graph = new Graph();
+        new MultilevelFdlBuilder().build().execute(graph);
+
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(graph.newNode());
+        nodes.add(graph.newNode());
+        nodes.add(graph.newNode());
+        graph.newEdge(nodes.get(0), nodes.get(1));
+        new MultilevelFdlBuilder().build().execute(graph);
+
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(positions.get(nodes.get(0)).equals(positions.get(nodes.get(2))), is(false));
+        assertThat(Double.isFinite(positions.get(nodes.get(2)).x()), is(true));
+    }
+}
@@ -22,8 +22,11 @@ import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 import org.junit.Before;
@@ -85,6 +88,31 @@ public abstract class ElementLocatorTestBase {
         assertThat(locator.getNodesPartiallyInBox(boxB), hasItem(d));
     }
 
+    @Test
+    public final void getAnyNodePartiallyInBox() {
+        Node a = graph.newNode();
+        positions.set(a, new Coordinates(11, 11));
+        sizes.set(a, new Coordinates(2, 2));
+
+        Node b = graph.newNode();
+        positions.set(b, new Coordinates(-7, 11));
+        sizes.set(b, new Coordinates(2, 2));
+
+        Node c = graph.newNode();
+        positions.set(c, new Coordinates(0, -20));
+        sizes.set(c, new Coordinates(10, 10));
+
+        ElementLocator locator = createInstance();
+
+        Box2D box = new Box2D(-6.2, 15, -16, 10.1);
+        assertThat(locator.getAnyNodePartiallyInBox(box, node -> true), anyOf(is(a), is(b), is(c)));
+        assertThat(locator.getAnyNodePartiallyInBox(box, node -> node != a && node != c), is(b));
+        assertThat(locator.getAnyNodePartiallyInBox(box, node -> false), is(nullValue()));
+
+        Box2D emptyBox = new Box2D(30, 40, 20, 30);
+        assertThat(locator.getAnyNodePartiallyInBox(emptyBox, node -> true), is(nullValue()));
+    }
+
     @Test
     public final void getEdgesInBox() {
         Node a = graph.newNode();
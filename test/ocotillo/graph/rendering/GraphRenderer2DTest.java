@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import ocotillo.geometry.Box;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.rendering.GraphRenderer2D.Layer;
+import ocotillo.graph.rendering.GraphRenderer2D.LevelOfDetail;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+/**
+ * Test for the GraphRenderer2D class.
+ */
+public class GraphRenderer2DTest {
+
+    @Test
+    public void testDefaultLevelOfDetail() {
+        GraphRenderer2D renderer = new GraphRenderer2D(new Graph());
+        assertThat(renderer.levelOfDetail(), is(sameInstance(LevelOfDetail.full)));
+    }
+
+    @Test
+    public void testVisibleElements() throws Exception {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        Node c = graph.newNode();
+        Node d = graph.newNode();
+        Edge ab = graph.newEdge(a, b);
+        graph.newEdge(b, d);
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(100, 0));
+        positions.set(c, new Coordinates(6, 0));
+        positions.set(d, new Coordinates(100, 10));
+        graph.<String>nodeAttribute(StdAttribute.label).set(c, "abcdefghij");
+
+        GraphRenderer2D renderer = new GraphRenderer2D(graph);
+        Box viewBox = new Box.Box2D(-2, 2, -2, 2);
+        assertThat(Whitebox.<List<Node>>invokeMethod(renderer, "visibleNodes", viewBox), containsInAnyOrder(a, c));
+        assertThat(Whitebox.<List<Edge>>invokeMethod(renderer, "visibleEdges", viewBox), containsInAnyOrder(ab));
+
+        positions.set(b, new Coordinates(1, 1));
+        assertThat(Whitebox.<List<Node>>invokeMethod(renderer, "visibleNodes", viewBox), containsInAnyOrder(a, b, c));
+        assertThat(Whitebox.<List<Edge>>invokeMethod(renderer, "visibleEdges", viewBox).size(), is(2));
+        renderer.close();
+    }
+
+    @Test
+    public void testGlyphLevelOfDetail() {
+        Graph graph = new Graph();
+        Node small = graph.newNode();
+        Node large = graph.newNode();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<Coordinates> sizes = graph.nodeAttribute(StdAttribute.nodeSize);
+        graph.<Color>nodeAttribute(StdAttribute.color).setDefault(Color.RED);
+        positions.set(small, new Coordinates(2, -2));
+        sizes.set(small, new Coordinates(0.1, 0.1));
+        positions.set(large, new Coordinates(4, -4));
+        sizes.set(large, new Coordinates(1, 1));
+
+        GraphRenderer2D renderer = new GraphRenderer2D(graph);
+        BufferedImage fullImage = drawLayer(renderer, Layer.nodes, 1);
+        assertThat(fullImage.getRGB(27, 27), is(0));
+        assertThat(fullImage.getRGB(52, 52), is(Color.RED.getRGB()));
+
+        renderer.setLevelOfDetail(LevelOfDetail.standard);
+        BufferedImage standardImage = drawLayer(renderer, Layer.nodes, 1);
+        assertThat(standardImage.getRGB(26, 26), is(Color.RED.getRGB()));
+        assertThat(standardImage.getRGB(27, 27), is(Color.RED.getRGB()));
+        assertThat(standardImage.getRGB(28, 28), is(0));
+        assertThat(standardImage.getRGB(52, 52), is(Color.RED.getRGB()));
+        renderer.close();
+    }
+
+    @Test
+    public void testLabelLevelOfDetail() {
+        Graph graph = new Graph();
+        Node node = graph.newNode();
+        graph.nodeAttribute(StdAttribute.nodePosition).set(node, new Coordinates(2, -2));
+        graph.nodeAttribute(StdAttribute.nodeSize).set(node, new Coordinates(1, 1));
+        graph.nodeAttribute(StdAttribute.label).set(node, "XX");
+        graph.nodeAttribute(StdAttribute.labelScaling).set(node, 0.2);
+
+        GraphRenderer2D renderer = new GraphRenderer2D(graph);
+        assertThat(isEmpty(drawLayer(renderer, Layer.labels, 1)), is(false));
+
+        renderer.setLevelOfDetail(LevelOfDetail.standard);
+        assertThat(isEmpty(drawLayer(renderer, Layer.labels, 1)), is(true));
+        assertThat(isEmpty(drawLayer(renderer, Layer.labels, 4)), is(false));
+        renderer.close();
+    }
+
+    @Test
+    public void testPixelGrid() throws Exception {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        Class<?> gridClass = Whitebox.getInnerClassType(GraphRenderer2D.class, "PixelGrid");
+        Object grid = Whitebox.invokeConstructor(gridClass, new Class<?>[]{Graphics2D.class, int.class},
+                new Object[]{graphics, 2});
+
+        Whitebox.invokeMethod(grid, "drawPoint", new Coordinates(1, -1), Color.RED);
+        Whitebox.invokeMethod(grid, "drawPoint", new Coordinates(1.05, -1.05), Color.BLUE);
+        Whitebox.invokeMethod(grid, "drawPoint", new Coordinates(2, -1), Color.BLUE);
+        Whitebox.invokeMethod(grid, "drawPoint", new Coordinates(2, -2), new Color(0, 0, 0, 0));
+        assertThat(image.getRGB(12, 12), is(Color.RED.getRGB()));
+        assertThat(image.getRGB(13, 13), is(Color.RED.getRGB()));
+        assertThat(image.getRGB(26, 12), is(Color.BLUE.getRGB()));
+        assertThat(image.getRGB(26, 26), is(0));
+
+        Whitebox.invokeMethod(grid, "drawSegment", new Coordinates(1, -2), new Coordinates(1, -2.05), Color.GREEN);
+        Whitebox.invokeMethod(grid, "drawSegment", new Coordinates(1, -2), new Coordinates(2.5, -2), Color.GREEN);
+        Whitebox.invokeMethod(grid, "drawSegment", new Coordinates(2.5, -2), new Coordinates(1, -2), Color.RED);
+        assertThat(image.getRGB(20, 27), is(Color.GREEN.getRGB()));
+        Whitebox.invokeMethod(grid, "dispose");
+        graphics.dispose();
+    }
+
+    /**
+     * Draws a layer of the renderer on a transparent image.
+     *
+     * @param renderer the renderer.
+     * @param layer the layer to draw.
+     * @param zoom the zoom factor.
+     * @return the image.
+     */
+    private static BufferedImage drawLayer(GraphRenderer2D renderer, Layer layer, double zoom) {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.scale(zoom, zoom);
+        renderer.drawLayer(graphics, layer);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Checks whether an image is fully transparent.
+     *
+     * @param image the image.
+     * @return true if no pixel has been drawn, false otherwise.
+     */
+    private static boolean isEmpty(BufferedImage image) {
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                if (image.getRGB(x, y) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
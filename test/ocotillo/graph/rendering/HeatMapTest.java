@@ -15,12 +15,15 @@
  */
 package ocotillo.graph.rendering;
 
+import ocotillo.geometry.Coordinates;
 import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
 import ocotillo.graph.rendering.HeatMap.Gradient;
 import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
@@ -34,19 +37,69 @@ public class HeatMapTest {
     @Test
     public void TestFillHotSpot() throws Exception {
         int hotSpotRadius = 60;
-        double[][] pixelHeat = new double[200][200];
-        Whitebox.invokeMethod(HeatMap.class, "fillHotSpot", pixelHeat, 100, 100, 70.0);
-
-        assertThat(pixelHeat[100][100 + hotSpotRadius + 1], is(0.0));
-        assertThat(pixelHeat[100 + hotSpotRadius + 1][100], is(0.0));
-        assertThat(pixelHeat[100][100 - hotSpotRadius - 1], is(0.0));
-        assertThat(pixelHeat[100 - hotSpotRadius - 1][100], is(0.0));
-        assertThat(pixelHeat[100][100], is(70.0));
+        int size = 200;
+        double[] pixelHeat = new double[size * size];
+        Whitebox.invokeMethod(HeatMap.class, "fillHotSpot", pixelHeat, size, 100, 100, 70.0, 0, size, 0, size);
+
+        assertThat(pixelHeat[100 * size + 100 + hotSpotRadius + 1], is(0.0));
+        assertThat(pixelHeat[(100 + hotSpotRadius + 1) * size + 100], is(0.0));
+        assertThat(pixelHeat[100 * size + 100 - hotSpotRadius - 1], is(0.0));
+        assertThat(pixelHeat[(100 - hotSpotRadius - 1) * size + 100], is(0.0));
+        assertThat(pixelHeat[100 * size + 100], is(70.0));
         for (int i = 0; i < hotSpotRadius; i++) {
-            assertThat(pixelHeat[100][101 + i], is(lessThan(pixelHeat[100][100 + i])));
+            assertThat(pixelHeat[100 * size + 101 + i], is(lessThan(pixelHeat[100 * size + 100 + i])));
+            assertThat(pixelHeat[(101 + i) * size + 100], is(lessThan(pixelHeat[(100 + i) * size + 100])));
+        }
+
+        double[] clippedHeat = new double[size * size];
+        Whitebox.invokeMethod(HeatMap.class, "fillHotSpot", clippedHeat, size, 100, 100, 70.0, 64, 128, 64, 128);
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                boolean inWindow = i >= 64 && i < 128 && j >= 64 && j < 128;
+                assertThat(clippedHeat[j * size + i], is(inWindow ? pixelHeat[j * size + i] : 0.0));
+            }
         }
     }
 
+    @Test
+    public void TestIncrementalUpdate() {
+        Graph graph = new Graph();
+        Node a = graph.newNode();
+        Node b = graph.newNode();
+        Node c = graph.newNode();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(0, 0));
+        positions.set(b, new Coordinates(40, 30));
+        positions.set(c, new Coordinates(10, 10));
+        NodeAttribute<Double> heatValues = graph.newNodeAttribute(StdAttribute.nodeHeat, 0.0);
+        heatValues.set(a, 10.0);
+        heatValues.set(b, 30.0);
+        heatValues.set(c, 20.0);
+
+        HeatMap heatMap = new HeatMap();
+        heatMap.getImage(graph);
+
+        positions.set(c, new Coordinates(25, 12));
+        assertThat(pixels(heatMap.getImage(graph)), is(pixels(new HeatMap().getImage(graph))));
+
+        heatValues.set(c, 50.0);
+        assertThat(pixels(heatMap.getImage(graph)), is(pixels(new HeatMap().getImage(graph))));
+
+        Node d = graph.newNode();
+        positions.set(d, new Coordinates(5, 25));
+        heatValues.set(d, 15.0);
+        assertThat(pixels(heatMap.getImage(graph)), is(pixels(new HeatMap().getImage(graph))));
+
+        graph.remove(d);
+        assertThat(pixels(heatMap.getImage(graph)), is(pixels(new HeatMap().getImage(graph))));
+        heatMap.close();
+    }
+
+    private static int[] pixels(Image image) {
+        BufferedImage bufferedImage = (BufferedImage) image;
+        return bufferedImage.getRGB(0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(), null, 0, bufferedImage.getWidth());
+    }
+
     @Test
     public void TestGetHeatRange() throws Exception {
         Graph graph = new Graph();
@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.rendering;
+
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class SoftwareRasteriserTest {
+
+    private static final int size = 100;
+
+    @Test
+    public void testEllipse() {
+        int[] pixels = new int[size * size];
+        new SoftwareRasteriser(pixels, size, 0, size).fillEllipse(50, 50, 20, 10, 0xff112233);
+
+        assertThat(pixels[50 * size + 50], is(0xff112233));
+        assertThat(pixels[50 * size + 31], is(0xff112233));
+        assertThat(pixels[50 * size + 71], is(0));
+        assertThat(pixels[41 * size + 50], is(0xff112233));
+        assertThat(pixels[38 * size + 50], is(0));
+        assertThat(pixels[41 * size + 31], is(0));
+    }
+
+    @Test
+    public void testTinyPrimitivesAreVisible() {
+        int[] pixels = new int[size * size];
+        SoftwareRasteriser rasteriser = new SoftwareRasteriser(pixels, size, 0, size);
+        rasteriser.fillEllipse(10.5, 10.5, 0.1, 0.1, 0xff000001);
+        rasteriser.fillRectangle(20.5, 20.5, 0.1, 0.1, 0xff000002);
+        rasteriser.drawSegment(30.2, 30.2, 30.3, 30.3, 0.1, 0xff000003);
+
+        assertThat(pixels[10 * size + 10], is(0xff000001));
+        assertThat(pixels[20 * size + 20], is(0xff000002));
+        assertThat(pixels[30 * size + 30], is(0xff000003));
+    }
+
+    @Test
+    public void testBlending() {
+        int[] pixels = new int[1];
+        SoftwareRasteriser rasteriser = new SoftwareRasteriser(pixels, 1, 0, 1);
+        int halfRed = SoftwareRasteriser.premultiply(0x80ff0000);
+        assertThat(halfRed, is(0x80800000));
+
+        rasteriser.fillRectangle(0.5, 0.5, 0.5, 0.5, halfRed);
+        assertThat(pixels[0], is(0x80800000));
+        rasteriser.fillRectangle(0.5, 0.5, 0.5, 0.5, 0xff0000ff);
+        assertThat(pixels[0], is(0xff0000ff));
+        rasteriser.fillRectangle(0.5, 0.5, 0.5, 0.5, halfRed);
+        assertThat(pixels[0], is(0xff80007f));
+    }
+
+    @Test
+    public void testBandsMatchSinglePass() {
+        int[] whole = new int[size * size];
+        int[] banded = new int[size * size];
+        paintRandomScene(new SoftwareRasteriser(whole, size, 0, size));
+        for (int top = 0; top < size; top += 7) {
+            paintRandomScene(new SoftwareRasteriser(banded, size, top, Math.min(size, top + 7)));
+        }
+        assertArrayEquals(whole, banded);
+    }
+
+    /**
+     * Paints the same pseudo-random primitives, some of which partially
+     * outside the framebuffer.
+     *
+     * @param rasteriser the rasteriser.
+     */
+    private void paintRandomScene(SoftwareRasteriser rasteriser) {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int color = SoftwareRasteriser.premultiply(random.nextInt());
+            double x = random.nextDouble() * 140 - 20;
+            double y = random.nextDouble() * 140 - 20;
+            switch (i % 3) {
+                case 0:
+                    rasteriser.drawSegment(x, y, random.nextDouble() * 140 - 20,
+                            random.nextDouble() * 140 - 20, random.nextDouble() * 6, color);
+                    break;
+                case 1:
+                    rasteriser.fillEllipse(x, y, random.nextDouble() * 10, random.nextDouble() * 10, color);
+                    break;
+                default:
+                    rasteriser.fillRectangle(x, y, random.nextDouble() * 10, random.nextDouble() * 10, color);
+            }
+        }
+    }
+}
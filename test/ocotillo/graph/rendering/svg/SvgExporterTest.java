@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.graph.rendering.svg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class SvgExporterTest {
+
+    @Test
+    public void testStreamingMatchesDocument() {
+        Graph graph = makeGraph(5000);
+        String expected = SvgExporter.makeSvg(graph);
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new SvgExporter.SeBuilder(graph).build().write(sequential);
+        assertThat(new String(sequential.toByteArray(), StandardCharsets.UTF_8), is(expected));
+
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        new SvgExporter.SeBuilder(graph).withThreads(4).build().write(parallel);
+        assertThat(new String(parallel.toByteArray(), StandardCharsets.UTF_8), is(expected));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        Graph graph = makeGraph(100);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new SvgExporter.SeBuilder(graph).withGzip().build().write(compressed);
+
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        assertThat(new String(decompressed.toByteArray(), StandardCharsets.UTF_8), is(SvgExporter.makeSvg(graph)));
+    }
+
+    @Test
+    public void testDecimalDigits() {
+        Graph graph = makeGraph(100);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new SvgExporter.SeBuilder(graph).withDecimalDigits(2).build().write(output);
+        String svg = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(svg, containsString("<ellipse"));
+        assertThat(svg, not(containsString(".333")));
+        assertThat(svg, not(containsString("opacity=\"1.0\"")));
+        assertThat(svg, containsString("opacity=\"1\""));
+    }
+
+    @Test
+    public void testAppendNumber() {
+        assertThat(appendNumber(12.345, 2), is("12.35"));
+        assertThat(appendNumber(12.0, 2), is("12"));
+        assertThat(appendNumber(0.05, 2), is("0.05"));
+        assertThat(appendNumber(1.10, 3), is("1.1"));
+        assertThat(appendNumber(-0.5, 1), is("-0.5"));
+        assertThat(appendNumber(-0.004, 2), is("0"));
+        assertThat(appendNumber(2.5, -1), is("2.5"));
+    }
+
+    private static String appendNumber(double value, int decimalDigits) {
+        StringBuilder builder = new StringBuilder();
+        SvgElement.appendNumber(builder, value, decimalDigits);
+        return builder.toString();
+    }
+
+    private static Graph makeGraph(int nodeCount) {
+        Graph graph = new Graph();
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        NodeAttribute<String> labels = graph.nodeAttribute(StdAttribute.label);
+        Node previous = null;
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graph.newNode();
+            positions.set(node, new Coordinates(i / 3.0, (i % 7) / 3.0));
+            labels.set(node, "n" + i);
+            if (previous != null) {
+                graph.newEdge(previous, node);
+            }
+            previous = node;
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.gui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ocotillo.geometry.Coordinates;
+import ocotillo.graph.Graph;
+import ocotillo.graph.Node;
+import ocotillo.graph.NodeAttribute;
+import ocotillo.graph.StdAttribute;
+import ocotillo.graph.rendering.GraphRenderer2D;
+import ocotillo.graph.rendering.GraphRenderer2D.Layer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+/**
+ * Test for the RenderCache class and for the layers invalidated by the graph
+ * canvas observers.
+ */
+public class RenderCacheTest {
+
+    private static final int width = 200;
+    private static final int height = 200;
+
+    private Graph graph;
+    private Node a;
+    private Node b;
+    private NodeAttribute<Coordinates> positions;
+    private RecordingRenderer renderer;
+    private AffineTransform transform;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        a = graph.newNode();
+        b = graph.newNode();
+        graph.newEdge(a, b);
+        positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, new Coordinates(1, -1));
+        positions.set(b, new Coordinates(12, -12));
+        renderer = new RecordingRenderer(graph);
+        transform = new AffineTransform();
+    }
+
+    @Test
+    public void testLayersDrawnOnlyWhenInvalid() {
+        RenderCache cache = new RenderCache(graph);
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.values()));
+        for (List<Rectangle> regions : renderer.regions.values()) {
+            assertThat(regions, is(Arrays.asList(fullArea())));
+        }
+
+        paint(cache);
+        assertThat(renderer.regions.keySet(), is(empty()));
+
+        cache.invalidate(Layer.labels);
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.labels));
+        assertThat(renderer.regions.get(Layer.labels), is(Arrays.asList(fullArea())));
+    }
+
+    @Test
+    public void testDirtyRegions() {
+        RenderCache cache = new RenderCache(graph);
+        paint(cache);
+
+        cache.invalidate(Collections.singleton(a), Layer.nodes, Layer.edges, Layer.heatMap);
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.heatMap, Layer.edges, Layer.nodes));
+        assertThat(renderer.regions.get(Layer.heatMap), is(Arrays.asList(fullArea())));
+        Rectangle nodeRegion = renderer.regions.get(Layer.nodes).get(0);
+        assertThat(renderer.regions.get(Layer.nodes).size(), is(1));
+        assertThat(nodeRegion.contains(13, 13), is(true));
+        assertThat(nodeRegion.contains(156, 156), is(false));
+        Rectangle edgeRegion = renderer.regions.get(Layer.edges).get(0);
+        assertThat(edgeRegion.contains(13, 13), is(true));
+        assertThat(edgeRegion.contains(156, 156), is(true));
+        assertThat(edgeRegion.width, is(lessThan(width)));
+    }
+
+    @Test
+    public void testDirtyRegionsOfMovedNode() {
+        RenderCache cache = new RenderCache(graph);
+        paint(cache);
+
+        positions.set(a, new Coordinates(4, -1));
+        cache.invalidate(Collections.singleton(a), Layer.nodes);
+        paint(cache);
+        List<Rectangle> regions = renderer.regions.get(Layer.nodes);
+        assertThat(regions.stream().anyMatch(region -> region.contains(13, 13)), is(true));
+        assertThat(regions.stream().anyMatch(region -> region.contains(52, 13)), is(true));
+        assertThat(regions.stream().anyMatch(region -> region.contains(156, 156)), is(false));
+    }
+
+    @Test
+    public void testTransformChangeDrawsAllLayers() {
+        RenderCache cache = new RenderCache(graph);
+        paint(cache);
+
+        transform = AffineTransform.getTranslateInstance(10, 0);
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.values()));
+    }
+
+    @Test
+    public void testCanvasObservers() {
+        GraphCanvas canvas = new GraphCanvas(graph);
+        RenderCache cache = Whitebox.getInternalState(canvas, "renderCache");
+        paint(cache);
+
+        positions.set(a, new Coordinates(4, -1));
+        assertThat(invalidLayers(cache), containsInAnyOrder(Layer.heatMap, Layer.clusters));
+        assertThat(dirtyLayers(cache), containsInAnyOrder(Layer.edges, Layer.nodes, Layer.labels));
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.heatMap, Layer.edges, Layer.nodes, Layer.labels, Layer.clusters));
+
+        graph.<Double>nodeAttribute(StdAttribute.nodeHeat).set(a, 10.0);
+        assertThat(invalidLayers(cache), containsInAnyOrder(Layer.heatMap));
+        assertThat(dirtyLayers(cache), is(empty()));
+        paint(cache);
+
+        graph.<String>nodeAttribute(StdAttribute.label).set(b, "label");
+        assertThat(invalidLayers(cache), is(empty()));
+        assertThat(dirtyLayers(cache), containsInAnyOrder(Layer.labels));
+        paint(cache);
+        assertThat(renderer.regions.keySet(), containsInAnyOrder(Layer.labels));
+        canvas.close();
+    }
+
+    /**
+     * Paints the cache on an image, recording the regions drawn again.
+     *
+     * @param cache the render cache.
+     */
+    private void paint(RenderCache cache) {
+        renderer.regions.clear();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        cache.paint(graphics, renderer, transform, width, height);
+        graphics.dispose();
+    }
+
+    /**
+     * Returns the whole drawing area.
+     *
+     * @return the drawing area.
+     */
+    private static Rectangle fullArea() {
+        return new Rectangle(0, 0, width, height);
+    }
+
+    /**
+     * Returns the layers of a cache invalidated completely.
+     *
+     * @param cache the render cache.
+     * @return the invalid layers.
+     */
+    private static Set<Layer> invalidLayers(RenderCache cache) {
+        return Whitebox.getInternalState(cache, "invalidLayers");
+    }
+
+    /**
+     * Returns the layers of a cache with dirty elements.
+     *
+     * @param cache the render cache.
+     * @return the layers with dirty elements.
+     */
+    private static List<Layer> dirtyLayers(RenderCache cache) {
+        Map<Layer, Set<?>> dirtyElements = Whitebox.getInternalState(cache, "dirtyElements");
+        List<Layer> layers = new ArrayList<>();
+        for (Map.Entry<Layer, Set<?>> entry : dirtyElements.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                layers.add(entry.getKey());
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * A renderer that records the regions where each layer is drawn.
+     */
+    private static class RecordingRenderer extends GraphRenderer2D {
+
+        private final Map<Layer, List<Rectangle>> regions = new EnumMap<>(Layer.class);
+
+        private RecordingRenderer(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        public void drawLayer(Graphics2D graphics, Layer layer) {
+            Rectangle region = graphics.getTransform().createTransformedShape(graphics.getClip()).getBounds();
+            regions.computeIfAbsent(layer, key -> new ArrayList<>()).add(region);
+            super.drawLayer(graphics, layer);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2014-2016 Paolo Simonetto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ocotillo.serialization.binary;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import ocotillo.dygraph.DyEdgeAttribute;
+import ocotillo.dygraph.DyGraph;
+import ocotillo.dygraph.DyNodeAttribute;
+import ocotillo.dygraph.EvoBuilder;
+import ocotillo.dygraph.Evolution;
+import ocotillo.dygraph.Interpolation;
+import ocotillo.geometry.Coordinates;
+import ocotillo.geometry.Interval;
+import ocotillo.graph.Edge;
+import ocotillo.graph.Node;
+import ocotillo.graph.StdAttribute;
+import ocotillo.serialization.oco.OcoSerializer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinarySerializerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DyGraph graph = new DyGraph();
+        graph.newGraphAttribute(StdAttribute.label, new Evolution<>("title"));
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        Node c = graph.newNode("c");
+        Edge ab = graph.newEdge("ab", a, b);
+        graph.newEdge("bc", b, c);
+
+        DyNodeAttribute<Boolean> presence = graph.nodeAttribute(StdAttribute.dyPresence);
+        presence.set(a, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        presence.set(b, EvoBuilder.defaultAt(false).withConst(Interval.newLeftClosed(2, 12), true).build());
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(a, EvoBuilder.defaultAt(new Coordinates(0, 0))
+                .withRect(Interval.newOpen(10, 30), new Coordinates(0, 0), new Coordinates(3, 3, 1), Interpolation.Std.largeGaussian)
+                .build());
+        DyNodeAttribute<Double> metric = graph.newNodeAttribute("myMetric", EvoBuilder.defaultAt(3.4)
+                .withRect(Interval.newRightClosed(4, 5), 3.7, 8.0, Interpolation.Std.linear).build());
+        metric.set(c, EvoBuilder.defaultAt(16.0).withConst(Interval.newClosed(2, 4), 88.0).build());
+        DyEdgeAttribute<Color> color = graph.edgeAttribute(StdAttribute.color);
+        color.set(ab, EvoBuilder.defaultAt(Color.RED).withConst(Interval.newOpen(-5, 10), new Color(10, 20, 30, 40)).build());
+
+        DyGraph subgraph = graph.newSubGraph();
+        subgraph.add(a);
+        subgraph.add(b);
+        subgraph.add(ab);
+        subgraph.newLocalEdgeAttribute(StdAttribute.color, new Evolution<>(Color.GREEN));
+        subgraph.newSubGraph().add(b);
+
+        File file = folder.newFile("graph.dyb");
+        BinarySerializer serializer = new BinarySerializer();
+        serializer.writeFile(graph, file);
+        DyGraph loaded = serializer.readDynamicFile(file);
+
+        OcoSerializer ocoSerializer = new OcoSerializer();
+        assertThat(ocoSerializer.write(loaded), is(ocoSerializer.write(graph)));
+        assertThat(loaded.nodeAttribute(StdAttribute.nodePosition).get(loaded.getNode("a")).valueAt(20),
+                is(positions.get(a).valueAt(20)));
+    }
+
+    @Test
+    public void testAttributeFilter() throws IOException {
+        DyGraph graph = new DyGraph();
+        Node a = graph.newNode("a");
+        graph.newNodeAttribute("myMetric", new Evolution<>(1.0));
+        graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).set(a, new Evolution<>(new Coordinates(1, 2)));
+
+        File file = folder.newFile("graph.dyb");
+        BinarySerializer serializer = new BinarySerializer();
+        serializer.writeFile(graph, file);
+        DyGraph loaded = serializer.readDynamicFile(file, name -> !name.equals("myMetric"));
+
+        assertThat(loaded.hasNodeAttribute("myMetric"), is(false));
+        assertThat(loaded.<Coordinates>nodeAttribute(StdAttribute.nodePosition).get(loaded.getNode("a")).getDefaultValue(),
+                is(new Coordinates(1, 2)));
+    }
+}
@@ -23,14 +23,15 @@ import ocotillo.graph.Edge;
 import ocotillo.graph.Graph;
 import ocotillo.graph.NodeAttribute;
 import ocotillo.graph.StdAttribute;
-import ocotillo.serialization.ParserTools;
-import ocotillo.serialization.ParserTools.EscapedString;
 import ocotillo.serialization.dot.DotReader.ColoredPolygon;
 import ocotillo.serialization.dot.DotReader.DotReaderBuilder;
 import ocotillo.serialization.dot.DotTools.DotAttributes;
 import java.awt.Color;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import static org.hamcrest.CoreMatchers.is;
@@ -41,8 +42,40 @@ import org.powermock.reflect.Whitebox;
 
 public class DotReaderTest {
 
+    /**
+     * Collects the dot attributes parsed from an input.
+     */
+    private static class ParsedDot {
+
+        private final DotAttributes graphAttributes = new DotAttributes();
+        private final DotAttributes defaultNodeAttributes = new DotAttributes();
+        private final DotAttributes defaultEdgeAttributes = new DotAttributes();
+        private final Map<String, DotAttributes> nodeAttributes = new HashMap<>();
+        private final List<DotAttributes> edgeAttributes = new ArrayList<>();
+
+        private ParsedDot(String input) {
+            new DotParser(new DotLexer(new StringReader(input)), graphAttributes,
+                    defaultNodeAttributes, defaultEdgeAttributes, nodeAttributes, edgeAttributes).parseGraph();
+        }
+    }
+
+    /**
+     * Lexes an input and describes each token as type:text.
+     *
+     * @param input the dot input.
+     * @return the token descriptions.
+     */
+    private static List<String> lex(String input) {
+        DotLexer lexer = new DotLexer(new StringReader(input));
+        List<String> tokens = new ArrayList<>();
+        while (lexer.next() != DotLexer.Type.end) {
+            tokens.add(lexer.type() + ":" + lexer.text());
+        }
+        return tokens;
+    }
+
     @Test
-    public void combineLines() throws Exception {
+    public void lexMultilineStatements() {
         List<String> lines = new ArrayList<>();
         lines.add("graph {   ");
         lines.add("  \t  graph [ _draw_=\" \\  ");
@@ -53,72 +86,38 @@ public class DotReaderTest {
         lines.add("");
         lines.add("");
 
-        List<String> combinedLines = Whitebox.<List<String>>invokeMethod(DotReader.class, "combineLines", lines);
+        List<String> tokens = lex(String.join("\n", lines));
 
-        assertThat(combinedLines.size(), is(4));
-        assertThat(combinedLines.get(0), is("graph {"));
-        assertThat(combinedLines.get(1), is("graph [ _draw_=\" \\ polygon \" ];"));
-        assertThat(combinedLines.get(2), is("node [ label=\"mango\", position=\"upperleft\"];"));
-        assertThat(combinedLines.get(3), is("}"));
+        assertThat(tokens.size(), is(21));
+        assertThat(tokens.subList(0, 9), is(Arrays.asList("id:graph", "openBrace:{", "id:graph", "openBracket:[",
+                "id:_draw_", "equals:=", "quoted: \\ polygon ", "closeBracket:]", "semicolon:;")));
+        assertThat(tokens.subList(9, 21), is(Arrays.asList("id:node", "openBracket:[", "id:label", "equals:=", "quoted:mango",
+                "comma:,", "id:position", "equals:=", "quoted:upperleft", "closeBracket:]", "semicolon:;", "closeBrace:}")));
     }
 
     @Test
-    public void escapeString() throws Exception {
-        String line = "label=\" \\\"ugly\\\" purple\"";
-        EscapedString eString = Whitebox.<EscapedString>invokeMethod(DotReader.class, "escapeLine", line);
-
-        assertThat(eString.substitutionChar, is("§"));
-        assertThat(eString.withSubstitutions, is("label=§0§"));
-        assertThat(eString.extractedStrings.size(), is(1));
-        assertThat(eString.extractedStrings.get(0), is(" \\\"ugly\\\" purple"));
+    public void lexEscapedQuotes() {
+        List<String> tokens = lex("label=\" \\\"ugly\\\" purple\"");
+
+        assertThat(tokens, is(Arrays.asList("id:label", "equals:=", "quoted: \\\"ugly\\\" purple")));
     }
 
     @Test
-    public void splitLine() throws Exception {
-        List<String> lines = new ArrayList<>();
-        lines.add("graph {");
-        lines.add("graph [ _draw_=\" \\ polygon \"] ;");
-        lines.add("node [ label=\"mango\", position=\"upperleft\"] \t ;");
-        lines.add("edge [ ] ;");
-        lines.add("apple [label=\"melinda\"]    ;");
-        lines.add("\"bana--na\" [label=\"chiquita\"];");
-        lines.add("apple -- \"bana--na\";");
-        lines.add("}");
-
-        List<List<String>> tokensList = new ArrayList<>();
-        for (String line : lines) {
-            EscapedString eString = new EscapedString(line, "\"");
-            List<String> tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-            tokensList.add(tokens);
-        }
-
-        assertThat(tokensList.get(0).size(), is(1));
-        assertThat(tokensList.get(0).get(0), is("graph {"));
-        assertThat(tokensList.get(1).size(), is(2));
-        assertThat(tokensList.get(1).get(0), is("graph"));
-        assertThat(tokensList.get(1).get(1), is("_draw_=§0§"));
-        assertThat(tokensList.get(2).size(), is(2));
-        assertThat(tokensList.get(2).get(0), is("node"));
-        assertThat(tokensList.get(2).get(1), is("label=§0§, position=§1§"));
-        assertThat(tokensList.get(3).size(), is(1));
-        assertThat(tokensList.get(3).get(0), is("edge"));
-        assertThat(tokensList.get(4).size(), is(2));
-        assertThat(tokensList.get(4).get(0), is("apple"));
-        assertThat(tokensList.get(4).get(1), is("label=§0§"));
-        assertThat(tokensList.get(5).size(), is(2));
-        assertThat(tokensList.get(5).get(0), is("§0§"));
-        assertThat(tokensList.get(5).get(1), is("label=§1§"));
-        assertThat(tokensList.get(6).size(), is(1));
-        assertThat(tokensList.get(6).get(0), is("apple -- §0§"));
-        assertThat(tokensList.get(7).size(), is(1));
-        assertThat(tokensList.get(7).get(0), is("}"));
+    public void lexStatements() {
+        assertThat(lex("\"bana--na\" [label=\"chiquita\"];"), is(Arrays.asList("quoted:bana--na",
+                "openBracket:[", "id:label", "equals:=", "quoted:chiquita", "closeBracket:]", "semicolon:;")));
+        assertThat(lex("apple -- \"bana--na\";"), is(Arrays.asList("id:apple", "edgeOp:--", "quoted:bana--na", "semicolon:;")));
+        assertThat(lex("a--b->c"), is(Arrays.asList("id:a", "edgeOp:--", "id:b", "edgeOp:->", "id:c")));
+        assertThat(lex("pos=-1.5 // comment"), is(Arrays.asList("id:pos", "equals:=", "id:-1.5")));
+        assertThat(lex("# preprocessor\na /* multi\nline */ b"), is(Arrays.asList("id:a", "id:b")));
+        assertThat(lex("label=<<b>bold</b>>"), is(Arrays.asList("id:label", "equals:=", "html:<b>bold</b>")));
+        assertThat(lex("\"con\\\ntinued\" + \"string\""), is(Arrays.asList("quoted:continued", "plus:+", "quoted:string")));
     }
 
     @Test
-    public void extractAttributes() throws Exception {
-        ParserTools.EscapedString eString = new ParserTools.EscapedString("4 [cluster=\"1\", clustercolour=\"#fbb4ae\", colour=\"#a442a0\", fontsize=\"14\", height=\"0.31944\", label=\"ugly purple\", pos=\"564.53,298.75\", width=\"1.3194\"];", "\"");
-        List<String> tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        DotAttributes attributes = Whitebox.<DotAttributes>invokeMethod(DotReader.class, "extractAttributes", eString, tokens.get(1));
+    public void parseAttributes() {
+        ParsedDot parsed = new ParsedDot("graph { 4 [cluster=\"1\", clustercolour=\"#fbb4ae\", colour=\"#a442a0\", fontsize=\"14\", height=\"0.31944\", label=\"ugly purple\", pos=\"564.53,298.75\", width=\"1.3194\"]; }");
+        DotAttributes attributes = parsed.nodeAttributes.get("4");
 
         assertThat(attributes.size(), is(8));
         assertThat(attributes.containsKey("cluster"), is(true));
@@ -140,26 +139,14 @@ public class DotReaderTest {
     }
 
     @Test
-    public void parseOpeningLine() throws Exception {
-        String line;
-        EscapedString eString;
-        List<String> tokens;
-        DotAttributes attributes = new DotAttributes();
-
-        line = "graph {";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseOpeningLine", attributes, eString, tokens);
+    public void parseOpening() {
+        DotAttributes attributes = new ParsedDot("graph {}").graphAttributes;
 
         assertThat(attributes.size(), is(1));
         assertThat(attributes, hasKey(DotTools.directedAttr));
         assertThat(attributes.get(DotTools.directedAttr), is("false"));
-        attributes.clear();
 
-        line = "strict graph franco {";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseOpeningLine", attributes, eString, tokens);
+        attributes = new ParsedDot("strict graph franco {}").graphAttributes;
 
         assertThat(attributes.size(), is(3));
         assertThat(attributes, hasKey(DotTools.directedAttr));
@@ -168,24 +155,16 @@ public class DotReaderTest {
         assertThat(attributes.get(DotTools.directedAttr), is("false"));
         assertThat(attributes.get(DotTools.strictAttr), is("true"));
         assertThat(attributes.get(DotTools.graphNameAttr), is("franco"));
-        attributes.clear();
 
-        line = "digraph mario {";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseOpeningLine", attributes, eString, tokens);
+        attributes = new ParsedDot("digraph mario {}").graphAttributes;
 
         assertThat(attributes.size(), is(2));
         assertThat(attributes, hasKey(DotTools.directedAttr));
         assertThat(attributes, hasKey(DotTools.graphNameAttr));
         assertThat(attributes.get(DotTools.directedAttr), is("true"));
         assertThat(attributes.get(DotTools.graphNameAttr), is("mario"));
-        attributes.clear();
 
-        line = "strict digraph \"luigi\" {";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseOpeningLine", attributes, eString, tokens);
+        attributes = new ParsedDot("strict digraph \"luigi\" {}").graphAttributes;
 
         assertThat(attributes.size(), is(3));
         assertThat(attributes, hasKey(DotTools.directedAttr));
@@ -194,56 +173,31 @@ public class DotReaderTest {
         assertThat(attributes.get(DotTools.directedAttr), is("true"));
         assertThat(attributes.get(DotTools.strictAttr), is("true"));
         assertThat(attributes.get(DotTools.graphNameAttr), is("luigi"));
-        attributes.clear();
     }
 
     @Test
-    public void parseGlobalLine() throws Exception {
-        String line;
-        EscapedString eString;
-        List<String> tokens;
-        DotAttributes attributes = new DotAttributes();
-
-        line = "graph [];";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseGlobalLine", attributes, eString, tokens);
-
-        assertThat(attributes.size(), is(0));
-        attributes.clear();
-
-        line = "node   [attr=value];";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseGlobalLine", attributes, eString, tokens);
-
-        assertThat(attributes.size(), is(1));
-        assertThat(attributes, hasKey("attr"));
-        assertThat(attributes.get("attr"), is("value"));
-        attributes.clear();
-
-        line = "edge ;";
-        eString = new EscapedString(line, "\"");
-        tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-        Whitebox.invokeMethod(DotReader.class, "parseGlobalLine", attributes, eString, tokens);
-
-        assertThat(attributes.size(), is(0));
-        attributes.clear();
+    public void parseGlobalStatements() {
+        ParsedDot parsed = new ParsedDot("graph { graph []; node   [attr=value]; edge ; rankdir = LR }");
+
+        assertThat(parsed.graphAttributes.size(), is(2));
+        assertThat(parsed.graphAttributes.get("rankdir"), is("LR"));
+        assertThat(parsed.defaultNodeAttributes.size(), is(1));
+        assertThat(parsed.defaultNodeAttributes, hasKey("attr"));
+        assertThat(parsed.defaultNodeAttributes.get("attr"), is("value"));
+        assertThat(parsed.defaultEdgeAttributes.size(), is(0));
+        assertThat(parsed.nodeAttributes.size(), is(0));
     }
 
     @Test
-    public void parseNodeLine() throws Exception {
-        Map<String, DotAttributes> attributes = new HashMap<>();
+    public void parseNodeStatements() {
         List<String> lines = new ArrayList<>();
+        lines.add("graph {");
         lines.add("franco [];");
         lines.add("\"mario -- plumber\"   [attr=value, attr2=\"10, 20, 30\"];");
         lines.add("\"node\" ;");
+        lines.add("}");
 
-        for (String line : lines) {
-            EscapedString eString = new EscapedString(line, "\"");
-            List<String> tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-            Whitebox.invokeMethod(DotReader.class, "parseNodeLine", attributes, eString, tokens);
-        }
+        Map<String, DotAttributes> attributes = new ParsedDot(String.join("\n", lines)).nodeAttributes;
 
         assertThat(attributes.size(), is(3));
         assertThat(attributes, hasKey("franco"));
@@ -259,18 +213,16 @@ public class DotReaderTest {
     }
 
     @Test
-    public void parseEdgeLine() throws Exception {
-        List<DotAttributes> attributes = new ArrayList<>();
+    public void parseEdgeStatements() {
         List<String> lines = new ArrayList<>();
+        lines.add("graph {");
         lines.add("mario -- franco [];");
         lines.add("\"mario\" -- \"franco\"   [attr=value];");
         lines.add("\"node\" -> \"edge\" -- \"graph\" [colour=\"blue\"];");
+        lines.add("}");
 
-        for (String line : lines) {
-            EscapedString eString = new EscapedString(line, "\"");
-            List<String> tokens = Whitebox.<List<String>>invokeMethod(DotReader.class, "splitLine", eString);
-            Whitebox.invokeMethod(DotReader.class, "parseEdgeLine", attributes, eString, tokens);
-        }
+        ParsedDot parsed = new ParsedDot(String.join("\n", lines));
+        List<DotAttributes> attributes = parsed.edgeAttributes;
 
         assertThat(attributes.size(), is(4));
         assertThat(attributes.get(0).size(), is(3));
@@ -292,6 +244,40 @@ public class DotReaderTest {
         assertThat(attributes.get(3).get(DotTools.edgeTargetAttr), is("graph"));
         assertThat(attributes.get(3).get(DotTools.directedAttr), is("false"));
         assertThat(attributes.get(3).get("colour"), is("blue"));
+
+        assertThat(parsed.nodeAttributes.keySet(), is((Object) new HashSet<>(Arrays.asList("mario", "franco", "node", "edge", "graph"))));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parseSubgraph() {
+        new ParsedDot("graph { subgraph cluster_0 { a -- b } }");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parseAttributeWithoutValue() {
+        new ParsedDot("graph { a [label] }");
+    }
+
+    @Test
+    public void parseLargeStream() {
+        int nodeCount = 20000;
+        StringBuilder builder = new StringBuilder("digraph {\n");
+        for (int i = 0; i < nodeCount; i++) {
+            builder.append("  n").append(i).append(" [pos=\"").append(i).append(",-").append(i).append("\"];\n");
+        }
+        for (int i = 1; i < nodeCount; i++) {
+            builder.append("  n").append(i - 1).append(" -> n").append(i).append(";\n");
+        }
+        builder.append("}\n");
+
+        DotReaderBuilder readerBuilder = new DotReader.DotReaderBuilder();
+        readerBuilder.nodeAttributes.convert("pos", StdAttribute.nodePosition, Coordinates.class);
+        Graph graph = readerBuilder.build().parse(new StringReader(builder.toString()));
+
+        assertThat(graph.nodeCount(), is(nodeCount));
+        assertThat(graph.edgeCount(), is(nodeCount - 1));
+        NodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        assertThat(positions.get(graph.getNode("n12345")), is(new Coordinates(12345, -12345, 0)));
     }
 
     @Test
@@ -393,7 +379,7 @@ public class DotReaderTest {
     public void parseGraphWithCombinedAttributes() {
         List<String> lines = new ArrayList<>();
         lines.add("graph {");
-        lines.add("nodes [colour=blue, size=big  ];");
+        lines.add("node [colour=blue, size=big  ];");
         lines.add("}");
  
         DotReaderBuilder builder = new DotReader.DotReaderBuilder();
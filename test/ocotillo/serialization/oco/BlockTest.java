@@ -17,9 +17,12 @@ package ocotillo.serialization.oco;
 
 import ocotillo.serialization.oco.OcoReader.Block;
 import ocotillo.serialization.oco.OcoReader.Line;
+import ocotillo.serialization.oco.OcoReader.LineCursor;
 import ocotillo.serialization.oco.OcoReader.MalformedFileException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import org.junit.Test;
 
@@ -27,10 +30,10 @@ public class BlockTest {
 
     @Test
     public void testHeaderInitialization() {
-        LinkedList<Line> lines = new LinkedList<>();
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
 
-        Block block = new Block(lines);
+        Block block = block(lines);
         assertThat(block.header, is("#graph"));
         assertThat(block.headerLn, is(3));
 
@@ -39,20 +42,20 @@ public class BlockTest {
         lines.add(new Line("mario", 18));
         lines.add(new Line("luigi", 19));
 
-        block = new Block(lines);
+        block = block(lines);
         assertThat(block.header, is("#nodes"));
         assertThat(block.headerLn, is(15));
     }
 
     @Test
     public void testAttributeInitializationAndGet() {
-        LinkedList<Line> lines = new LinkedList<>();
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
         lines.add(new Line("@attribute \t myLabel \t myMetric \t myRank", 7));
         lines.add(new Line("@type \t String", 9));
         lines.add(new Line("@default \t foo \t \t 8", 12));
 
-        Block block = new Block(lines);
+        Block block = block(lines);
         assertThat(block.attributeNames, is(new String[]{"@attribute", "myLabel", "myMetric", "myRank"}));
         assertThat(block.attributeNamesLn, is(7));
         assertThat(block.attributeTypes, is(new String[]{"@type", "String"}));
@@ -74,59 +77,81 @@ public class BlockTest {
     }
 
     @Test
-    public void testValuesInitializationAndGet() {
-        LinkedList<Line> lines = new LinkedList<>();
+    public void testValueRows() {
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
         lines.add(new Line("@attribute \t myLabel \t myMetric \t myRank", 7));
         lines.add(new Line("@default \t foo \t \t 8", 12));
         lines.add(new Line("luigi \t greenPlumber \t \t 2", 17));
         lines.add(new Line("mario \t redPlumber \t", 18));
 
-        Block block = new Block(lines);
-        assertThat(block.values[0], is(new String[]{"luigi", "greenPlumber", "", "2"}));
-        assertThat(block.valuesLn[0], is(17));
-        assertThat(block.values[1], is(new String[]{"mario", "redPlumber", "", ""}));
-        assertThat(block.valuesLn[1], is(18));
-
-        assertThat(block.getValue(0, 0), is("luigi"));
-        assertThat(block.getValue(0, 1), is("greenPlumber"));
-        assertThat(block.getValue(0, 2), is(""));
-        assertThat(block.getValue(0, 3), is("2"));
-
-        assertThat(block.getValue(1, 0), is("mario"));
-        assertThat(block.getValue(1, 1), is("redPlumber"));
-        assertThat(block.getValue(1, 2), is(""));
-        assertThat(block.getValue(1, 3), is(""));
+        LineCursor cursor = cursor(lines);
+        Block block = cursor.nextBlock();
+        List<String[]> rows = new ArrayList<>();
+        block.forEachValueRow(cursor, rows::add);
+        assertThat(rows.size(), is(2));
+        assertThat(rows.get(0), is(new String[]{"luigi", "greenPlumber", "", "2"}));
+        assertThat(rows.get(1), is(new String[]{"mario", "redPlumber", "", ""}));
+        assertThat(cursor.peek(), is(nullValue()));
     }
 
     @Test(expected = MalformedFileException.class)
     public void testMalformedAttributeLine() {
-        LinkedList<Line> lines = new LinkedList<>();
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
         lines.add(new Line("@attr \t myLabel \t myMetric \t myRank", 7));
         lines.add(new Line("@default \t foo \t \t 8", 12));
 
-        Block block = new Block(lines);
+        Block block = block(lines);
     }
 
     @Test(expected = MalformedFileException.class)
     public void testEmptyAttributeName() {
-        LinkedList<Line> lines = new LinkedList<>();
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
         lines.add(new Line("@attr \t myLabel \t \t myRank", 7));
         lines.add(new Line("@default \t foo \t \t 8", 12));
 
-        Block block = new Block(lines);
+        Block block = block(lines);
     }
 
     @Test(expected = MalformedFileException.class)
     public void testInvalidElementId() {
-        LinkedList<Line> lines = new LinkedList<>();
+        List<Line> lines = new ArrayList<>();
         lines.add(new Line("#graph", 3));
         lines.add(new Line("@attr \t myLabel \t \t myRank", 7));
         lines.add(new Line("@default \t foo \t \t 8", 12));
         lines.add(new Line("ab\"c\" \t foo \t \t 8", 16));
 
-        Block block = new Block(lines);
+        LineCursor cursor = cursor(lines);
+        cursor.nextBlock().forEachValueRow(cursor, row -> {
+        });
+    }
+
+    /**
+     * Builds a cursor over lines placed at their line numbers.
+     *
+     * @param lines the lines.
+     * @return the line cursor.
+     */
+    private static LineCursor cursor(List<Line> lines) {
+        List<String> text = new ArrayList<>();
+        for (Line line : lines) {
+            while (text.size() < line.lineNumber - 1) {
+                text.add("");
+            }
+            text.add(line.text);
+        }
+        return new LineCursor(text.iterator());
+    }
+
+    /**
+     * Reads the header and attribute lines of a block.
+     *
+     * @param lines the block lines.
+     * @return the block.
+     */
+    private static Block block(List<Line> lines) {
+        return cursor(lines).nextBlock();
     }
 }
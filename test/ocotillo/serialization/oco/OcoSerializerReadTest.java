@@ -17,7 +17,6 @@ package ocotillo.serialization.oco;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import ocotillo.dygraph.DyGraph;
 import ocotillo.dygraph.EvoBuilder;
@@ -28,17 +27,18 @@ import ocotillo.graph.Graph;
 import ocotillo.graph.Node;
 import ocotillo.graph.StdAttribute;
 import ocotillo.serialization.oco.OcoReader.Block;
+import ocotillo.serialization.oco.OcoReader.LineCursor;
 import ocotillo.serialization.oco.OcoReader.MalformedFileException;
 import ocotillo.geometry.Interval;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import org.junit.Test;
-import org.powermock.reflect.Whitebox;
 
 public class OcoSerializerReadTest {
 
     @Test
-    public void testGetBlocks() throws Exception {
+    public void testNextBlock() throws Exception {
         List<String> lines = new ArrayList<>();
         lines.add("");
         lines.add("#graph");
@@ -52,30 +52,52 @@ public class OcoSerializerReadTest {
         lines.add("#edges");
         lines.add("1e \t mario \t luigi");
 
-        LinkedList<Block> blocks = Whitebox.<LinkedList<Block>>invokeMethod(OcoReader.class, "getBlocks", lines);
-
-        assertThat(blocks.size(), is(3));
-
-        assertThat(blocks.get(0).header, is("#graph"));
-        assertThat(blocks.get(0).attributeNames, is(new String[]{"@attribute"}));
-        assertThat(blocks.get(0).attributeTypes, is(new String[]{"@type"}));
-        assertThat(blocks.get(0).attributeDefaults, is(new String[]{"@default"}));
-        assertThat(blocks.get(0).values.length, is(0));
-
-        assertThat(blocks.get(1).header, is("#nodes"));
-        assertThat(blocks.get(1).attributeNames, is(new String[]{"@attribute", "myLabel"}));
-        assertThat(blocks.get(1).attributeTypes, is(new String[]{"@type"}));
-        assertThat(blocks.get(1).attributeDefaults, is(new String[]{"@default"}));
-        assertThat(blocks.get(1).values.length, is(2));
-        assertThat(blocks.get(1).values[0], is(new String[]{"mario", "redPlumber", ""}));
-        assertThat(blocks.get(1).values[1], is(new String[]{"luigi", "", ""}));
-
-        assertThat(blocks.get(2).header, is("#edges"));
-        assertThat(blocks.get(2).attributeNames, is(new String[]{"@attribute"}));
-        assertThat(blocks.get(2).attributeTypes, is(new String[]{"@type"}));
-        assertThat(blocks.get(2).attributeDefaults, is(new String[]{"@default"}));
-        assertThat(blocks.get(2).values.length, is(1));
-        assertThat(blocks.get(2).values[0], is(new String[]{"1e", "mario", "luigi"}));
+        LineCursor cursor = new LineCursor(lines.iterator());
+        cursor.skipToHeader();
+
+        Block block = cursor.nextBlock();
+        assertThat(block.header, is("#graph"));
+        assertThat(block.headerLn, is(2));
+        assertThat(block.attributeNames, is(new String[]{"@attribute"}));
+        assertThat(block.attributeTypes, is(new String[]{"@type"}));
+        assertThat(block.attributeDefaults, is(new String[]{"@default"}));
+        assertThat(readRows(block, cursor).size(), is(0));
+
+        block = cursor.nextBlock();
+        assertThat(block.header, is("#nodes"));
+        assertThat(block.headerLn, is(5));
+        assertThat(block.attributeNames, is(new String[]{"@attribute", "myLabel"}));
+        assertThat(block.attributeTypes, is(new String[]{"@type"}));
+        assertThat(block.attributeDefaults, is(new String[]{"@default"}));
+        List<String[]> rows = readRows(block, cursor);
+        assertThat(rows.size(), is(2));
+        assertThat(rows.get(0), is(new String[]{"mario", "redPlumber", ""}));
+        assertThat(rows.get(1), is(new String[]{"luigi", "", ""}));
+
+        block = cursor.nextBlock();
+        assertThat(block.header, is("#edges"));
+        assertThat(block.headerLn, is(10));
+        assertThat(block.attributeNames, is(new String[]{"@attribute"}));
+        assertThat(block.attributeTypes, is(new String[]{"@type"}));
+        assertThat(block.attributeDefaults, is(new String[]{"@default"}));
+        rows = readRows(block, cursor);
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0), is(new String[]{"1e", "mario", "luigi"}));
+
+        assertThat(cursor.nextBlock(), is(nullValue()));
+    }
+
+    /**
+     * Reads the value rows of a block from the cursor.
+     *
+     * @param block the block.
+     * @param cursor the cursor positioned after the block attribute lines.
+     * @return the value rows.
+     */
+    private static List<String[]> readRows(Block block, LineCursor cursor) {
+        List<String[]> rows = new ArrayList<>();
+        block.forEachValueRow(cursor, rows::add);
+        return rows;
     }
 
     @Test
@@ -132,6 +154,46 @@ public class OcoSerializerReadTest {
         assertThat(graph.<Coordinates>nodeAttribute(StdAttribute.nodeSize).isDefault(luigi), is(true));
     }
 
+    @Test
+    public void testParseManyDynamicElements() {
+        int nodeCount = 10000;
+        List<String> lines = new ArrayList<>();
+        lines.add("#dygraph");
+        lines.add("#nodes");
+        lines.add("@attribute \t label \t nodePosition");
+        lines.add("@types \t  \t ");
+        lines.add("@default \t  \t ");
+        for (int i = 0; i < nodeCount; i++) {
+            lines.add("n" + i + " \t l" + i + " § const ^ [" + i + ".0, " + (i + 1) + ".0) ^ x \t (" + i + ".0, 1.0) § rect ^ [0.0, 1.0] ^ (0.0, 0.0) ^ (" + i + ".0, " + (2 * i) + ".0) ^ linear");
+        }
+        lines.add("#edges");
+        lines.add("@attribute \t @source \t @target \t label");
+        lines.add("@types");
+        lines.add("@default");
+        for (int i = 1; i < nodeCount; i++) {
+            lines.add("e" + i + " \t n" + (i - 1) + " \t n" + i + " \t e" + i);
+        }
+
+        OcoSerializer saver = new OcoSerializer();
+        DyGraph graph = saver.readDynamic(lines);
+
+        assertThat(graph.nodeCount(), is(nodeCount));
+        assertThat(graph.edgeCount(), is(nodeCount - 1));
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graph.getNode("n" + i);
+            assertThat(graph.<String>nodeAttribute(StdAttribute.label).get(node), is(EvoBuilder.defaultAt("l" + i)
+                    .withConst(Interval.newLeftClosed(i, i + 1), "x").build()));
+            assertThat(graph.<Coordinates>nodeAttribute(StdAttribute.nodePosition).get(node), is(EvoBuilder.defaultAt(new Coordinates(i, 1))
+                    .withRect(Interval.newClosed(0, 1), new Coordinates(0, 0), new Coordinates(i, 2 * i), Interpolation.Std.linear).build()));
+        }
+        for (int i = 1; i < nodeCount; i++) {
+            Edge edge = graph.getEdge("e" + i);
+            assertThat(edge.source(), is(graph.getNode("n" + (i - 1))));
+            assertThat(edge.target(), is(graph.getNode("n" + i)));
+            assertThat(graph.<String>edgeAttribute(StdAttribute.label).get(edge).getDefaultValue(), is("e" + i));
+        }
+    }
+
     @Test(expected = MalformedFileException.class)
     public void testConflictWithNodeStdAttributeType() {
         List<String> lines = new ArrayList<>();
@@ -16,6 +16,8 @@
 package ocotillo.serialization.oco;
 
 import java.awt.Color;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Iterator;
 import java.util.List;
 import ocotillo.dygraph.DyEdgeAttribute;
@@ -291,4 +293,36 @@ public class OcoSerializerWriteTest {
         assertThat(iterator.next(), is(""));
         assertThat(iterator.hasNext(), is(false));
     }
+
+    @Test
+    public void testStreamingRoundTrip() {
+        DyGraph graph = new DyGraph();
+        Node a = graph.newNode("a");
+        Node b = graph.newNode("b");
+        Edge ab = graph.newEdge("ab", a, b);
+
+        DyNodeAttribute<Boolean> presence = graph.nodeAttribute(StdAttribute.dyPresence);
+        presence.set(a, EvoBuilder.defaultAt(false).withConst(Interval.newClosed(0, 10), true).build());
+        DyNodeAttribute<Coordinates> positions = graph.nodeAttribute(StdAttribute.nodePosition);
+        positions.set(b, EvoBuilder.defaultAt(new Coordinates(1, 2))
+                .withRect(Interval.newClosed(2, 4), new Coordinates(1, 2), new Coordinates(3, 4), Interpolation.Std.linear)
+                .build());
+        DyEdgeAttribute<Color> color = graph.edgeAttribute(StdAttribute.color);
+        color.set(ab, EvoBuilder.defaultAt(Color.RED).build());
+        DyGraph subgraph = graph.newSubGraph();
+        subgraph.add(b);
+
+        OcoSerializer serializer = new OcoSerializer();
+        List<String> lines = serializer.write(graph);
+        StringWriter writer = new StringWriter();
+        serializer.write(graph, writer);
+        String separator = System.lineSeparator();
+        assertThat(writer.toString(), is(String.join(separator, lines) + separator));
+
+        DyGraph readGraph = serializer.readDynamic(new StringReader(writer.toString()));
+        assertThat(readGraph.nodeCount(), is(2));
+        assertThat(readGraph.edgeCount(), is(1));
+        assertThat(readGraph.subGraphs().size(), is(1));
+        assertThat(serializer.write(readGraph), is(lines));
+    }
 }
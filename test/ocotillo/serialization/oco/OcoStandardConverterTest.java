@@ -145,6 +145,22 @@ public class OcoStandardConverterTest {
         String stringRep = "alpha § const ^ [4.0, 9.0] ^ beta § rect ^ (9.0, 13.0] ^ beta ^ gamma ^ step";
         assertThat(converter.graphLibToOco(evolution), is(stringRep));
         assertThat(converter.ocoToGraphLib(stringRep), is(evolution));
+
+        Evolution<String> emptyValues = EvoBuilder.defaultAt("")
+                .withRect(Interval.newRightClosed(9, 13), "", "gamma", Interpolation.Std.step)
+                .withConst(Interval.newClosed(13, 20), "")
+                .build();
+        String emptyRep = " § rect ^ (9.0, 13.0] ^  ^ gamma ^ step § const ^ [13.0, 20.0] ^ ";
+        assertThat(converter.graphLibToOco(emptyValues), is(emptyRep));
+        assertThat(converter.ocoToGraphLib(emptyRep), is(emptyValues));
+    }
+
+    @Test
+    public void testTokenize() {
+        assertThat(OcoStandardConverter.tokenize("a ^ b ^ c", " ^ "), is(new String[]{"a", "b", "c"}));
+        assertThat(OcoStandardConverter.tokenize("a", " ^ "), is(new String[]{"a"}));
+        assertThat(OcoStandardConverter.tokenize(" ^ a ^ ", " ^ "), is(new String[]{"", "a", ""}));
+        assertThat(OcoStandardConverter.tokenize("a^b ^ c", " ^ "), is(new String[]{"a^b", "c"}));
     }
 
     @Test
@@ -202,6 +202,24 @@ public class IntervalTreeTest {
                 is(new DataClass(Interval.newOpen(7, 17)))));
     }
 
+    @Test
+    public void testGetAnyOverlappingWithCondition() {
+        IntervalTree<DataClass> tree = new IntervalTree<>();
+        tree.insert(new DataClass(Interval.newClosed(5, 7), 1));
+        tree.insert(new DataClass(Interval.newOpen(7, 17), 2));
+        tree.insert(new DataClass(Interval.newOpen(4, 5), 3));
+        tree.insert(new DataClass(Interval.newClosed(0, 3), 4));
+        tree.insert(new DataClass(Interval.newRightClosed(3, 4), 5));
+        tree.insert(new DataClass(Interval.newLeftClosed(2, 10), 6));
+
+        assertThat(tree.getAnyOverlapping(Interval.newClosed(3, 7), data -> data.id > 4), anyOf(
+                is(new DataClass(Interval.newRightClosed(3, 4), 5)), is(new DataClass(Interval.newLeftClosed(2, 10), 6))));
+        assertThat(tree.getAnyOverlapping(Interval.newClosed(3, 7), data -> data.id == 3),
+                is(new DataClass(Interval.newOpen(4, 5), 3)));
+        assertThat(tree.getAnyOverlapping(Interval.newClosed(3, 7), data -> data.id == 2), is(nullValue()));
+        assertThat(tree.getAnyOverlapping(Interval.newRightClosed(17, 23), data -> true), is(nullValue()));
+    }
+
     @Test
     public void testGetAllOverlappingWithPoint() {
         IntervalTree<DataClass> tree = new IntervalTree<>();
@@ -18,7 +18,9 @@ package ocotillo.structures;
 import lombok.EqualsAndHashCode;
 import ocotillo.geometry.Interval;
 import ocotillo.geometry.IntervalBox;
+import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import org.junit.Test;
@@ -179,6 +181,25 @@ public class MultidimIntervalTreeTest {
                 containsInAnyOrder(a));
     }
 
+    @Test
+    public void testGetAnyOverlappingWithCondition() {
+        MultidimIntervalTree<DataClass> tree = new MultidimIntervalTree<>(3);
+        DataClass a = new DataClass(1, Interval.newClosed(0, 10), Interval.newClosed(0, 10), Interval.newClosed(0, 10));
+        DataClass b = new DataClass(2, Interval.newClosed(9, 10), Interval.newClosed(0, 6), Interval.newClosed(4, 7));
+        DataClass c = new DataClass(3, Interval.newClosed(5, 13), Interval.newClosed(1, 7), Interval.newClosed(2, 6));
+        DataClass d = new DataClass(4, Interval.newClosed(2, 7), Interval.newClosed(4, 7), Interval.newClosed(0, 10));
+        DataClass e = new DataClass(5, Interval.newClosed(0, 10), Interval.newClosed(4, 7), Interval.newClosed(0, 10));
+        tree.insert(a);
+        tree.insert(b);
+        tree.insert(c);
+        tree.insert(d);
+        tree.insert(e);
+        IntervalBox box = IntervalBox.newInstance(Interval.newClosed(2, 4), Interval.newClosed(2, 7), Interval.newClosed(4, 5));
+        assertThat(tree.getAnyOverlapping(box, data -> true), anyOf(is(a), is(d), is(e)));
+        assertThat(tree.getAnyOverlapping(box, data -> data != a && data != e), is(d));
+        assertThat(tree.getAnyOverlapping(box, data -> data == b || data == c), is(nullValue()));
+    }
+
     @Test
     public void testGetAllContainedIn() {
         MultidimIntervalTree<DataClass> tree = new MultidimIntervalTree<>(3);